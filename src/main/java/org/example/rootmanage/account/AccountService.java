@@ -5,8 +5,9 @@ import org.example.rootmanage.account.dto.RegistrationRequest;
 import org.example.rootmanage.account.dto.RegistrationReviewRequest;
 import org.example.rootmanage.account.dto.ResetPasswordRequest;
 import org.example.rootmanage.account.dto.UpdatePersonnelRequest;
+import org.example.rootmanage.auth.TokenService;
+import org.example.rootmanage.option.OptionDictionary;
 import org.example.rootmanage.option.OptionItem;
-import org.example.rootmanage.option.OptionItemRepository;
 import org.example.rootmanage.role.Role;
 import org.example.rootmanage.role.RoleRepository;
 import org.hibernate.Hibernate;
@@ -23,9 +24,10 @@ import java.util.UUID;
 public class AccountService {
 
     private final UserAccountRepository userAccountRepository;
-    private final OptionItemRepository optionItemRepository;
+    private final OptionDictionary optionDictionary;
     private final RoleRepository roleRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
 
     public Optional<UserAccount> findByIdCard(String idCard) {
         return userAccountRepository.findByIdCard(idCard);
@@ -57,9 +59,9 @@ public class AccountService {
         userAccountRepository.findByPhone(request.getPhone()).ifPresent(u -> {
             throw new IllegalStateException("手机号已注册");
         });
-        OptionItem position = optionItemRepository.findById(request.getPositionId())
+        OptionItem position = optionDictionary.findById(request.getPositionId())
                 .orElseThrow(() -> new IllegalArgumentException("岗位选项不存在"));
-        OptionItem region = optionItemRepository.findById(request.getRegionId())
+        OptionItem region = optionDictionary.findById(request.getRegionId())
                 .orElseThrow(() -> new IllegalArgumentException("所属片区选项不存在"));
 
         UserAccount user = new UserAccount();
@@ -140,7 +142,9 @@ public class AccountService {
         Role role = roleRepository.findById(roleId)
                 .orElseThrow(() -> new IllegalArgumentException("角色不存在"));
         user.setRole(role);
-        return userAccountRepository.save(user);
+        UserAccount saved = userAccountRepository.save(user);
+        tokenService.invalidatePrincipal(userId);
+        return saved;
     }
 
     @Transactional
@@ -148,7 +152,9 @@ public class AccountService {
         UserAccount user = userAccountRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
         user.setStatus(status);
-        return userAccountRepository.save(user);
+        UserAccount saved = userAccountRepository.save(user);
+        tokenService.invalidatePrincipal(userId);
+        return saved;
     }
 
     /**
@@ -177,9 +183,9 @@ public class AccountService {
             });
         }
 
-        OptionItem position = optionItemRepository.findById(request.getPositionId())
+        OptionItem position = optionDictionary.findById(request.getPositionId())
                 .orElseThrow(() -> new IllegalArgumentException("岗位选项不存在"));
-        OptionItem region = optionItemRepository.findById(request.getRegionId())
+        OptionItem region = optionDictionary.findById(request.getRegionId())
                 .orElseThrow(() -> new IllegalArgumentException("所属片区选项不存在"));
 
         user.setName(request.getName());
@@ -192,6 +198,7 @@ public class AccountService {
         user.setRegion(region);
 
         UserAccount savedUser = userAccountRepository.save(user);
+        tokenService.invalidatePrincipal(userId);
         
         // 初始化懒加载的关联对象，确保序列化时不会出错
         if (savedUser.getRole() != null) {
@@ -216,6 +223,7 @@ public class AccountService {
                 .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
         user.setStatus(AccountStatus.DISABLED);
         userAccountRepository.save(user);
+        tokenService.invalidatePrincipal(userId);
     }
 
     /**
@@ -1,5 +1,7 @@
 package org.example.rootmanage.account;
 
+import org.example.rootmanage.auth.AuthenticatedPrincipal;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,6 +18,12 @@ public interface UserAccountRepository extends JpaRepository<UserAccount, UUID>
 
     Optional<UserAccount> findByUsername(String username);
 
+    /**
+     * 按用户名查询并同时加载角色（登录用，无需事务）
+     */
+    @EntityGraph(attributePaths = "role")
+    Optional<UserAccount> findWithRoleByUsername(String username);
+
     List<UserAccount> findByStatus(AccountStatus status);
 
     /**
@@ -29,5 +37,11 @@ public interface UserAccountRepository extends JpaRepository<UserAccount, UUID>
            "u.idCard LIKE %:keyword% OR " +
            "u.phone LIKE %:keyword%)")
     List<UserAccount> searchPersonnel(@Param("keyword") String keyword);
-}
 
+    /**
+     * 查询用户的鉴权快照（单条查询，不加载关联实体）
+     */
+    @Query("SELECT new org.example.rootmanage.auth.AuthenticatedPrincipal(u.id, u.username, u.status, r.id, r.name, g.id) " +
+           "FROM UserAccount u LEFT JOIN u.role r LEFT JOIN u.region g WHERE u.id = :id")
+    Optional<AuthenticatedPrincipal> findPrincipalById(@Param("id") UUID id);
+}
@@ -3,6 +3,7 @@ package org.example.rootmanage.auth;
 import lombok.RequiredArgsConstructor;
 import org.example.rootmanage.auth.dto.LoginRequest;
 import org.example.rootmanage.auth.dto.LoginResponse;
+import org.example.rootmanage.auth.dto.TokenResponse;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,5 +18,22 @@ public class AuthController {
     public LoginResponse login(@RequestBody @Validated LoginRequest request) {
         return authService.login(request);
     }
+
+    @PostMapping("/refresh")
+    public TokenResponse refresh(@RequestHeader("Authorization") String authorization) {
+        return authService.refresh(bearerToken(authorization));
+    }
+
+    @PostMapping("/logout")
+    public void logout(@RequestHeader("Authorization") String authorization) {
+        authService.logout(bearerToken(authorization));
+    }
+
+    private static String bearerToken(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new IllegalArgumentException("未授权，请先登录");
+        }
+        return authorization.substring(7);
+    }
 }
 
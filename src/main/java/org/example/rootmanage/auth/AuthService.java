@@ -6,16 +6,11 @@ import org.example.rootmanage.account.UserAccount;
 import org.example.rootmanage.account.UserAccountRepository;
 import org.example.rootmanage.auth.dto.LoginRequest;
 import org.example.rootmanage.auth.dto.LoginResponse;
-import org.example.rootmanage.module.dto.ModuleTreeNode;
-import org.example.rootmanage.permission.PermissionService;
+import org.example.rootmanage.auth.dto.TokenResponse;
+import org.example.rootmanage.permission.AccessibleModuleTreeCache;
 import org.example.rootmanage.role.Role;
-import org.hibernate.Hibernate;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -23,60 +18,64 @@ import java.util.UUID;
 public class AuthService {
 
     private final UserAccountRepository userAccountRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
-    private final PermissionService permissionService;
+    private final PasswordVerifier passwordVerifier;
+    private final AccessibleModuleTreeCache accessibleModuleTreeCache;
     private final TokenService tokenService;
+    private final LoginRateLimiter loginRateLimiter;
 
-    @Transactional(readOnly = true)
+    /**
+     * 登录
+     * 按用户名限流后，用户和角色一次查询加载；密码校验在受限的校验线程池中执行，且不在事务内（BCrypt 期间不占用数据库连接）
+     */
     public LoginResponse login(LoginRequest request) {
-        try {
-            UserAccount user = userAccountRepository.findByUsername(request.getUsername())
-                    .orElseThrow(() -> new IllegalArgumentException("用户名或密码错误"));
+        loginRateLimiter.acquireLoginByUsername(request.getUsername());
 
-            if (user.getStatus() != AccountStatus.APPROVED) {
-                throw new IllegalStateException("账号未审核通过或已被禁用");
-            }
+        UserAccount user = userAccountRepository.findWithRoleByUsername(request.getUsername())
+                .orElseThrow(() -> new IllegalArgumentException("用户名或密码错误"));
 
-            if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-                throw new IllegalArgumentException("用户名或密码错误");
-            }
+        if (user.getStatus() != AccountStatus.APPROVED) {
+            throw new IllegalStateException("账号未审核通过或已被禁用");
+        }
+
+        if (!passwordVerifier.matches(request.getPassword(), user.getPassword())) {
+            throw new IllegalArgumentException("用户名或密码错误");
+        }
 
-            // 初始化懒加载的 role 对象，确保在 Session 关闭前加载
-            Role role = null;
-            if (user.getRole() != null) {
-                Hibernate.initialize(user.getRole());
-                role = user.getRole();
-                // 访问属性确保完全加载
-                if (role != null) {
-                    role.getName();
-                    role.getDescription();
-                }
-            }
+        Role role = user.getRole();
+        UUID roleId = role != null ? role.getId() : null;
 
-            // 简单实现：生成一个简单的token（实际应使用JWT）
-            String token = UUID.randomUUID().toString().replace("-", "");
+        // 签发token（内存token或签名token，见 auth.token.mode）
+        String token = tokenService.issueToken(user.getId(), roleId);
 
-            // 存储token和用户ID的映射
-            tokenService.storeToken(token, user.getId());
+        // 获取用户角色有权限访问的模块树（按角色缓存的 JSON）
+        String modules = accessibleModuleTreeCache.getTreeJson(roleId);
 
-            // 获取用户角色有权限访问的模块树
-            List<ModuleTreeNode> modules = role != null 
-                    ? permissionService.getAccessibleModuleTree(role.getId())
-                    : new ArrayList<>();
+        return new LoginResponse(
+                user.getId(),
+                user.getUsername(),
+                user.getName(),
+                token,
+                role,
+                modules
+        );
+    }
 
-            return new LoginResponse(
-                    user.getId(),
-                    user.getUsername(),
-                    user.getName(),
-                    token,
-                    role,
-                    modules
-            );
-        } catch (Exception e) {
-            System.err.println("[登录服务] 登录失败: " + e.getMessage());
-            e.printStackTrace();
-            throw e; // 重新抛出异常，让异常处理器处理
+    /**
+     * 刷新token：用未过期的token换取新token，原token注销
+     */
+    public TokenResponse refresh(String token) {
+        String refreshed = tokenService.refreshToken(token);
+        if (refreshed == null) {
+            throw new IllegalArgumentException("Token无效或已过期");
         }
+        return new TokenResponse(refreshed);
+    }
+
+    /**
+     * 退出登录：注销token
+     */
+    public void logout(String token) {
+        tokenService.removeToken(token);
     }
 }
 
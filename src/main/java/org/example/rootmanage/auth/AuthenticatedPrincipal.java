@@ -0,0 +1,37 @@
+package org.example.rootmanage.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.example.rootmanage.account.AccountStatus;
+
+import java.util.UUID;
+
+/**
+ * 已认证用户的鉴权快照（不可变，与持久化上下文无关）
+ * 只包含请求鉴权需要的字段，由 {@link TokenService} 按 token 缓存
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedPrincipal {
+
+    private final UUID userId;
+    private final String username;
+    private final AccountStatus status;
+    private final UUID roleId;
+    private final String roleName;
+    private final UUID regionId;
+
+    /**
+     * 是否为管理员角色（ADMIN 拥有所有权限）
+     */
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(roleName);
+    }
+
+    /**
+     * 账号是否处于可用状态（已审核通过）
+     */
+    public boolean isActive() {
+        return status == AccountStatus.APPROVED;
+    }
+}
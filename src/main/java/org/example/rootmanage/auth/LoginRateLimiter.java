@@ -0,0 +1,72 @@
+package org.example.rootmanage.auth;
+
+import org.example.rootmanage.common.TokenBucketLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录、注册接口限流
+ * 这些接口不经过权限拦截，每次请求都会执行 BCrypt 或数据库查询；按来源IP和用户名分别限流，
+ * IP 限流在拦截器中执行（早于任何处理），用户名限流在密码校验之前执行。超出限制时返回 429。
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final String MESSAGE = "请求过于频繁，请稍后重试";
+
+    private final boolean enabled;
+    private final TokenBucketLimiter loginByIp;
+    private final TokenBucketLimiter loginByUsername;
+    private final TokenBucketLimiter registerByIp;
+
+    public LoginRateLimiter(@Value("${auth.rate-limit.enabled:true}") boolean enabled,
+                            @Value("${auth.rate-limit.period:1m}") Duration period,
+                            @Value("${auth.rate-limit.login-per-ip:30}") int loginPerIp,
+                            @Value("${auth.rate-limit.login-per-username:10}") int loginPerUsername,
+                            @Value("${auth.rate-limit.register-per-ip:60}") int registerPerIp,
+                            @Value("${auth.rate-limit.max-keys:100000}") int maxKeys) {
+        this.enabled = enabled;
+        this.loginByIp = new TokenBucketLimiter("login-ip", loginPerIp, period, maxKeys);
+        this.loginByUsername = new TokenBucketLimiter("login-username", loginPerUsername, period, maxKeys);
+        this.registerByIp = new TokenBucketLimiter("register-ip", registerPerIp, period, maxKeys);
+    }
+
+    /**
+     * 登录：按来源IP限流
+     */
+    public void acquireLoginByIp(String ip) {
+        acquire(loginByIp, ip);
+    }
+
+    /**
+     * 登录：按用户名限流
+     */
+    public void acquireLoginByUsername(String username) {
+        acquire(loginByUsername, username != null ? username.trim() : "");
+    }
+
+    /**
+     * 注册、身份证校验：按来源IP限流
+     */
+    public void acquireRegisterByIp(String ip) {
+        acquire(registerByIp, ip);
+    }
+
+    public List<TokenBucketLimiter.Stats> stats() {
+        return List.of(loginByIp.stats(), loginByUsername.stats(), registerByIp.stats());
+    }
+
+    private void acquire(TokenBucketLimiter limiter, String key) {
+        if (!enabled) {
+            return;
+        }
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            throw new RateLimitExceededException(MESSAGE, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        }
+    }
+}
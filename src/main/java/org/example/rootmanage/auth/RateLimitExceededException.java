@@ -0,0 +1,20 @@
+package org.example.rootmanage.auth;
+
+import lombok.Getter;
+
+/**
+ * 请求过于频繁（HTTP 429）
+ */
+@Getter
+public class RateLimitExceededException extends IllegalStateException {
+
+    /**
+     * 建议的重试等待秒数
+     */
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
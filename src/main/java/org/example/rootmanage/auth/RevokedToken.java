@@ -0,0 +1,33 @@
+package org.example.rootmanage.auth;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.rootmanage.common.BaseEntity;
+
+/**
+ * 已注销的签名token
+ * 所有节点共享，本节点吊销列表未命中时查询；token过期后记录即可清除。
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "auth_revoked_token",
+        indexes = @Index(name = "idx_revoked_token_expires", columnList = "expiresAt"))
+public class RevokedToken extends BaseEntity {
+
+    /**
+     * token编号
+     */
+    @Column(nullable = false, unique = true)
+    private Long tokenId;
+
+    /**
+     * token过期时间（epoch 秒）
+     */
+    @Column(nullable = false)
+    private Long expiresAt;
+}
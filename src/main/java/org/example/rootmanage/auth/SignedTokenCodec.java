@@ -0,0 +1,185 @@
+package org.example.rootmanage.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * 无状态签名token的编解码（HMAC-SHA256，仅依赖JDK）
+ * token = base64url(载荷) + "." + base64url(签名)，载荷为定长二进制：
+ * 版本(1) | 用户ID(16) | 角色ID(16，无角色时全 0) | 签发时间(8) | 过期时间(8) | token编号(8)，时间为 epoch 秒。
+ * 校验时解码到线程内复用的缓冲区，签名按固定长度逐字节比较（常量时间），只有校验通过才创建声明对象。
+ */
+public final class SignedTokenCodec {
+
+    /**
+     * token 声明
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Claims {
+        private final UUID userId;
+        private final UUID roleId;
+        private final long issuedAt;
+        private final long expiresAt;
+        /**
+         * token 编号，用于注销（吊销）
+         */
+        private final long tokenId;
+    }
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD_LENGTH = 1 + 16 + 16 + 8 + 8 + 8;
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final int PAYLOAD_CHARS = (PAYLOAD_LENGTH * 8 + 5) / 6;
+    private static final int SIGNATURE_CHARS = (SIGNATURE_LENGTH * 8 + 5) / 6;
+    private static final int TOKEN_LENGTH = PAYLOAD_CHARS + 1 + SIGNATURE_CHARS;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Buffers> buffers;
+
+    public SignedTokenCodec(byte[] secret) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(key));
+    }
+
+    /**
+     * 签发token
+     */
+    public String encode(Claims claims) {
+        Buffers b = buffers.get();
+        byte[] payload = b.payload;
+        payload[0] = VERSION;
+        putLong(payload, 1, claims.getUserId().getMostSignificantBits());
+        putLong(payload, 9, claims.getUserId().getLeastSignificantBits());
+        UUID roleId = claims.getRoleId();
+        putLong(payload, 17, roleId != null ? roleId.getMostSignificantBits() : 0);
+        putLong(payload, 25, roleId != null ? roleId.getLeastSignificantBits() : 0);
+        putLong(payload, 33, claims.getIssuedAt());
+        putLong(payload, 41, claims.getExpiresAt());
+        putLong(payload, 49, claims.getTokenId());
+        sign(b);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(b.expected);
+    }
+
+    /**
+     * 校验并解析token，格式错误、签名不符或已过期时返回 null
+     *
+     * @param now 当前 epoch 秒
+     */
+    public Claims decode(String token, long now) {
+        if (token == null || token.length() != TOKEN_LENGTH || token.charAt(PAYLOAD_CHARS) != '.') {
+            return null;
+        }
+        Buffers b = buffers.get();
+        if (!decode(token, 0, PAYLOAD_CHARS, b.payload) || !decode(token, PAYLOAD_CHARS + 1, TOKEN_LENGTH, b.actual)) {
+            return null;
+        }
+        sign(b);
+        int diff = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            diff |= b.expected[i] ^ b.actual[i];
+        }
+        byte[] payload = b.payload;
+        if (diff != 0 || payload[0] != VERSION) {
+            return null;
+        }
+        long expiresAt = getLong(payload, 41);
+        if (now >= expiresAt) {
+            return null;
+        }
+        long roleHigh = getLong(payload, 17);
+        long roleLow = getLong(payload, 25);
+        return new Claims(new UUID(getLong(payload, 1), getLong(payload, 9)),
+                roleHigh == 0 && roleLow == 0 ? null : new UUID(roleHigh, roleLow),
+                getLong(payload, 33), expiresAt, getLong(payload, 49));
+    }
+
+    private static void sign(Buffers b) {
+        try {
+            b.mac.update(b.payload, 0, PAYLOAD_LENGTH);
+            b.mac.doFinal(b.expected, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("token签名失败", e);
+        }
+    }
+
+    /**
+     * 无填充 base64url 解码到定长数组，字符非法或长度不符时返回 false
+     */
+    private static boolean decode(String s, int from, int to, byte[] out) {
+        int bits = 0;
+        int buffer = 0;
+        int position = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            int value = c < 128 ? DECODE_TABLE[c] : -1;
+            if (value < 0) {
+                return false;
+            }
+            buffer = (buffer << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                if (position == out.length) {
+                    return false;
+                }
+                out[position++] = (byte) (buffer >> bits);
+            }
+        }
+        // 末尾不足一字节的位必须为 0，保证每个token只有一种编码
+        return position == out.length && (buffer & ((1 << bits) - 1)) == 0;
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * 每个线程复用的 Mac 实例和缓冲区
+     */
+    private static final class Buffers {
+        private final Mac mac;
+        private final byte[] payload = new byte[PAYLOAD_LENGTH];
+        private final byte[] expected = new byte[SIGNATURE_LENGTH];
+        private final byte[] actual = new byte[SIGNATURE_LENGTH];
+
+        private Buffers(SecretKeySpec key) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("不支持的签名算法: " + ALGORITHM, e);
+            }
+        }
+    }
+}
@@ -1,28 +1,128 @@
 package org.example.rootmanage.auth;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.example.rootmanage.account.UserAccount;
 import org.example.rootmanage.account.UserAccountRepository;
+import org.example.rootmanage.auth.SignedTokenCodec.Claims;
+import org.example.rootmanage.common.AfterCommit;
 import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Token服务，用于存储和验证token
+ * Token服务，用于签发、存储和验证token
+ * memory 模式（默认）：随机token，token -> 用户ID 保存在本节点内存中，不过期，重启后失效；
+ * signed 模式：HMAC 签名的无状态token，声明中带用户、角色和过期时间，任一节点持有相同密钥即可校验，
+ * 注销的token写入共享的注销记录表（auth_revoked_token），并记入本节点的吊销列表直到其过期；
+ * 其他节点在鉴权快照未命中时查询注销记录，已缓存的快照最迟在 auth.principal-cache.ttl 后失效。
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class TokenService {
 
     private final UserAccountRepository userAccountRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
     
     // token -> userId 的映射（内存存储）
     private final Map<String, UUID> tokenMap = new ConcurrentHashMap<>();
 
+    /**
+     * token -> 鉴权快照缓存，按条数和有效期限制
+     */
+    private final Map<String, CachedPrincipal> principalCache = new ConcurrentHashMap<>();
+
+    @Value("${auth.principal-cache.max-size:10000}")
+    private int principalCacheMaxSize = 10000;
+
+    @Value("${auth.principal-cache.ttl:5m}")
+    private Duration principalCacheTtl = Duration.ofMinutes(5);
+
+    private record CachedPrincipal(AuthenticatedPrincipal principal, long expiresAt) {
+    }
+
+    private static final String SIGNED_MODE = "signed";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Value("${auth.token.mode:memory}")
+    private String tokenMode = "memory";
+
+    @Value("${auth.token.secret:}")
+    private String tokenSecret = "";
+
+    @Value("${auth.token.ttl:8h}")
+    private Duration tokenTtl = Duration.ofHours(8);
+
+    /**
+     * signed 模式的编解码器，memory 模式下为 null
+     */
+    private SignedTokenCodec codec;
+
+    /**
+     * 本节点已知的注销签名token：token编号 -> 过期时间（epoch 秒），过期后清除
+     */
+    private final Map<Long, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!SIGNED_MODE.equalsIgnoreCase(tokenMode)) {
+            return;
+        }
+        byte[] secret;
+        if (tokenSecret == null || tokenSecret.isBlank()) {
+            // 未配置密钥时随机生成：重启后已签发的token失效，多节点部署必须配置相同的密钥
+            secret = new byte[MIN_SECRET_BYTES];
+            RANDOM.nextBytes(secret);
+            log.warn("未配置 auth.token.secret，已生成随机密钥，仅适用于单节点");
+        } else {
+            secret = tokenSecret.getBytes(StandardCharsets.UTF_8);
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("auth.token.secret 至少需要 " + MIN_SECRET_BYTES + " 字节");
+            }
+        }
+        codec = new SignedTokenCodec(secret);
+    }
+
+    /**
+     * 为登录用户签发token
+     */
+    public String issueToken(UUID userId, UUID roleId) {
+        if (codec == null) {
+            String token = UUID.randomUUID().toString().replace("-", "");
+            storeToken(token, userId);
+            return token;
+        }
+        long now = epochSecond();
+        return codec.encode(new Claims(userId, roleId, now, now + tokenTtl.toSeconds(), RANDOM.nextLong()));
+    }
+
+    /**
+     * 用有效的token换取新token，原token随即注销；token无效或账号不可用时返回 null
+     */
+    public String refreshToken(String token) {
+        AuthenticatedPrincipal principal = getPrincipal(token);
+        if (principal == null || !principal.isActive()) {
+            return null;
+        }
+        String refreshed = issueToken(principal.getUserId(), principal.getRoleId());
+        removeToken(token);
+        return refreshed;
+    }
+
     /**
      * 存储token和用户ID的映射
      */
@@ -34,7 +134,33 @@ public class TokenService {
      * 根据token获取用户ID
      */
     public UUID getUserIdByToken(String token) {
-        return tokenMap.get(token);
+        if (codec == null) {
+            return tokenMap.get(token);
+        }
+        Claims claims = verify(token);
+        return claims != null ? claims.getUserId() : null;
+    }
+
+    /**
+     * 校验签名token：签名、过期时间和注销记录
+     */
+    private Claims verify(String token) {
+        Claims claims = codec.decode(token, epochSecond());
+        return claims != null && !isRevoked(claims) ? claims : null;
+    }
+
+    /**
+     * 先查本节点吊销列表，未命中时查询共享的注销记录（其他节点注销的token），命中后记入本节点
+     */
+    private boolean isRevoked(Claims claims) {
+        if (revokedTokens.containsKey(claims.getTokenId())) {
+            return true;
+        }
+        if (revokedTokenRepository.existsByTokenId(claims.getTokenId())) {
+            revokedTokens.put(claims.getTokenId(), claims.getExpiresAt());
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -66,18 +192,112 @@ public class TokenService {
         return user;
     }
 
+    /**
+     * 根据token获取鉴权快照，优先读缓存，未命中或过期时单条查询加载
+     * 用于请求鉴权，不开启事务、不加载用户实体
+     */
+    public AuthenticatedPrincipal getPrincipal(String token) {
+        long now = System.nanoTime();
+        CachedPrincipal cached = principalCache.get(token);
+        if (cached != null && now - cached.expiresAt() < 0) {
+            return cached.principal();
+        }
+        long ttl = principalCacheTtl.toNanos();
+        UUID userId;
+        if (codec == null) {
+            userId = tokenMap.get(token);
+        } else {
+            Claims claims = verify(token);
+            userId = claims != null ? claims.getUserId() : null;
+            if (claims != null) {
+                // 快照不能比签名token活得更久
+                ttl = Math.min(ttl, TimeUnit.SECONDS.toNanos(claims.getExpiresAt() - epochSecond()));
+            }
+        }
+        if (userId == null) {
+            principalCache.remove(token);
+            return null;
+        }
+        AuthenticatedPrincipal principal = userAccountRepository.findPrincipalById(userId).orElse(null);
+        if (principal == null) {
+            principalCache.remove(token);
+            return null;
+        }
+        if (principalCache.size() >= principalCacheMaxSize) {
+            evict(now);
+        }
+        principalCache.put(token, new CachedPrincipal(principal, now + ttl));
+        return principal;
+    }
+
+    /**
+     * 用户角色、状态等鉴权信息变更后清除该用户的缓存快照（提交后生效）
+     */
+    public void invalidatePrincipal(UUID userId) {
+        AfterCommit.run(() -> principalCache.values().removeIf(cached -> cached.principal().getUserId().equals(userId)));
+    }
+
+    /**
+     * 角色修改或删除后清除该角色下所有用户的缓存快照（提交后生效），角色名决定是否为管理员
+     */
+    public void invalidatePrincipalsByRole(UUID roleId) {
+        AfterCommit.run(() -> principalCache.values().removeIf(cached -> roleId.equals(cached.principal().getRoleId())));
+    }
+
+    /**
+     * 缓存已满时先清除过期的快照，仍超过上限的 90% 时任意淘汰多出的部分
+     */
+    private void evict(long now) {
+        principalCache.values().removeIf(cached -> now - cached.expiresAt() >= 0);
+        int excess = principalCache.size() - principalCacheMaxSize * 9 / 10;
+        Iterator<CachedPrincipal> iterator = principalCache.values().iterator();
+        while (excess-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
     /**
      * 移除token
      */
     public void removeToken(String token) {
-        tokenMap.remove(token);
+        if (codec == null) {
+            tokenMap.remove(token);
+        } else {
+            Claims claims = codec.decode(token, epochSecond());
+            if (claims != null && !isRevoked(claims)) {
+                // 先写共享记录，写入失败时本节点也不记为已注销，重试注销会再次写入
+                RevokedToken revoked = new RevokedToken();
+                revoked.setTokenId(claims.getTokenId());
+                revoked.setExpiresAt(claims.getExpiresAt());
+                revokedTokenRepository.save(revoked);
+                revokedTokens.put(claims.getTokenId(), claims.getExpiresAt());
+            }
+        }
+        principalCache.remove(token);
+    }
+
+    /**
+     * 清除吊销列表和注销记录中已过期的token（过期的token本身就无法通过校验）
+     */
+    @Scheduled(fixedDelayString = "${auth.token.revocation-prune-interval-ms:600000}")
+    public void pruneRevokedTokens() {
+        long now = epochSecond();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        if (codec != null) {
+            revokedTokenRepository.deleteExpired(now);
+        }
+    }
+
+    private static long epochSecond() {
+        return System.currentTimeMillis() / 1000;
     }
 
     /**
      * 验证token是否有效
      */
     public boolean isValidToken(String token) {
-        return token != null && tokenMap.containsKey(token);
+        return token != null && getUserIdByToken(token) != null;
     }
 }
 
@@ -1,12 +1,11 @@
 package org.example.rootmanage.auth.dto;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.example.rootmanage.module.dto.ModuleTreeNode;
 import org.example.rootmanage.role.Role;
 
-import java.util.List;
 import java.util.UUID;
 
 @Data
@@ -16,8 +15,9 @@ public class LoginResponse {
     private UUID userId;
     private String username;
     private String name;
-    private String token;  // 简单实现，实际应使用JWT
+    private String token;  // 访问token（内存token或签名token，见 auth.token.mode）
     private Role role;
-    private List<ModuleTreeNode> modules;  // 用户有权限访问的模块树
+    @JsonRawValue
+    private String modules;  // 用户有权限访问的模块树（按角色缓存的 JSON）
 }
 
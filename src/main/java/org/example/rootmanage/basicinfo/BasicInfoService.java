@@ -16,13 +16,16 @@ import org.example.rootmanage.basicinfo.entity.MarketingPersonnel;
 import org.example.rootmanage.basicinfo.entity.Product;
 import org.example.rootmanage.basicinfo.entity.SalesArea;
 import org.example.rootmanage.basicinfo.entity.Team;
+import org.example.rootmanage.option.OptionDictionary;
 import org.example.rootmanage.option.OptionItem;
-import org.example.rootmanage.option.OptionItemRepository;
+import org.example.rootmanage.search.KeywordSearchIndex;
+import org.example.rootmanage.search.SearchDomain;
 import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,8 +39,9 @@ public class BasicInfoService {
     private final ProductRepository productRepository;
     private final SalesAreaRepository salesAreaRepository;
     private final MarketingPersonnelRepository marketingPersonnelRepository;
-    private final OptionItemRepository optionItemRepository;
+    private final OptionDictionary optionDictionary;
     private final UserAccountRepository userAccountRepository;
+    private final KeywordSearchIndex keywordSearchIndex;
 
     // ========== 客户管理 ==========
 
@@ -45,7 +49,9 @@ public class BasicInfoService {
     public List<Customer> findAllCustomers(String keyword) {
         List<Customer> customers;
         if (keyword != null && !keyword.trim().isEmpty()) {
-            customers = customerRepository.searchCustomers(keyword.trim());
+            String trimmed = keyword.trim();
+            customers = keywordSearchIndex.search(SearchDomain.CUSTOMER, trimmed, customerRepository::findAllById)
+                    .orElseGet(() -> customerRepository.searchCustomers(trimmed));
         } else {
             customers = customerRepository.findAll();
         }
@@ -75,18 +81,20 @@ public class BasicInfoService {
         customer.setActive(request.getActive() != null ? request.getActive() : true);
 
         if (request.getCustomerTypeId() != null) {
-            OptionItem customerType = optionItemRepository.findById(request.getCustomerTypeId())
+            OptionItem customerType = optionDictionary.findById(request.getCustomerTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("客户类型选项不存在"));
             customer.setCustomerType(customerType);
         }
 
         if (request.getIndustryId() != null) {
-            OptionItem industry = optionItemRepository.findById(request.getIndustryId())
+            OptionItem industry = optionDictionary.findById(request.getIndustryId())
                     .orElseThrow(() -> new IllegalArgumentException("所属行业选项不存在"));
             customer.setIndustry(industry);
         }
 
-        return customerRepository.save(customer);
+        Customer saved = customerRepository.save(customer);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.CUSTOMER, saved.getId());
+        return saved;
     }
 
     @Transactional
@@ -94,6 +102,7 @@ public class BasicInfoService {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("客户不存在"));
 
+        boolean nameChanged = !Objects.equals(customer.getCustomerName(), request.getCustomerName());
         customer.setCustomerName(request.getCustomerName());
         customer.setContactPerson(request.getContactPerson());
         customer.setContactPhone(request.getContactPhone());
@@ -107,7 +116,7 @@ public class BasicInfoService {
         }
 
         if (request.getCustomerTypeId() != null) {
-            OptionItem customerType = optionItemRepository.findById(request.getCustomerTypeId())
+            OptionItem customerType = optionDictionary.findById(request.getCustomerTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("客户类型选项不存在"));
             customer.setCustomerType(customerType);
         } else {
@@ -115,7 +124,7 @@ public class BasicInfoService {
         }
 
         if (request.getIndustryId() != null) {
-            OptionItem industry = optionItemRepository.findById(request.getIndustryId())
+            OptionItem industry = optionDictionary.findById(request.getIndustryId())
                     .orElseThrow(() -> new IllegalArgumentException("所属行业选项不存在"));
             customer.setIndustry(industry);
         } else {
@@ -123,6 +132,11 @@ public class BasicInfoService {
         }
 
         Customer saved = customerRepository.save(customer);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.CUSTOMER, id);
+        if (nameChanged) {
+            // 客户名称同时参与销售机会、报价单、投标记录的检索
+            keywordSearchIndex.refreshCustomerNameAfterCommit(id);
+        }
         // 初始化懒加载的关联对象
         if (saved.getCustomerType() != null) {
             Hibernate.initialize(saved.getCustomerType());
@@ -273,7 +287,7 @@ public class BasicInfoService {
         }
 
         if (request.getDepartmentId() != null) {
-            OptionItem department = optionItemRepository.findById(request.getDepartmentId())
+            OptionItem department = optionDictionary.findById(request.getDepartmentId())
                     .orElseThrow(() -> new IllegalArgumentException("所属部门选项不存在"));
             team.setDepartment(department);
         }
@@ -302,7 +316,7 @@ public class BasicInfoService {
         }
 
         if (request.getDepartmentId() != null) {
-            OptionItem department = optionItemRepository.findById(request.getDepartmentId())
+            OptionItem department = optionDictionary.findById(request.getDepartmentId())
                     .orElseThrow(() -> new IllegalArgumentException("所属部门选项不存在"));
             team.setDepartment(department);
         } else {
@@ -373,13 +387,13 @@ public class BasicInfoService {
         product.setActive(request.getActive() != null ? request.getActive() : true);
 
         if (request.getProductTypeId() != null) {
-            OptionItem productType = optionItemRepository.findById(request.getProductTypeId())
+            OptionItem productType = optionDictionary.findById(request.getProductTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("产品类型选项不存在"));
             product.setProductType(productType);
         }
 
         if (request.getProductCategoryId() != null) {
-            OptionItem productCategory = optionItemRepository.findById(request.getProductCategoryId())
+            OptionItem productCategory = optionDictionary.findById(request.getProductCategoryId())
                     .orElseThrow(() -> new IllegalArgumentException("产品分类选项不存在"));
             product.setProductCategory(productCategory);
         }
@@ -415,7 +429,7 @@ public class BasicInfoService {
         }
 
         if (request.getProductTypeId() != null) {
-            OptionItem productType = optionItemRepository.findById(request.getProductTypeId())
+            OptionItem productType = optionDictionary.findById(request.getProductTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("产品类型选项不存在"));
             product.setProductType(productType);
         } else {
@@ -423,7 +437,7 @@ public class BasicInfoService {
         }
 
         if (request.getProductCategoryId() != null) {
-            OptionItem productCategory = optionItemRepository.findById(request.getProductCategoryId())
+            OptionItem productCategory = optionDictionary.findById(request.getProductCategoryId())
                     .orElseThrow(() -> new IllegalArgumentException("产品分类选项不存在"));
             product.setProductCategory(productCategory);
         } else {
@@ -482,7 +496,7 @@ public class BasicInfoService {
         salesArea.setActive(request.getActive() != null ? request.getActive() : true);
 
         if (request.getSuperiorDepartmentId() != null) {
-            OptionItem department = optionItemRepository.findById(request.getSuperiorDepartmentId())
+            OptionItem department = optionDictionary.findById(request.getSuperiorDepartmentId())
                     .orElseThrow(() -> new IllegalArgumentException("上级部门选项不存在"));
             salesArea.setSuperiorDepartment(department);
         }
@@ -513,7 +527,7 @@ public class BasicInfoService {
         }
 
         if (request.getSuperiorDepartmentId() != null) {
-            OptionItem department = optionItemRepository.findById(request.getSuperiorDepartmentId())
+            OptionItem department = optionDictionary.findById(request.getSuperiorDepartmentId())
                     .orElseThrow(() -> new IllegalArgumentException("上级部门选项不存在"));
             salesArea.setSuperiorDepartment(department);
         } else {
@@ -541,7 +555,10 @@ public class BasicInfoService {
     public List<MarketingPersonnel> findAllMarketingPersonnel(String keyword) {
         List<MarketingPersonnel> personnelList;
         if (keyword != null && !keyword.trim().isEmpty()) {
-            personnelList = marketingPersonnelRepository.searchMarketingPersonnel(keyword.trim());
+            String trimmed = keyword.trim();
+            personnelList = keywordSearchIndex.search(SearchDomain.MARKETING_PERSONNEL, trimmed,
+                            marketingPersonnelRepository::findAllById)
+                    .orElseGet(() -> marketingPersonnelRepository.searchMarketingPersonnel(trimmed));
         } else {
             personnelList = marketingPersonnelRepository.findAll();
         }
@@ -583,6 +600,7 @@ public class BasicInfoService {
         }
 
         MarketingPersonnel saved = marketingPersonnelRepository.save(personnel);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.MARKETING_PERSONNEL, saved.getId());
         if (saved.getResponsibleArea() != null) {
             Hibernate.initialize(saved.getResponsibleArea());
         }
@@ -613,6 +631,7 @@ public class BasicInfoService {
         }
 
         MarketingPersonnel saved = marketingPersonnelRepository.save(personnel);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.MARKETING_PERSONNEL, saved.getId());
         if (saved.getResponsibleArea() != null) {
             Hibernate.initialize(saved.getResponsibleArea());
         }
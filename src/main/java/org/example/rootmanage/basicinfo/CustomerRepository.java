@@ -1,10 +1,12 @@
 package org.example.rootmanage.basicinfo;
 
 import org.example.rootmanage.basicinfo.entity.Customer;
+import org.example.rootmanage.search.SearchDocument;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,6 +22,20 @@ public interface CustomerRepository extends JpaRepository<Customer, UUID> {
            "c.contactPhone LIKE %:keyword%)")
     List<Customer> searchCustomers(@Param("keyword") String keyword);
 
+    /**
+     * 参与关键词索引的客户字段（投影，与 searchCustomers 的匹配范围一致），新记录在前
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(c.id, c.customerName, c.contactPerson, c.contactPhone) " +
+           "FROM Customer c ORDER BY c.createTime DESC, c.id DESC")
+    List<SearchDocument> findSearchDocuments();
+
+    /**
+     * 按ID查询参与关键词索引的客户字段（投影），用于写入提交后增量更新索引
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(c.id, c.customerName, c.contactPerson, c.contactPhone) " +
+           "FROM Customer c WHERE c.id IN :ids")
+    List<SearchDocument> findSearchDocuments(@Param("ids") Collection<UUID> ids);
+
     /**
      * 查询所有启用的客户
      */
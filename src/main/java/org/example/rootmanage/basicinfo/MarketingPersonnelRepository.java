@@ -1,10 +1,12 @@
 package org.example.rootmanage.basicinfo;
 
 import org.example.rootmanage.basicinfo.entity.MarketingPersonnel;
+import org.example.rootmanage.search.SearchDocument;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,6 +21,20 @@ public interface MarketingPersonnelRepository extends JpaRepository<MarketingPer
            "mp.contactInfo LIKE %:keyword%)")
     List<MarketingPersonnel> searchMarketingPersonnel(@Param("keyword") String keyword);
 
+    /**
+     * 参与关键词索引的营销人员字段（投影，与 searchMarketingPersonnel 的匹配范围一致），新记录在前
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(mp.id, mp.name, mp.contactInfo) " +
+           "FROM MarketingPersonnel mp ORDER BY mp.createTime DESC, mp.id DESC")
+    List<SearchDocument> findSearchDocuments();
+
+    /**
+     * 按ID查询参与关键词索引的营销人员字段（投影），用于写入提交后增量更新索引
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(mp.id, mp.name, mp.contactInfo) " +
+           "FROM MarketingPersonnel mp WHERE mp.id IN :ids")
+    List<SearchDocument> findSearchDocuments(@Param("ids") Collection<UUID> ids);
+
     /**
      * 查询所有启用的营销人员
      */
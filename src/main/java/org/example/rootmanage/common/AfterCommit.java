@@ -0,0 +1,43 @@
+package org.example.rootmanage.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务提交后执行
+ * 内存状态（缓存、写后缓冲等）只应反映已提交的数据，处于事务中时把动作延迟到提交后，否则立即执行。
+ * 提交后的动作失败只记录日志：事务已提交，异常既不应变成调用方的错误响应，也不应中断其后注册的其他提交后回调。
+ */
+@Slf4j
+public final class AfterCommit {
+
+    /**
+     * 当前线程是否正在执行提交后回调
+     * 回调执行期间事务同步仍处于激活状态，但此时注册的同步不会再被触发，嵌套调用需立即执行
+     */
+    private static final ThreadLocal<Boolean> IN_CALLBACK = new ThreadLocal<>();
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive() && IN_CALLBACK.get() == null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    IN_CALLBACK.set(Boolean.TRUE);
+                    try {
+                        action.run();
+                    } catch (RuntimeException e) {
+                        log.error("事务提交后的回调执行失败", e);
+                    } finally {
+                        IN_CALLBACK.remove();
+                    }
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.rootmanage.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * 键集分页结果
+ * nextCursor 为 null 表示没有下一页
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    /**
+     * 由多查询一行的结果构造分页：结果超过 size 行时说明还有下一页，游标取第 size 行
+     *
+     * @param rows 按 创建时间、ID 倒序查询的 size + 1 行
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size,
+                                       Function<T, LocalDateTime> createTime, Function<T, UUID> id) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        T last = items.get(size - 1);
+        return new CursorPage<>(items, new KeysetCursor(createTime.apply(last), id.apply(last)).encode());
+    }
+}
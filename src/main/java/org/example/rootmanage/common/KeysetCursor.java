@@ -0,0 +1,83 @@
+package org.example.rootmanage.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * 键集分页游标：上一页最后一行的 (创建时间, ID)
+ * 列表按 创建时间 倒序、ID 倒序排列，下一页条件为 createTime < t OR (createTime = t AND id < id)，
+ * 配合 (create_time, id) 索引，翻到任意深度都只扫描一页的数据。游标对客户端不透明（base64url 编码）。
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+    /**
+     * 默认每页条数
+     */
+    public static final int DEFAULT_SIZE = 50;
+
+    /**
+     * 每页条数上限
+     */
+    public static final int MAX_SIZE = 200;
+
+    private static final int LENGTH = 8 + 4 + 16;
+
+    private final LocalDateTime createTime;
+    private final UUID id;
+
+    /**
+     * 解析游标，为空时返回 null（第一页）
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+        if (bytes.length != LENGTH) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        if (nanos < 0 || nanos > 999_999_999) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+        LocalDateTime createTime = LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        return new KeysetCursor(createTime, new UUID(buffer.getLong(), buffer.getLong()));
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .putLong(createTime.toEpochSecond(ZoneOffset.UTC))
+                .putInt(createTime.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 规范每页条数：为空时取默认值，超出上限时取上限
+     */
+    public static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("每页条数必须大于0");
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
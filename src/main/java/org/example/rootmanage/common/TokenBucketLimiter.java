@@ -0,0 +1,124 @@
+package org.example.rootmanage.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 按键限流的令牌桶（无锁）
+ * 每个键的桶只用一个 long 表示：桶重新装满的时刻（GCRA 算法，与令牌桶等价）。
+ * 取令牌时对该值做 CAS：新值 = max(原值, 当前时间) + 补充间隔，新值超出 当前时间 + 容量×补充间隔 即为令牌耗尽。
+ * 键的数量有上限：超出时清理已装满的桶（与不存在等价），仍超出时再淘汰部分未装满的桶。
+ */
+public final class TokenBucketLimiter {
+
+    /**
+     * 限流统计
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final String name;
+        private final long allowed;
+        private final long rejected;
+        private final long evicted;
+        private final int keys;
+    }
+
+    private final String name;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * @param name     名称（用于统计）
+     * @param capacity 桶容量（允许的突发请求数）
+     * @param period   补充满 capacity 个令牌所需的时间
+     * @param maxKeys  最多保留的键数
+     */
+    public TokenBucketLimiter(String name, int capacity, Duration period, int maxKeys) {
+        this(name, capacity, period, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketLimiter(String name, int capacity, Duration period, int maxKeys, LongSupplier clock) {
+        if (capacity <= 0 || period.isZero() || period.isNegative() || maxKeys <= 0) {
+            throw new IllegalArgumentException("限流参数无效: " + name);
+        }
+        this.name = name;
+        this.intervalNanos = Math.max(1, period.toNanos() / capacity);
+        this.burstNanos = intervalNanos * capacity;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    /**
+     * 尝试为键取一个令牌
+     *
+     * @return 0 表示放行，否则为需要等待的纳秒数
+     */
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                sweep(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + intervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                rejected.increment();
+                return excess;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(name, allowed.sum(), rejected.sum(), evicted.sum(), buckets.size());
+    }
+
+    /**
+     * 清理已装满的桶；仍超出上限时淘汰部分桶，降到上限的 3/4
+     * 同一时刻只有一个线程执行，其他线程直接跳过
+     */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.entrySet().removeIf(entry -> entry.getValue().get() <= now);
+            int target = maxKeys - maxKeys / 4;
+            Iterator<AtomicLong> iterator = buckets.values().iterator();
+            while (buckets.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evicted.increment();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.rootmanage.common;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * UUID 与 BINARY(16) 列之间的转换工具
+ * Hibernate 在 MySQL 上以 binary(16) 存储 UUID，绕过 JPA 直接用 JDBC 读写时需按相同字节序编码
+ */
+public final class UuidBytes {
+
+    private UuidBytes() {
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -3,8 +3,8 @@ package org.example.rootmanage.companyinfo;
 import lombok.RequiredArgsConstructor;
 import org.example.rootmanage.companyinfo.dto.CompanyInfoReleaseRequest;
 import org.example.rootmanage.companyinfo.entity.CompanyInfoRelease;
+import org.example.rootmanage.option.OptionDictionary;
 import org.example.rootmanage.option.OptionItem;
-import org.example.rootmanage.option.OptionItemRepository;
 import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,7 +18,7 @@ import java.util.UUID;
 public class CompanyInfoService {
 
     private final CompanyInfoReleaseRepository companyInfoReleaseRepository;
-    private final OptionItemRepository optionItemRepository;
+    private final OptionDictionary optionDictionary;
 
     /**
      * 查询所有启用的信息发布
@@ -67,7 +67,7 @@ public class CompanyInfoService {
 
         // 设置类型
         if (request.getTypeId() != null) {
-            OptionItem type = optionItemRepository.findById(request.getTypeId())
+            OptionItem type = optionDictionary.findById(request.getTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("类型不存在"));
             release.setType(type);
         }
@@ -89,7 +89,7 @@ public class CompanyInfoService {
 
         // 更新类型
         if (request.getTypeId() != null) {
-            OptionItem type = optionItemRepository.findById(request.getTypeId())
+            OptionItem type = optionDictionary.findById(request.getTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("类型不存在"));
             release.setType(type);
         }
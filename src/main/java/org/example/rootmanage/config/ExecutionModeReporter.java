@@ -0,0 +1,36 @@
+package org.example.rootmanage.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时输出请求执行模式（平台线程 / 虚拟线程）
+ * 虚拟线程模式见 application-virtual.yml；运行时低于 Java 21 时该配置不生效，这里给出警告。
+ */
+@Slf4j
+@Component
+public class ExecutionModeReporter {
+
+    private static final int VIRTUAL_THREADS_MIN_VERSION = 21;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        int javaVersion = Runtime.version().feature();
+        if (virtualThreads && javaVersion < VIRTUAL_THREADS_MIN_VERSION) {
+            log.warn("已开启虚拟线程模式，但当前运行时为 Java {}（需 {} 及以上），仍使用平台线程池",
+                    javaVersion, VIRTUAL_THREADS_MIN_VERSION);
+            return;
+        }
+        log.info("请求执行模式: {}，Java {}，数据库连接池上限 {}",
+                virtualThreads ? "虚拟线程" : "平台线程池", javaVersion, maximumPoolSize);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.rootmanage.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.auth.LoginRateLimiter;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 登录、注册接口按来源IP限流，需注册在权限拦截器之前
+ * 来源IP取 request.getRemoteAddr()；部署在反向代理之后时需开启 server.forward-headers-strategy，
+ * 不直接信任客户端传入的 X-Forwarded-For。
+ */
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final LoginRateLimiter loginRateLimiter;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String ip = request.getRemoteAddr();
+        if (request.getRequestURI().startsWith("/api/auth/login")) {
+            loginRateLimiter.acquireLoginByIp(ip);
+        } else {
+            loginRateLimiter.acquireRegisterByIp(ip);
+        }
+        return true;
+    }
+}
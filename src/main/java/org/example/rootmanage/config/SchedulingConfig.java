@@ -0,0 +1,12 @@
+package org.example.rootmanage.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 启用定时任务（点位当前值定时写回等）
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,9 @@
 package org.example.rootmanage.config;
 
 import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.auth.LoginRateLimiter;
+import org.example.rootmanage.metrics.RequestMetrics;
+import org.example.rootmanage.metrics.RequestMetricsInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -15,6 +18,8 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
 
     private final PermissionInterceptor permissionInterceptor;
+    private final RequestMetrics requestMetrics;
+    private final LoginRateLimiter loginRateLimiter;
 
     @Override
     public void addCorsMappings(@NonNull CorsRegistry registry) {
@@ -27,6 +32,12 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        // 请求计时在权限拦截之前，覆盖鉴权各阶段
+        registry.addInterceptor(new RequestMetricsInterceptor(requestMetrics))
+                .addPathPatterns("/api/**");
+        // 登录、注册接口按来源IP限流，早于任何处理
+        registry.addInterceptor(new RateLimitInterceptor(loginRateLimiter))
+                .addPathPatterns("/api/auth/login", "/api/register", "/api/register/check");
         registry.addInterceptor(permissionInterceptor)
                 .addPathPatterns("/api/**")
                 .excludePathPatterns("/api/auth/login", "/api/register", "/api/register/check", "/api/options");
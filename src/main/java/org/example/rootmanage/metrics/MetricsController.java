@@ -0,0 +1,49 @@
+package org.example.rootmanage.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.auth.LoginRateLimiter;
+import org.example.rootmanage.common.TokenBucketLimiter;
+import org.example.rootmanage.metrics.dto.RouteMetricsResponse;
+import org.example.rootmanage.option.OptionDictionary;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 请求指标接口：各接口的请求数及分阶段耗时（p50/p90/p99/max），登录、注册限流统计，选项字典缓存统计
+ */
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final RequestMetrics requestMetrics;
+    private final LoginRateLimiter loginRateLimiter;
+    private final OptionDictionary optionDictionary;
+
+    @GetMapping
+    public List<RouteMetricsResponse> list() {
+        return requestMetrics.snapshot();
+    }
+
+    /**
+     * 登录、注册限流统计（放行、拒绝、淘汰次数）
+     */
+    @GetMapping("/rate-limits")
+    public List<TokenBucketLimiter.Stats> rateLimits() {
+        return loginRateLimiter.stats();
+    }
+
+    /**
+     * 选项字典缓存命中统计（选项接口对未登录用户开放，统计放在需要权限的指标接口下）
+     */
+    @GetMapping("/option-cache")
+    public OptionDictionary.Stats optionCache() {
+        return optionDictionary.stats();
+    }
+
+    @DeleteMapping
+    public void reset() {
+        requestMetrics.reset();
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.rootmanage.metrics;
+
+import org.example.rootmanage.metrics.dto.PhaseStats;
+import org.example.rootmanage.metrics.dto.RouteMetricsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求指标登记
+ * 按 路由模板 + HTTP方法 汇总各处理阶段的耗时直方图；路由数超过上限后的新路由计入 OTHER。
+ * 记录路径上只有哈希查找和原子自增，不加锁、不拼接字符串。
+ */
+@Component
+public class RequestMetrics {
+
+    static final String UNMATCHED_ROUTE = "UNMATCHED";
+    static final String OTHER_ROUTE = "OTHER";
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    @Value("${instrumentation.max-routes:500}")
+    private int maxRoutes = 500;
+
+    /**
+     * 调试追踪的采样率（0~1），仅在 org.example.rootmanage.metrics 日志级别为 DEBUG 时生效
+     */
+    @Value("${instrumentation.trace.sample-rate:0.01}")
+    private double traceSampleRate = 0.01;
+
+    /**
+     * 路由模板 -> HTTP方法 -> 统计
+     */
+    private final Map<String, Map<String, RouteMetrics>> routes = new ConcurrentHashMap<>();
+
+    private final LongAdder routeCount = new LongAdder();
+
+    /**
+     * 记录一次请求
+     *
+     * @param route 路由模板，未匹配到处理器时为 null
+     */
+    void record(String method, String route, int status, RequestTiming timing) {
+        RouteMetrics metrics = metricsFor(method, route != null ? route : UNMATCHED_ROUTE);
+        for (RequestPhase phase : PHASES) {
+            if (timing.isRecorded(phase)) {
+                metrics.histograms[phase.ordinal()].record(timing.nanos(phase));
+            }
+        }
+        if (status >= 500) {
+            metrics.errors.increment();
+        }
+    }
+
+    /**
+     * 本次请求是否采样输出调试追踪
+     */
+    boolean sampled() {
+        return traceSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < traceSampleRate;
+    }
+
+    /**
+     * 所有路由的统计，按请求数降序
+     */
+    public List<RouteMetricsResponse> snapshot() {
+        List<RouteMetricsResponse> result = new ArrayList<>();
+        routes.forEach((route, byMethod) -> byMethod.forEach((method, metrics) -> {
+            Map<String, PhaseStats> phases = new LinkedHashMap<>();
+            for (RequestPhase phase : PHASES) {
+                LatencyHistogram histogram = metrics.histograms[phase.ordinal()];
+                if (histogram.getCount() > 0) {
+                    phases.put(phase.name(), new PhaseStats(histogram.getCount(), millis(histogram.getMean()),
+                            millis(histogram.percentile(0.5)), millis(histogram.percentile(0.9)),
+                            millis(histogram.percentile(0.99)), millis(histogram.getMax())));
+                }
+            }
+            long count = metrics.histograms[RequestPhase.TOTAL.ordinal()].getCount();
+            result.add(new RouteMetricsResponse(method, route, count, metrics.errors.sum(), phases));
+        }));
+        result.sort(Comparator.comparingLong(RouteMetricsResponse::getCount).reversed());
+        return result;
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        routes.clear();
+        routeCount.reset();
+    }
+
+    private RouteMetrics metricsFor(String method, String route) {
+        Map<String, RouteMetrics> byMethod = routes.get(route);
+        if (byMethod == null) {
+            if (routeCount.sum() >= maxRoutes) {
+                route = OTHER_ROUTE;
+            }
+            byMethod = routes.computeIfAbsent(route, key -> {
+                routeCount.increment();
+                return new ConcurrentHashMap<>();
+            });
+        }
+        RouteMetrics metrics = byMethod.get(method);
+        return metrics != null ? metrics : byMethod.computeIfAbsent(method, key -> new RouteMetrics());
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+
+    private static final class RouteMetrics {
+        private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+        private final LongAdder errors = new LongAdder();
+
+        private RouteMetrics() {
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.rootmanage.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 请求计时拦截器，需注册在权限拦截器之前
+ * 请求开始时创建 {@link RequestTiming}，完成后按路由模板登记各阶段耗时；
+ * 日志级别为 DEBUG 时按采样率输出单行追踪，否则只有一次级别判断。
+ * 异步请求（如 SSE 推送）不计入。
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    private final RequestMetrics requestMetrics;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        request.setAttribute(RequestTiming.ATTRIBUTE, new RequestTiming(System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        Object attribute = request.getAttribute(RequestTiming.ATTRIBUTE);
+        if (!(attribute instanceof RequestTiming timing)) {
+            return;
+        }
+        request.removeAttribute(RequestTiming.ATTRIBUTE);
+        timing.finish();
+        String route = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        requestMetrics.record(request.getMethod(), route, response.getStatus(), timing);
+
+        if (log.isDebugEnabled() && requestMetrics.sampled()) {
+            log.debug("[请求追踪] {} {} status={} outcome={} token={}us module={}us permission={}us handler={}us serialization={}us total={}us",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(), timing.getOutcome(),
+                    micros(timing, RequestPhase.TOKEN), micros(timing, RequestPhase.MODULE),
+                    micros(timing, RequestPhase.PERMISSION), micros(timing, RequestPhase.HANDLER),
+                    micros(timing, RequestPhase.SERIALIZATION), micros(timing, RequestPhase.TOTAL));
+        }
+    }
+
+    private static long micros(RequestTiming timing, RequestPhase phase) {
+        return timing.nanos(phase) / 1000;
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.rootmanage.metrics;
+
+/**
+ * 请求处理阶段
+ */
+public enum RequestPhase {
+    /**
+     * 解析token、获取鉴权快照
+     */
+    TOKEN,
+    /**
+     * 请求路径 -> 模块
+     */
+    MODULE,
+    /**
+     * 模块权限检查
+     */
+    PERMISSION,
+    /**
+     * 业务处理（Controller 方法）
+     */
+    HANDLER,
+    /**
+     * 响应体序列化和写出
+     */
+    SERIALIZATION,
+    /**
+     * 请求总耗时
+     */
+    TOTAL
+}
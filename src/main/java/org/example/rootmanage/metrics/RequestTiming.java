@@ -0,0 +1,83 @@
+package org.example.rootmanage.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 单个请求的分阶段计时，由 {@link RequestMetricsInterceptor} 创建并放入请求属性，
+ * 请求链路上的各环节调用 {@link #lap} 记录从上一个计时点到现在的耗时。
+ * 未启用计时的请求（如不经过拦截器的路径）拿到的是空实现，调用不产生任何开销。
+ */
+public final class RequestTiming {
+
+    static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private static final RequestTiming NONE = new RequestTiming(0);
+
+    private final long start;
+    private final long[] nanos = new long[PHASES.length];
+    private final boolean[] recorded = new boolean[PHASES.length];
+    private long mark;
+    private String outcome;
+
+    RequestTiming(long start) {
+        this.start = start;
+        this.mark = start;
+    }
+
+    /**
+     * 获取当前请求的计时，未启用时返回空实现
+     */
+    public static RequestTiming of(HttpServletRequest request) {
+        Object timing = request.getAttribute(ATTRIBUTE);
+        return timing instanceof RequestTiming ? (RequestTiming) timing : NONE;
+    }
+
+    /**
+     * 记录阶段耗时（从上一个计时点到现在）
+     */
+    public void lap(RequestPhase phase) {
+        if (this == NONE) {
+            return;
+        }
+        long now = System.nanoTime();
+        nanos[phase.ordinal()] += now - mark;
+        recorded[phase.ordinal()] = true;
+        mark = now;
+    }
+
+    /**
+     * 记录鉴权结果（常量字符串，用于调试追踪）
+     */
+    public void outcome(String outcome) {
+        if (this != NONE) {
+            this.outcome = outcome;
+        }
+    }
+
+    /**
+     * 结束计时：补记业务处理或序列化阶段及总耗时
+     */
+    void finish() {
+        if (recorded[RequestPhase.HANDLER.ordinal()]) {
+            lap(RequestPhase.SERIALIZATION);
+        } else {
+            lap(RequestPhase.HANDLER);
+        }
+        nanos[RequestPhase.TOTAL.ordinal()] = mark - start;
+        recorded[RequestPhase.TOTAL.ordinal()] = true;
+    }
+
+    boolean isRecorded(RequestPhase phase) {
+        return recorded[phase.ordinal()];
+    }
+
+    long nanos(RequestPhase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    String getOutcome() {
+        return outcome;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.rootmanage.metrics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个处理阶段的耗时统计（毫秒）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhaseStats {
+    private long count;
+    private double mean;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double max;
+}
@@ -0,0 +1,30 @@
+package org.example.rootmanage.metrics.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 单个接口的请求统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteMetricsResponse {
+    private String method;
+    /**
+     * 路由模板，如 /api/contracts/{id}
+     */
+    private String route;
+    private long count;
+    /**
+     * 响应状态码 >= 500 的请求数
+     */
+    private long errors;
+    /**
+     * 阶段 -> 耗时统计，只包含有记录的阶段
+     */
+    private Map<String, PhaseStats> phases;
+}
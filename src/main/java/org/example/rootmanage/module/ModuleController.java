@@ -3,7 +3,10 @@ package org.example.rootmanage.module;
 import lombok.RequiredArgsConstructor;
 import org.example.rootmanage.module.dto.ModuleRequest;
 import org.example.rootmanage.module.dto.ModuleTreeNode;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -20,9 +23,19 @@ public class ModuleController {
         return moduleService.findAll();
     }
 
+    /**
+     * 模块树，支持 If-None-Match 条件请求：模块未变更时返回 304，不再传输树内容
+     */
     @GetMapping("/tree")
-    public List<ModuleTreeNode> tree() {
-        return moduleService.tree();
+    public ResponseEntity<List<ModuleTreeNode>> tree(WebRequest webRequest) {
+        ModuleHierarchy.Snapshot snapshot = moduleService.treeSnapshot();
+        if (webRequest.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.getEtag())
+                .body(snapshot.getTree());
     }
 
     @PostMapping
@@ -0,0 +1,132 @@
+package org.example.rootmanage.module;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.module.dto.ModuleTreeNode;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 模块层级（模块树）缓存
+ * 模块按排序号一次查出后线性构建树：先建节点映射，再按顺序把每个节点挂到父节点下，子节点天然有序，无需逐个查找或排序。
+ * 构建结果连同版本号、ETag 作为不可变快照缓存；模块新增、修改、删除提交后版本号加一并丢弃快照，下次访问时重建。
+ * ETag 取自模块树内容的摘要，与版本号无关，重启或多实例部署时同样的内容得到同样的 ETag。
+ */
+@Component
+@RequiredArgsConstructor
+public class ModuleHierarchy {
+
+    /**
+     * 模块树快照，返回的树为共享只读数据，调用方不得修改
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final long version;
+        private final String etag;
+        private final List<ModuleTreeNode> tree;
+    }
+
+    private final ModuleRepository moduleRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 获取当前模块树快照，缓存失效时重建
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        long before = version.get();
+        List<ModuleTreeNode> tree = link(moduleRepository.findAllByOrderByOrderNoAsc(), ModuleHierarchy::toNode,
+                ModuleTreeNode::getChildren);
+        Snapshot built = new Snapshot(before, etag(tree), Collections.unmodifiableList(tree));
+        synchronized (this) {
+            // 构建期间模块发生变更时不缓存，避免覆盖为旧数据
+            if (version.get() == before) {
+                snapshot = built;
+            }
+        }
+        return built;
+    }
+
+    /**
+     * 模块变更后使缓存失效（提交后生效）
+     */
+    public void invalidateAfterCommit() {
+        AfterCommit.run(this::invalidate);
+    }
+
+    synchronized void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * 把按排序号排好的模块线性组装为树
+     * 父模块不在列表中的模块被丢弃（与原有行为一致），每个节点的子节点保持列表中的顺序
+     *
+     * @param modules  按排序号升序的模块
+     * @param toNode   模块 -> 树节点
+     * @param children 树节点的子节点列表
+     * @return 根节点列表
+     */
+    public static <T> List<T> link(List<ModuleEntity> modules, Function<ModuleEntity, T> toNode,
+                                   Function<T, List<T>> children) {
+        Map<UUID, T> nodes = new HashMap<>(modules.size() * 4 / 3 + 1);
+        for (ModuleEntity module : modules) {
+            nodes.put(module.getId(), toNode.apply(module));
+        }
+        List<T> roots = new ArrayList<>();
+        for (ModuleEntity module : modules) {
+            T node = nodes.get(module.getId());
+            if (module.getParent() == null) {
+                roots.add(node);
+            } else {
+                T parent = nodes.get(module.getParent().getId());
+                if (parent != null) {
+                    children.apply(parent).add(node);
+                }
+            }
+        }
+        return roots;
+    }
+
+    private String etag(List<ModuleTreeNode> tree) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(tree)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("模块树序列化失败", e);
+        }
+    }
+
+    static ModuleTreeNode toNode(ModuleEntity m) {
+        ModuleTreeNode node = new ModuleTreeNode();
+        node.setId(m.getId());
+        node.setZhName(m.getZhName());
+        node.setEnName(m.getEnName());
+        node.setLevel(m.getLevel());
+        node.setOrderNo(m.getOrderNo());
+        node.setPath(m.getPath());
+        node.setIcon(m.getIcon());
+        node.setGroupCode(m.getGroupCode());
+        node.setPermissionKey(m.getPermissionKey());
+        node.setParentNode(Boolean.TRUE.equals(m.getParentNode()));
+        node.setExpanded(Boolean.TRUE.equals(m.getExpanded()));
+        node.setVisible(Boolean.TRUE.equals(m.getVisible()));
+        return node;
+    }
+}
@@ -0,0 +1,237 @@
+package org.example.rootmanage.module;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.AfterCommit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 请求路径 -> 模块的路由索引
+ * 按模块路径的各段构建前缀树，每个节点的子段按字典序存放在数组中；查找时直接在请求URI上逐段二分比较，
+ * 取最长匹配的模块，不拆分字符串、不查询数据库。ID段（UUID、32位十六进制、纯数字）不参与字面匹配。
+ * 索引不可变，模块新增、修改、删除后整体重建并原子替换。
+ */
+@Component
+@RequiredArgsConstructor
+public class ModuleRouteIndex {
+
+    /**
+     * 路由到的模块（与实体脱离的快照）
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ModuleRoute {
+        private final UUID id;
+        private final String path;
+        private final String zhName;
+    }
+
+    private static final String API_PREFIX = "/api";
+    private static final String REGISTER_PREFIX = "/register";
+    private static final String ACCOUNTS = "accounts";
+
+    private static final Node EMPTY = new Node(new String[0], new Node[0], null);
+
+    private final ModuleRepository moduleRepository;
+
+    private volatile Node root;
+
+    /**
+     * 启动时构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * 从数据库重新加载全部模块并替换索引
+     * 路径相同的模块按排序号取第一个
+     */
+    public void rebuild() {
+        root = build(moduleRepository.findAllByOrderByOrderNoAsc());
+    }
+
+    /**
+     * 模块变更后重建索引（提交后生效）
+     */
+    public void rebuildAfterCommit() {
+        AfterCommit.run(this::rebuild);
+    }
+
+    /**
+     * 根据请求URI查找模块（/api 前缀和查询参数会被忽略），找不到时返回 null
+     */
+    public ModuleRoute resolve(String uri) {
+        Node node = root;
+        if (node == null) {
+            synchronized (this) {
+                if (root == null) {
+                    rebuild();
+                }
+                node = root;
+            }
+        }
+        int end = uri.indexOf('?');
+        if (end < 0) {
+            end = uri.length();
+        }
+        int start = uri.startsWith(API_PREFIX) && (end == API_PREFIX.length() || uri.charAt(API_PREFIX.length()) == '/')
+                ? API_PREFIX.length() : 0;
+
+        // 注册相关接口也属于账号管理
+        if (uri.startsWith(REGISTER_PREFIX, start)) {
+            node = node.child(ACCOUNTS, 0, ACCOUNTS.length());
+            return node != null ? node.route : null;
+        }
+
+        ModuleRoute matched = node.route;
+        int position = start;
+        while (position < end) {
+            if (uri.charAt(position) == '/') {
+                position++;
+                continue;
+            }
+            int segmentEnd = uri.indexOf('/', position);
+            if (segmentEnd < 0 || segmentEnd > end) {
+                segmentEnd = end;
+            }
+            if (isId(uri, position, segmentEnd)) {
+                break;
+            }
+            node = node.child(uri, position, segmentEnd);
+            if (node == null) {
+                break;
+            }
+            if (node.route != null) {
+                matched = node.route;
+            }
+            position = segmentEnd;
+        }
+        return matched;
+    }
+
+    static Node build(List<ModuleEntity> modules) {
+        Builder root = new Builder();
+        for (ModuleEntity module : modules) {
+            String path = module.getPath();
+            if (path == null || path.isBlank()) {
+                continue;
+            }
+            Builder node = root;
+            for (String segment : path.trim().split("/")) {
+                if (!segment.isEmpty()) {
+                    node = node.children.computeIfAbsent(segment, key -> new Builder());
+                }
+            }
+            if (node != root && node.route == null) {
+                node.route = new ModuleRoute(module.getId(), module.getPath(), module.getZhName());
+            }
+        }
+        return root.freeze();
+    }
+
+    /**
+     * 是否为ID段：UUID、32位十六进制或纯数字
+     */
+    static boolean isId(CharSequence s, int from, int to) {
+        int length = to - from;
+        if (length == 36) {
+            for (int i = 0; i < 36; i++) {
+                char c = s.charAt(from + i);
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (c != '-') {
+                        return false;
+                    }
+                } else if (!isHex(c)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (length == 0) {
+            return false;
+        }
+        boolean digits = true;
+        boolean hex = length == 32;
+        for (int i = from; i < to && (digits || hex); i++) {
+            char c = s.charAt(i);
+            digits &= c >= '0' && c <= '9';
+            hex &= isHex(c);
+        }
+        return digits || hex;
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    /**
+     * 不可变的前缀树节点，子段按字典序排列
+     */
+    static final class Node {
+        private final String[] labels;
+        private final Node[] children;
+        private final ModuleRoute route;
+
+        private Node(String[] labels, Node[] children, ModuleRoute route) {
+            this.labels = labels;
+            this.children = children;
+            this.route = route;
+        }
+
+        /**
+         * 在子段中二分查找 s[from, to)
+         */
+        Node child(String s, int from, int to) {
+            int low = 0;
+            int high = labels.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(labels[mid], s, from, to);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        private static int compare(String label, String s, int from, int to) {
+            int length = to - from;
+            int limit = Math.min(label.length(), length);
+            for (int i = 0; i < limit; i++) {
+                int diff = label.charAt(i) - s.charAt(from + i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return label.length() - length;
+        }
+    }
+
+    private static final class Builder {
+        private final TreeMap<String, Builder> children = new TreeMap<>();
+        private ModuleRoute route;
+
+        private Node freeze() {
+            if (children.isEmpty() && route == null) {
+                return EMPTY;
+            }
+            String[] labels = children.keySet().toArray(new String[0]);
+            Node[] nodes = new Node[labels.length];
+            for (int i = 0; i < labels.length; i++) {
+                nodes[i] = children.get(labels[i]).freeze();
+            }
+            return new Node(labels, nodes, route);
+        }
+    }
+}
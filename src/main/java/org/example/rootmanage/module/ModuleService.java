@@ -3,20 +3,21 @@ package org.example.rootmanage.module;
 import lombok.RequiredArgsConstructor;
 import org.example.rootmanage.module.dto.ModuleRequest;
 import org.example.rootmanage.module.dto.ModuleTreeNode;
+import org.example.rootmanage.permission.PermissionMatrixCache;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ModuleService {
 
     private final ModuleRepository moduleRepository;
+    private final ModuleRouteIndex moduleRouteIndex;
+    private final ModuleHierarchy moduleHierarchy;
+    private final PermissionMatrixCache permissionMatrixCache;
 
     public List<ModuleEntity> findAll() {
         return moduleRepository.findAllByOrderByOrderNoAsc();
@@ -31,7 +32,11 @@ public class ModuleService {
                     .orElseThrow(() -> new IllegalArgumentException("父模块不存在"));
             module.setParent(parent);
         }
-        return moduleRepository.save(module);
+        ModuleEntity saved = moduleRepository.save(module);
+        moduleRouteIndex.rebuildAfterCommit();
+        moduleHierarchy.invalidateAfterCommit();
+        permissionMatrixCache.invalidateAfterCommit(null);
+        return saved;
     }
 
     @Transactional
@@ -46,7 +51,11 @@ public class ModuleService {
         } else {
             module.setParent(null);
         }
-        return moduleRepository.save(module);
+        ModuleEntity saved = moduleRepository.save(module);
+        moduleRouteIndex.rebuildAfterCommit();
+        moduleHierarchy.invalidateAfterCommit();
+        permissionMatrixCache.invalidateAfterCommit(null);
+        return saved;
     }
 
     private void apply(ModuleEntity module, ModuleRequest request) {
@@ -66,56 +75,22 @@ public class ModuleService {
     @Transactional
     public void delete(UUID id) {
         moduleRepository.deleteById(id);
+        moduleRouteIndex.rebuildAfterCommit();
+        moduleHierarchy.invalidateAfterCommit();
+        permissionMatrixCache.invalidateAfterCommit(null);
     }
 
+    /**
+     * 模块树（缓存，模块变更后重建）
+     */
     public List<ModuleTreeNode> tree() {
-        List<ModuleEntity> modules = moduleRepository.findAll();
-        modules.sort(Comparator.comparing(ModuleEntity::getOrderNo));
-
-        Map<UUID, ModuleTreeNode> nodeMap = modules.stream().collect(Collectors.toMap(
-                ModuleEntity::getId,
-                this::toNode
-        ));
-
-        List<ModuleTreeNode> roots = nodeMap.values().stream()
-                .filter(n -> {
-                    ModuleEntity entity = modules.stream()
-                            .filter(m -> m.getId().equals(n.getId()))
-                            .findFirst()
-                            .orElse(null);
-                    return entity != null && entity.getParent() == null;
-                })
-                .sorted(Comparator.comparing(ModuleTreeNode::getOrderNo))
-                .collect(Collectors.toList());
-
-        for (ModuleEntity module : modules) {
-            if (module.getParent() != null) {
-                ModuleTreeNode parentNode = nodeMap.get(module.getParent().getId());
-                if (parentNode != null) {
-                    ModuleTreeNode child = nodeMap.get(module.getId());
-                    parentNode.getChildren().add(child);
-                    parentNode.getChildren().sort(Comparator.comparing(ModuleTreeNode::getOrderNo));
-                }
-            }
-        }
-        return roots;
+        return moduleHierarchy.snapshot().getTree();
     }
 
-    private ModuleTreeNode toNode(ModuleEntity m) {
-        ModuleTreeNode node = new ModuleTreeNode();
-        node.setId(m.getId());
-        node.setZhName(m.getZhName());
-        node.setEnName(m.getEnName());
-        node.setLevel(m.getLevel());
-        node.setOrderNo(m.getOrderNo());
-        node.setPath(m.getPath());
-        node.setIcon(m.getIcon());
-        node.setGroupCode(m.getGroupCode());
-        node.setPermissionKey(m.getPermissionKey());
-        node.setParentNode(Boolean.TRUE.equals(m.getParentNode()));
-        node.setExpanded(Boolean.TRUE.equals(m.getExpanded()));
-        node.setVisible(Boolean.TRUE.equals(m.getVisible()));
-        return node;
+    /**
+     * 模块树快照，带版本号和 ETag，用于条件请求
+     */
+    public ModuleHierarchy.Snapshot treeSnapshot() {
+        return moduleHierarchy.snapshot();
     }
 }
-
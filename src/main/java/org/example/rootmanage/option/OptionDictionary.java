@@ -0,0 +1,174 @@
+package org.example.rootmanage.option;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 选项字典缓存（仓库、阶段、状态、扣减类型等下拉选项）
+ * 首次访问时整表加载，按ID和分组建立索引，之后的分组查询和按ID查找都在内存中完成；
+ * 通过 OptionService 写入后（提交后）丢弃缓存，下次访问时重新加载。其他实例的写入最晚在 ttl 后可见。
+ * 按ID查找返回副本：调用方会把它设置到其他实体的关联上，不能共享缓存中的实例；缓存中找不到的ID回源数据库。
+ */
+@Component
+@RequiredArgsConstructor
+public class OptionDictionary {
+
+    /**
+     * 缓存统计
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long loads;
+        private final int size;
+    }
+
+    private static final Comparator<OptionItem> ORDER = Comparator.comparing(OptionItem::getOrderNo,
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final OptionItemRepository optionItemRepository;
+
+    @Value("${option.cache.ttl:5m}")
+    private Duration ttl = Duration.ofMinutes(5);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    /**
+     * 失效次数，加载期间发生失效时不写入缓存，避免缓存旧数据
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 全部选项（只读）
+     */
+    public List<OptionItem> findAll() {
+        return current().all;
+    }
+
+    /**
+     * 分组下的选项，按排序号升序（只读）
+     */
+    public List<OptionItem> findByGroup(String groupCode) {
+        return current().byGroup.getOrDefault(groupCode, List.of());
+    }
+
+    /**
+     * 按ID查找选项，返回副本；缓存中不存在时回源数据库
+     */
+    public Optional<OptionItem> findById(UUID id) {
+        Snapshot current = snapshot;
+        boolean fresh = isFresh(current);
+        if (!fresh) {
+            current = load();
+        }
+        OptionItem item = current.byId.get(id);
+        if (item != null) {
+            (fresh ? hits : misses).increment();
+            return Optional.of(copy(item));
+        }
+        misses.increment();
+        Optional<OptionItem> loaded = optionItemRepository.findById(id);
+        if (loaded.isPresent()) {
+            // 缓存中缺少已存在的选项（其他实例新增），下次访问时重新加载
+            invalidate();
+        }
+        return loaded;
+    }
+
+    public Stats stats() {
+        Snapshot current = snapshot;
+        return new Stats(hits.sum(), misses.sum(), loads.sum(), current != null ? current.all.size() : 0);
+    }
+
+    /**
+     * 选项变更后使缓存失效（提交后生效）
+     */
+    public void invalidateAfterCommit() {
+        AfterCommit.run(this::invalidate);
+    }
+
+    synchronized void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return load();
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null && System.nanoTime() - current.loadedAt < ttl.toNanos();
+    }
+
+    private Snapshot load() {
+        long before = generation.get();
+        Snapshot loaded = new Snapshot(optionItemRepository.findAll());
+        loads.increment();
+        synchronized (this) {
+            // 加载期间选项发生变更时不缓存，避免覆盖为旧数据
+            if (generation.get() == before) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private static OptionItem copy(OptionItem item) {
+        OptionItem copy = new OptionItem();
+        copy.setId(item.getId());
+        copy.setCreateTime(item.getCreateTime());
+        copy.setUpdateTime(item.getUpdateTime());
+        copy.setGroupCode(item.getGroupCode());
+        copy.setTitle(item.getTitle());
+        copy.setValue(item.getValue());
+        copy.setOrderNo(item.getOrderNo());
+        return copy;
+    }
+
+    /**
+     * 不可变的字典快照
+     */
+    private static final class Snapshot {
+        private final List<OptionItem> all;
+        private final Map<UUID, OptionItem> byId;
+        private final Map<String, List<OptionItem>> byGroup;
+        private final long loadedAt = System.nanoTime();
+
+        private Snapshot(List<OptionItem> items) {
+            Map<UUID, OptionItem> ids = new HashMap<>(items.size() * 4 / 3 + 1);
+            Map<String, List<OptionItem>> groups = new HashMap<>();
+            for (OptionItem item : items) {
+                ids.put(item.getId(), item);
+                groups.computeIfAbsent(item.getGroupCode(), key -> new ArrayList<>()).add(item);
+            }
+            groups.replaceAll((group, list) -> {
+                list.sort(ORDER);
+                return Collections.unmodifiableList(list);
+            });
+            this.all = Collections.unmodifiableList(new ArrayList<>(items));
+            this.byId = ids;
+            this.byGroup = groups;
+        }
+    }
+}
@@ -13,13 +13,14 @@ import java.util.UUID;
 public class OptionService {
 
     private final OptionItemRepository optionItemRepository;
+    private final OptionDictionary optionDictionary;
 
     public List<OptionItem> findAll() {
-        return optionItemRepository.findAll();
+        return optionDictionary.findAll();
     }
 
     public List<OptionItem> findByGroup(String groupCode) {
-        return optionItemRepository.findByGroupCodeOrderByOrderNoAsc(groupCode);
+        return optionDictionary.findByGroup(groupCode);
     }
 
     @Transactional
@@ -29,7 +30,9 @@ public class OptionService {
         item.setTitle(request.getTitle());
         item.setValue(request.getValue());
         item.setOrderNo(request.getOrderNo());
-        return optionItemRepository.save(item);
+        OptionItem saved = optionItemRepository.save(item);
+        optionDictionary.invalidateAfterCommit();
+        return saved;
     }
 
     @Transactional
@@ -40,12 +43,15 @@ public class OptionService {
         item.setTitle(request.getTitle());
         item.setValue(request.getValue());
         item.setOrderNo(request.getOrderNo());
-        return optionItemRepository.save(item);
+        OptionItem saved = optionItemRepository.save(item);
+        optionDictionary.invalidateAfterCommit();
+        return saved;
     }
 
     @Transactional
     public void delete(UUID id) {
         optionItemRepository.deleteById(id);
+        optionDictionary.invalidateAfterCommit();
     }
 }
 
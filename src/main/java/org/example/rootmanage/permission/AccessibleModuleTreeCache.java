@@ -0,0 +1,76 @@
+package org.example.rootmanage.permission;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.module.dto.ModuleTreeNode;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 角色可访问模块树缓存（登录后的菜单）
+ * 每个角色的模块树首次使用时构建并预先序列化为 JSON，之后登录直接返回；
+ * 收到权限失效通知（角色权限、角色或模块变更）时清除对应角色或全部缓存。
+ */
+@Component
+@RequiredArgsConstructor
+public class AccessibleModuleTreeCache {
+
+    private final PermissionService permissionService;
+    private final PermissionInvalidationChannel invalidationChannel;
+    private final ObjectMapper objectMapper;
+
+    private final Map<UUID, String> trees = new ConcurrentHashMap<>();
+
+    /**
+     * 失效次数，构建期间发生失效时不写入缓存，避免缓存旧数据
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationChannel.subscribe(this::invalidate);
+    }
+
+    /**
+     * 获取角色可访问的模块树（JSON），角色为 null 时返回空数组
+     */
+    public String getTreeJson(UUID roleId) {
+        if (roleId == null) {
+            return "[]";
+        }
+        String cached = trees.get(roleId);
+        if (cached != null) {
+            return cached;
+        }
+        long before = generation.get();
+        String json = serialize(permissionService.getAccessibleModuleTree(roleId));
+        if (generation.get() == before) {
+            trees.put(roleId, json);
+        }
+        return json;
+    }
+
+    void invalidate(UUID roleId) {
+        generation.incrementAndGet();
+        if (roleId == null) {
+            trees.clear();
+        } else {
+            trees.remove(roleId);
+        }
+    }
+
+    private String serialize(List<ModuleTreeNode> tree) {
+        try {
+            return objectMapper.writeValueAsString(tree);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("模块树序列化失败", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.rootmanage.permission;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的权限失效通知通道（单节点部署的默认实现），发布时同步通知订阅者
+ */
+@Component
+@ConditionalOnProperty(name = "permission.invalidation.channel", havingValue = "local", matchIfMissing = true)
+public class LocalPermissionInvalidationChannel implements PermissionInvalidationChannel {
+
+    private final List<Consumer<UUID>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(UUID roleId) {
+        for (Consumer<UUID> listener : listeners) {
+            listener.accept(roleId);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<UUID> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.rootmanage.permission;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 权限缓存失效通知通道
+ * 权限配置变更后由修改的节点发布，所有节点（包括自身）的订阅者收到后重新加载权限矩阵。
+ * 默认实现只在进程内分发；多节点部署时可替换为基于消息中间件的实现。
+ */
+public interface PermissionInvalidationChannel {
+
+    /**
+     * 发布失效通知
+     *
+     * @param roleId 权限变更的角色，为 null 时表示全部失效
+     */
+    void publish(UUID roleId);
+
+    /**
+     * 订阅失效通知
+     */
+    void subscribe(Consumer<UUID> listener);
+}
@@ -0,0 +1,101 @@
+package org.example.rootmanage.permission;
+
+import java.util.*;
+
+/**
+ * 角色-模块权限矩阵（不可变快照）
+ * 每个模块分配一个下标，每个角色一组位图：读、新增、修改三段，每段按模块下标各占一位。
+ * 鉴权只需两次哈希查找和一次位运算，不分配对象。
+ */
+final class PermissionMatrix {
+
+    static final int READ = 0;
+    static final int ADD = 1;
+    static final int UPDATE = 2;
+
+    private static final int OPERATIONS = 3;
+
+    static final PermissionMatrix EMPTY = new PermissionMatrix(Map.of(), Map.of());
+
+    /**
+     * 模块ID -> 下标
+     */
+    private final Map<UUID, Integer> moduleIndex;
+
+    /**
+     * 角色ID -> 位图（OPERATIONS 段，每段 words 个 long）
+     */
+    private final Map<UUID, long[]> roleBits;
+
+    private final int words;
+
+    private PermissionMatrix(Map<UUID, Integer> moduleIndex, Map<UUID, long[]> roleBits) {
+        this.moduleIndex = moduleIndex;
+        this.roleBits = roleBits;
+        this.words = (moduleIndex.size() + 63) >>> 6;
+    }
+
+    /**
+     * 根据全部模块和权限配置构建矩阵
+     */
+    static PermissionMatrix build(Collection<UUID> moduleIds, Collection<RoleModulePermission> permissions) {
+        Map<UUID, Integer> index = new HashMap<>();
+        for (UUID moduleId : moduleIds) {
+            index.putIfAbsent(moduleId, index.size());
+        }
+        PermissionMatrix matrix = new PermissionMatrix(index, new HashMap<>());
+        Map<UUID, List<RoleModulePermission>> byRole = new HashMap<>();
+        for (RoleModulePermission permission : permissions) {
+            byRole.computeIfAbsent(permission.getRole().getId(), key -> new ArrayList<>()).add(permission);
+        }
+        byRole.forEach((roleId, rows) -> matrix.roleBits.put(roleId, matrix.encode(rows)));
+        return matrix;
+    }
+
+    /**
+     * 替换一个角色的权限，返回新矩阵；权限引用了矩阵中没有的模块时返回 null（需要全量重建）
+     */
+    PermissionMatrix withRole(UUID roleId, Collection<RoleModulePermission> permissions) {
+        long[] bits = encode(permissions);
+        if (bits == null) {
+            return null;
+        }
+        Map<UUID, long[]> next = new HashMap<>(roleBits);
+        next.put(roleId, bits);
+        return new PermissionMatrix(moduleIndex, next);
+    }
+
+    /**
+     * 角色对模块是否拥有指定操作的权限
+     */
+    boolean allows(UUID roleId, UUID moduleId, int operation) {
+        long[] bits = roleBits.get(roleId);
+        Integer index = moduleIndex.get(moduleId);
+        if (bits == null || index == null) {
+            return false;
+        }
+        int bit = index + (operation * words << 6);
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private long[] encode(Collection<RoleModulePermission> permissions) {
+        long[] bits = new long[words * OPERATIONS];
+        for (RoleModulePermission permission : permissions) {
+            Integer index = moduleIndex.get(permission.getModule().getId());
+            if (index == null) {
+                return null;
+            }
+            set(bits, READ, index, permission.getCanRead());
+            set(bits, ADD, index, permission.getCanAdd());
+            set(bits, UPDATE, index, permission.getCanUpdate());
+        }
+        return bits;
+    }
+
+    private void set(long[] bits, int operation, int index, Boolean granted) {
+        if (Boolean.TRUE.equals(granted)) {
+            int bit = index + (operation * words << 6);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.rootmanage.permission;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.common.BaseEntity;
+import org.example.rootmanage.module.ModuleRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 角色-模块权限矩阵缓存
+ * 启动时全量加载；权限配置保存后经失效通知通道广播，各节点收到后只重新加载该角色的权限并原子替换矩阵。
+ */
+@Component
+@RequiredArgsConstructor
+public class PermissionMatrixCache {
+
+    private final RoleModulePermissionRepository permissionRepository;
+    private final ModuleRepository moduleRepository;
+    private final PermissionInvalidationChannel invalidationChannel;
+
+    /**
+     * 重新加载时持有（期间查询数据库）；不用 synchronized，避免虚拟线程在数据库IO期间占住载体线程
+     */
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile PermissionMatrix matrix;
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationChannel.subscribe(this::reload);
+    }
+
+    /**
+     * 启动时加载权限矩阵
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload(null);
+    }
+
+    /**
+     * 角色权限变更后广播失效通知（提交后生效）
+     *
+     * @param roleId 权限变更的角色，为 null 时全部重新加载
+     */
+    public void invalidateAfterCommit(UUID roleId) {
+        AfterCommit.run(() -> invalidationChannel.publish(roleId));
+    }
+
+    /**
+     * 角色对模块是否拥有指定操作的权限
+     *
+     * @param operation {@link PermissionMatrix#READ}、{@link PermissionMatrix#ADD} 或 {@link PermissionMatrix#UPDATE}
+     */
+    boolean allows(UUID roleId, UUID moduleId, int operation) {
+        PermissionMatrix current = matrix;
+        if (current == null) {
+            reloadLock.lock();
+            try {
+                if (matrix == null) {
+                    reload(null);
+                }
+                current = matrix;
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return current.allows(roleId, moduleId, operation);
+    }
+
+    /**
+     * 重新加载权限矩阵
+     *
+     * @param roleId 只重新加载该角色，为 null 时全量加载
+     */
+    void reload(UUID roleId) {
+        reloadLock.lock();
+        try {
+            PermissionMatrix current = matrix;
+            if (roleId != null && current != null) {
+                PermissionMatrix next = current.withRole(roleId, permissionRepository.findByRoleId(roleId));
+                if (next != null) {
+                    matrix = next;
+                    return;
+                }
+            }
+            List<UUID> moduleIds = moduleRepository.findAll().stream().map(BaseEntity::getId).toList();
+            matrix = PermissionMatrix.build(moduleIds, permissionRepository.findAll());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.example.rootmanage.permission;
 
 import lombok.RequiredArgsConstructor;
 import org.example.rootmanage.module.ModuleEntity;
+import org.example.rootmanage.module.ModuleHierarchy;
 import org.example.rootmanage.module.ModuleRepository;
 import org.example.rootmanage.module.dto.ModuleTreeNode;
 import org.example.rootmanage.permission.dto.ModulePermissionTreeNode;
@@ -23,6 +24,7 @@ public class PermissionService {
     private final RoleModulePermissionRepository permissionRepository;
     private final RoleRepository roleRepository;
     private final ModuleRepository moduleRepository;
+    private final PermissionMatrixCache permissionMatrixCache;
 
     @Transactional(readOnly = true)
     public List<RoleModulePermission> findByRole(UUID roleId) {
@@ -41,6 +43,23 @@ public class PermissionService {
         return permissionRepository.findByRoleIdAndModuleId(roleId, moduleId).orElse(null);
     }
 
+    /**
+     * 检查角色是否有权限对模块执行指定HTTP方法（读取内存中的权限矩阵，不访问数据库）
+     * GET 需要读权限，POST 需要新增权限，PUT/PATCH/DELETE 需要修改权限，其他方法一律拒绝
+     */
+    public boolean hasPermission(UUID roleId, UUID moduleId, String httpMethod) {
+        int operation;
+        switch (httpMethod) {
+            case "GET" -> operation = PermissionMatrix.READ;
+            case "POST" -> operation = PermissionMatrix.ADD;
+            case "PUT", "PATCH", "DELETE" -> operation = PermissionMatrix.UPDATE;
+            default -> {
+                return false;
+            }
+        }
+        return permissionMatrixCache.allows(roleId, moduleId, operation);
+    }
+
     @Transactional
     public void savePermissions(PermissionUpdateRequest request) {
         Role role = roleRepository.findById(request.getRoleId())
@@ -61,43 +80,23 @@ public class PermissionService {
             perm.setCanSee(item.isCanSee());
             permissionRepository.save(perm);
         }
+        permissionMatrixCache.invalidateAfterCommit(role.getId());
     }
 
     /**
      * 获取带权限状态的模块树（用于权限配置界面）
      */
     public List<ModulePermissionTreeNode> getModuleTreeWithPermissions(UUID roleId) {
-        List<ModuleEntity> modules = moduleRepository.findAll();
-        modules.sort(Comparator.comparing(ModuleEntity::getOrderNo));
+        List<ModuleEntity> modules = moduleRepository.findAllByOrderByOrderNoAsc();
 
         // 获取该角色已配置的权限
         List<RoleModulePermission> permissions = permissionRepository.findByRoleId(roleId);
         Map<UUID, RoleModulePermission> permMap = permissions.stream()
                 .collect(Collectors.toMap(p -> p.getModule().getId(), p -> p));
 
-        // 构建节点映射
-        Map<UUID, ModulePermissionTreeNode> nodeMap = new HashMap<>();
-        for (ModuleEntity module : modules) {
-            ModulePermissionTreeNode node = toPermissionNode(module, permMap.get(module.getId()));
-            nodeMap.put(module.getId(), node);
-        }
-
-        // 构建树结构
-        List<ModulePermissionTreeNode> roots = new ArrayList<>();
-        for (ModuleEntity module : modules) {
-            ModulePermissionTreeNode node = nodeMap.get(module.getId());
-            if (module.getParent() == null) {
-                roots.add(node);
-            } else {
-                ModulePermissionTreeNode parent = nodeMap.get(module.getParent().getId());
-                if (parent != null) {
-                    parent.getChildren().add(node);
-                    parent.getChildren().sort(Comparator.comparing(ModulePermissionTreeNode::getOrderNo));
-                }
-            }
-        }
-
-        return roots;
+        // 按排序号线性构建树结构
+        return ModuleHierarchy.link(modules, module -> toPermissionNode(module, permMap.get(module.getId())),
+                ModulePermissionTreeNode::getChildren);
     }
 
     private ModulePermissionTreeNode toPermissionNode(ModuleEntity module, RoleModulePermission permission) {
@@ -150,27 +149,21 @@ public class PermissionService {
         // 管理员角色（ADMIN）默认拥有所有模块的访问权限
         boolean isAdmin = "ADMIN".equalsIgnoreCase(role.getName());
         
-        // 获取所有模块
-        List<ModuleEntity> allModules = moduleRepository.findAll();
-        allModules.sort(Comparator.comparing(ModuleEntity::getOrderNo));
+        // 获取所有模块（按排序号）
+        List<ModuleEntity> allModules = moduleRepository.findAllByOrderByOrderNoAsc();
 
         Set<UUID> accessibleModuleIds;
         if (isAdmin) {
             // 管理员：返回所有模块
-            accessibleModuleIds = allModules.stream()
-                    .map(ModuleEntity::getId)
-                    .collect(Collectors.toSet());
+            return ModuleHierarchy.link(allModules, this::toModuleTreeNode, ModuleTreeNode::getChildren);
         } else {
             // 其他角色：根据配置的权限
             List<RoleModulePermission> permissions = permissionRepository.findByRoleId(roleId);
-            
+
             // 只保留 canSee=true 的权限
             accessibleModuleIds = permissions.stream()
                     .filter(p -> Boolean.TRUE.equals(p.getCanSee()))
-                    .map(p -> {
-                        Hibernate.initialize(p.getModule());
-                        return p.getModule().getId();
-                    })
+                    .map(p -> p.getModule().getId())
                     .collect(Collectors.toSet());
 
             if (accessibleModuleIds.isEmpty()) {
@@ -179,44 +172,25 @@ public class PermissionService {
         }
 
         // 过滤出有权限的模块，并包含所有父模块（即使父模块没有权限，只要有子模块有权限也要显示）
-        Map<UUID, ModuleEntity> accessibleModules = new HashMap<>();
+        Map<UUID, ModuleEntity> moduleMap = new HashMap<>();
         for (ModuleEntity module : allModules) {
-            if (accessibleModuleIds.contains(module.getId())) {
-                accessibleModules.put(module.getId(), module);
-                // 添加所有父模块
-                ModuleEntity parent = module.getParent();
-                while (parent != null && !accessibleModules.containsKey(parent.getId())) {
-                    Hibernate.initialize(parent);
-                    accessibleModules.put(parent.getId(), parent);
-                    parent = parent.getParent();
-                }
-            }
+            moduleMap.put(module.getId(), module);
         }
-
-        // 构建节点映射
-        Map<UUID, ModuleTreeNode> nodeMap = new HashMap<>();
-        for (ModuleEntity module : accessibleModules.values()) {
-            ModuleTreeNode node = toModuleTreeNode(module);
-            nodeMap.put(module.getId(), node);
+        Set<UUID> visibleIds = new HashSet<>();
+        for (UUID moduleId : accessibleModuleIds) {
+            ModuleEntity module = moduleMap.get(moduleId);
+            while (module != null && visibleIds.add(module.getId())) {
+                module = module.getParent() != null ? moduleMap.get(module.getParent().getId()) : null;
+            }
         }
 
-        // 构建树结构
-        List<ModuleTreeNode> roots = new ArrayList<>();
-        for (ModuleEntity module : accessibleModules.values()) {
-            ModuleTreeNode node = nodeMap.get(module.getId());
-            if (module.getParent() == null) {
-                roots.add(node);
-            } else {
-                ModuleTreeNode parent = nodeMap.get(module.getParent().getId());
-                if (parent != null) {
-                    parent.getChildren().add(node);
-                    parent.getChildren().sort(Comparator.comparing(ModuleTreeNode::getOrderNo));
-                }
+        List<ModuleEntity> accessibleModules = new ArrayList<>(visibleIds.size());
+        for (ModuleEntity module : allModules) {
+            if (visibleIds.contains(module.getId())) {
+                accessibleModules.add(module);
             }
         }
-
-        roots.sort(Comparator.comparing(ModuleTreeNode::getOrderNo));
-        return roots;
+        return ModuleHierarchy.link(accessibleModules, this::toModuleTreeNode, ModuleTreeNode::getChildren);
     }
 
     private ModuleTreeNode toModuleTreeNode(ModuleEntity m) {
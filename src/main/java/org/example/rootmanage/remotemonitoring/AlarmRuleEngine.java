@@ -0,0 +1,476 @@
+package org.example.rootmanage.remotemonitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.remotemonitoring.entity.AlarmConfig;
+import org.example.rootmanage.remotemonitoring.entity.AlarmLevel;
+import org.example.rootmanage.remotemonitoring.entity.AlarmRecord;
+import org.example.rootmanage.remotemonitoring.entity.AlarmStatus;
+import org.example.rootmanage.remotemonitoring.entity.AlarmType;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.entity.DeviceRunningData;
+import org.example.rootmanage.remotemonitoring.repository.AlarmConfigRepository;
+import org.example.rootmanage.remotemonitoring.repository.AlarmRecordRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 报警规则引擎
+ * 启用的报警配置按点位编译为规则并常驻内存，每个报警配置的报警状态也保存在内存中。
+ * 每个采样只在该点位的规则上求值，不访问数据库；只有状态切换（报警发生、报警恢复）时才写报警记录。
+ * 支持死区回差（超限后需回到阈值以内死区范围才恢复）和延时报警（持续超限达到延时时间才报警）。
+ * 状态切换在锁内决定，报警记录的写入、恢复在释放锁后进行，锁使用 ReentrantLock，虚拟线程等待时不占用载体线程。
+ */
+@Slf4j
+@Component
+public class AlarmRuleEngine {
+
+    private static final CompiledRule[] NO_RULES = new CompiledRule[0];
+
+    private final AlarmConfigRepository alarmConfigRepository;
+    private final AlarmRecordRepository alarmRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 点位ID -> 该点位的规则（不可变快照，整体替换）
+     */
+    private volatile Map<UUID, CompiledRule[]> rulesByPoint = Map.of();
+
+    /**
+     * 报警配置ID -> 报警状态
+     */
+    private final ConcurrentHashMap<UUID, RuleState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 串行化规则快照的整体替换（全量加载、单个配置刷新）
+     */
+    private final ReentrantLock rulesLock = new ReentrantLock();
+
+    public AlarmRuleEngine(AlarmConfigRepository alarmConfigRepository,
+                           AlarmRecordRepository alarmRecordRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.alarmConfigRepository = alarmConfigRepository;
+        this.alarmRecordRepository = alarmRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 求值在采集事务提交后进行，报警记录使用独立事务写入
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 启动时加载规则，并以未恢复的报警记录恢复报警状态，避免重启后重复报警
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+        restoreOpenRecords(AlarmStatus.ACKNOWLEDGED);
+        restoreOpenRecords(AlarmStatus.ACTIVE);
+    }
+
+    /**
+     * 重新加载全部启用的报警配置
+     */
+    public void reload() {
+        rulesLock.lock();
+        try {
+            Map<UUID, List<CompiledRule>> grouped = new HashMap<>();
+            for (AlarmConfig config : alarmConfigRepository.findByEnabled(true)) {
+                CompiledRule rule = CompiledRule.compile(config);
+                if (rule != null) {
+                    grouped.computeIfAbsent(rule.dataPointId, k -> new ArrayList<>()).add(rule);
+                }
+            }
+            Map<UUID, CompiledRule[]> compiled = new HashMap<>();
+            grouped.forEach((pointId, rules) -> compiled.put(pointId, rules.toArray(NO_RULES)));
+            Set<UUID> configIds = new HashSet<>();
+            compiled.values().forEach(rules -> Arrays.stream(rules).forEach(rule -> configIds.add(rule.configId)));
+            states.keySet().retainAll(configIds);
+            rulesByPoint = compiled;
+        } finally {
+            rulesLock.unlock();
+        }
+    }
+
+    /**
+     * 报警配置新增或修改后刷新该配置的规则（提交后生效）
+     * 配置仍启用时保留原有报警状态，按新阈值判断恢复
+     */
+    public void refresh(AlarmConfig config) {
+        CompiledRule rule = Boolean.TRUE.equals(config.getEnabled()) ? CompiledRule.compile(config) : null;
+        UUID configId = config.getId();
+        AfterCommit.run(() -> replaceRule(configId, rule));
+    }
+
+    /**
+     * 报警配置删除后移除规则（提交后生效）
+     */
+    public void remove(UUID configId) {
+        AfterCommit.run(() -> replaceRule(configId, null));
+    }
+
+    /**
+     * 报警记录被人工触发时同步报警状态（提交后生效）
+     */
+    public void onRecordOpened(AlarmRecord record) {
+        AfterCommit.run(() -> {
+            RuleState state = states.computeIfAbsent(record.getAlarmConfigId(), k -> new RuleState());
+            state.lock.lock();
+            try {
+                state.toAlarm(record.getId());
+            } finally {
+                state.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * 报警记录被人工恢复时重置报警状态，条件仍满足时由后续采样重新报警（提交后生效）
+     */
+    public void onRecordRecovered(AlarmRecord record) {
+        AfterCommit.run(() -> {
+            RuleState state = states.get(record.getAlarmConfigId());
+            if (state != null) {
+                state.lock.lock();
+                try {
+                    if (record.getId().equals(state.recordId)) {
+                        state.toNormal();
+                    }
+                } finally {
+                    state.lock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * 提交一个采样，处于事务中时在提交后求值
+     */
+    public void offer(UUID dataPointId, Double value, DataQuality quality, LocalDateTime collectionTime) {
+        if (!hasRules(dataPointId) || value == null || quality == DataQuality.BAD) {
+            return;
+        }
+        AfterCommit.run(() -> evaluate(dataPointId, value, collectionTime));
+    }
+
+    /**
+     * 批量提交采样，同一点位按采集时间先后求值
+     */
+    public void offerAll(List<DeviceRunningData> samples) {
+        List<DeviceRunningData> relevant = new ArrayList<>();
+        for (DeviceRunningData sample : samples) {
+            if (hasRules(sample.getDataPointId()) && sample.getValue() != null
+                    && sample.getQuality() != DataQuality.BAD) {
+                relevant.add(sample);
+            }
+        }
+        if (relevant.isEmpty()) {
+            return;
+        }
+        relevant.sort(Comparator.comparing(DeviceRunningData::getCollectionTime));
+        AfterCommit.run(() -> {
+            for (DeviceRunningData sample : relevant) {
+                evaluate(sample.getDataPointId(), sample.getValue(), sample.getCollectionTime());
+            }
+        });
+    }
+
+    /**
+     * 对一个采样求值，返回该采样引起的状态切换次数
+     */
+    public int evaluate(UUID dataPointId, double value, LocalDateTime collectionTime) {
+        CompiledRule[] rules = rulesByPoint.getOrDefault(dataPointId, NO_RULES);
+        int transitions = 0;
+        for (CompiledRule rule : rules) {
+            RuleState state = states.computeIfAbsent(rule.configId, k -> new RuleState());
+            Transition transition;
+            state.lock.lock();
+            try {
+                transition = decide(rule, state, value, collectionTime);
+            } finally {
+                state.lock.unlock();
+            }
+            if (transition != null) {
+                boolean applied = transition.record != null
+                        ? open(state, transition.record)
+                        : recover(transition.recoverRecordId, transition.time);
+                if (applied) {
+                    transitions++;
+                }
+            }
+        }
+        return transitions;
+    }
+
+    /**
+     * 点位是否配置了启用的规则
+     */
+    public boolean hasRules(UUID dataPointId) {
+        return rulesByPoint.containsKey(dataPointId);
+    }
+
+    /**
+     * 在状态锁内决定状态切换，需要写报警记录时返回待执行的切换（释放锁后执行）
+     */
+    private Transition decide(CompiledRule rule, RuleState state, double value, LocalDateTime time) {
+        switch (state.phase) {
+            case ALARM:
+                if (state.recordId == null) {
+                    // 报警记录仍在写入，恢复推迟到写入完成后
+                    if (rule.cleared(value)) {
+                        state.recoverAt = time;
+                    } else if (rule.breached(value)) {
+                        state.recoverAt = null;
+                    }
+                    return null;
+                }
+                if (rule.cleared(value)) {
+                    UUID recordId = state.recordId;
+                    state.toNormal();
+                    return new Transition(null, recordId, time);
+                }
+                return null;
+            case PENDING:
+                if (!rule.breached(value)) {
+                    state.toNormal();
+                    return null;
+                }
+                if (time.isBefore(state.breachStart.plusSeconds(rule.delaySeconds))) {
+                    return null;
+                }
+                break;
+            default:
+                if (!rule.breached(value)) {
+                    return null;
+                }
+                if (rule.delaySeconds > 0) {
+                    state.toPending(time);
+                    return null;
+                }
+                break;
+        }
+        state.toAlarm(null);
+        return new Transition(rule.newRecord(value, time), null, time);
+    }
+
+    /**
+     * 写入报警记录（不持有状态锁），写入期间条件已恢复的随即恢复该记录
+     * 写入失败时只记录日志并把状态重置为正常，下一个超限采样重新报警；不中断同批其余采样的求值
+     *
+     * @return 是否写入成功
+     */
+    private boolean open(RuleState state, AlarmRecord record) {
+        AlarmRecord saved;
+        try {
+            saved = transactionTemplate.execute(status -> alarmRecordRepository.save(record));
+        } catch (RuntimeException e) {
+            state.lock.lock();
+            try {
+                if (state.phase == Phase.ALARM && state.recordId == null) {
+                    state.toNormal();
+                }
+            } finally {
+                state.lock.unlock();
+            }
+            log.error("写入报警记录失败，报警配置：{}", record.getAlarmConfigId(), e);
+            return false;
+        }
+        LocalDateTime recoverAt;
+        state.lock.lock();
+        try {
+            // 写入期间状态已被人工触发、恢复或配置删除重置时不再覆盖
+            if (state.phase != Phase.ALARM || state.recordId != null) {
+                return true;
+            }
+            recoverAt = state.recoverAt;
+            if (recoverAt == null) {
+                state.toAlarm(saved.getId());
+                return true;
+            }
+            state.toNormal();
+        } finally {
+            state.lock.unlock();
+        }
+        recover(saved.getId(), recoverAt);
+        return true;
+    }
+
+    /**
+     * 恢复报警记录，失败时只记录日志（记录保持活动状态，可人工恢复）
+     *
+     * @return 是否恢复成功
+     */
+    private boolean recover(UUID recordId, LocalDateTime time) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> alarmRecordRepository.recoverById(recordId, time));
+            return true;
+        } catch (RuntimeException e) {
+            log.error("恢复报警记录失败：{}", recordId, e);
+            return false;
+        }
+    }
+
+    private void replaceRule(UUID configId, CompiledRule rule) {
+        rulesLock.lock();
+        try {
+            Map<UUID, CompiledRule[]> next = new HashMap<>(rulesByPoint);
+            next.replaceAll((pointId, rules) -> Arrays.stream(rules)
+                    .filter(r -> !r.configId.equals(configId))
+                    .toArray(CompiledRule[]::new));
+            if (rule != null) {
+                CompiledRule[] rules = next.getOrDefault(rule.dataPointId, NO_RULES);
+                CompiledRule[] extended = Arrays.copyOf(rules, rules.length + 1);
+                extended[rules.length] = rule;
+                next.put(rule.dataPointId, extended);
+            } else {
+                states.remove(configId);
+            }
+            next.values().removeIf(rules -> rules.length == 0);
+            rulesByPoint = next;
+        } finally {
+            rulesLock.unlock();
+        }
+    }
+
+    private void restoreOpenRecords(AlarmStatus status) {
+        for (AlarmRecord record : alarmRecordRepository.findByStatusOrderByAlarmTimeDesc(status)) {
+            RuleState state = new RuleState();
+            state.toAlarm(record.getId());
+            // 按时间倒序，同一配置以最新的记录为准
+            states.putIfAbsent(record.getAlarmConfigId(), state);
+        }
+    }
+
+    private enum Phase {
+        NORMAL, PENDING, ALARM
+    }
+
+    /**
+     * 单个报警配置的报警状态
+     */
+    private static final class RuleState {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Phase phase = Phase.NORMAL;
+        private LocalDateTime breachStart;
+        /**
+         * 当前报警记录ID，报警记录写入期间为 null
+         */
+        private UUID recordId;
+        /**
+         * 报警记录写入期间条件已恢复的时间
+         */
+        private LocalDateTime recoverAt;
+
+        void toNormal() {
+            phase = Phase.NORMAL;
+            breachStart = null;
+            recordId = null;
+            recoverAt = null;
+        }
+
+        void toPending(LocalDateTime time) {
+            phase = Phase.PENDING;
+            breachStart = time;
+        }
+
+        void toAlarm(UUID id) {
+            phase = Phase.ALARM;
+            breachStart = null;
+            recordId = id;
+            recoverAt = null;
+        }
+    }
+
+    /**
+     * 释放状态锁后执行的状态切换：写入新报警记录，或恢复已有报警记录
+     */
+    private record Transition(AlarmRecord record, UUID recoverRecordId, LocalDateTime time) {
+    }
+
+    /**
+     * 编译后的报警规则，阈值展开为基本类型，求值时不做空值判断和装箱
+     */
+    private static final class CompiledRule {
+        private final UUID configId;
+        private final UUID dataPointId;
+        private final AlarmType alarmType;
+        private final AlarmLevel alarmLevel;
+        private final boolean checkUpper;
+        private final boolean checkLower;
+        private final double upper;
+        private final double lower;
+        private final double deadband;
+        private final long delaySeconds;
+
+        private CompiledRule(AlarmConfig config, boolean checkUpper, boolean checkLower) {
+            this.configId = config.getId();
+            this.dataPointId = config.getDataPointId();
+            this.alarmType = config.getAlarmType();
+            this.alarmLevel = config.getAlarmLevel();
+            this.checkUpper = checkUpper;
+            this.checkLower = checkLower;
+            this.upper = checkUpper ? config.getUpperLimit() : 0.0;
+            this.lower = checkLower ? config.getLowerLimit() : 0.0;
+            this.deadband = config.getDeadband() != null ? Math.abs(config.getDeadband()) : 0.0;
+            this.delaySeconds = config.getDelaySeconds() != null ? Math.max(0, config.getDelaySeconds()) : 0;
+        }
+
+        /**
+         * 编译报警配置，不支持的报警类型（变化率、状态变化）或缺少阈值时返回 null
+         */
+        static CompiledRule compile(AlarmConfig config) {
+            AlarmType type = config.getAlarmType();
+            boolean hasUpper = config.getUpperLimit() != null;
+            boolean hasLower = config.getLowerLimit() != null;
+            return switch (type) {
+                case HIGH -> hasUpper ? new CompiledRule(config, true, false) : null;
+                case LOW -> hasLower ? new CompiledRule(config, false, true) : null;
+                case RANGE -> hasUpper || hasLower ? new CompiledRule(config, hasUpper, hasLower) : null;
+                default -> null;
+            };
+        }
+
+        boolean breached(double value) {
+            return (checkUpper && value > upper) || (checkLower && value < lower);
+        }
+
+        /**
+         * 报警恢复判断：需回到阈值以内超过死区
+         */
+        boolean cleared(double value) {
+            return (!checkUpper || value <= upper - deadband) && (!checkLower || value >= lower + deadband);
+        }
+
+        /**
+         * 生成报警记录，消息只在报警真正发生时格式化
+         */
+        AlarmRecord newRecord(double value, LocalDateTime time) {
+            boolean upperBreached = checkUpper && value > upper;
+            String message = switch (alarmType) {
+                case HIGH -> String.format("数值 %.2f 超过上限 %.2f", value, upper);
+                case LOW -> String.format("数值 %.2f 低于下限 %.2f", value, lower);
+                default -> String.format("数值 %.2f 超出范围 [%.2f, %.2f]", value,
+                        checkLower ? lower : Double.MIN_VALUE, checkUpper ? upper : Double.MAX_VALUE);
+            };
+
+            AlarmRecord record = new AlarmRecord();
+            record.setAlarmConfigId(configId);
+            record.setDataPointId(dataPointId);
+            record.setAlarmType(alarmType);
+            record.setAlarmLevel(alarmLevel);
+            record.setAlarmTime(time);
+            record.setAlarmValue(value);
+            record.setThresholdValue(upperBreached ? upper : lower);
+            record.setAlarmMessage(message);
+            record.setStatus(AlarmStatus.ACTIVE);
+            return record;
+        }
+    }
+}
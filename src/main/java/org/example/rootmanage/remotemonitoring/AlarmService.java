@@ -23,6 +23,7 @@ public class AlarmService {
 
     private final AlarmConfigRepository alarmConfigRepository;
     private final AlarmRecordRepository alarmRecordRepository;
+    private final AlarmRuleEngine alarmRuleEngine;
 
     // ==================== 报警配置管理 ====================
 
@@ -76,7 +77,9 @@ public class AlarmService {
         AlarmConfig config = new AlarmConfig();
         setAlarmConfigProperties(config, request);
 
-        return alarmConfigRepository.save(config);
+        AlarmConfig saved = alarmConfigRepository.save(config);
+        alarmRuleEngine.refresh(saved);
+        return saved;
     }
 
     /**
@@ -97,7 +100,9 @@ public class AlarmService {
 
         setAlarmConfigProperties(config, request);
 
-        return alarmConfigRepository.save(config);
+        AlarmConfig saved = alarmConfigRepository.save(config);
+        alarmRuleEngine.refresh(saved);
+        return saved;
     }
 
     /**
@@ -108,6 +113,7 @@ public class AlarmService {
         AlarmConfig config = alarmConfigRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("报警配置不存在"));
         alarmConfigRepository.delete(config);
+        alarmRuleEngine.remove(id);
     }
 
     // ==================== 报警记录管理 ====================
@@ -172,7 +178,9 @@ public class AlarmService {
         record.setAlarmMessage(alarmMessage != null ? alarmMessage : config.getAlarmMessageTemplate());
         record.setStatus(AlarmStatus.ACTIVE);
 
-        return alarmRecordRepository.save(record);
+        AlarmRecord saved = alarmRecordRepository.save(record);
+        alarmRuleEngine.onRecordOpened(saved);
+        return saved;
     }
 
     /**
@@ -207,60 +215,20 @@ public class AlarmService {
         record.setStatus(AlarmStatus.RECOVERED);
         record.setRecoveryTime(LocalDateTime.now());
 
-        return alarmRecordRepository.save(record);
+        AlarmRecord saved = alarmRecordRepository.save(record);
+        alarmRuleEngine.onRecordRecovered(saved);
+        return saved;
     }
 
     /**
      * 检查点位是否超限并触发报警
+     * 由报警规则引擎在内存中求值，只有报警发生或恢复时才写报警记录
      */
-    @Transactional
     public void checkAndTriggerAlarm(UUID dataPointId, Double value) {
-        List<AlarmConfig> configs = alarmConfigRepository.findByDataPointId(dataPointId);
-
-        for (AlarmConfig config : configs) {
-            if (!config.getEnabled()) {
-                continue;
-            }
-
-            boolean shouldAlarm = false;
-            String message = null;
-
-            switch (config.getAlarmType()) {
-                case HIGH:
-                    if (config.getUpperLimit() != null && value > config.getUpperLimit()) {
-                        shouldAlarm = true;
-                        message = String.format("数值 %.2f 超过上限 %.2f", value, config.getUpperLimit());
-                    }
-                    break;
-                case LOW:
-                    if (config.getLowerLimit() != null && value < config.getLowerLimit()) {
-                        shouldAlarm = true;
-                        message = String.format("数值 %.2f 低于下限 %.2f", value, config.getLowerLimit());
-                    }
-                    break;
-                case RANGE:
-                    if ((config.getUpperLimit() != null && value > config.getUpperLimit()) ||
-                            (config.getLowerLimit() != null && value < config.getLowerLimit())) {
-                        shouldAlarm = true;
-                        message = String.format("数值 %.2f 超出范围 [%.2f, %.2f]",
-                                value,
-                                config.getLowerLimit() != null ? config.getLowerLimit() : Double.MIN_VALUE,
-                                config.getUpperLimit() != null ? config.getUpperLimit() : Double.MAX_VALUE);
-                    }
-                    break;
-                default:
-                    break;
-            }
-
-            if (shouldAlarm) {
-                // 检查是否已有活动报警
-                List<AlarmRecord> activeRecords = alarmRecordRepository
-                        .findByDataPointIdAndStatusOrderByAlarmTimeDesc(dataPointId, AlarmStatus.ACTIVE);
-                if (activeRecords.isEmpty()) {
-                    triggerAlarm(config.getId(), value, message);
-                }
-            }
+        if (value == null) {
+            return;
         }
+        alarmRuleEngine.evaluate(dataPointId, value, LocalDateTime.now());
     }
 
     /**
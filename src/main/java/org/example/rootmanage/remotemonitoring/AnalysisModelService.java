@@ -24,6 +24,7 @@ public class AnalysisModelService {
 
     private final AnalysisModelRepository analysisModelRepository;
     private final AnalysisModelPointRepository analysisModelPointRepository;
+    private final RealTimeValueStore realTimeValueStore;
 
     /**
      * 获取所有分析模型
@@ -124,6 +125,7 @@ public class AnalysisModelService {
         }
 
         AnalysisModel savedModel = analysisModelRepository.save(model);
+        realTimeValueStore.invalidateAnalysisModel(savedModel.getId());
 
         // 保存关联点位
         if (request.getPoints() != null) {
@@ -191,6 +193,7 @@ public class AnalysisModelService {
 
         // 更新关联点位（先删除再新增）
         analysisModelPointRepository.deleteByAnalysisModelId(id);
+        realTimeValueStore.invalidateAnalysisModel(id);
         if (request.getPoints() != null) {
             for (AnalysisModelPointRequest pointRequest : request.getPoints()) {
                 AnalysisModelPoint point = new AnalysisModelPoint();
@@ -226,6 +229,7 @@ public class AnalysisModelService {
 
         analysisModelPointRepository.deleteByAnalysisModelId(id);
         analysisModelRepository.delete(model);
+        realTimeValueStore.invalidateAnalysisModel(id);
     }
 }
 
@@ -0,0 +1,171 @@
+package org.example.rootmanage.remotemonitoring;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataBatchWriter;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataBatchWriter.CurrentValueUpdate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 点位当前值写后缓冲
+ * 采集写入时只在内存中保留每个点位的最新值，按固定间隔或脏点位数量达到阈值时，
+ * 以一条批量 UPDATE（仅 current_value、last_collection_time 两列）写回 remote_data_point。
+ * 高频点位不再每个采样更新一次整行，也不再与点位配置修改争用行锁。应用正常关闭时写回全部待写值。
+ */
+@Slf4j
+@Component
+public class CurrentValueWriteBehind {
+
+    private final RunningDataBatchWriter runningDataBatchWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 脏点位数量达到该值时立即写回
+     */
+    @Value("${remote-monitoring.current-value.flush-threshold:5000}")
+    private int flushThreshold = 5000;
+
+    /**
+     * 点位ID -> 待写回的最新值
+     */
+    private final ConcurrentHashMap<UUID, CurrentValueUpdate> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 保证同一时刻只有一个写回在执行，写回顺序与取值顺序一致
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public CurrentValueWriteBehind(RunningDataBatchWriter runningDataBatchWriter,
+                                   PlatformTransactionManager transactionManager) {
+        this.runningDataBatchWriter = runningDataBatchWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 写回可能在调用方事务提交后的回调中触发，必须使用独立事务
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 提交一个点位当前值，处于事务中时在提交后生效
+     */
+    public void offer(CurrentValueUpdate update) {
+        AfterCommit.run(() -> {
+            enqueue(update);
+            flushIfOverThreshold();
+        });
+    }
+
+    /**
+     * 批量提交点位当前值
+     */
+    public void offerAll(Collection<CurrentValueUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        List<CurrentValueUpdate> snapshot = new ArrayList<>(updates);
+        AfterCommit.run(() -> {
+            for (CurrentValueUpdate update : snapshot) {
+                enqueue(update);
+            }
+            flushIfOverThreshold();
+        });
+    }
+
+    /**
+     * 待写回的点位数量
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 定时写回
+     */
+    @Scheduled(fixedDelayString = "${remote-monitoring.current-value.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 应用关闭时写回全部待写值
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 写回全部待写值，返回写回的点位数量
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            return drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushIfOverThreshold() {
+        // 已有写回在执行时不等待，由其后的定时写回处理
+        if (pending.size() >= flushThreshold && flushLock.tryLock()) {
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                // 阈值写回由采集写入触发，失败的批次已放回缓冲，由定时写回重试并暴露错误
+                log.warn("点位当前值阈值写回失败，待写值留待定时写回", e);
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private int drain() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<CurrentValueUpdate> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<UUID, CurrentValueUpdate> entry : pending.entrySet()) {
+            // 只移除取出时的值；取出后又到达的新值留在缓冲中，下次写回
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> runningDataBatchWriter.updateCurrentValues(batch));
+        } catch (RuntimeException e) {
+            // 写回失败时放回缓冲，已有更新值的点位保留更新值
+            for (CurrentValueUpdate update : batch) {
+                enqueue(update);
+            }
+            throw e;
+        }
+        return batch.size();
+    }
+
+    private void enqueue(CurrentValueUpdate update) {
+        pending.merge(update.getDataPointId(), update, CurrentValueWriteBehind::newer);
+    }
+
+    private static CurrentValueUpdate newer(CurrentValueUpdate current, CurrentValueUpdate candidate) {
+        LocalDateTime currentTime = current.getCollectionTime();
+        LocalDateTime candidateTime = candidate.getCollectionTime();
+        if (currentTime != null && candidateTime != null && candidateTime.isBefore(currentTime)) {
+            return current;
+        }
+        return candidate;
+    }
+}
@@ -5,7 +5,8 @@ import org.example.rootmanage.remotemonitoring.dto.DataPointRequest;
 import org.example.rootmanage.remotemonitoring.dto.ManualDataInputRequest;
 import org.example.rootmanage.remotemonitoring.entity.*;
 import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
-import org.example.rootmanage.remotemonitoring.repository.DeviceRunningDataRepository;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataBatchWriter.CurrentValueUpdate;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataStore;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,7 +23,12 @@ import java.util.UUID;
 public class DataPointService {
 
     private final DataPointRepository dataPointRepository;
-    private final DeviceRunningDataRepository deviceRunningDataRepository;
+    private final RunningDataStore runningDataStore;
+    private final RealTimeValueStore realTimeValueStore;
+    private final CurrentValueWriteBehind currentValueWriteBehind;
+    private final AlarmRuleEngine alarmRuleEngine;
+    private final VirtualMeterFormulaEngine formulaEngine;
+    private final DataStatisticsRollup statisticsRollup;
 
     /**
      * 获取所有点位
@@ -98,7 +104,9 @@ public class DataPointService {
         DataPoint point = new DataPoint();
         setDataPointProperties(point, request);
 
-        return dataPointRepository.save(point);
+        DataPoint saved = dataPointRepository.save(point);
+        realTimeValueStore.register(saved);
+        return saved;
     }
 
     /**
@@ -119,7 +127,9 @@ public class DataPointService {
 
         setDataPointProperties(point, request);
 
-        return dataPointRepository.save(point);
+        DataPoint saved = dataPointRepository.save(point);
+        realTimeValueStore.register(saved);
+        return saved;
     }
 
     /**
@@ -130,6 +140,7 @@ public class DataPointService {
         DataPoint point = dataPointRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("点位不存在"));
         dataPointRepository.delete(point);
+        realTimeValueStore.remove(id);
     }
 
     /**
@@ -151,12 +162,15 @@ public class DataPointService {
         data.setInputByName(request.getInputByName());
         data.setRemark(request.getRemark());
 
-        // 更新点位的当前值
-        point.setCurrentValue(request.getValue());
-        point.setLastCollectionTime(data.getCollectionTime());
-        dataPointRepository.save(point);
+        // 更新点位的当前值（写后缓冲合并写回）
+        currentValueWriteBehind.offer(new CurrentValueUpdate(
+                point.getId(), data.getValue(), data.getCollectionTime(), data.getQuality()));
+        realTimeValueStore.updateValue(point.getId(), data.getValue(), data.getQuality(), data.getCollectionTime());
+        alarmRuleEngine.offer(point.getId(), data.getValue(), data.getQuality(), data.getCollectionTime());
+        formulaEngine.offer(point.getId(), data.getValue(), data.getQuality(), data.getCollectionTime());
+        statisticsRollup.offer(point.getId(), data.getValue(), data.getQuality(), data.getCollectionTime());
 
-        return deviceRunningDataRepository.save(data);
+        return runningDataStore.save(data);
     }
 
     /**
@@ -164,12 +178,14 @@ public class DataPointService {
      */
     @Transactional
     public void updateCurrentValue(UUID dataPointId, Double value, LocalDateTime collectionTime) {
-        DataPoint point = dataPointRepository.findById(dataPointId)
-                .orElseThrow(() -> new IllegalArgumentException("点位不存在"));
+        if (!dataPointRepository.existsById(dataPointId)) {
+            throw new IllegalArgumentException("点位不存在");
+        }
 
-        point.setCurrentValue(value);
-        point.setLastCollectionTime(collectionTime);
-        dataPointRepository.save(point);
+        currentValueWriteBehind.offer(new CurrentValueUpdate(dataPointId, value, collectionTime, DataQuality.GOOD));
+        realTimeValueStore.updateValue(dataPointId, value, DataQuality.GOOD, collectionTime);
+        alarmRuleEngine.offer(dataPointId, value, DataQuality.GOOD, collectionTime);
+        formulaEngine.offer(dataPointId, value, DataQuality.GOOD, collectionTime);
     }
 
     /**
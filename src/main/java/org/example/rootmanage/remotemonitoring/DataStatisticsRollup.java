@@ -0,0 +1,385 @@
+package org.example.rootmanage.remotemonitoring;
+
+import jakarta.annotation.PreDestroy;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.remotemonitoring.dto.StatisticsBackfillRequest;
+import org.example.rootmanage.remotemonitoring.dto.StatisticsBackfillResult;
+import org.example.rootmanage.remotemonitoring.entity.DataPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
+import org.example.rootmanage.remotemonitoring.entity.DeviceRunningData;
+import org.example.rootmanage.remotemonitoring.entity.StatisticsPeriod;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.DataStatisticsBatchWriter;
+import org.example.rootmanage.remotemonitoring.repository.DataStatisticsRepository;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataStore;
+import org.example.rootmanage.remotemonitoring.statistics.StatisticsAggregate;
+import org.example.rootmanage.remotemonitoring.statistics.StatisticsBuckets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 统计数据增量汇总
+ * 采集数据提交后按点位和小时在内存中累加聚合值（点数、累计值、最大/最小值及发生时间）。
+ * 小时结束（并经过迟到数据等待时间）后，把小时聚合合并写入小时统计行，并逐级合并到日、周、月统计行，
+ * 不再回查原始运行数据。聚合值可任意合并，因此迟到数据和应用关闭时未结束小时的部分聚合都作为增量合并。
+ * 补算模式按点位并行流式读取原始数据，重建指定日期范围内的统计数据（应用异常退出丢失的内存聚合可通过补算恢复）。
+ */
+@Component
+public class DataStatisticsRollup {
+
+    private static final StatisticsPeriod[] PERIODS = StatisticsPeriod.values();
+
+    private final DataStatisticsRepository statisticsRepository;
+    private final DataStatisticsBatchWriter statisticsBatchWriter;
+    private final DataPointRepository dataPointRepository;
+    private final RunningDataStore runningDataStore;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 小时结束后等待迟到数据的时间（秒）
+     */
+    @Value("${remote-monitoring.statistics.close-delay-seconds:60}")
+    private long closeDelaySeconds = 60;
+
+    /**
+     * 补算时并行处理的点位数
+     */
+    @Value("${remote-monitoring.statistics.backfill-parallelism:4}")
+    private int backfillParallelism = 4;
+
+    /**
+     * 点位及小时 -> 尚未写入统计表的聚合增量
+     */
+    private final ConcurrentHashMap<HourKey, StatisticsAggregate> open = new ConcurrentHashMap<>();
+
+    /**
+     * 保证本节点同一时刻只有一个写入在执行，节点之间由数据库端合并保证不丢失增量
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    private record HourKey(UUID dataPointId, LocalDateTime hourStart) {
+    }
+
+    private record RowKey(UUID dataPointId, LocalDate statisticsDate, Integer hourOfDay) {
+    }
+
+    public DataStatisticsRollup(DataStatisticsRepository statisticsRepository,
+                                DataStatisticsBatchWriter statisticsBatchWriter,
+                                DataPointRepository dataPointRepository,
+                                RunningDataStore runningDataStore,
+                                PlatformTransactionManager transactionManager) {
+        this.statisticsRepository = statisticsRepository;
+        this.statisticsBatchWriter = statisticsBatchWriter;
+        this.dataPointRepository = dataPointRepository;
+        this.runningDataStore = runningDataStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 写入可能在调用方事务提交后的回调中触发，必须使用独立事务
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // ==================== 增量汇总 ====================
+
+    /**
+     * 提交一个采集值，处于事务中时在提交后累加，坏数据不参与统计
+     */
+    public void offer(UUID dataPointId, Double value, DataQuality quality, LocalDateTime collectionTime) {
+        if (value == null || quality == DataQuality.BAD || collectionTime == null) {
+            return;
+        }
+        AfterCommit.run(() -> accumulate(dataPointId, value, collectionTime));
+    }
+
+    /**
+     * 批量提交运行数据
+     */
+    public void offerAll(List<DeviceRunningData> rows) {
+        List<DeviceRunningData> valid = new ArrayList<>(rows.size());
+        for (DeviceRunningData row : rows) {
+            if (row.getValue() != null && row.getQuality() != DataQuality.BAD && row.getCollectionTime() != null) {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            for (DeviceRunningData row : valid) {
+                accumulate(row.getDataPointId(), row.getValue(), row.getCollectionTime());
+            }
+        });
+    }
+
+    /**
+     * 尚未写入的点位小时数
+     */
+    public int getOpenBucketCount() {
+        return open.size();
+    }
+
+    /**
+     * 定时写入已结束的小时
+     */
+    @Scheduled(fixedDelayString = "${remote-monitoring.statistics.close-interval-ms:60000}")
+    public void scheduledClose() {
+        closeHours(LocalDateTime.now().minusSeconds(closeDelaySeconds));
+    }
+
+    /**
+     * 应用关闭时写入全部聚合增量（包括未结束的小时）
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush(null);
+    }
+
+    /**
+     * 写入在指定时间之前已结束的小时，返回写入的点位小时数
+     */
+    public int closeHours(LocalDateTime cutoff) {
+        return flush(cutoff);
+    }
+
+    private void accumulate(UUID dataPointId, double value, LocalDateTime collectionTime) {
+        open.compute(new HourKey(dataPointId, StatisticsBuckets.hourStart(collectionTime)),
+                (key, aggregate) -> (aggregate != null ? aggregate : new StatisticsAggregate()).add(value, collectionTime));
+    }
+
+    private int flush(LocalDateTime cutoff) {
+        flushLock.lock();
+        try {
+            Map<HourKey, StatisticsAggregate> closed = new HashMap<>();
+            for (HourKey key : open.keySet()) {
+                if (cutoff == null || !key.hourStart().plusHours(1).isAfter(cutoff)) {
+                    // 移除后到达的同一小时数据进入新的增量，下次写入
+                    StatisticsAggregate aggregate = open.remove(key);
+                    if (aggregate != null) {
+                        closed.put(key, aggregate);
+                    }
+                }
+            }
+            if (closed.isEmpty()) {
+                return 0;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> mergeIntoRows(closed));
+            } catch (RuntimeException e) {
+                // 写入失败时放回，与之后到达的增量合并
+                closed.forEach((key, aggregate) -> open.merge(key, aggregate, StatisticsAggregate::merge));
+                throw e;
+            }
+            return closed.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 把小时增量逐级合并到小时、日、周、月统计行
+     */
+    private void mergeIntoRows(Map<HourKey, StatisticsAggregate> deltas) {
+        for (StatisticsPeriod period : PERIODS) {
+            Map<RowKey, StatisticsAggregate> targets = new HashMap<>();
+            for (Map.Entry<HourKey, StatisticsAggregate> entry : deltas.entrySet()) {
+                LocalDateTime hourStart = entry.getKey().hourStart();
+                RowKey key = new RowKey(entry.getKey().dataPointId(),
+                        StatisticsBuckets.bucketDate(period, hourStart.toLocalDate()),
+                        StatisticsBuckets.hourOfDay(period, hourStart));
+                targets.computeIfAbsent(key, k -> new StatisticsAggregate()).merge(entry.getValue());
+            }
+            upsert(period, targets);
+        }
+    }
+
+    /**
+     * 增量在数据库端合并进已有统计行（见 {@link DataStatisticsBatchWriter}），不先读后写，
+     * 其他节点同时写入同一统计行时不会互相覆盖
+     */
+    private void upsert(StatisticsPeriod period, Map<RowKey, StatisticsAggregate> targets) {
+        List<DataStatistics> deltas = new ArrayList<>(targets.size());
+        for (Map.Entry<RowKey, StatisticsAggregate> entry : targets.entrySet()) {
+            RowKey key = entry.getKey();
+            int hour = key.hourOfDay() != null ? key.hourOfDay() : 0;
+            DataStatistics row = StatisticsBuckets.newRow(key.dataPointId(), period, key.statisticsDate().atTime(hour, 0));
+            entry.getValue().applyTo(row);
+            deltas.add(row);
+        }
+        statisticsBatchWriter.mergeStatistics(deltas);
+    }
+
+    // ==================== 补算 ====================
+
+    /**
+     * 按原始数据重建日期范围内的统计数据
+     * 范围内的小时和日统计整体重建；周、月统计由日统计合并，范围涉及的周和月整体重建（范围外的日期使用已有日统计）。
+     * 点位之间并行处理，每个点位以只进游标读取原始数据，内存中只保留该点位各小时的聚合值。
+     * 只能补算今天之前的日期，避免与增量汇总重复累加。
+     */
+    public StatisticsBackfillResult backfill(StatisticsBackfillRequest request) {
+        LocalDate startDate = request.getStartDate();
+        LocalDate endDate = request.getEndDate();
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("开始日期和结束日期不能为空");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        if (!endDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("只能补算今天之前的统计数据");
+        }
+        List<UUID> pointIds = request.getDataPointIds() != null && !request.getDataPointIds().isEmpty()
+                ? new ArrayList<>(new LinkedHashSet<>(request.getDataPointIds()))
+                : dataPointRepository.findAll().stream().map(DataPoint::getId).toList();
+
+        if (!backfillRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("统计补算正在进行中");
+        }
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(backfillParallelism, pointIds.size())));
+        try {
+            // 原始数据已包含内存中尚未写入的增量，丢弃范围内的增量避免重复累加
+            discardOpen(new HashSet<>(pointIds), startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+
+            Map<UUID, Future<BackfillCount>> futures = new LinkedHashMap<>();
+            for (UUID pointId : pointIds) {
+                futures.put(pointId, executor.submit(() -> backfillPoint(pointId, startDate, endDate)));
+            }
+            BackfillCount total = new BackfillCount();
+            List<UUID> failedPointIds = new ArrayList<>();
+            for (Map.Entry<UUID, Future<BackfillCount>> entry : futures.entrySet()) {
+                try {
+                    total.add(entry.getValue().get());
+                } catch (ExecutionException e) {
+                    failedPointIds.add(entry.getKey());
+                }
+            }
+            return new StatisticsBackfillResult(pointIds.size(), total.rawRows, total.hourlyRows, total.dailyRows,
+                    total.weeklyRows, total.monthlyRows, failedPointIds, (System.nanoTime() - start) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("统计补算被中断");
+        } finally {
+            executor.shutdownNow();
+            backfillRunning.set(false);
+        }
+    }
+
+    private void discardOpen(Set<UUID> pointIds, LocalDateTime startTime, LocalDateTime endTime) {
+        // 持有写入锁，保证进行中的写入先完成
+        flushLock.lock();
+        try {
+            open.keySet().removeIf(key -> pointIds.contains(key.dataPointId())
+                    && !key.hourStart().isBefore(startTime) && key.hourStart().isBefore(endTime));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private BackfillCount backfillPoint(UUID pointId, LocalDate startDate, LocalDate endDate) {
+        TreeMap<LocalDateTime, StatisticsAggregate> hours = new TreeMap<>();
+        long rawRows = runningDataStore.forEachValue(pointId,
+                startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(),
+                (time, value) -> hours.computeIfAbsent(StatisticsBuckets.hourStart(time),
+                        hour -> new StatisticsAggregate()).add(value, time));
+        BackfillCount count = transactionTemplate.execute(status -> replaceRows(pointId, startDate, endDate, hours));
+        count.rawRows = rawRows;
+        return count;
+    }
+
+    private BackfillCount replaceRows(UUID pointId, LocalDate startDate, LocalDate endDate,
+                                      SortedMap<LocalDateTime, StatisticsAggregate> hours) {
+        statisticsRepository.deleteByDataPointIdAndPeriodAndDateRange(pointId, StatisticsPeriod.HOURLY, startDate, endDate);
+        statisticsRepository.deleteByDataPointIdAndPeriodAndDateRange(pointId, StatisticsPeriod.DAILY, startDate, endDate);
+
+        List<DataStatistics> hourlyRows = new ArrayList<>(hours.size());
+        SortedMap<LocalDate, StatisticsAggregate> days = new TreeMap<>();
+        for (Map.Entry<LocalDateTime, StatisticsAggregate> entry : hours.entrySet()) {
+            hourlyRows.add(row(pointId, StatisticsPeriod.HOURLY, entry.getKey(), entry.getValue()));
+            days.computeIfAbsent(entry.getKey().toLocalDate(), date -> new StatisticsAggregate()).merge(entry.getValue());
+        }
+        List<DataStatistics> dailyRows = new ArrayList<>(days.size());
+        days.forEach((date, aggregate) -> dailyRows.add(row(pointId, StatisticsPeriod.DAILY, date.atStartOfDay(), aggregate)));
+        statisticsRepository.saveAll(hourlyRows);
+        statisticsRepository.saveAll(dailyRows);
+
+        BackfillCount count = new BackfillCount();
+        count.hourlyRows = hourlyRows.size();
+        count.dailyRows = dailyRows.size();
+        count.weeklyRows = rebuildFromDaily(pointId, StatisticsPeriod.WEEKLY, startDate, endDate, days);
+        count.monthlyRows = rebuildFromDaily(pointId, StatisticsPeriod.MONTHLY, startDate, endDate, days);
+        return count;
+    }
+
+    /**
+     * 由日统计重建范围涉及的周或月统计
+     */
+    private int rebuildFromDaily(UUID pointId, StatisticsPeriod period, LocalDate startDate, LocalDate endDate,
+                                 SortedMap<LocalDate, StatisticsAggregate> days) {
+        LocalDate first = StatisticsBuckets.bucketDate(period, startDate);
+        LocalDate lastBucket = StatisticsBuckets.bucketDate(period, endDate);
+        LocalDate last = StatisticsBuckets.bucketEnd(period, lastBucket.atStartOfDay()).toLocalDate().minusDays(1);
+
+        SortedMap<LocalDate, StatisticsAggregate> buckets = new TreeMap<>();
+        for (DataStatistics daily : statisticsRepository.findByDataPointIdAndPeriodAndDateRange(
+                pointId, StatisticsPeriod.DAILY, first, last)) {
+            LocalDate date = daily.getStatisticsDate();
+            if (date.isBefore(startDate) || date.isAfter(endDate)) {
+                buckets.computeIfAbsent(StatisticsBuckets.bucketDate(period, date), d -> new StatisticsAggregate())
+                        .merge(StatisticsAggregate.of(daily));
+            }
+        }
+        days.forEach((date, aggregate) -> buckets.computeIfAbsent(StatisticsBuckets.bucketDate(period, date),
+                d -> new StatisticsAggregate()).merge(aggregate));
+
+        statisticsRepository.deleteByDataPointIdAndPeriodAndDateRange(pointId, period, first, lastBucket);
+        List<DataStatistics> rows = new ArrayList<>(buckets.size());
+        buckets.forEach((date, aggregate) -> {
+            if (!aggregate.isEmpty()) {
+                rows.add(row(pointId, period, date.atStartOfDay(), aggregate));
+            }
+        });
+        statisticsRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    private static DataStatistics row(UUID pointId, StatisticsPeriod period, LocalDateTime time,
+                                      StatisticsAggregate aggregate) {
+        DataStatistics row = StatisticsBuckets.newRow(pointId, period, time);
+        aggregate.applyTo(row);
+        return row;
+    }
+
+    private static final class BackfillCount {
+        private long rawRows;
+        private int hourlyRows;
+        private int dailyRows;
+        private int weeklyRows;
+        private int monthlyRows;
+
+        private void add(BackfillCount other) {
+            rawRows += other.rawRows;
+            hourlyRows += other.hourlyRows;
+            dailyRows += other.dailyRows;
+            weeklyRows += other.weeklyRows;
+            monthlyRows += other.monthlyRows;
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package org.example.rootmanage.remotemonitoring;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.rootmanage.remotemonitoring.dto.CurveAnalysisRequest;
 import org.example.rootmanage.remotemonitoring.dto.CurveDataResponse;
-import org.example.rootmanage.remotemonitoring.entity.DataPoint;
+import org.example.rootmanage.remotemonitoring.dto.IngestionStatisticsResponse;
+import org.example.rootmanage.remotemonitoring.dto.RealTimeValue;
+import org.example.rootmanage.remotemonitoring.dto.RunningDataBatchRequest;
+import org.example.rootmanage.remotemonitoring.dto.RunningDataBatchResult;
+import org.example.rootmanage.remotemonitoring.dto.StatisticsBackfillRequest;
+import org.example.rootmanage.remotemonitoring.dto.StatisticsBackfillResult;
 import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
 import org.example.rootmanage.remotemonitoring.entity.DeviceRunningData;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -31,7 +39,7 @@ public class DeviceMonitoringController {
      * 获取所有点位的实时数据
      */
     @GetMapping("/realtime")
-    public List<DataPoint> getRealTimeData() {
+    public List<RealTimeValue> getRealTimeData() {
         return monitoringService.getRealTimeData();
     }
 
@@ -39,7 +47,7 @@ public class DeviceMonitoringController {
      * 根据点位ID获取实时数据
      */
     @GetMapping("/realtime/{dataPointId}")
-    public DataPoint getRealTimeDataByPointId(@PathVariable UUID dataPointId) {
+    public RealTimeValue getRealTimeDataByPointId(@PathVariable UUID dataPointId) {
         return monitoringService.getRealTimeDataByPointId(dataPointId);
     }
 
@@ -47,10 +55,19 @@ public class DeviceMonitoringController {
      * 根据分析模型获取实时数据
      */
     @GetMapping("/realtime/analysis-model/{analysisModelId}")
-    public List<DataPoint> getRealTimeDataByAnalysisModel(@PathVariable UUID analysisModelId) {
+    public List<RealTimeValue> getRealTimeDataByAnalysisModel(@PathVariable UUID analysisModelId) {
         return monitoringService.getRealTimeDataByAnalysisModel(analysisModelId);
     }
 
+    /**
+     * 订阅实时数据推送（Server-Sent Events），指定点位ID列表或分析模型
+     */
+    @GetMapping(value = "/realtime/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRealTimeData(@RequestParam(required = false) List<UUID> dataPointIds,
+                                         @RequestParam(required = false) UUID analysisModelId) {
+        return monitoringService.subscribeRealTimeData(dataPointIds, analysisModelId);
+    }
+
     // ==================== 曲线分析功能 ====================
 
     /**
@@ -136,6 +153,34 @@ public class DeviceMonitoringController {
     public DeviceRunningData getLatestData(@PathVariable UUID dataPointId) {
         return monitoringService.getLatestData(dataPointId);
     }
+
+    // ==================== 统计数据补算 ====================
+
+    /**
+     * 按原始数据补算统计数据
+     */
+    @PostMapping("/statistics/backfill")
+    public StatisticsBackfillResult backfillStatistics(@Valid @RequestBody StatisticsBackfillRequest request) {
+        return monitoringService.backfillStatistics(request);
+    }
+
+    // ==================== 数据采集写入 ====================
+
+    /**
+     * 批量写入采集数据
+     */
+    @PostMapping("/running-data/batch")
+    public RunningDataBatchResult saveRunningDataBatch(@Valid @RequestBody RunningDataBatchRequest request) {
+        return monitoringService.saveRunningDataBatch(request);
+    }
+
+    /**
+     * 获取批量写入统计（累计行数、持续写入速率）
+     */
+    @GetMapping("/running-data/batch/statistics")
+    public IngestionStatisticsResponse getIngestionStatistics() {
+        return monitoringService.getIngestionStatistics();
+    }
 }
 
 
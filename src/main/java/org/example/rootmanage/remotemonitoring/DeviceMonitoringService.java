@@ -1,16 +1,30 @@
 package org.example.rootmanage.remotemonitoring;
 
 import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.remotemonitoring.curve.DownsamplingMethod;
+import org.example.rootmanage.remotemonitoring.curve.LttbDownsampler;
+import org.example.rootmanage.remotemonitoring.curve.MinMaxDownsampler;
 import org.example.rootmanage.remotemonitoring.dto.CurveAnalysisRequest;
 import org.example.rootmanage.remotemonitoring.dto.CurveDataResponse;
+import org.example.rootmanage.remotemonitoring.dto.IngestionStatisticsResponse;
+import org.example.rootmanage.remotemonitoring.dto.RealTimeValue;
+import org.example.rootmanage.remotemonitoring.dto.RunningDataBatchRequest;
+import org.example.rootmanage.remotemonitoring.dto.RunningDataBatchResult;
+import org.example.rootmanage.remotemonitoring.dto.StatisticsBackfillRequest;
+import org.example.rootmanage.remotemonitoring.dto.StatisticsBackfillResult;
 import org.example.rootmanage.remotemonitoring.entity.*;
+import org.example.rootmanage.remotemonitoring.live.LiveValueHub;
 import org.example.rootmanage.remotemonitoring.repository.*;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataBatchWriter.CurrentValueUpdate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
@@ -22,43 +36,77 @@ import java.util.stream.Collectors;
 public class DeviceMonitoringService {
 
     private final DataPointRepository dataPointRepository;
-    private final DeviceRunningDataRepository runningDataRepository;
+    private final RunningDataStore runningDataStore;
     private final DataStatisticsRepository statisticsRepository;
     private final AnalysisModelRepository analysisModelRepository;
     private final AnalysisModelPointRepository analysisModelPointRepository;
+    private final RealTimeValueStore realTimeValueStore;
+    private final CurrentValueWriteBehind currentValueWriteBehind;
+    private final AlarmRuleEngine alarmRuleEngine;
+    private final VirtualMeterFormulaEngine formulaEngine;
+    private final DataStatisticsRollup statisticsRollup;
+    private final LiveValueHub liveValueHub;
+
+    /**
+     * 单次批量写入允许的最大条数
+     */
+    @Value("${remote-monitoring.ingestion.max-batch-size:50000}")
+    private int maxBatchSize = 50000;
+
+    /**
+     * 曲线降采样允许的每条曲线最大点数
+     */
+    @Value("${remote-monitoring.curve.max-points-limit:10000}")
+    private int maxCurvePoints = 10000;
+
+    // 批量写入统计
+    private final LongAdder ingestedBatches = new LongAdder();
+    private final LongAdder ingestedRows = new LongAdder();
+    private final LongAdder ingestionNanos = new LongAdder();
+    private volatile double lastBatchRowsPerSecond;
 
     // ==================== 实时监视功能 ====================
 
     /**
-     * 获取所有点位的实时数据
+     * 获取所有点位的实时数据（从实时值缓存读取）
      */
-    @Transactional(readOnly = true)
-    public List<DataPoint> getRealTimeData() {
-        return dataPointRepository.findByEnabled(true);
+    public List<RealTimeValue> getRealTimeData() {
+        return realTimeValueStore.findEnabled();
     }
 
     /**
-     * 根据点位ID获取实时数据
+     * 根据点位ID获取实时数据（从实时值缓存读取）
      */
-    @Transactional(readOnly = true)
-    public DataPoint getRealTimeDataByPointId(UUID dataPointId) {
-        return dataPointRepository.findById(dataPointId)
-                .orElseThrow(() -> new IllegalArgumentException("点位不存在"));
+    public RealTimeValue getRealTimeDataByPointId(UUID dataPointId) {
+        RealTimeValue value = realTimeValueStore.get(dataPointId);
+        if (value == null) {
+            throw new IllegalArgumentException("点位不存在");
+        }
+        return value;
     }
 
     /**
-     * 根据分析模型获取实时数据
+     * 根据分析模型获取实时数据（从实时值缓存读取）
      */
-    @Transactional(readOnly = true)
-    public List<DataPoint> getRealTimeDataByAnalysisModel(UUID analysisModelId) {
-        List<AnalysisModelPoint> modelPoints = analysisModelPointRepository
-                .findByAnalysisModelIdOrderBySortOrder(analysisModelId);
-
-        List<UUID> pointIds = modelPoints.stream()
-                .map(AnalysisModelPoint::getDataPointId)
-                .collect(Collectors.toList());
+    public List<RealTimeValue> getRealTimeDataByAnalysisModel(UUID analysisModelId) {
+        return realTimeValueStore.findByAnalysisModel(analysisModelId);
+    }
 
-        return dataPointRepository.findByIdIn(pointIds);
+    /**
+     * 订阅实时数据推送：指定点位列表或分析模型（二选一），先收到当前值快照，之后只收到变化的点位值
+     */
+    public SseEmitter subscribeRealTimeData(List<UUID> dataPointIds, UUID analysisModelId) {
+        List<UUID> pointIds;
+        if (analysisModelId != null) {
+            pointIds = realTimeValueStore.findByAnalysisModel(analysisModelId).stream()
+                    .map(RealTimeValue::getDataPointId)
+                    .toList();
+        } else if (dataPointIds != null && !dataPointIds.isEmpty()) {
+            pointIds = new ArrayList<>(new LinkedHashSet<>(dataPointIds));
+        } else {
+            throw new IllegalArgumentException("请指定订阅的点位或分析模型");
+        }
+        return liveValueHub.subscribe(pointIds, () -> realTimeValueStore.findByIds(pointIds));
     }
 
     // ==================== 曲线分析功能 ====================
@@ -136,9 +184,25 @@ public class DeviceMonitoringService {
                 response.setDataPoints(values);
                 responses.add(response);
             }
+        } else if (request.getMaxPoints() != null) {
+            // 原始数据服务端降采样：逐点位以只进游标读取，不加载整个窗口的原始数据
+            if (request.getMaxPoints() < 2 || request.getMaxPoints() > maxCurvePoints) {
+                throw new IllegalArgumentException("最大点数必须在 2 到 " + maxCurvePoints + " 之间");
+            }
+            for (UUID pointId : pointIds) {
+                DataPoint point = pointMap.get(pointId);
+                if (point == null) continue;
+
+                CurveDataResponse response = new CurveDataResponse();
+                response.setDataPointId(pointId);
+                response.setPointName(point.getPointName());
+                response.setUnit(point.getUnit());
+                response.setDataPoints(downsample(pointId, request));
+                responses.add(response);
+            }
         } else {
             // 使用原始数据
-            List<DeviceRunningData> runningData = runningDataRepository.findByDataPointIdsAndTimeRange(
+            List<DeviceRunningData> runningData = runningDataStore.findByDataPointIdsAndTimeRange(
                     pointIds, request.getStartTime(), request.getEndTime());
 
             // 按点位分组
@@ -172,6 +236,23 @@ public class DeviceMonitoringService {
         return responses;
     }
 
+    private List<CurveDataResponse.DataPointValue> downsample(UUID pointId, CurveAnalysisRequest request) {
+        LocalDateTime startTime = request.getStartTime();
+        LocalDateTime endTime = request.getEndTime();
+        int maxPoints = request.getMaxPoints();
+        if (request.getDownsampling() == DownsamplingMethod.MIN_MAX) {
+            MinMaxDownsampler sampler = new MinMaxDownsampler(startTime, endTime, maxPoints);
+            runningDataStore.forEachCurveValue(pointId, startTime, endTime, sampler::accept);
+            return sampler.result();
+        }
+        LttbDownsampler sampler = new LttbDownsampler(startTime, endTime, maxPoints);
+        runningDataStore.forEachCurveValue(pointId, startTime, endTime, sampler::measure);
+        if (sampler.needsSelectionPass()) {
+            runningDataStore.forEachCurveValue(pointId, startTime, endTime, sampler::select);
+        }
+        return sampler.result();
+    }
+
     /**
      * 获取小时曲线分析数据
      */
@@ -261,7 +342,7 @@ public class DeviceMonitoringService {
      */
     @Transactional(readOnly = true)
     public List<DeviceRunningData> getHistoricalData(UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime) {
-        return runningDataRepository.findByDataPointIdAndTimeRange(dataPointId, startTime, endTime);
+        return runningDataStore.findByDataPointIdAndTimeRange(dataPointId, startTime, endTime);
     }
 
     /**
@@ -269,7 +350,7 @@ public class DeviceMonitoringService {
      */
     @Transactional(readOnly = true)
     public DeviceRunningData getLatestData(UUID dataPointId) {
-        return runningDataRepository.findFirstByDataPointIdOrderByCollectionTimeDesc(dataPointId)
+        return runningDataStore.findFirstByDataPointIdOrderByCollectionTimeDesc(dataPointId)
                 .orElse(null);
     }
 
@@ -289,12 +370,117 @@ public class DeviceMonitoringService {
         data.setQuality(DataQuality.GOOD);
         data.setSource(DataSource.AUTO);
 
-        // 更新点位当前值
-        point.setCurrentValue(data.getValue());
-        point.setLastCollectionTime(data.getCollectionTime());
-        dataPointRepository.save(point);
+        // 更新点位当前值（写后缓冲合并写回）
+        currentValueWriteBehind.offer(new CurrentValueUpdate(
+                dataPointId, data.getValue(), data.getCollectionTime(), data.getQuality()));
+        realTimeValueStore.updateValue(dataPointId, data.getValue(), data.getQuality(), data.getCollectionTime());
+        alarmRuleEngine.offer(dataPointId, data.getValue(), data.getQuality(), data.getCollectionTime());
+        formulaEngine.offer(dataPointId, data.getValue(), data.getQuality(), data.getCollectionTime());
+        statisticsRollup.offer(dataPointId, data.getValue(), data.getQuality(), data.getCollectionTime());
+
+        return runningDataStore.save(data);
+    }
+
+    /**
+     * 批量保存采集数据
+     * 点位信息一次查出，运行数据以JDBC批量插入，每个点位在本批次内只更新一次当前值（取采集时间最新的一条）
+     */
+    @Transactional
+    public RunningDataBatchResult saveRunningDataBatch(RunningDataBatchRequest request) {
+        List<RunningDataBatchRequest.Reading> readings = request.getReadings();
+        if (readings == null || readings.isEmpty()) {
+            throw new IllegalArgumentException("采集数据不能为空");
+        }
+        if (readings.size() > maxBatchSize) {
+            throw new IllegalArgumentException("单次最多写入 " + maxBatchSize + " 条采集数据");
+        }
+
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        Set<UUID> pointIds = new HashSet<>();
+        for (RunningDataBatchRequest.Reading reading : readings) {
+            pointIds.add(reading.getDataPointId());
+        }
+        Map<UUID, DataPoint> pointMap = new HashMap<>();
+        for (DataPoint point : dataPointRepository.findByIdIn(new ArrayList<>(pointIds))) {
+            pointMap.put(point.getId(), point);
+        }
+
+        List<DeviceRunningData> rows = new ArrayList<>(readings.size());
+        Map<UUID, CurrentValueUpdate> latestValues = new HashMap<>();
+        Set<UUID> unknownPointIds = new LinkedHashSet<>();
+
+        for (RunningDataBatchRequest.Reading reading : readings) {
+            DataPoint point = pointMap.get(reading.getDataPointId());
+            if (point == null) {
+                unknownPointIds.add(reading.getDataPointId());
+                continue;
+            }
+
+            DeviceRunningData data = new DeviceRunningData();
+            data.setDataPointId(point.getId());
+            data.setCollectionTime(reading.getCollectionTime() != null ? reading.getCollectionTime() : now);
+            data.setRawValue(reading.getValue());
+            data.setValue(reading.getValue() * (point.getMultiplier() != null ? point.getMultiplier() : 1.0));
+            data.setQuality(reading.getQuality() != null ? reading.getQuality() : DataQuality.GOOD);
+            data.setSource(DataSource.AUTO);
+            rows.add(data);
+
+            // 坏数据只入库，不覆盖点位当前值
+            if (data.getQuality() != DataQuality.BAD) {
+                CurrentValueUpdate candidate = new CurrentValueUpdate(
+                        point.getId(), data.getValue(), data.getCollectionTime(), data.getQuality());
+                latestValues.merge(point.getId(), candidate,
+                        (current, next) -> next.getCollectionTime().isBefore(current.getCollectionTime()) ? current : next);
+            }
+        }
 
-        return runningDataRepository.save(data);
+        runningDataStore.saveAll(rows);
+        currentValueWriteBehind.offerAll(latestValues.values());
+        realTimeValueStore.updateValues(latestValues.values());
+        alarmRuleEngine.offerAll(rows);
+        formulaEngine.offerAll(latestValues.values());
+        statisticsRollup.offerAll(rows);
+
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = elapsedNanos > 0 ? rows.size() * 1_000_000_000.0 / elapsedNanos : 0;
+        ingestedBatches.increment();
+        ingestedRows.add(rows.size());
+        ingestionNanos.add(elapsedNanos);
+        lastBatchRowsPerSecond = rowsPerSecond;
+
+        int rejected = readings.size() - rows.size();
+        return new RunningDataBatchResult(
+                readings.size(),
+                rows.size(),
+                rejected,
+                new ArrayList<>(unknownPointIds),
+                latestValues.size(),
+                elapsedNanos / 1_000_000,
+                rowsPerSecond);
+    }
+
+    /**
+     * 按原始数据补算日期范围内的统计数据
+     */
+    public StatisticsBackfillResult backfillStatistics(StatisticsBackfillRequest request) {
+        return statisticsRollup.backfill(request);
+    }
+
+    /**
+     * 获取批量写入统计
+     */
+    public IngestionStatisticsResponse getIngestionStatistics() {
+        long rows = ingestedRows.sum();
+        long nanos = ingestionNanos.sum();
+        double sustained = nanos > 0 ? rows * 1_000_000_000.0 / nanos : 0;
+        return new IngestionStatisticsResponse(
+                ingestedBatches.sum(),
+                rows,
+                nanos / 1_000_000,
+                sustained,
+                lastBatchRowsPerSecond);
     }
 }
 
@@ -0,0 +1,182 @@
+package org.example.rootmanage.remotemonitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.remotemonitoring.dto.RealTimeValue;
+import org.example.rootmanage.remotemonitoring.entity.AnalysisModelPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.live.LiveValueHub;
+import org.example.rootmanage.remotemonitoring.repository.AnalysisModelPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataBatchWriter.CurrentValueUpdate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 点位实时值缓存
+ * 以点位ID为键保存最新值、数据质量和采集时间，实时监视接口直接从内存读取，不再访问数据库。
+ * 启动时从数据库预热；采集、手动录入等写入路径在事务提交后更新缓存，被接受的新值同时推送给实时订阅。
+ */
+@Component
+@RequiredArgsConstructor
+public class RealTimeValueStore {
+
+    private final DataPointRepository dataPointRepository;
+    private final AnalysisModelPointRepository analysisModelPointRepository;
+    private final LiveValueHub liveValueHub;
+
+    /**
+     * 点位ID -> 实时值快照
+     */
+    private final ConcurrentHashMap<UUID, RealTimeValue> values = new ConcurrentHashMap<>();
+
+    /**
+     * 分析模型ID -> 按排序号排列的点位ID
+     */
+    private final ConcurrentHashMap<UUID, List<UUID>> modelPointIds = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时从数据库加载全部点位和分析模型点位关联
+     * 先于其他依赖实时值的组件（如虚拟表计公式引擎）预热
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (DataPoint point : dataPointRepository.findAll()) {
+            applyConfig(RealTimeValue.of(point));
+        }
+        Map<UUID, List<UUID>> grouped = analysisModelPointRepository.findAll().stream()
+                .sorted(Comparator.comparing(AnalysisModelPoint::getSortOrder,
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.groupingBy(AnalysisModelPoint::getAnalysisModelId,
+                        Collectors.mapping(AnalysisModelPoint::getDataPointId, Collectors.toList())));
+        grouped.forEach((modelId, ids) -> modelPointIds.put(modelId, List.copyOf(ids)));
+    }
+
+    // ==================== 读取 ====================
+
+    /**
+     * 获取单个点位的实时值
+     */
+    public RealTimeValue get(UUID dataPointId) {
+        return values.get(dataPointId);
+    }
+
+    /**
+     * 获取所有启用点位的实时值（按点位编码排序）
+     */
+    public List<RealTimeValue> findEnabled() {
+        List<RealTimeValue> result = new ArrayList<>(values.size());
+        for (RealTimeValue value : values.values()) {
+            if (value.isEnabled()) {
+                result.add(value);
+            }
+        }
+        result.sort(Comparator.comparing(RealTimeValue::getPointCode, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    /**
+     * 按给定顺序获取多个点位的实时值，不存在的点位被忽略
+     */
+    public List<RealTimeValue> findByIds(List<UUID> dataPointIds) {
+        List<RealTimeValue> result = new ArrayList<>(dataPointIds.size());
+        for (UUID id : dataPointIds) {
+            RealTimeValue value = values.get(id);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取分析模型下所有点位的实时值
+     * 模型点位关联未缓存时（模型新建或修改后首次访问）从数据库加载一次
+     */
+    public List<RealTimeValue> findByAnalysisModel(UUID analysisModelId) {
+        List<UUID> ids = modelPointIds.get(analysisModelId);
+        if (ids == null) {
+            ids = analysisModelPointRepository.findByAnalysisModelIdOrderBySortOrder(analysisModelId).stream()
+                    .map(AnalysisModelPoint::getDataPointId)
+                    .collect(Collectors.toUnmodifiableList());
+            modelPointIds.putIfAbsent(analysisModelId, ids);
+        }
+        return findByIds(ids);
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 更新点位实时值
+     * 处于事务中时延迟到提交后生效，避免回滚的数据被看到；早于缓存中时间的值被忽略
+     */
+    public void updateValue(UUID dataPointId, Double value, DataQuality quality, LocalDateTime collectionTime) {
+        AfterCommit.run(() -> applyValue(dataPointId, value, quality, collectionTime));
+    }
+
+    /**
+     * 批量更新点位实时值
+     */
+    public void updateValues(Collection<CurrentValueUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        List<CurrentValueUpdate> snapshot = new ArrayList<>(updates);
+        AfterCommit.run(() -> {
+            for (CurrentValueUpdate update : snapshot) {
+                applyValue(update.getDataPointId(), update.getValue(), update.getQuality(), update.getCollectionTime());
+            }
+        });
+    }
+
+    /**
+     * 注册或刷新点位配置（点位新增、修改后调用），保留缓存中已有的实时值
+     */
+    public void register(DataPoint point) {
+        RealTimeValue config = RealTimeValue.of(point);
+        AfterCommit.run(() -> applyConfig(config));
+    }
+
+    /**
+     * 移除点位（点位删除后调用）
+     */
+    public void remove(UUID dataPointId) {
+        AfterCommit.run(() -> values.remove(dataPointId));
+    }
+
+    /**
+     * 使分析模型的点位关联失效（分析模型新增、修改、删除后调用）
+     */
+    public void invalidateAnalysisModel(UUID analysisModelId) {
+        AfterCommit.run(() -> modelPointIds.remove(analysisModelId));
+    }
+
+    private void applyConfig(RealTimeValue config) {
+        values.merge(config.getDataPointId(), config, (current, loaded) -> current.withConfig(loaded));
+    }
+
+    private void applyValue(UUID dataPointId, Double value, DataQuality quality, LocalDateTime collectionTime) {
+        boolean[] accepted = new boolean[1];
+        values.computeIfPresent(dataPointId, (id, current) -> {
+            LocalDateTime last = current.getLastCollectionTime();
+            if (last != null && collectionTime != null && collectionTime.isBefore(last)) {
+                return current;
+            }
+            accepted[0] = true;
+            return current.withValue(value, quality, collectionTime);
+        });
+        if (accepted[0]) {
+            liveValueHub.publish(dataPointId, value, quality, collectionTime);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.rootmanage.remotemonitoring;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.remotemonitoring.dto.RetentionPolicyRequest;
+import org.example.rootmanage.remotemonitoring.dto.RetentionProgress;
+import org.example.rootmanage.remotemonitoring.entity.RetentionPolicy;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 运行数据保留控制器
+ * 提供保留策略配置和清理任务的REST API
+ */
+@RestController
+@RequestMapping("/api/remote-monitoring/retention")
+@RequiredArgsConstructor
+public class RetentionController {
+
+    private final RetentionPolicyService retentionPolicyService;
+    private final RunningDataRetention runningDataRetention;
+
+    // ==================== 保留策略 ====================
+
+    /**
+     * 获取所有保留策略
+     */
+    @GetMapping("/policies")
+    public List<RetentionPolicy> findAll() {
+        return retentionPolicyService.findAll();
+    }
+
+    /**
+     * 根据ID获取保留策略
+     */
+    @GetMapping("/policies/{id}")
+    public RetentionPolicy findById(@PathVariable UUID id) {
+        return retentionPolicyService.findById(id);
+    }
+
+    /**
+     * 创建保留策略
+     */
+    @PostMapping("/policies")
+    public RetentionPolicy create(@Valid @RequestBody RetentionPolicyRequest request) {
+        return retentionPolicyService.create(request);
+    }
+
+    /**
+     * 更新保留策略
+     */
+    @PutMapping("/policies/{id}")
+    public RetentionPolicy update(@PathVariable UUID id, @Valid @RequestBody RetentionPolicyRequest request) {
+        return retentionPolicyService.update(id, request);
+    }
+
+    /**
+     * 删除保留策略
+     */
+    @DeleteMapping("/policies/{id}")
+    public ResponseEntity<Void> delete(@PathVariable UUID id) {
+        retentionPolicyService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // ==================== 清理任务 ====================
+
+    /**
+     * 立即在后台执行一次清理
+     */
+    @PostMapping("/run")
+    public RetentionProgress run() {
+        return runningDataRetention.start();
+    }
+
+    /**
+     * 获取清理进度
+     */
+    @GetMapping("/progress")
+    public RetentionProgress getProgress() {
+        return runningDataRetention.getProgress();
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.rootmanage.remotemonitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.remotemonitoring.dto.RetentionPolicyRequest;
+import org.example.rootmanage.remotemonitoring.entity.RetentionPolicy;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.RetentionPolicyRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 运行数据保留策略服务类
+ * 提供保留策略的管理功能，每个点位类型和每个点位最多配置一条策略
+ */
+@Service
+@RequiredArgsConstructor
+public class RetentionPolicyService {
+
+    private final RetentionPolicyRepository retentionPolicyRepository;
+    private final DataPointRepository dataPointRepository;
+
+    /**
+     * 获取所有保留策略
+     */
+    @Transactional(readOnly = true)
+    public List<RetentionPolicy> findAll() {
+        return retentionPolicyRepository.findAll();
+    }
+
+    /**
+     * 根据ID查找保留策略
+     */
+    @Transactional(readOnly = true)
+    public RetentionPolicy findById(UUID id) {
+        return retentionPolicyRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("保留策略不存在"));
+    }
+
+    /**
+     * 创建保留策略
+     */
+    @Transactional
+    public RetentionPolicy create(RetentionPolicyRequest request) {
+        validate(null, request);
+        RetentionPolicy policy = new RetentionPolicy();
+        apply(policy, request);
+        return retentionPolicyRepository.save(policy);
+    }
+
+    /**
+     * 更新保留策略
+     */
+    @Transactional
+    public RetentionPolicy update(UUID id, RetentionPolicyRequest request) {
+        RetentionPolicy policy = findById(id);
+        validate(id, request);
+        apply(policy, request);
+        return retentionPolicyRepository.save(policy);
+    }
+
+    /**
+     * 删除保留策略
+     */
+    @Transactional
+    public void delete(UUID id) {
+        if (!retentionPolicyRepository.existsById(id)) {
+            throw new IllegalArgumentException("保留策略不存在");
+        }
+        retentionPolicyRepository.deleteById(id);
+    }
+
+    private void validate(UUID id, RetentionPolicyRequest request) {
+        if ((request.getPointType() == null) == (request.getDataPointId() == null)) {
+            throw new IllegalArgumentException("点位类型和点位必须且只能指定一个");
+        }
+        if (request.getHourlyRetentionDays() != null
+                && request.getHourlyRetentionDays() < request.getRawRetentionDays()) {
+            throw new IllegalArgumentException("小时统计保留天数不能小于原始数据保留天数");
+        }
+        if (request.getDataPointId() != null) {
+            if (!dataPointRepository.existsById(request.getDataPointId())) {
+                throw new IllegalArgumentException("点位不存在");
+            }
+            retentionPolicyRepository.findByDataPointId(request.getDataPointId())
+                    .filter(existing -> !existing.getId().equals(id))
+                    .ifPresent(existing -> {
+                        throw new IllegalStateException("该点位已配置保留策略");
+                    });
+        } else {
+            retentionPolicyRepository.findByPointType(request.getPointType())
+                    .filter(existing -> !existing.getId().equals(id))
+                    .ifPresent(existing -> {
+                        throw new IllegalStateException("该点位类型已配置保留策略");
+                    });
+        }
+    }
+
+    private static void apply(RetentionPolicy policy, RetentionPolicyRequest request) {
+        policy.setPointType(request.getPointType());
+        policy.setDataPointId(request.getDataPointId());
+        policy.setRawRetentionDays(request.getRawRetentionDays());
+        policy.setHourlyRetentionDays(request.getHourlyRetentionDays());
+        policy.setEnabled(request.getEnabled() != null ? request.getEnabled() : true);
+        policy.setRemark(request.getRemark());
+    }
+}
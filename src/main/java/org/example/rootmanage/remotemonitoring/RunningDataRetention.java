@@ -0,0 +1,335 @@
+package org.example.rootmanage.remotemonitoring;
+
+import jakarta.annotation.PreDestroy;
+import org.example.rootmanage.remotemonitoring.dto.RetentionProgress;
+import org.example.rootmanage.remotemonitoring.entity.DataPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
+import org.example.rootmanage.remotemonitoring.entity.RetentionPolicy;
+import org.example.rootmanage.remotemonitoring.entity.StatisticsPeriod;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.DataStatisticsRepository;
+import org.example.rootmanage.remotemonitoring.repository.RetentionPolicyRepository;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 运行数据保留任务
+ * 按保留策略分层清理：超过原始数据保留天数的运行数据只保留小时统计，超过小时统计保留天数的小时统计只保留日统计。
+ * 每个点位从最早的数据开始按天推进，删除某天的原始数据前确认该天有数据的小时都已有小时统计，
+ * 删除小时统计前确认对应日期已有日统计；缺少统计时停止清理该点位并记录原因（可通过统计补算修复后重新执行）。
+ * 删除按块执行，每块单独提交并在块之间暂停，限制对主库和复制延迟的影响。
+ */
+@Component
+public class RunningDataRetention {
+
+    private final RetentionPolicyRepository retentionPolicyRepository;
+    private final DataPointRepository dataPointRepository;
+    private final DataStatisticsRepository statisticsRepository;
+    private final RunningDataStore runningDataStore;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 是否按计划自动执行
+     */
+    @Value("${remote-monitoring.retention.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 每条删除语句的最大行数
+     */
+    @Value("${remote-monitoring.retention.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    /**
+     * 每块删除后的暂停时间（毫秒）
+     */
+    @Value("${remote-monitoring.retention.chunk-pause-ms:200}")
+    private long chunkPauseMillis = 200;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "running-data-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // 进度，每次执行开始时重置
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile int totalPoints;
+    private final AtomicInteger processedPoints = new AtomicInteger();
+    private final LongAdder rawRowsDeleted = new LongAdder();
+    private final LongAdder hourlyRowsDeleted = new LongAdder();
+    private final LongAdder deleteChunks = new LongAdder();
+    private final LongAdder throttledMillis = new LongAdder();
+    private final Map<UUID, String> skippedPoints = new ConcurrentHashMap<>();
+    private volatile String lastError;
+
+    /**
+     * 点位的清理目标：早于 rawCutoff 的原始数据、早于 hourlyCutoff 的小时统计（为空时不清理）
+     */
+    record Target(UUID dataPointId, LocalDate rawCutoff, LocalDate hourlyCutoff) {
+    }
+
+    public RunningDataRetention(RetentionPolicyRepository retentionPolicyRepository,
+                                DataPointRepository dataPointRepository,
+                                DataStatisticsRepository statisticsRepository,
+                                RunningDataStore runningDataStore,
+                                PlatformTransactionManager transactionManager) {
+        this.retentionPolicyRepository = retentionPolicyRepository;
+        this.dataPointRepository = dataPointRepository;
+        this.statisticsRepository = statisticsRepository;
+        this.runningDataStore = runningDataStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 按计划执行，上一次尚未结束时跳过
+     */
+    @Scheduled(cron = "${remote-monitoring.retention.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (enabled && !running.get()) {
+            try {
+                start();
+            } catch (IllegalStateException e) {
+                // 已有任务在执行
+            }
+        }
+    }
+
+    /**
+     * 在后台启动一次清理
+     *
+     * @return 启动时的进度
+     */
+    public RetentionProgress start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("数据保留任务正在执行");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    purge();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw new IllegalStateException("数据保留任务已停止");
+        }
+        return getProgress();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 获取当前（或最近一次）执行的进度
+     */
+    public RetentionProgress getProgress() {
+        RetentionProgress progress = new RetentionProgress();
+        progress.setRunning(running.get());
+        progress.setStartedAt(startedAt);
+        progress.setFinishedAt(finishedAt);
+        progress.setTotalPoints(totalPoints);
+        progress.setProcessedPoints(processedPoints.get());
+        progress.setRawRowsDeleted(rawRowsDeleted.sum());
+        progress.setHourlyRowsDeleted(hourlyRowsDeleted.sum());
+        progress.setDeleteChunks(deleteChunks.sum());
+        progress.setThrottledMillis(throttledMillis.sum());
+        progress.setSkippedPoints(new LinkedHashMap<>(skippedPoints));
+        progress.setLastError(lastError);
+        return progress;
+    }
+
+    /**
+     * 同步执行一次清理
+     */
+    void purge() {
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        totalPoints = 0;
+        processedPoints.set(0);
+        rawRowsDeleted.reset();
+        hourlyRowsDeleted.reset();
+        deleteChunks.reset();
+        throttledMillis.reset();
+        skippedPoints.clear();
+        lastError = null;
+        try {
+            List<Target> targets = resolveTargets(LocalDate.now());
+            totalPoints = targets.size();
+            for (Target target : targets) {
+                try {
+                    purgeRaw(target.dataPointId(), target.rawCutoff());
+                    if (target.hourlyCutoff() != null) {
+                        purgeHourly(target.dataPointId(), target.hourlyCutoff());
+                    }
+                } catch (RuntimeException e) {
+                    skippedPoints.put(target.dataPointId(), "清理失败: " + e.getMessage());
+                }
+                processedPoints.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastError = "数据保留任务被中断";
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+        } finally {
+            finishedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * 解析每个点位适用的策略：点位策略优先于点位类型策略，禁用的点位策略使该点位不参与清理
+     */
+    List<Target> resolveTargets(LocalDate today) {
+        List<RetentionPolicy> policies = retentionPolicyRepository.findAll();
+        Map<UUID, RetentionPolicy> byPoint = new LinkedHashMap<>();
+        for (RetentionPolicy policy : policies) {
+            if (policy.getPointType() != null && Boolean.TRUE.equals(policy.getEnabled())) {
+                for (DataPoint point : dataPointRepository.findByPointType(policy.getPointType())) {
+                    byPoint.put(point.getId(), policy);
+                }
+            }
+        }
+        for (RetentionPolicy policy : policies) {
+            if (policy.getDataPointId() != null) {
+                if (Boolean.TRUE.equals(policy.getEnabled())) {
+                    byPoint.put(policy.getDataPointId(), policy);
+                } else {
+                    byPoint.remove(policy.getDataPointId());
+                }
+            }
+        }
+        List<Target> targets = new ArrayList<>(byPoint.size());
+        byPoint.forEach((pointId, policy) -> targets.add(new Target(pointId,
+                today.minusDays(policy.getRawRetentionDays()),
+                policy.getHourlyRetentionDays() != null ? today.minusDays(policy.getHourlyRetentionDays()) : null)));
+        return targets;
+    }
+
+    /**
+     * 从最早一天开始逐天删除原始数据，直到 cutoff（不含）
+     */
+    private void purgeRaw(UUID pointId, LocalDate cutoff) throws InterruptedException {
+        LocalDateTime cutoffTime = cutoff.atStartOfDay();
+        LocalDate previous = null;
+        while (true) {
+            Optional<LocalDateTime> oldest = runningDataStore.findOldestCollectionTime(pointId);
+            if (oldest.isEmpty() || !oldest.get().isBefore(cutoffTime)) {
+                return;
+            }
+            LocalDate day = oldest.get().toLocalDate();
+            if (previous != null && !day.isAfter(previous)) {
+                throw new IllegalStateException(day + " 的原始数据删除后仍然存在");
+            }
+            if (!hasHourlyStatistics(pointId, day)) {
+                skippedPoints.put(pointId, "缺少 " + day + " 的小时统计，原始数据未清理");
+                return;
+            }
+            LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+            int deleted;
+            do {
+                deleted = runningDataStore.deleteByDataPointIdBefore(pointId, dayEnd, chunkSize);
+                rawRowsDeleted.add(deleted);
+                deleteChunks.increment();
+                pause();
+            } while (deleted >= chunkSize);
+            previous = day;
+        }
+    }
+
+    /**
+     * 该天有有效数据的每个小时都已有小时统计
+     */
+    private boolean hasHourlyStatistics(UUID pointId, LocalDate day) {
+        Set<Integer> hours = new HashSet<>();
+        runningDataStore.forEachValue(pointId, day.atStartOfDay(), day.plusDays(1).atStartOfDay(),
+                (time, value) -> hours.add(time.getHour()));
+        if (hours.isEmpty()) {
+            return true;
+        }
+        for (DataStatistics row : statisticsRepository.findByDataPointIdAndPeriodAndDateRange(
+                pointId, StatisticsPeriod.HOURLY, day, day)) {
+            hours.remove(row.getHourOfDay());
+        }
+        return hours.isEmpty();
+    }
+
+    /**
+     * 从最早的小时统计开始按日期块删除，直到 cutoff（不含），有小时统计的日期必须已有日统计
+     */
+    private void purgeHourly(UUID pointId, LocalDate cutoff) throws InterruptedException {
+        int daysPerChunk = Math.max(1, chunkSize / 24);
+        LocalDate lastDay = cutoff.minusDays(1);
+        LocalDate previous = null;
+        while (true) {
+            Optional<DataStatistics> oldest = statisticsRepository
+                    .findFirstByDataPointIdAndStatisticsPeriodOrderByStatisticsDateAsc(pointId, StatisticsPeriod.HOURLY);
+            if (oldest.isEmpty() || !oldest.get().getStatisticsDate().isBefore(cutoff)) {
+                return;
+            }
+            LocalDate start = oldest.get().getStatisticsDate();
+            if (previous != null && !start.isAfter(previous)) {
+                throw new IllegalStateException(start + " 的小时统计删除后仍然存在");
+            }
+            LocalDate end = start.plusDays(daysPerChunk - 1L).isBefore(lastDay) ? start.plusDays(daysPerChunk - 1L) : lastDay;
+
+            Set<LocalDate> dailyDates = new HashSet<>();
+            for (DataStatistics row : statisticsRepository.findByDataPointIdAndPeriodAndDateRange(
+                    pointId, StatisticsPeriod.DAILY, start, end)) {
+                dailyDates.add(row.getStatisticsDate());
+            }
+            LocalDate missing = null;
+            for (DataStatistics row : statisticsRepository.findByDataPointIdAndPeriodAndDateRange(
+                    pointId, StatisticsPeriod.HOURLY, start, end)) {
+                if (!dailyDates.contains(row.getStatisticsDate())) {
+                    missing = row.getStatisticsDate();
+                    break;
+                }
+            }
+            LocalDate deleteEnd = missing != null ? missing.minusDays(1) : end;
+            if (!deleteEnd.isBefore(start)) {
+                Integer deleted = transactionTemplate.execute(status -> statisticsRepository
+                        .deleteByDataPointIdAndPeriodAndDateRange(pointId, StatisticsPeriod.HOURLY, start, deleteEnd));
+                hourlyRowsDeleted.add(deleted != null ? deleted : 0);
+                deleteChunks.increment();
+                pause();
+            }
+            if (missing != null) {
+                skippedPoints.put(pointId, "缺少 " + missing + " 的日统计，小时统计未清理");
+                return;
+            }
+            previous = end;
+        }
+    }
+
+    private void pause() throws InterruptedException {
+        if (chunkPauseMillis > 0) {
+            Thread.sleep(chunkPauseMillis);
+            throttledMillis.add(chunkPauseMillis);
+        }
+    }
+}
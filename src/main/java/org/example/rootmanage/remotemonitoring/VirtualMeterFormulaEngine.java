@@ -0,0 +1,280 @@
+package org.example.rootmanage.remotemonitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.remotemonitoring.dto.FormulaParameterRequest;
+import org.example.rootmanage.remotemonitoring.dto.RealTimeValue;
+import org.example.rootmanage.remotemonitoring.dto.VirtualMeterFormulaRequest;
+import org.example.rootmanage.remotemonitoring.entity.DataPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.entity.FormulaParameter;
+import org.example.rootmanage.remotemonitoring.entity.VirtualMeterFormula;
+import org.example.rootmanage.remotemonitoring.formula.FormulaExpressionParser;
+import org.example.rootmanage.remotemonitoring.formula.FormulaGraph;
+import org.example.rootmanage.remotemonitoring.formula.FormulaGraph.Binding;
+import org.example.rootmanage.remotemonitoring.formula.FormulaGraph.Definition;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.FormulaParameterRepository;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataBatchWriter.CurrentValueUpdate;
+import org.example.rootmanage.remotemonitoring.repository.VirtualMeterFormulaRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 虚拟表计公式引擎
+ * 启用的公式在加载时解析为求值树并按依赖关系构建拓扑图；输入点位有新值时只重算受影响的虚拟点位，
+ * 结果按公式精度取整后写入输出点位（实时值缓存、当前值写后缓冲和报警规则引擎）。
+ * 公式变量优先按参数名称绑定参数点位（值乘以参数系数），否则按点位编码绑定点位。
+ */
+@Component
+@RequiredArgsConstructor
+public class VirtualMeterFormulaEngine {
+
+    private final VirtualMeterFormulaRepository formulaRepository;
+    private final FormulaParameterRepository parameterRepository;
+    private final DataPointRepository dataPointRepository;
+    private final RealTimeValueStore realTimeValueStore;
+    private final CurrentValueWriteBehind currentValueWriteBehind;
+    private final AlarmRuleEngine alarmRuleEngine;
+
+    /**
+     * 依赖图，重算和替换都在 lock 内进行
+     */
+    private volatile FormulaGraph graph = FormulaGraph.empty();
+
+    /**
+     * 公式ID -> 已加载的启用公式定义（用于保存时的循环依赖检查）
+     */
+    private volatile Map<UUID, Definition> definitions = Map.of();
+
+    private final Object lock = new Object();
+
+    /**
+     * 启动时加载公式（实时值缓存预热之后）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * 重新加载全部启用的公式并重建依赖图，输入点位的初始值取自实时值缓存
+     * 无法解析或处于循环依赖中的历史公式不参与计算
+     */
+    public void reload() {
+        List<VirtualMeterFormula> formulas = formulaRepository.findByEnabled(true);
+        Map<UUID, List<FormulaParameter>> parametersByFormula = parameterRepository.findAll().stream()
+                .collect(Collectors.groupingBy(FormulaParameter::getFormulaId));
+
+        Map<UUID, Map<String, Binding>> parameterBindings = new HashMap<>();
+        Map<UUID, Set<String>> variableNames = new HashMap<>();
+        Set<String> pointCodes = new HashSet<>();
+        for (VirtualMeterFormula formula : formulas) {
+            Map<String, Binding> bindings = new HashMap<>();
+            for (FormulaParameter parameter : parametersByFormula.getOrDefault(formula.getId(), List.of())) {
+                bindings.put(parameter.getParameterName(), binding(parameter.getDataPointId(), parameter.getCoefficient()));
+            }
+            parameterBindings.put(formula.getId(), bindings);
+            try {
+                Set<String> names = FormulaExpressionParser.variableNames(formula.getExpression());
+                variableNames.put(formula.getId(), names);
+                names.stream().filter(name -> !bindings.containsKey(name)).forEach(pointCodes::add);
+            } catch (IllegalArgumentException e) {
+                // 语法错误的公式不参与计算
+            }
+        }
+        Map<String, UUID> pointIdsByCode = resolvePointCodes(pointCodes);
+
+        Map<UUID, Definition> loaded = new LinkedHashMap<>();
+        for (VirtualMeterFormula formula : formulas) {
+            Set<String> names = variableNames.get(formula.getId());
+            if (names == null) {
+                continue;
+            }
+            Map<String, Binding> bindings = parameterBindings.get(formula.getId());
+            if (bindPointCodes(names, bindings, pointIdsByCode) == null) {
+                loaded.put(formula.getId(), definition(formula.getId(), formula.getFormulaCode(),
+                        formula.getOutputPointId(), formula.getExpression(), bindings, formula.getPrecision()));
+            }
+        }
+
+        FormulaGraph next = FormulaGraph.build(loaded.values());
+        for (UUID pointId : next.pointIds()) {
+            RealTimeValue value = realTimeValueStore.get(pointId);
+            if (value != null && value.getCurrentValue() != null) {
+                next.seed(pointId, value.getCurrentValue());
+            }
+        }
+        synchronized (lock) {
+            graph = next;
+            definitions = loaded;
+        }
+    }
+
+    /**
+     * 公式保存后重新加载（提交后生效）
+     */
+    public void reloadAfterCommit() {
+        AfterCommit.run(this::reload);
+    }
+
+    /**
+     * 保存前校验公式：表达式语法、变量绑定、输出点位唯一、不形成循环依赖
+     *
+     * @param formulaId 修改时为公式ID，新增时为 null
+     * @param enabled   保存后公式是否启用，未启用的公式只校验语法和变量
+     */
+    public void validate(UUID formulaId, VirtualMeterFormulaRequest request, boolean enabled) {
+        Set<String> names = FormulaExpressionParser.variableNames(request.getExpression());
+        Map<String, Binding> bindings = new HashMap<>();
+        if (request.getParameters() != null) {
+            for (FormulaParameterRequest parameter : request.getParameters()) {
+                bindings.put(parameter.getParameterName(), binding(parameter.getDataPointId(), parameter.getCoefficient()));
+            }
+        }
+        Set<String> pointCodes = names.stream().filter(name -> !bindings.containsKey(name)).collect(Collectors.toSet());
+        String undefined = bindPointCodes(names, bindings, resolvePointCodes(pointCodes));
+        if (undefined != null) {
+            throw new IllegalArgumentException("公式变量未定义: " + undefined);
+        }
+        if (!enabled) {
+            return;
+        }
+
+        Definition candidate = definition(formulaId, request.getFormulaCode(), request.getOutputPointId(),
+                request.getExpression(), bindings, request.getPrecision());
+        Map<UUID, Definition> all = new LinkedHashMap<>(definitions);
+        if (formulaId != null) {
+            all.remove(formulaId);
+        }
+        for (Definition other : all.values()) {
+            if (other.getOutputPointId().equals(request.getOutputPointId())) {
+                throw new IllegalStateException("输出点位已被其他公式使用");
+            }
+        }
+        all.put(formulaId != null ? formulaId : UUID.randomUUID(), candidate);
+        List<String> cyclic = FormulaGraph.findCycle(all.values());
+        if (!cyclic.isEmpty()) {
+            throw new IllegalStateException("公式存在循环依赖: " + String.join(", ", cyclic));
+        }
+    }
+
+    /**
+     * 提交一个输入点位的新值，处于事务中时在提交后重算
+     */
+    public void offer(UUID dataPointId, Double value, DataQuality quality, LocalDateTime collectionTime) {
+        if (value == null || quality == DataQuality.BAD || !graph.isInput(dataPointId)) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            List<CurrentValueUpdate> outputs = new ArrayList<>();
+            synchronized (lock) {
+                graph.propagate(dataPointId, value,
+                        (outputPointId, result) -> outputs.add(output(outputPointId, result, collectionTime)));
+            }
+            publish(outputs);
+        });
+    }
+
+    /**
+     * 批量提交输入点位的新值，受影响的公式只重算一次
+     */
+    public void offerAll(Collection<CurrentValueUpdate> updates) {
+        List<CurrentValueUpdate> inputs = new ArrayList<>();
+        for (CurrentValueUpdate update : updates) {
+            if (update.getValue() != null && update.getQuality() != DataQuality.BAD
+                    && graph.isInput(update.getDataPointId())) {
+                inputs.add(update);
+            }
+        }
+        if (inputs.isEmpty()) {
+            return;
+        }
+        LocalDateTime collectionTime = inputs.stream().map(CurrentValueUpdate::getCollectionTime)
+                .max(Comparator.naturalOrder()).orElse(LocalDateTime.now());
+        AfterCommit.run(() -> {
+            UUID[] pointIds = new UUID[inputs.size()];
+            double[] values = new double[inputs.size()];
+            for (int i = 0; i < pointIds.length; i++) {
+                pointIds[i] = inputs.get(i).getDataPointId();
+                values[i] = inputs.get(i).getValue();
+            }
+            List<CurrentValueUpdate> outputs = new ArrayList<>();
+            synchronized (lock) {
+                graph.propagate(pointIds, values, pointIds.length,
+                        (outputPointId, result) -> outputs.add(output(outputPointId, result, collectionTime)));
+            }
+            publish(outputs);
+        });
+    }
+
+    /**
+     * 获取虚拟点位的最近计算值，未计算或输入未知时返回 null
+     */
+    public Double valueOf(UUID dataPointId) {
+        double value;
+        synchronized (lock) {
+            value = graph.valueOf(dataPointId);
+        }
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private void publish(List<CurrentValueUpdate> outputs) {
+        if (outputs.isEmpty()) {
+            return;
+        }
+        currentValueWriteBehind.offerAll(outputs);
+        realTimeValueStore.updateValues(outputs);
+        for (CurrentValueUpdate output : outputs) {
+            alarmRuleEngine.offer(output.getDataPointId(), output.getValue(), output.getQuality(),
+                    output.getCollectionTime());
+        }
+    }
+
+    private static CurrentValueUpdate output(UUID outputPointId, double value, LocalDateTime collectionTime) {
+        return new CurrentValueUpdate(outputPointId, value, collectionTime, DataQuality.GOOD);
+    }
+
+    private Map<String, UUID> resolvePointCodes(Set<String> pointCodes) {
+        if (pointCodes.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, UUID> result = new HashMap<>();
+        for (DataPoint point : dataPointRepository.findByPointCodeIn(pointCodes)) {
+            result.put(point.getPointCode(), point.getId());
+        }
+        return result;
+    }
+
+    /**
+     * 把未被参数绑定的变量按点位编码绑定，返回第一个无法绑定的变量名，全部绑定成功时返回 null
+     */
+    private static String bindPointCodes(Set<String> names, Map<String, Binding> bindings, Map<String, UUID> pointIdsByCode) {
+        for (String name : names) {
+            if (bindings.containsKey(name)) {
+                continue;
+            }
+            UUID pointId = pointIdsByCode.get(name);
+            if (pointId == null) {
+                return name;
+            }
+            bindings.put(name, binding(pointId, 1.0));
+        }
+        return null;
+    }
+
+    private static Binding binding(UUID dataPointId, Double coefficient) {
+        return new Binding(dataPointId, coefficient != null ? coefficient : 1.0);
+    }
+
+    private static Definition definition(UUID formulaId, String formulaCode, UUID outputPointId, String expression,
+                                         Map<String, Binding> bindings, Integer precision) {
+        return new Definition(formulaId, formulaCode, outputPointId, expression, bindings,
+                precision != null ? precision : 2);
+    }
+}
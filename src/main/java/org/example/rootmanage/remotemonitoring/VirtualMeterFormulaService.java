@@ -24,6 +24,7 @@ public class VirtualMeterFormulaService {
 
     private final VirtualMeterFormulaRepository formulaRepository;
     private final FormulaParameterRepository parameterRepository;
+    private final VirtualMeterFormulaEngine formulaEngine;
 
     /**
      * 获取所有公式
@@ -71,6 +72,7 @@ public class VirtualMeterFormulaService {
                 .ifPresent(f -> {
                     throw new IllegalStateException("公式编码已存在");
                 });
+        formulaEngine.validate(null, request, request.getEnabled() == null || request.getEnabled());
 
         VirtualMeterFormula formula = new VirtualMeterFormula();
         formula.setFormulaCode(request.getFormulaCode());
@@ -99,6 +101,7 @@ public class VirtualMeterFormulaService {
             }
         }
 
+        formulaEngine.reloadAfterCommit();
         return savedFormula;
     }
 
@@ -117,6 +120,8 @@ public class VirtualMeterFormulaService {
                         throw new IllegalStateException("公式编码已被其他公式使用");
                     });
         }
+        formulaEngine.validate(id, request,
+                request.getEnabled() != null ? request.getEnabled() : Boolean.TRUE.equals(formula.getEnabled()));
 
         formula.setFormulaCode(request.getFormulaCode());
         formula.setFormulaName(request.getFormulaName());
@@ -147,7 +152,9 @@ public class VirtualMeterFormulaService {
             }
         }
 
-        return formulaRepository.save(formula);
+        VirtualMeterFormula savedFormula = formulaRepository.save(formula);
+        formulaEngine.reloadAfterCommit();
+        return savedFormula;
     }
 
     /**
@@ -160,6 +167,7 @@ public class VirtualMeterFormulaService {
 
         parameterRepository.deleteByFormulaId(id);
         formulaRepository.delete(formula);
+        formulaEngine.reloadAfterCommit();
     }
 }
 
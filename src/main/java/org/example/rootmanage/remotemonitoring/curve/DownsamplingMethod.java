@@ -0,0 +1,26 @@
+package org.example.rootmanage.remotemonitoring.curve;
+
+/**
+ * 曲线降采样算法枚举
+ */
+public enum DownsamplingMethod {
+    /**
+     * 最大三角形三桶算法（保留曲线形状）
+     */
+    LTTB("最大三角形"),
+
+    /**
+     * 每个时间桶保留最大值和最小值（保留峰谷）
+     */
+    MIN_MAX("最大最小值");
+
+    private final String description;
+
+    DownsamplingMethod(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.rootmanage.remotemonitoring.curve;
+
+import org.example.rootmanage.remotemonitoring.dto.CurveDataResponse.DataPointValue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 最大三角形三桶（LTTB）降采样
+ * 保留首尾两点，其余按时间把查询窗口等分为 maxPoints - 2 个桶，每个桶选出与上一个选中点、
+ * 下一个非空桶平均点构成三角形面积最大的一点。
+ * 选点需要下一个桶的平均值，为了不缓存原始数据，分两遍按时间顺序读取：
+ * 第一遍统计各桶的点数与坐标和（数据量不超过 maxPoints 时直接保留原始点，不需要第二遍），
+ * 第二遍逐桶选点。内存占用只与 maxPoints 有关，与窗口长度无关。实例不是线程安全的。
+ */
+public final class LttbDownsampler {
+
+    private final LocalDateTime startTime;
+    private final double span;
+    private final int maxPoints;
+    private final int buckets;
+
+    // 第一遍：各桶点数、时间坐标和、值的和
+    private final long[] counts;
+    private final double[] sumX;
+    private final double[] sumY;
+    private long count;
+    private LocalDateTime firstTime;
+    private double firstValue;
+    private LocalDateTime lastTime;
+    private double lastValue;
+
+    /**
+     * 数据量不超过 maxPoints 时的原始点，超过后丢弃
+     */
+    private List<DataPointValue> buffer = new ArrayList<>();
+
+    // 第二遍：每个桶对应的下一个非空桶平均点
+    private double[] nextX;
+    private double[] nextY;
+    private long index;
+    private int currentBucket = -1;
+    private double previousX;
+    private double previousY;
+    private double bestArea;
+    private LocalDateTime bestTime;
+    private double bestValue;
+    private double bestX;
+    private final List<DataPointValue> selected = new ArrayList<>();
+
+    public LttbDownsampler(LocalDateTime startTime, LocalDateTime endTime, int maxPoints) {
+        this.startTime = startTime;
+        this.span = Math.max(1, Duration.between(startTime, endTime).toMillis());
+        this.maxPoints = maxPoints;
+        this.buckets = Math.max(0, maxPoints - 2);
+        this.counts = new long[buckets];
+        this.sumX = new double[buckets];
+        this.sumY = new double[buckets];
+    }
+
+    /**
+     * 第一遍：统计
+     */
+    public void measure(LocalDateTime time, double value) {
+        if (count == 0) {
+            firstTime = time;
+            firstValue = value;
+        }
+        count++;
+        lastTime = time;
+        lastValue = value;
+        if (buckets > 0) {
+            double x = x(time);
+            int bucket = bucket(x);
+            counts[bucket]++;
+            sumX[bucket] += x;
+            sumY[bucket] += value;
+        }
+        if (buffer != null) {
+            if (count <= maxPoints) {
+                buffer.add(point(time, value));
+            } else {
+                buffer = null;
+            }
+        }
+    }
+
+    /**
+     * 数据量超过 maxPoints 时需要第二遍选点
+     */
+    public boolean needsSelectionPass() {
+        return buffer == null;
+    }
+
+    /**
+     * 第二遍：选点，读取顺序必须与第一遍一致
+     */
+    public void select(LocalDateTime time, double value) {
+        long i = index++;
+        if (i == 0) {
+            prepare();
+            selected.add(point(time, value));
+            previousX = x(time);
+            previousY = value;
+            return;
+        }
+        // 末点在结果中单独追加；第一遍之后新写入的数据忽略
+        if (i >= count - 1 || buckets == 0) {
+            return;
+        }
+        double x = x(time);
+        int bucket = bucket(x);
+        if (bucket != currentBucket) {
+            emitBest();
+            currentBucket = bucket;
+        }
+        double area = Math.abs((previousX - nextX[bucket]) * (value - previousY)
+                - (previousX - x) * (nextY[bucket] - previousY));
+        if (area > bestArea) {
+            bestArea = area;
+            bestTime = time;
+            bestValue = value;
+            bestX = x;
+        }
+    }
+
+    /**
+     * 降采样结果，按时间升序
+     */
+    public List<DataPointValue> result() {
+        if (!needsSelectionPass()) {
+            return buffer;
+        }
+        emitBest();
+        selected.add(point(lastTime, lastValue));
+        return selected;
+    }
+
+    /**
+     * 从桶统计中去掉首尾两点，并计算每个桶的下一个参考点
+     */
+    private void prepare() {
+        if (buckets == 0) {
+            return;
+        }
+        remove(firstTime, firstValue);
+        remove(lastTime, lastValue);
+        nextX = new double[buckets];
+        nextY = new double[buckets];
+        double referenceX = x(lastTime);
+        double referenceY = lastValue;
+        for (int b = buckets - 1; b >= 0; b--) {
+            nextX[b] = referenceX;
+            nextY[b] = referenceY;
+            if (counts[b] > 0) {
+                referenceX = sumX[b] / counts[b];
+                referenceY = sumY[b] / counts[b];
+            }
+        }
+        bestArea = -1;
+    }
+
+    private void remove(LocalDateTime time, double value) {
+        double x = x(time);
+        int bucket = bucket(x);
+        counts[bucket]--;
+        sumX[bucket] -= x;
+        sumY[bucket] -= value;
+    }
+
+    private void emitBest() {
+        if (bestTime != null) {
+            selected.add(point(bestTime, bestValue));
+            previousX = bestX;
+            previousY = bestValue;
+            bestTime = null;
+        }
+        bestArea = -1;
+    }
+
+    private double x(LocalDateTime time) {
+        return Duration.between(startTime, time).toMillis();
+    }
+
+    private int bucket(double x) {
+        int bucket = (int) (x / span * buckets);
+        return Math.max(0, Math.min(buckets - 1, bucket));
+    }
+
+    private static DataPointValue point(LocalDateTime time, double value) {
+        DataPointValue point = new DataPointValue();
+        point.setTime(time);
+        point.setValue(value);
+        return point;
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.rootmanage.remotemonitoring.curve;
+
+import org.example.rootmanage.remotemonitoring.dto.CurveDataResponse.DataPointValue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 最大最小值降采样
+ * 按时间把查询窗口等分为 maxPoints / 2 个桶，每个桶按发生顺序输出最小值点和最大值点，
+ * 同时带出桶内平均值、最大值和最小值。单遍读取，内存占用只与 maxPoints 有关。实例不是线程安全的。
+ */
+public final class MinMaxDownsampler {
+
+    private final LocalDateTime startTime;
+    private final double span;
+    private final int buckets;
+
+    private final long[] counts;
+    private final double[] sums;
+    private final double[] minValues;
+    private final LocalDateTime[] minTimes;
+    private final double[] maxValues;
+    private final LocalDateTime[] maxTimes;
+
+    public MinMaxDownsampler(LocalDateTime startTime, LocalDateTime endTime, int maxPoints) {
+        this.startTime = startTime;
+        this.span = Math.max(1, Duration.between(startTime, endTime).toMillis());
+        this.buckets = Math.max(1, maxPoints / 2);
+        this.counts = new long[buckets];
+        this.sums = new double[buckets];
+        this.minValues = new double[buckets];
+        this.minTimes = new LocalDateTime[buckets];
+        this.maxValues = new double[buckets];
+        this.maxTimes = new LocalDateTime[buckets];
+    }
+
+    public void accept(LocalDateTime time, double value) {
+        int bucket = (int) (Duration.between(startTime, time).toMillis() / span * buckets);
+        bucket = Math.max(0, Math.min(buckets - 1, bucket));
+        if (counts[bucket] == 0 || value < minValues[bucket]) {
+            minValues[bucket] = value;
+            minTimes[bucket] = time;
+        }
+        if (counts[bucket] == 0 || value > maxValues[bucket]) {
+            maxValues[bucket] = value;
+            maxTimes[bucket] = time;
+        }
+        counts[bucket]++;
+        sums[bucket] += value;
+    }
+
+    /**
+     * 降采样结果，按时间升序
+     */
+    public List<DataPointValue> result() {
+        List<DataPointValue> points = new ArrayList<>();
+        for (int b = 0; b < buckets; b++) {
+            if (counts[b] == 0) {
+                continue;
+            }
+            double avg = sums[b] / counts[b];
+            if (minTimes[b].equals(maxTimes[b])) {
+                points.add(new DataPointValue(minTimes[b], minValues[b], avg, maxValues[b], minValues[b]));
+            } else if (minTimes[b].isBefore(maxTimes[b])) {
+                points.add(new DataPointValue(minTimes[b], minValues[b], avg, maxValues[b], minValues[b]));
+                points.add(new DataPointValue(maxTimes[b], maxValues[b], avg, maxValues[b], minValues[b]));
+            } else {
+                points.add(new DataPointValue(maxTimes[b], maxValues[b], avg, maxValues[b], minValues[b]));
+                points.add(new DataPointValue(minTimes[b], minValues[b], avg, maxValues[b], minValues[b]));
+            }
+        }
+        return points;
+    }
+}
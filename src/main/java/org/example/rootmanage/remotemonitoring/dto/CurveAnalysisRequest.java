@@ -1,6 +1,7 @@
 package org.example.rootmanage.remotemonitoring.dto;
 
 import lombok.Data;
+import org.example.rootmanage.remotemonitoring.curve.DownsamplingMethod;
 import org.example.rootmanage.remotemonitoring.entity.StatisticsPeriod;
 
 import java.time.LocalDateTime;
@@ -42,6 +43,16 @@ public class CurveAnalysisRequest {
      * 曲线分组（用于分类曲线分析）
      */
     private String curveGroup;
+
+    /**
+     * 每条曲线的最大点数（查询原始数据时有效，为空时不降采样）
+     */
+    private Integer maxPoints;
+
+    /**
+     * 降采样算法（为空时使用 LTTB）
+     */
+    private DownsamplingMethod downsampling;
 }
 
 
@@ -0,0 +1,39 @@
+package org.example.rootmanage.remotemonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 采集数据写入统计DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionStatisticsResponse {
+
+    /**
+     * 累计批次数
+     */
+    private long totalBatches;
+
+    /**
+     * 累计写入行数
+     */
+    private long totalRows;
+
+    /**
+     * 累计写入耗时（毫秒）
+     */
+    private long totalMillis;
+
+    /**
+     * 持续写入速率（累计行数 / 累计写入耗时，行/秒）
+     */
+    private double sustainedRowsPerSecond;
+
+    /**
+     * 最近一个批次的写入速率（行/秒）
+     */
+    private double lastBatchRowsPerSecond;
+}
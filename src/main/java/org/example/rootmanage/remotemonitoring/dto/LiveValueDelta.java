@@ -0,0 +1,36 @@
+package org.example.rootmanage.remotemonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 实时推送的点位值变化DTO
+ */
+@Data
+@AllArgsConstructor
+public class LiveValueDelta {
+
+    /**
+     * 点位ID
+     */
+    private UUID dataPointId;
+
+    /**
+     * 当前值
+     */
+    private Double value;
+
+    /**
+     * 数据质量
+     */
+    private DataQuality quality;
+
+    /**
+     * 采集时间
+     */
+    private LocalDateTime collectionTime;
+}
@@ -0,0 +1,104 @@
+package org.example.rootmanage.remotemonitoring.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.example.rootmanage.remotemonitoring.entity.DataPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.entity.PointType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 点位实时值快照（不可变）
+ * 由实时值缓存持有，值变化时整体替换，读取方无需加锁
+ */
+@Getter
+@AllArgsConstructor
+public class RealTimeValue {
+
+    /**
+     * 点位ID
+     */
+    private final UUID dataPointId;
+
+    /**
+     * 点位编码
+     */
+    private final String pointCode;
+
+    /**
+     * 点位名称
+     */
+    private final String pointName;
+
+    /**
+     * 点位类型
+     */
+    private final PointType pointType;
+
+    /**
+     * 单位
+     */
+    private final String unit;
+
+    /**
+     * 当前值
+     */
+    private final Double currentValue;
+
+    /**
+     * 数据质量
+     */
+    private final DataQuality quality;
+
+    /**
+     * 最后采集时间
+     */
+    private final LocalDateTime lastCollectionTime;
+
+    /**
+     * 是否启用
+     */
+    private final boolean enabled;
+
+    /**
+     * 采集倍率（仅供服务端换算使用）
+     */
+    @JsonIgnore
+    private final double multiplier;
+
+    /**
+     * 根据点位实体生成快照
+     */
+    public static RealTimeValue of(DataPoint point) {
+        return new RealTimeValue(
+                point.getId(),
+                point.getPointCode(),
+                point.getPointName(),
+                point.getPointType(),
+                point.getUnit(),
+                point.getCurrentValue(),
+                point.getCurrentValue() != null ? DataQuality.GOOD : null,
+                point.getLastCollectionTime(),
+                !Boolean.FALSE.equals(point.getEnabled()),
+                point.getMultiplier() != null ? point.getMultiplier() : 1.0);
+    }
+
+    /**
+     * 以新值生成快照，点位配置保持不变
+     */
+    public RealTimeValue withValue(Double value, DataQuality quality, LocalDateTime collectionTime) {
+        return new RealTimeValue(dataPointId, pointCode, pointName, pointType, unit,
+                value, quality, collectionTime, enabled, multiplier);
+    }
+
+    /**
+     * 以新的点位配置生成快照，保留当前值（配置修改不应覆盖更新的采集值）
+     */
+    public RealTimeValue withConfig(RealTimeValue config) {
+        return new RealTimeValue(config.dataPointId, config.pointCode, config.pointName, config.pointType,
+                config.unit, currentValue, quality, lastCollectionTime, config.enabled, config.multiplier);
+    }
+}
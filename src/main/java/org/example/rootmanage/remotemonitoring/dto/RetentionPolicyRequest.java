@@ -0,0 +1,48 @@
+package org.example.rootmanage.remotemonitoring.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.example.rootmanage.remotemonitoring.entity.PointType;
+
+import java.util.UUID;
+
+/**
+ * 运行数据保留策略请求DTO
+ */
+@Data
+public class RetentionPolicyRequest {
+
+    /**
+     * 适用的点位类型（与 dataPointId 二选一）
+     */
+    private PointType pointType;
+
+    /**
+     * 适用的点位ID（与 pointType 二选一）
+     */
+    private UUID dataPointId;
+
+    /**
+     * 原始运行数据保留天数
+     */
+    @NotNull(message = "原始数据保留天数不能为空")
+    @Min(value = 1, message = "原始数据保留天数至少为 1 天")
+    private Integer rawRetentionDays;
+
+    /**
+     * 小时统计保留天数（为空表示永久保留）
+     */
+    @Min(value = 1, message = "小时统计保留天数至少为 1 天")
+    private Integer hourlyRetentionDays;
+
+    /**
+     * 是否启用
+     */
+    private Boolean enabled;
+
+    /**
+     * 备注
+     */
+    private String remark;
+}
@@ -0,0 +1,69 @@
+package org.example.rootmanage.remotemonitoring.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 运行数据保留任务进度DTO
+ */
+@Data
+public class RetentionProgress {
+
+    /**
+     * 是否正在执行
+     */
+    private boolean running;
+
+    /**
+     * 本次（或最近一次）开始时间
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * 最近一次结束时间
+     */
+    private LocalDateTime finishedAt;
+
+    /**
+     * 适用保留策略的点位数
+     */
+    private int totalPoints;
+
+    /**
+     * 已处理的点位数
+     */
+    private int processedPoints;
+
+    /**
+     * 已删除的原始数据行数
+     */
+    private long rawRowsDeleted;
+
+    /**
+     * 已删除的小时统计行数
+     */
+    private long hourlyRowsDeleted;
+
+    /**
+     * 已执行的删除语句数
+     */
+    private long deleteChunks;
+
+    /**
+     * 为限制复制延迟累计暂停的时间（毫秒）
+     */
+    private long throttledMillis;
+
+    /**
+     * 因缺少统计数据而停止清理的点位及原因
+     */
+    private Map<UUID, String> skippedPoints;
+
+    /**
+     * 最近一次执行的错误信息
+     */
+    private String lastError;
+}
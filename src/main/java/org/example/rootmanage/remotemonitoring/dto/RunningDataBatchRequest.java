@@ -0,0 +1,54 @@
+package org.example.rootmanage.remotemonitoring.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 批量采集数据写入请求DTO
+ */
+@Data
+public class RunningDataBatchRequest {
+
+    /**
+     * 采集数据列表
+     */
+    @NotEmpty(message = "采集数据不能为空")
+    @Valid
+    private List<Reading> readings;
+
+    /**
+     * 单条采集数据
+     */
+    @Data
+    public static class Reading {
+
+        /**
+         * 点位ID
+         */
+        @NotNull(message = "点位ID不能为空")
+        private UUID dataPointId;
+
+        /**
+         * 原始采集值（未经倍率转换）
+         */
+        @NotNull(message = "采集值不能为空")
+        private Double value;
+
+        /**
+         * 采集时间（为空时取服务器当前时间）
+         */
+        private LocalDateTime collectionTime;
+
+        /**
+         * 数据质量（为空时视为良好）
+         */
+        private DataQuality quality;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.rootmanage.remotemonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 批量采集数据写入结果DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunningDataBatchResult {
+
+    /**
+     * 请求中的数据条数
+     */
+    private int received;
+
+    /**
+     * 实际写入的数据条数
+     */
+    private int saved;
+
+    /**
+     * 被拒绝的数据条数（点位不存在）
+     */
+    private int rejected;
+
+    /**
+     * 不存在的点位ID
+     */
+    private List<UUID> unknownPointIds;
+
+    /**
+     * 更新当前值的点位数
+     */
+    private int updatedPoints;
+
+    /**
+     * 本批次耗时（毫秒）
+     */
+    private long elapsedMillis;
+
+    /**
+     * 本批次写入速率（行/秒）
+     */
+    private double rowsPerSecond;
+}
@@ -0,0 +1,32 @@
+package org.example.rootmanage.remotemonitoring.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 统计数据补算请求DTO
+ */
+@Data
+public class StatisticsBackfillRequest {
+
+    /**
+     * 开始日期（含）
+     */
+    @NotNull(message = "开始日期不能为空")
+    private LocalDate startDate;
+
+    /**
+     * 结束日期（含）
+     */
+    @NotNull(message = "结束日期不能为空")
+    private LocalDate endDate;
+
+    /**
+     * 点位ID列表（为空时补算全部点位）
+     */
+    private List<UUID> dataPointIds;
+}
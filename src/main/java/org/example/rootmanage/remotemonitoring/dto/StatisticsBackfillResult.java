@@ -0,0 +1,57 @@
+package org.example.rootmanage.remotemonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 统计数据补算结果DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatisticsBackfillResult {
+
+    /**
+     * 补算的点位数
+     */
+    private int points;
+
+    /**
+     * 读取的原始数据条数
+     */
+    private long rawRows;
+
+    /**
+     * 写入的小时统计条数
+     */
+    private int hourlyRows;
+
+    /**
+     * 写入的日统计条数
+     */
+    private int dailyRows;
+
+    /**
+     * 写入的周统计条数
+     */
+    private int weeklyRows;
+
+    /**
+     * 写入的月统计条数
+     */
+    private int monthlyRows;
+
+    /**
+     * 补算失败的点位ID
+     */
+    private List<UUID> failedPointIds;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
@@ -126,14 +126,16 @@ public class DataPoint extends BaseEntity {
 
     /**
      * 当前值（最新采集值）
+     * 由点位当前值写后缓冲批量更新，实体保存时不更新该列，避免以旧值覆盖
      */
-    @Column
+    @Column(updatable = false)
     private Double currentValue;
 
     /**
      * 最后采集时间
+     * 与当前值一同由写后缓冲批量更新
      */
-    @Column
+    @Column(updatable = false)
     private LocalDateTime lastCollectionTime;
 
     /**
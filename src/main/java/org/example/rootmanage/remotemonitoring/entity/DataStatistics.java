@@ -12,11 +12,16 @@ import java.util.UUID;
 /**
  * 数据统计实体类
  * 用于存储按小时、天、周、月等周期统计的数据
+ * 同一点位、周期的统计行以统计开始时间唯一（非小时统计的 hourOfDay 为空，不能参与唯一键）
  */
 @Data
 @EqualsAndHashCode(callSuper = false)
 @Entity
 @Table(name = "remote_data_statistics",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_statistics_point_period_start",
+                        columnNames = {"dataPointId", "statisticsPeriod", "startTime"})
+        },
         indexes = {
                 @Index(name = "idx_statistics_point_period", columnList = "dataPointId, statisticsPeriod, statisticsDate"),
                 @Index(name = "idx_statistics_date", columnList = "statisticsDate")
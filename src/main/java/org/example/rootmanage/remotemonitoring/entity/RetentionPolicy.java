@@ -0,0 +1,56 @@
+package org.example.rootmanage.remotemonitoring.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.example.rootmanage.common.BaseEntity;
+
+import java.util.UUID;
+
+/**
+ * 运行数据保留策略实体类
+ * 按点位类型或单个点位配置原始数据和小时统计的保留天数，单个点位的策略优先于点位类型的策略
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Entity
+@Table(name = "remote_retention_policy")
+public class RetentionPolicy extends BaseEntity {
+
+    /**
+     * 适用的点位类型（与 dataPointId 二选一）
+     */
+    @Column
+    @Enumerated(EnumType.STRING)
+    private PointType pointType;
+
+    /**
+     * 适用的点位ID（与 pointType 二选一）
+     */
+    @Column(name = "data_point_id")
+    private UUID dataPointId;
+
+    /**
+     * 原始运行数据保留天数，超期数据在确认小时统计存在后删除
+     */
+    @Column(nullable = false)
+    private Integer rawRetentionDays;
+
+    /**
+     * 小时统计保留天数，超期数据在确认日统计存在后删除；为空表示永久保留
+     */
+    @Column
+    private Integer hourlyRetentionDays;
+
+    /**
+     * 是否启用（禁用的点位策略使该点位不参与清理）
+     */
+    @Column(nullable = false)
+    private Boolean enabled = true;
+
+    /**
+     * 备注
+     */
+    @Column(columnDefinition = "TEXT")
+    private String remark;
+}
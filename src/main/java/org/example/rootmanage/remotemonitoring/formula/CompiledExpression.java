@@ -0,0 +1,15 @@
+package org.example.rootmanage.remotemonitoring.formula;
+
+/**
+ * 编译后的公式表达式
+ * 由 {@link FormulaExpressionParser} 生成的求值树，变量按槽位直接读取点位值数组，求值过程不分配对象
+ */
+public interface CompiledExpression {
+
+    /**
+     * 求值
+     *
+     * @param values 按槽位存放的点位值
+     */
+    double evaluate(double[] values);
+}
@@ -0,0 +1,266 @@
+package org.example.rootmanage.remotemonitoring.formula;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 公式表达式解析器
+ * 支持数字、变量、括号、一元负号和 + - * / 四则运算，解析一次生成 {@link CompiledExpression} 求值树，
+ * 常量子表达式在编译时折叠。变量名由字母、数字、下划线组成且不以数字开头，变量如何取值由调用方绑定。
+ */
+public final class FormulaExpressionParser {
+
+    private final String source;
+    private final Function<String, CompiledExpression> binder;
+    private int pos;
+
+    private FormulaExpressionParser(String source, Function<String, CompiledExpression> binder) {
+        this.source = source;
+        this.binder = binder;
+    }
+
+    /**
+     * 编译表达式
+     *
+     * @param expression 公式表达式
+     * @param binder     变量名 -> 变量节点，变量无法绑定时应抛出 IllegalArgumentException
+     */
+    public static CompiledExpression compile(String expression, Function<String, CompiledExpression> binder) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("公式表达式不能为空");
+        }
+        FormulaExpressionParser parser = new FormulaExpressionParser(expression, binder);
+        CompiledExpression result = parser.parseExpression();
+        parser.skipWhitespace();
+        if (parser.pos < expression.length()) {
+            throw parser.error();
+        }
+        return result;
+    }
+
+    /**
+     * 解析表达式中引用的变量名（按出现顺序，去重），同时校验语法
+     */
+    public static Set<String> variableNames(String expression) {
+        Set<String> names = new LinkedHashSet<>();
+        compile(expression, name -> {
+            names.add(name);
+            return constant(0.0);
+        });
+        return names;
+    }
+
+    /**
+     * 变量节点：读取槽位值并乘以系数
+     */
+    public static CompiledExpression variable(int slot, double coefficient) {
+        return coefficient == 1.0 ? new Variable(slot) : new ScaledVariable(slot, coefficient);
+    }
+
+    /**
+     * 常量节点
+     */
+    public static CompiledExpression constant(double value) {
+        return new Constant(value);
+    }
+
+    // expression := term (('+' | '-') term)*
+    private CompiledExpression parseExpression() {
+        CompiledExpression left = parseTerm();
+        while (true) {
+            if (consume('+')) {
+                left = add(left, parseTerm());
+            } else if (consume('-')) {
+                left = subtract(left, parseTerm());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    // term := factor (('*' | '/') factor)*
+    private CompiledExpression parseTerm() {
+        CompiledExpression left = parseFactor();
+        while (true) {
+            if (consume('*')) {
+                left = multiply(left, parseFactor());
+            } else if (consume('/')) {
+                left = divide(left, parseFactor());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    // factor := number | name | '(' expression ')' | ('-' | '+') factor
+    private CompiledExpression parseFactor() {
+        skipWhitespace();
+        if (consume('-')) {
+            CompiledExpression operand = parseFactor();
+            return operand instanceof Constant c ? new Constant(-c.value) : new Negate(operand);
+        }
+        if (consume('+')) {
+            return parseFactor();
+        }
+        if (consume('(')) {
+            CompiledExpression inner = parseExpression();
+            if (!consume(')')) {
+                throw error();
+            }
+            return inner;
+        }
+        if (pos >= source.length()) {
+            throw new IllegalArgumentException("公式表达式不完整: " + source);
+        }
+        char ch = source.charAt(pos);
+        if (Character.isDigit(ch) || ch == '.') {
+            return parseNumber();
+        }
+        if (Character.isLetter(ch) || ch == '_') {
+            int start = pos;
+            while (pos < source.length()
+                    && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+            return binder.apply(source.substring(start, pos));
+        }
+        throw error();
+    }
+
+    private CompiledExpression parseNumber() {
+        int start = pos;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            pos++;
+        }
+        if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < source.length() && (source.charAt(pos) == '+' || source.charAt(pos) == '-')) {
+                pos++;
+            }
+            while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                pos++;
+            }
+        }
+        try {
+            return new Constant(Double.parseDouble(source.substring(start, pos)));
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error();
+        }
+    }
+
+    private boolean consume(char expected) {
+        skipWhitespace();
+        if (pos < source.length() && source.charAt(pos) == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error() {
+        if (pos >= source.length()) {
+            return new IllegalArgumentException("公式表达式不完整: " + source);
+        }
+        return new IllegalArgumentException("公式表达式语法错误: 第 " + (pos + 1) + " 个字符 '" + source.charAt(pos) + "' 无法识别");
+    }
+
+    // ==================== 运算节点（常量折叠） ====================
+
+    private static CompiledExpression add(CompiledExpression left, CompiledExpression right) {
+        if (left instanceof Constant l && right instanceof Constant r) {
+            return new Constant(l.value + r.value);
+        }
+        return new Add(left, right);
+    }
+
+    private static CompiledExpression subtract(CompiledExpression left, CompiledExpression right) {
+        if (left instanceof Constant l && right instanceof Constant r) {
+            return new Constant(l.value - r.value);
+        }
+        return new Subtract(left, right);
+    }
+
+    private static CompiledExpression multiply(CompiledExpression left, CompiledExpression right) {
+        if (left instanceof Constant l && right instanceof Constant r) {
+            return new Constant(l.value * r.value);
+        }
+        if (left instanceof Variable v && right instanceof Constant c) {
+            return new ScaledVariable(v.slot, c.value);
+        }
+        if (left instanceof Constant c && right instanceof Variable v) {
+            return new ScaledVariable(v.slot, c.value);
+        }
+        return new Multiply(left, right);
+    }
+
+    private static CompiledExpression divide(CompiledExpression left, CompiledExpression right) {
+        if (left instanceof Constant l && right instanceof Constant r) {
+            return new Constant(l.value / r.value);
+        }
+        return new Divide(left, right);
+    }
+
+    private record Constant(double value) implements CompiledExpression {
+        @Override
+        public double evaluate(double[] values) {
+            return value;
+        }
+    }
+
+    private record Variable(int slot) implements CompiledExpression {
+        @Override
+        public double evaluate(double[] values) {
+            return values[slot];
+        }
+    }
+
+    private record ScaledVariable(int slot, double coefficient) implements CompiledExpression {
+        @Override
+        public double evaluate(double[] values) {
+            return values[slot] * coefficient;
+        }
+    }
+
+    private record Negate(CompiledExpression operand) implements CompiledExpression {
+        @Override
+        public double evaluate(double[] values) {
+            return -operand.evaluate(values);
+        }
+    }
+
+    private record Add(CompiledExpression left, CompiledExpression right) implements CompiledExpression {
+        @Override
+        public double evaluate(double[] values) {
+            return left.evaluate(values) + right.evaluate(values);
+        }
+    }
+
+    private record Subtract(CompiledExpression left, CompiledExpression right) implements CompiledExpression {
+        @Override
+        public double evaluate(double[] values) {
+            return left.evaluate(values) - right.evaluate(values);
+        }
+    }
+
+    private record Multiply(CompiledExpression left, CompiledExpression right) implements CompiledExpression {
+        @Override
+        public double evaluate(double[] values) {
+            return left.evaluate(values) * right.evaluate(values);
+        }
+    }
+
+    private record Divide(CompiledExpression left, CompiledExpression right) implements CompiledExpression {
+        @Override
+        public double evaluate(double[] values) {
+            return left.evaluate(values) / right.evaluate(values);
+        }
+    }
+}
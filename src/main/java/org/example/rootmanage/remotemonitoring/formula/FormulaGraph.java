@@ -0,0 +1,351 @@
+package org.example.rootmanage.remotemonitoring.formula;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 虚拟表计公式依赖图
+ * 以点位为节点、公式为边（参数点位 -> 输出点位）。构建时按拓扑序编号公式并把变量绑定到点位槽位；
+ * 输入点位变化时只沿依赖关系找出受影响的公式，按拓扑序依次重算，前序公式的输出作为后序公式的输入。
+ * 重算过程使用预分配的数组，不分配对象。实例不是线程安全的，由调用方串行访问。
+ */
+public final class FormulaGraph {
+
+    /**
+     * 公式定义（变量名已解析为点位）
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Definition {
+        private final UUID formulaId;
+        private final String formulaCode;
+        private final UUID outputPointId;
+        private final String expression;
+        /**
+         * 变量名 -> 点位绑定
+         */
+        private final Map<String, Binding> bindings;
+        private final int precision;
+
+        /**
+         * 表达式实际引用的输入点位
+         */
+        public Set<UUID> inputPointIds() {
+            Set<UUID> ids = new LinkedHashSet<>();
+            for (String name : FormulaExpressionParser.variableNames(expression)) {
+                Binding binding = bindings.get(name);
+                if (binding != null) {
+                    ids.add(binding.getDataPointId());
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * 变量绑定：点位及系数
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Binding {
+        private final UUID dataPointId;
+        private final double coefficient;
+    }
+
+    /**
+     * 重算结果接收方
+     */
+    @FunctionalInterface
+    public interface OutputSink {
+        void accept(UUID outputPointId, double value);
+    }
+
+    private static final int[] NO_FORMULAS = new int[0];
+
+    private final Map<UUID, Integer> slots;
+    private final double[] values;
+
+    // 以下数组按公式拓扑序下标访问
+    private final UUID[] outputPoints;
+    private final int[] outputSlots;
+    private final CompiledExpression[] expressions;
+    private final double[] scales;
+
+    /**
+     * 槽位 -> 引用该点位的公式（拓扑序下标）
+     */
+    private final int[][] consumers;
+
+    /**
+     * 因循环依赖未纳入计算的公式
+     */
+    private final List<UUID> skippedFormulaIds;
+
+    private final int[] marks;
+    private final int[] work;
+    private int epoch;
+
+    private FormulaGraph(Map<UUID, Integer> slots, List<Definition> ordered, List<UUID> skippedFormulaIds) {
+        this.slots = slots;
+        this.skippedFormulaIds = skippedFormulaIds;
+        int n = ordered.size();
+        this.values = new double[slots.size()];
+        Arrays.fill(values, Double.NaN);
+        this.outputPoints = new UUID[n];
+        this.outputSlots = new int[n];
+        this.expressions = new CompiledExpression[n];
+        this.scales = new double[n];
+        this.marks = new int[n];
+        this.work = new int[n];
+
+        List<List<Integer>> consumerLists = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            consumerLists.add(new ArrayList<>(2));
+        }
+        for (int i = 0; i < n; i++) {
+            Definition definition = ordered.get(i);
+            outputPoints[i] = definition.getOutputPointId();
+            outputSlots[i] = slots.get(definition.getOutputPointId());
+            scales[i] = definition.getPrecision() >= 0 && definition.getPrecision() <= 15
+                    ? Math.pow(10, definition.getPrecision()) : 0;
+            int formulaIndex = i;
+            Set<Integer> referenced = new HashSet<>();
+            expressions[i] = FormulaExpressionParser.compile(definition.getExpression(), name -> {
+                Binding binding = definition.getBindings().get(name);
+                if (binding == null) {
+                    throw new IllegalArgumentException("公式变量未定义: " + name);
+                }
+                int slot = slots.get(binding.getDataPointId());
+                if (referenced.add(slot)) {
+                    consumerLists.get(slot).add(formulaIndex);
+                }
+                return FormulaExpressionParser.variable(slot, binding.getCoefficient());
+            });
+        }
+        this.consumers = new int[slots.size()][];
+        for (int slot = 0; slot < consumers.length; slot++) {
+            List<Integer> list = consumerLists.get(slot);
+            consumers[slot] = list.isEmpty() ? NO_FORMULAS : list.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * 空图
+     */
+    public static FormulaGraph empty() {
+        return new FormulaGraph(Map.of(), List.of(), List.of());
+    }
+
+    /**
+     * 构建依赖图，处于循环依赖中（或依赖循环结果）的公式及输出点位重复的公式被跳过
+     */
+    public static FormulaGraph build(Collection<Definition> definitions) {
+        List<Definition> unique = new ArrayList<>();
+        List<UUID> skipped = new ArrayList<>();
+        Set<UUID> outputs = new HashSet<>();
+        for (Definition definition : definitions) {
+            if (outputs.add(definition.getOutputPointId())) {
+                unique.add(definition);
+            } else {
+                skipped.add(definition.getFormulaId());
+            }
+        }
+        List<Definition> ordered = new ArrayList<>();
+        List<Definition> cyclic = new ArrayList<>();
+        sort(unique, ordered, cyclic);
+        cyclic.forEach(definition -> skipped.add(definition.getFormulaId()));
+
+        Map<UUID, Integer> slots = new HashMap<>();
+        for (Definition definition : ordered) {
+            for (UUID input : definition.inputPointIds()) {
+                slots.putIfAbsent(input, slots.size());
+            }
+            slots.putIfAbsent(definition.getOutputPointId(), slots.size());
+        }
+        return new FormulaGraph(slots, ordered, skipped);
+    }
+
+    /**
+     * 检查循环依赖，返回无法排出拓扑序的公式编码，无循环时返回空列表
+     */
+    public static List<String> findCycle(Collection<Definition> definitions) {
+        List<Definition> ordered = new ArrayList<>();
+        List<Definition> cyclic = new ArrayList<>();
+        sort(new ArrayList<>(definitions), ordered, cyclic);
+        return cyclic.stream().map(Definition::getFormulaCode).toList();
+    }
+
+    /**
+     * Kahn 拓扑排序：公式 A 的输出点位被公式 B 引用时，A 排在 B 之前
+     */
+    private static void sort(List<Definition> definitions, List<Definition> ordered, List<Definition> cyclic) {
+        int n = definitions.size();
+        Map<UUID, Integer> producer = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            producer.put(definitions.get(i).getOutputPointId(), i);
+        }
+        int[] inDegree = new int[n];
+        List<List<Integer>> dependents = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (UUID input : definitions.get(i).inputPointIds()) {
+                Integer from = producer.get(input);
+                if (from != null) {
+                    dependents.get(from).add(i);
+                    inDegree[i]++;
+                }
+            }
+        }
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) {
+                ready.add(i);
+            }
+        }
+        boolean[] done = new boolean[n];
+        while (!ready.isEmpty()) {
+            int current = ready.poll();
+            done[current] = true;
+            ordered.add(definitions.get(current));
+            for (int next : dependents.get(current)) {
+                if (--inDegree[next] == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (!done[i]) {
+                cyclic.add(definitions.get(i));
+            }
+        }
+    }
+
+    /**
+     * 点位是否被公式引用（作为输入）
+     */
+    public boolean isInput(UUID dataPointId) {
+        Integer slot = slots.get(dataPointId);
+        return slot != null && consumers[slot].length > 0;
+    }
+
+    /**
+     * 图中的所有点位
+     */
+    public Set<UUID> pointIds() {
+        return Collections.unmodifiableSet(slots.keySet());
+    }
+
+    public int formulaCount() {
+        return expressions.length;
+    }
+
+    public List<UUID> getSkippedFormulaIds() {
+        return skippedFormulaIds;
+    }
+
+    /**
+     * 设置点位值但不触发重算（用于预热）
+     */
+    public void seed(UUID dataPointId, double value) {
+        Integer slot = slots.get(dataPointId);
+        if (slot != null) {
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * 获取点位当前值，未知时返回 NaN
+     */
+    public double valueOf(UUID dataPointId) {
+        Integer slot = slots.get(dataPointId);
+        return slot != null ? values[slot] : Double.NaN;
+    }
+
+    /**
+     * 单个输入点位变化后重算受影响的公式
+     *
+     * @return 重算的公式数量
+     */
+    public int propagate(UUID dataPointId, double value, OutputSink sink) {
+        int count = begin();
+        Integer slot = slots.get(dataPointId);
+        if (slot == null) {
+            return 0;
+        }
+        values[slot] = value;
+        count = enqueueConsumers(slot, count);
+        return finish(count, sink);
+    }
+
+    /**
+     * 多个输入点位变化后统一重算，每个受影响的公式只计算一次
+     *
+     * @return 重算的公式数量
+     */
+    public int propagate(UUID[] dataPointIds, double[] newValues, int length, OutputSink sink) {
+        int count = begin();
+        for (int i = 0; i < length; i++) {
+            Integer slot = slots.get(dataPointIds[i]);
+            if (slot != null) {
+                values[slot] = newValues[i];
+                count = enqueueConsumers(slot, count);
+            }
+        }
+        return finish(count, sink);
+    }
+
+    private int begin() {
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            epoch = 1;
+        }
+        return 0;
+    }
+
+    private int enqueueConsumers(int slot, int count) {
+        for (int formula : consumers[slot]) {
+            if (marks[formula] != epoch) {
+                marks[formula] = epoch;
+                work[count++] = formula;
+            }
+        }
+        return count;
+    }
+
+    private int finish(int count, OutputSink sink) {
+        // 沿输出点位向下游扩散，收集所有受影响的公式
+        for (int i = 0; i < count; i++) {
+            count = enqueueConsumers(outputSlots[work[i]], count);
+        }
+        // 公式下标即拓扑序，排序后依次计算保证输入先于输出更新
+        Arrays.sort(work, 0, count);
+        for (int i = 0; i < count; i++) {
+            int formula = work[i];
+            double result = expressions[formula].evaluate(values);
+            if (Double.isFinite(result)) {
+                result = round(result, scales[formula]);
+                values[outputSlots[formula]] = result;
+                sink.accept(outputPoints[formula], result);
+            } else {
+                // 输入未知或除零时输出置为未知，下游公式同样不输出
+                values[outputSlots[formula]] = Double.NaN;
+            }
+        }
+        return count;
+    }
+
+    private static double round(double value, double scale) {
+        if (scale == 0) {
+            return value;
+        }
+        double scaled = value * scale;
+        if (Math.abs(scaled) >= 9.0E15) {
+            return value;
+        }
+        return Math.round(scaled) / scale;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.rootmanage.remotemonitoring.live;
+
+import org.example.rootmanage.remotemonitoring.dto.LiveValueDelta;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个推送连接
+ * 待发送的变化按点位合并，只保留每个点位的最新值，因此积压量不超过订阅的点位数；
+ * 同一时刻最多一个发送在进行，发送期间到达的变化留待下一次发送。
+ */
+final class LiveSubscription {
+
+    private final SseEmitter emitter;
+    private final Set<UUID> pointIds;
+    private final ConcurrentHashMap<UUID, LiveValueDelta> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile long lastSentNanos = System.nanoTime();
+
+    LiveSubscription(SseEmitter emitter, Set<UUID> pointIds) {
+        this.emitter = emitter;
+        this.pointIds = pointIds;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    Set<UUID> pointIds() {
+        return pointIds;
+    }
+
+    /**
+     * 加入一个变化
+     *
+     * @return 是否覆盖了尚未发送的旧值
+     */
+    boolean offer(LiveValueDelta delta) {
+        return pending.put(delta.getDataPointId(), delta) != null;
+    }
+
+    boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * 取出全部待发送的变化，取出期间被更新的点位留在队列中
+     */
+    List<LiveValueDelta> takePending() {
+        List<LiveValueDelta> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<UUID, LiveValueDelta> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+        return batch;
+    }
+
+    boolean tryBeginSend() {
+        return !closed && sending.compareAndSet(false, true);
+    }
+
+    void endSend() {
+        sending.set(false);
+    }
+
+    void markSent() {
+        lastSentNanos = System.nanoTime();
+    }
+
+    long lastSentNanos() {
+        return lastSentNanos;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+        pending.clear();
+    }
+}
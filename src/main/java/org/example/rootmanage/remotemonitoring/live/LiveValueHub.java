@@ -0,0 +1,213 @@
+package org.example.rootmanage.remotemonitoring.live;
+
+import jakarta.annotation.PreDestroy;
+import org.example.rootmanage.remotemonitoring.dto.LiveValueDelta;
+import org.example.rootmanage.remotemonitoring.dto.RealTimeValue;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 实时值推送中心（Server-Sent Events）
+ * 客户端订阅一组点位，连接建立时收到一次快照（snapshot 事件），之后只收到变化的点位值（values 事件）。
+ * 实时值缓存接受新值时按点位索引找到订阅连接，把变化放入连接的合并队列；定时发送任务把各连接积压的变化
+ * 合并为一个事件交给发送线程池。每个连接同一时刻最多占用一个发送线程，慢连接的变化持续合并而不会无限堆积，
+ * 线程池满时本轮跳过，等下一轮再发送。空闲连接定期发送心跳注释，写入失败的连接被移除。
+ */
+@Component
+public class LiveValueHub {
+
+    private final int maxPointsPerSubscription;
+    private final long emitterTimeoutMillis;
+    private final long heartbeatNanos;
+
+    /**
+     * 点位ID -> 订阅该点位的连接
+     */
+    private final ConcurrentHashMap<UUID, Set<LiveSubscription>> subscribers = new ConcurrentHashMap<>();
+
+    private final Set<LiveSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 剩余可建立的连接数，订阅时先占用再登记，连接移除时归还
+     */
+    private final Semaphore slots;
+
+    private final ThreadPoolExecutor sender;
+
+    private final LongAdder publishedDeltas = new LongAdder();
+    private final LongAdder coalescedDeltas = new LongAdder();
+
+    public LiveValueHub(@Value("${remote-monitoring.live.max-subscriptions:5000}") int maxSubscriptions,
+                        @Value("${remote-monitoring.live.max-points-per-subscription:2000}") int maxPointsPerSubscription,
+                        @Value("${remote-monitoring.live.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                        @Value("${remote-monitoring.live.heartbeat-interval-ms:15000}") long heartbeatIntervalMillis,
+                        @Value("${remote-monitoring.live.sender-threads:8}") int senderThreads) {
+        this.maxPointsPerSubscription = maxPointsPerSubscription;
+        this.slots = new Semaphore(Math.max(0, maxSubscriptions));
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxSubscriptions)), runnable -> {
+            Thread thread = new Thread(runnable, "live-value-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 建立订阅，先登记连接再读取快照，快照之后的变化不会丢失
+     * 点位数超过单个订阅上限时抛出 IllegalArgumentException，连接数已满时抛出 IllegalStateException
+     *
+     * @param pointIds 订阅的点位
+     * @param snapshot 连接建立时发送的当前值
+     */
+    public SseEmitter subscribe(Collection<UUID> pointIds, Supplier<List<RealTimeValue>> snapshot) {
+        Set<UUID> ids = Set.copyOf(pointIds);
+        if (ids.size() > maxPointsPerSubscription) {
+            throw new IllegalArgumentException("单个订阅的点位数不能超过 " + maxPointsPerSubscription);
+        }
+        if (!slots.tryAcquire()) {
+            throw new IllegalStateException("实时订阅连接数已达上限");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        LiveSubscription subscription = new LiveSubscription(emitter, ids);
+        emitter.onCompletion(() -> unregister(subscription));
+        emitter.onTimeout(() -> unregister(subscription));
+        emitter.onError(error -> unregister(subscription));
+
+        // 快照发送完之前不发送变化
+        subscription.tryBeginSend();
+        subscriptions.add(subscription);
+        for (UUID pointId : subscription.pointIds()) {
+            subscribers.compute(pointId, (id, set) -> {
+                Set<LiveSubscription> result = set != null ? set : ConcurrentHashMap.newKeySet();
+                result.add(subscription);
+                return result;
+            });
+        }
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(snapshot.get()));
+            subscription.markSent();
+        } catch (IOException e) {
+            unregister(subscription);
+            emitter.completeWithError(e);
+        } catch (RuntimeException e) {
+            // 读取快照失败，归还连接数后交给调用方
+            unregister(subscription);
+            throw e;
+        } finally {
+            subscription.endSend();
+        }
+        return emitter;
+    }
+
+    /**
+     * 发布一个点位的新值（由实时值缓存在接受新值后调用）
+     */
+    public void publish(UUID dataPointId, Double value, DataQuality quality, LocalDateTime collectionTime) {
+        Set<LiveSubscription> targets = subscribers.get(dataPointId);
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        LiveValueDelta delta = new LiveValueDelta(dataPointId, value, quality, collectionTime);
+        for (LiveSubscription subscription : targets) {
+            if (subscription.offer(delta)) {
+                coalescedDeltas.increment();
+            }
+        }
+        publishedDeltas.increment();
+    }
+
+    /**
+     * 定时把各连接积压的变化交给发送线程
+     */
+    @Scheduled(fixedDelayString = "${remote-monitoring.live.flush-interval-ms:200}")
+    public void flush() {
+        long now = System.nanoTime();
+        for (LiveSubscription subscription : subscriptions) {
+            boolean heartbeat = now - subscription.lastSentNanos() >= heartbeatNanos;
+            if ((subscription.hasPending() || heartbeat) && subscription.tryBeginSend()) {
+                try {
+                    sender.execute(() -> send(subscription));
+                } catch (RejectedExecutionException e) {
+                    // 线程池已满，变化留在队列中等待下一轮
+                    subscription.endSend();
+                }
+            }
+        }
+    }
+
+    private void send(LiveSubscription subscription) {
+        try {
+            List<LiveValueDelta> batch = subscription.takePending();
+            if (!batch.isEmpty()) {
+                subscription.emitter().send(SseEmitter.event().name("values").data(batch));
+            } else {
+                subscription.emitter().send(SseEmitter.event().comment("heartbeat"));
+            }
+            subscription.markSent();
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开或连接已结束
+            unregister(subscription);
+            subscription.emitter().completeWithError(e);
+        } finally {
+            subscription.endSend();
+        }
+    }
+
+    private void unregister(LiveSubscription subscription) {
+        if (!subscriptions.remove(subscription)) {
+            return;
+        }
+        slots.release();
+        subscription.close();
+        for (UUID pointId : subscription.pointIds()) {
+            subscribers.computeIfPresent(pointId, (id, set) -> {
+                set.remove(subscription);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * 当前连接数
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * 累计发布的变化数
+     */
+    public long getPublishedDeltas() {
+        return publishedDeltas.sum();
+    }
+
+    /**
+     * 累计被合并（发送前被新值覆盖）的变化数
+     */
+    public long getCoalescedDeltas() {
+        return coalescedDeltas.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (LiveSubscription subscription : new ArrayList<>(subscriptions)) {
+            unregister(subscription);
+            subscription.emitter().complete();
+        }
+    }
+}
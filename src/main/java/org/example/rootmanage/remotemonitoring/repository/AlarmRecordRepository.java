@@ -5,6 +5,7 @@ import org.example.rootmanage.remotemonitoring.entity.AlarmRecord;
 import org.example.rootmanage.remotemonitoring.entity.AlarmStatus;
 import org.example.rootmanage.remotemonitoring.entity.AlarmType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -60,6 +61,16 @@ public interface AlarmRecordRepository extends JpaRepository<AlarmRecord, UUID>
      * 根据点位ID和状态查找
      */
     List<AlarmRecord> findByDataPointIdAndStatusOrderByAlarmTimeDesc(UUID dataPointId, AlarmStatus status);
+
+    /**
+     * 恢复报警记录（已恢复的记录不重复更新）
+     *
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE AlarmRecord a SET a.status = 'RECOVERED', a.recoveryTime = :recoveryTime " +
+            "WHERE a.id = :id AND a.status <> 'RECOVERED'")
+    int recoverById(@Param("id") UUID id, @Param("recoveryTime") LocalDateTime recoveryTime);
 }
 
 
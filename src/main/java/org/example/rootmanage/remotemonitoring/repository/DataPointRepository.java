@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -60,6 +61,11 @@ public interface DataPointRepository extends JpaRepository<DataPoint, UUID> {
      * 根据多个ID查找
      */
     List<DataPoint> findByIdIn(List<UUID> ids);
+
+    /**
+     * 根据点位编码批量查找
+     */
+    List<DataPoint> findByPointCodeIn(Collection<String> pointCodes);
 }
 
 
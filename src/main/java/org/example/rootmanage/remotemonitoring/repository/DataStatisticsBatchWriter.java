@@ -0,0 +1,98 @@
+package org.example.rootmanage.remotemonitoring.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.UuidBytes;
+import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 统计数据批量合并写入
+ * 依赖唯一键 uk_statistics_point_period_start（点位、周期、统计开始时间），
+ * 使用 INSERT ... ON DUPLICATE KEY UPDATE 在数据库端把增量合并进已有统计行：
+ * 读取和合并在同一条语句内完成，多个节点同时写入同一统计行时不会丢失增量，也不会产生重复行。
+ */
+@Repository
+@RequiredArgsConstructor
+public class DataStatisticsBatchWriter {
+
+    /**
+     * MySQL 按书写顺序执行 UPDATE 子句，后面的表达式读取的是前面已更新的列值：
+     * 发生时间先于最大/最小值更新，点数最后更新，平均值由更新后的累计值和点数计算
+     */
+    private static final String MERGE_STATISTICS_SQL = "INSERT INTO remote_data_statistics " +
+            "(id, create_time, update_time, data_point_id, statistics_period, statistics_date, hour_of_day, " +
+            "week_of_year, start_time, end_time, avg_value, max_value, max_value_time, min_value, min_value_time, " +
+            "sum_value, data_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "max_value_time = IF(COALESCE(data_count, 0) <= 0 OR max_value IS NULL OR VALUES(max_value) > max_value " +
+            "OR (VALUES(max_value) = max_value AND (max_value_time IS NULL OR VALUES(max_value_time) < max_value_time)), " +
+            "VALUES(max_value_time), max_value_time), " +
+            "max_value = IF(COALESCE(data_count, 0) <= 0 OR max_value IS NULL OR VALUES(max_value) > max_value, " +
+            "VALUES(max_value), max_value), " +
+            "min_value_time = IF(COALESCE(data_count, 0) <= 0 OR min_value IS NULL OR VALUES(min_value) < min_value " +
+            "OR (VALUES(min_value) = min_value AND (min_value_time IS NULL OR VALUES(min_value_time) < min_value_time)), " +
+            "VALUES(min_value_time), min_value_time), " +
+            "min_value = IF(COALESCE(data_count, 0) <= 0 OR min_value IS NULL OR VALUES(min_value) < min_value, " +
+            "VALUES(min_value), min_value), " +
+            "sum_value = IF(data_count > 0, COALESCE(sum_value, avg_value * data_count, 0), 0) + VALUES(sum_value), " +
+            "data_count = IF(data_count > 0, data_count, 0) + VALUES(data_count), " +
+            "avg_value = sum_value / data_count, " +
+            "update_time = VALUES(update_time)";
+
+    /**
+     * 按唯一键排序写入，并发批次以相同顺序加锁，避免死锁
+     */
+    private static final Comparator<DataStatistics> KEY_ORDER = Comparator
+            .comparing(DataStatistics::getDataPointId)
+            .thenComparing(DataStatistics::getStatisticsPeriod)
+            .thenComparing(DataStatistics::getStartTime);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 每个 JDBC 批次的语句条数
+     */
+    @Value("${remote-monitoring.ingestion.jdbc-batch-size:1000}")
+    private int jdbcBatchSize = 1000;
+
+    /**
+     * 把统计增量合并到统计行，统计行不存在时插入
+     * 传入行的点数、累计值、最大/最小值及发生时间都是增量，平均值由合并后的累计值和点数计算
+     *
+     * @return 提交的语句条数
+     */
+    public int mergeStatistics(List<DataStatistics> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return 0;
+        }
+        List<DataStatistics> sorted = deltas.stream().sorted(KEY_ORDER).toList();
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(MERGE_STATISTICS_SQL, sorted, jdbcBatchSize, (ps, row) -> {
+            ps.setBytes(1, UuidBytes.toBytes(UUID.randomUUID()));
+            ps.setObject(2, now);
+            ps.setObject(3, now);
+            ps.setBytes(4, UuidBytes.toBytes(row.getDataPointId()));
+            ps.setString(5, row.getStatisticsPeriod().name());
+            ps.setObject(6, row.getStatisticsDate());
+            ps.setObject(7, row.getHourOfDay());
+            ps.setObject(8, row.getWeekOfYear());
+            ps.setObject(9, row.getStartTime());
+            ps.setObject(10, row.getEndTime());
+            ps.setObject(11, row.getAvgValue());
+            ps.setObject(12, row.getMaxValue());
+            ps.setObject(13, row.getMaxValueTime());
+            ps.setObject(14, row.getMinValue());
+            ps.setObject(15, row.getMinValueTime());
+            ps.setObject(16, row.getSumValue());
+            ps.setObject(17, row.getDataCount());
+        });
+        return sorted.size();
+    }
+}
@@ -3,6 +3,7 @@ package org.example.rootmanage.remotemonitoring.repository;
 import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
 import org.example.rootmanage.remotemonitoring.entity.StatisticsPeriod;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -61,6 +62,25 @@ public interface DataStatisticsRepository extends JpaRepository<DataStatistics,
      */
     Optional<DataStatistics> findByDataPointIdAndStatisticsPeriodAndStatisticsDate(
             UUID dataPointId, StatisticsPeriod statisticsPeriod, LocalDate statisticsDate);
+
+    /**
+     * 查找点位指定周期最早的统计数据
+     */
+    Optional<DataStatistics> findFirstByDataPointIdAndStatisticsPeriodOrderByStatisticsDateAsc(
+            UUID dataPointId, StatisticsPeriod statisticsPeriod);
+
+    /**
+     * 删除点位在日期范围内的指定周期统计数据（统计补算前清除旧数据）
+     */
+    @Modifying
+    @Query("DELETE FROM DataStatistics d WHERE d.dataPointId = :dataPointId " +
+            "AND d.statisticsPeriod = :period " +
+            "AND d.statisticsDate BETWEEN :startDate AND :endDate")
+    int deleteByDataPointIdAndPeriodAndDateRange(
+            @Param("dataPointId") UUID dataPointId,
+            @Param("period") StatisticsPeriod period,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
 }
 
 
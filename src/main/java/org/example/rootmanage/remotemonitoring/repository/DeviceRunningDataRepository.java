@@ -22,6 +22,11 @@ public interface DeviceRunningDataRepository extends JpaRepository<DeviceRunning
      */
     Optional<DeviceRunningData> findFirstByDataPointIdOrderByCollectionTimeDesc(UUID dataPointId);
 
+    /**
+     * 根据点位ID查找最早数据
+     */
+    Optional<DeviceRunningData> findFirstByDataPointIdOrderByCollectionTimeAsc(UUID dataPointId);
+
     /**
      * 根据点位ID和时间范围查找
      */
@@ -48,7 +53,7 @@ public interface DeviceRunningDataRepository extends JpaRepository<DeviceRunning
     void deleteByDataPointId(UUID dataPointId);
 
     /**
-     * 删除指定时间之前的数据
+     * 删除指定时间之前的数据（逐条加载后删除，大表请使用 RunningDataBatchWriter 的分块删除）
      */
     void deleteByCollectionTimeBefore(LocalDateTime beforeTime);
 }
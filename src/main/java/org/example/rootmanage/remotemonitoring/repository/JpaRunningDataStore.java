@@ -0,0 +1,97 @@
+package org.example.rootmanage.remotemonitoring.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.remotemonitoring.entity.DeviceRunningData;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 运行数据存储的默认实现：remote_device_running_data 表
+ * 单条写入和查询走 JPA，批量写入走 JDBC 批量语句，流式读取走只进游标
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "remote-monitoring.running-data.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaRunningDataStore implements RunningDataStore {
+
+    /**
+     * 按时间删除时每条 DELETE 语句的最大行数
+     */
+    private static final int DELETE_CHUNK_SIZE = 5000;
+
+    private final DeviceRunningDataRepository runningDataRepository;
+    private final RunningDataBatchWriter runningDataBatchWriter;
+    private final RunningDataCursorReader runningDataCursorReader;
+
+    @Override
+    public DeviceRunningData save(DeviceRunningData data) {
+        return runningDataRepository.save(data);
+    }
+
+    @Override
+    public int saveAll(List<DeviceRunningData> rows) {
+        return runningDataBatchWriter.insertRunningData(rows);
+    }
+
+    @Override
+    public List<DeviceRunningData> findByDataPointIdAndTimeRange(UUID dataPointId, LocalDateTime startTime,
+                                                                LocalDateTime endTime) {
+        return runningDataRepository.findByDataPointIdAndTimeRange(dataPointId, startTime, endTime);
+    }
+
+    @Override
+    public List<DeviceRunningData> findByDataPointIdsAndTimeRange(List<UUID> dataPointIds, LocalDateTime startTime,
+                                                                 LocalDateTime endTime) {
+        return runningDataRepository.findByDataPointIdsAndTimeRange(dataPointIds, startTime, endTime);
+    }
+
+    @Override
+    public Optional<DeviceRunningData> findFirstByDataPointIdOrderByCollectionTimeDesc(UUID dataPointId) {
+        return runningDataRepository.findFirstByDataPointIdOrderByCollectionTimeDesc(dataPointId);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findOldestCollectionTime(UUID dataPointId) {
+        return runningDataRepository.findFirstByDataPointIdOrderByCollectionTimeAsc(dataPointId)
+                .map(DeviceRunningData::getCollectionTime);
+    }
+
+    @Override
+    public long forEachValue(UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime,
+                             ValueConsumer consumer) {
+        return runningDataCursorReader.forEachValue(dataPointId, startTime, endTime, consumer);
+    }
+
+    @Override
+    public long forEachCurveValue(UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime,
+                                  ValueConsumer consumer) {
+        return runningDataCursorReader.forEachCurveValue(dataPointId, startTime, endTime, consumer);
+    }
+
+    @Override
+    @Transactional
+    public void deleteByDataPointId(UUID dataPointId) {
+        runningDataRepository.deleteByDataPointId(dataPointId);
+    }
+
+    /**
+     * 分块删除，每块单独提交，避免把待删除的行加载为实体
+     */
+    @Override
+    public void deleteByCollectionTimeBefore(LocalDateTime beforeTime) {
+        while (runningDataBatchWriter.deleteRunningDataBefore(beforeTime, DELETE_CHUNK_SIZE) >= DELETE_CHUNK_SIZE) {
+            // 继续删除下一块
+        }
+    }
+
+    @Override
+    public int deleteByDataPointIdBefore(UUID dataPointId, LocalDateTime beforeTime, int limit) {
+        return runningDataBatchWriter.deleteRunningDataBefore(dataPointId, beforeTime, limit);
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.rootmanage.remotemonitoring.repository;
+
+import org.example.rootmanage.remotemonitoring.entity.PointType;
+import org.example.rootmanage.remotemonitoring.entity.RetentionPolicy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 运行数据保留策略数据访问接口
+ */
+@Repository
+public interface RetentionPolicyRepository extends JpaRepository<RetentionPolicy, UUID> {
+
+    /**
+     * 根据点位类型查找
+     */
+    Optional<RetentionPolicy> findByPointType(PointType pointType);
+
+    /**
+     * 根据点位ID查找
+     */
+    Optional<RetentionPolicy> findByDataPointId(UUID dataPointId);
+
+    /**
+     * 查找启用/禁用的策略
+     */
+    List<RetentionPolicy> findByEnabled(Boolean enabled);
+}
@@ -0,0 +1,130 @@
+package org.example.rootmanage.remotemonitoring.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.UuidBytes;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.entity.DeviceRunningData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 采集数据批量写入
+ * 绕过 JPA 逐条 persist/merge，使用 JDBC 批量语句写入运行数据和点位当前值，
+ * 需配合连接参数 rewriteBatchedStatements=true 才能在 MySQL 端合并为多值 INSERT
+ */
+@Repository
+@RequiredArgsConstructor
+public class RunningDataBatchWriter {
+
+    private static final String INSERT_RUNNING_DATA_SQL = "INSERT INTO remote_device_running_data " +
+            "(id, create_time, update_time, data_point_id, collection_time, value, raw_value, quality, source, " +
+            "input_by_id, input_by_name, remark) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_CURRENT_VALUE_SQL = "UPDATE remote_data_point " +
+            "SET current_value = ?, last_collection_time = ? WHERE id = ?";
+
+    private static final String DELETE_BEFORE_SQL = "DELETE FROM remote_device_running_data " +
+            "WHERE collection_time < ? ORDER BY collection_time LIMIT ?";
+
+    private static final String DELETE_POINT_BEFORE_SQL = "DELETE FROM remote_device_running_data " +
+            "WHERE data_point_id = ? AND collection_time < ? ORDER BY collection_time LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 每个 JDBC 批次的语句条数
+     */
+    @Value("${remote-monitoring.ingestion.jdbc-batch-size:1000}")
+    private int jdbcBatchSize = 1000;
+
+    /**
+     * 批量插入运行数据，未设置ID的记录由此处生成
+     *
+     * @return 写入的行数
+     */
+    public int insertRunningData(List<DeviceRunningData> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (DeviceRunningData row : rows) {
+            if (row.getId() == null) {
+                row.setId(UUID.randomUUID());
+            }
+            row.setCreateTime(now);
+            row.setUpdateTime(now);
+        }
+        jdbcTemplate.batchUpdate(INSERT_RUNNING_DATA_SQL, rows, jdbcBatchSize, (ps, row) -> {
+            ps.setBytes(1, UuidBytes.toBytes(row.getId()));
+            ps.setObject(2, row.getCreateTime());
+            ps.setObject(3, row.getUpdateTime());
+            ps.setBytes(4, UuidBytes.toBytes(row.getDataPointId()));
+            ps.setObject(5, row.getCollectionTime());
+            ps.setObject(6, row.getValue());
+            ps.setObject(7, row.getRawValue());
+            ps.setString(8, row.getQuality().name());
+            ps.setString(9, row.getSource().name());
+            ps.setBytes(10, UuidBytes.toBytes(row.getInputById()));
+            ps.setString(11, row.getInputByName());
+            ps.setString(12, row.getRemark());
+        });
+        return rows.size();
+    }
+
+    /**
+     * 批量更新点位当前值，只更新 current_value 和 last_collection_time 两列
+     *
+     * @return 提交的更新条数
+     */
+    public int updateCurrentValues(Collection<CurrentValueUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return 0;
+        }
+        List<CurrentValueUpdate> list = new ArrayList<>(updates);
+        jdbcTemplate.batchUpdate(UPDATE_CURRENT_VALUE_SQL, list, jdbcBatchSize, (ps, update) -> {
+            ps.setObject(1, update.getValue());
+            ps.setObject(2, update.getCollectionTime());
+            ps.setBytes(3, UuidBytes.toBytes(update.getDataPointId()));
+        });
+        return list.size();
+    }
+
+    /**
+     * 按采集时间从早到晚删除指定时间之前的运行数据（走 idx_running_data_time），单次最多删除 limit 行
+     *
+     * @return 删除的行数
+     */
+    public int deleteRunningDataBefore(LocalDateTime beforeTime, int limit) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, beforeTime, limit);
+    }
+
+    /**
+     * 按采集时间从早到晚删除点位在指定时间之前的运行数据（走 idx_running_data_point_time），单次最多删除 limit 行
+     *
+     * @return 删除的行数
+     */
+    public int deleteRunningDataBefore(UUID dataPointId, LocalDateTime beforeTime, int limit) {
+        return jdbcTemplate.update(DELETE_POINT_BEFORE_SQL, UuidBytes.toBytes(dataPointId), beforeTime, limit);
+    }
+
+    /**
+     * 点位当前值更新项
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CurrentValueUpdate {
+        private final UUID dataPointId;
+        private final Double value;
+        private final LocalDateTime collectionTime;
+        private final DataQuality quality;
+    }
+}
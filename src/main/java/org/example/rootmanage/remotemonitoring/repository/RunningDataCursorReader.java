@@ -0,0 +1,74 @@
+package org.example.rootmanage.remotemonitoring.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.UuidBytes;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 运行数据流式读取
+ * 以只进游标逐行读取单个点位的运行数据，不把结果集整体加载到内存，也不经过 JPA 实体，
+ * 用于统计补算、曲线降采样等需要扫描大量原始数据的场景。
+ */
+@Repository
+@RequiredArgsConstructor
+public class RunningDataCursorReader {
+
+    private static final String SELECT_VALUES_SQL = "SELECT collection_time, value FROM remote_device_running_data " +
+            "WHERE data_point_id = ? AND collection_time >= ? AND collection_time < ? " +
+            "AND quality <> 'BAD' AND value IS NOT NULL ORDER BY collection_time";
+
+    private static final String SELECT_CURVE_VALUES_SQL = "SELECT collection_time, value FROM remote_device_running_data " +
+            "WHERE data_point_id = ? AND collection_time BETWEEN ? AND ? AND value IS NOT NULL ORDER BY collection_time";
+
+    /**
+     * MySQL 驱动只有在 fetchSize 为 Integer.MIN_VALUE 时才逐行流式返回结果
+     */
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 按采集时间顺序读取点位在 [startTime, endTime) 内的有效采集值（不含坏数据）
+     *
+     * @return 读取的行数
+     */
+    public long forEachValue(UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime, RunningDataStore.ValueConsumer consumer) {
+        return stream(SELECT_VALUES_SQL, dataPointId, startTime, endTime, consumer);
+    }
+
+    /**
+     * 按采集时间顺序读取点位在 [startTime, endTime] 内的全部采集值（与曲线分析的原始数据查询范围一致）
+     *
+     * @return 读取的行数
+     */
+    public long forEachCurveValue(UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime,
+                                  RunningDataStore.ValueConsumer consumer) {
+        return stream(SELECT_CURVE_VALUES_SQL, dataPointId, startTime, endTime, consumer);
+    }
+
+    private long stream(String sql, UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime,
+                        RunningDataStore.ValueConsumer consumer) {
+        long[] rows = new long[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAMING_FETCH_SIZE);
+            ps.setBytes(1, UuidBytes.toBytes(dataPointId));
+            ps.setObject(2, startTime);
+            ps.setObject(3, endTime);
+            return ps;
+        }, rs -> {
+            Timestamp time = rs.getTimestamp(1);
+            consumer.accept(time.toLocalDateTime(), rs.getDouble(2));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.rootmanage.remotemonitoring.repository;
+
+import org.example.rootmanage.remotemonitoring.entity.DeviceRunningData;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 运行数据存储
+ * 与 DeviceRunningDataRepository 相同的查询形态，具体存储引擎按部署配置选择：
+ * remote-monitoring.running-data.store=jpa（默认，remote_device_running_data 表）或 columnar（本地列式压缩存储）。
+ */
+public interface RunningDataStore {
+
+    /**
+     * 保存一条运行数据
+     */
+    DeviceRunningData save(DeviceRunningData data);
+
+    /**
+     * 批量保存运行数据
+     *
+     * @return 写入的行数
+     */
+    int saveAll(List<DeviceRunningData> rows);
+
+    /**
+     * 根据点位ID和时间范围查找（含两端，按采集时间升序）
+     */
+    List<DeviceRunningData> findByDataPointIdAndTimeRange(UUID dataPointId, LocalDateTime startTime,
+                                                         LocalDateTime endTime);
+
+    /**
+     * 根据多个点位ID和时间范围查找（含两端，按采集时间升序）
+     */
+    List<DeviceRunningData> findByDataPointIdsAndTimeRange(List<UUID> dataPointIds, LocalDateTime startTime,
+                                                          LocalDateTime endTime);
+
+    /**
+     * 根据点位ID查找最新数据
+     */
+    Optional<DeviceRunningData> findFirstByDataPointIdOrderByCollectionTimeDesc(UUID dataPointId);
+
+    /**
+     * 获取点位最早一条数据的采集时间
+     */
+    Optional<LocalDateTime> findOldestCollectionTime(UUID dataPointId);
+
+    /**
+     * 按采集时间顺序读取点位在 [startTime, endTime) 内的有效采集值（不含坏数据），用于统计
+     *
+     * @return 读取的行数
+     */
+    long forEachValue(UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime, ValueConsumer consumer);
+
+    /**
+     * 按采集时间顺序读取点位在 [startTime, endTime] 内的全部采集值，用于曲线
+     *
+     * @return 读取的行数
+     */
+    long forEachCurveValue(UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime, ValueConsumer consumer);
+
+    /**
+     * 根据点位ID删除历史数据
+     */
+    void deleteByDataPointId(UUID dataPointId);
+
+    /**
+     * 删除指定时间之前的数据
+     */
+    void deleteByCollectionTimeBefore(LocalDateTime beforeTime);
+
+    /**
+     * 按采集时间从早到晚删除点位在指定时间之前的数据，单次最多删除 limit 行（逻辑删除的存储引擎一次删完）
+     *
+     * @return 删除的行数，小于 limit 表示已删完
+     */
+    int deleteByDataPointIdBefore(UUID dataPointId, LocalDateTime beforeTime, int limit);
+
+    /**
+     * 采集值接收方
+     */
+    @FunctionalInterface
+    interface ValueConsumer {
+        void accept(LocalDateTime collectionTime, double value);
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.rootmanage.remotemonitoring.statistics;
+
+import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
+
+import java.time.LocalDateTime;
+
+/**
+ * 统计聚合值：点数、累计值、最大/最小值及其发生时间
+ * 聚合值可以任意合并（平均值由累计值和点数推出），因此小时聚合可以直接合并为日、周、月聚合，
+ * 同一时段分多次提交的增量也可以直接合并到已有统计行。实例不是线程安全的。
+ */
+public final class StatisticsAggregate {
+
+    private long count;
+    private double sum;
+    private double max = Double.NaN;
+    private LocalDateTime maxTime;
+    private double min = Double.NaN;
+    private LocalDateTime minTime;
+
+    /**
+     * 累加一个采样值，最大/最小值相同时保留最早的发生时间
+     */
+    public StatisticsAggregate add(double value, LocalDateTime time) {
+        count++;
+        sum += value;
+        if (Double.isNaN(max) || value > max || (value == max && isBefore(time, maxTime))) {
+            max = value;
+            maxTime = time;
+        }
+        if (Double.isNaN(min) || value < min || (value == min && isBefore(time, minTime))) {
+            min = value;
+            minTime = time;
+        }
+        return this;
+    }
+
+    /**
+     * 合并另一个聚合值
+     */
+    public StatisticsAggregate merge(StatisticsAggregate other) {
+        if (other.count == 0) {
+            return this;
+        }
+        count += other.count;
+        sum += other.sum;
+        if (Double.isNaN(max) || other.max > max || (other.max == max && isBefore(other.maxTime, maxTime))) {
+            max = other.max;
+            maxTime = other.maxTime;
+        }
+        if (Double.isNaN(min) || other.min < min || (other.min == min && isBefore(other.minTime, minTime))) {
+            min = other.min;
+            minTime = other.minTime;
+        }
+        return this;
+    }
+
+    /**
+     * 读取统计行中已有的聚合值
+     */
+    public static StatisticsAggregate of(DataStatistics row) {
+        StatisticsAggregate aggregate = new StatisticsAggregate();
+        int rowCount = row.getDataCount() != null ? row.getDataCount() : 0;
+        if (rowCount <= 0 || row.getMaxValue() == null || row.getMinValue() == null) {
+            return aggregate;
+        }
+        aggregate.count = rowCount;
+        aggregate.sum = row.getSumValue() != null ? row.getSumValue()
+                : (row.getAvgValue() != null ? row.getAvgValue() * rowCount : 0);
+        aggregate.max = row.getMaxValue();
+        aggregate.maxTime = row.getMaxValueTime();
+        aggregate.min = row.getMinValue();
+        aggregate.minTime = row.getMinValueTime();
+        return aggregate;
+    }
+
+    /**
+     * 把聚合值写入统计行
+     */
+    public void applyTo(DataStatistics row) {
+        row.setDataCount((int) Math.min(count, Integer.MAX_VALUE));
+        row.setSumValue(sum);
+        row.setAvgValue(count > 0 ? sum / count : null);
+        row.setMaxValue(count > 0 ? max : null);
+        row.setMaxValueTime(maxTime);
+        row.setMinValue(count > 0 ? min : null);
+        row.setMinValueTime(minTime);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public LocalDateTime getMaxTime() {
+        return maxTime;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public LocalDateTime getMinTime() {
+        return minTime;
+    }
+
+    private static boolean isBefore(LocalDateTime time, LocalDateTime other) {
+        return time != null && (other == null || time.isBefore(other));
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.rootmanage.remotemonitoring.statistics;
+
+import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
+import org.example.rootmanage.remotemonitoring.entity.StatisticsPeriod;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.util.UUID;
+
+/**
+ * 统计时段划分
+ * 小时统计的统计日期为当天、统计时段为 0-23；日统计的统计日期为当天；
+ * 周统计按 ISO 周（周一开始），统计日期为周一；月统计的统计日期为当月1日。
+ * 统计开始时间为时段起点，结束时间为下一时段起点（不含）。
+ */
+public final class StatisticsBuckets {
+
+    private StatisticsBuckets() {
+    }
+
+    /**
+     * 采集时间所在小时的起点
+     */
+    public static LocalDateTime hourStart(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    /**
+     * 日期所在时段的统计日期（小时和日统计为当天）
+     */
+    public static LocalDate bucketDate(StatisticsPeriod period, LocalDate date) {
+        return switch (period) {
+            case HOURLY, DAILY -> date;
+            case WEEKLY -> date.with(DayOfWeek.MONDAY);
+            case MONTHLY -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * 时段起点
+     */
+    public static LocalDateTime bucketStart(StatisticsPeriod period, LocalDateTime time) {
+        return period == StatisticsPeriod.HOURLY
+                ? hourStart(time)
+                : bucketDate(period, time.toLocalDate()).atStartOfDay();
+    }
+
+    /**
+     * 时段终点（不含）
+     */
+    public static LocalDateTime bucketEnd(StatisticsPeriod period, LocalDateTime start) {
+        return switch (period) {
+            case HOURLY -> start.plusHours(1);
+            case DAILY -> start.plusDays(1);
+            case WEEKLY -> start.plusWeeks(1);
+            case MONTHLY -> start.plusMonths(1);
+        };
+    }
+
+    /**
+     * 时段内的小时统计时段号，非小时统计为 null
+     */
+    public static Integer hourOfDay(StatisticsPeriod period, LocalDateTime time) {
+        return period == StatisticsPeriod.HOURLY ? time.getHour() : null;
+    }
+
+    /**
+     * 创建包含指定时间的统计行（不含聚合值）
+     */
+    public static DataStatistics newRow(UUID dataPointId, StatisticsPeriod period, LocalDateTime time) {
+        LocalDateTime start = bucketStart(period, time);
+        DataStatistics row = new DataStatistics();
+        row.setDataPointId(dataPointId);
+        row.setStatisticsPeriod(period);
+        row.setStatisticsDate(start.toLocalDate());
+        row.setHourOfDay(hourOfDay(period, start));
+        if (period == StatisticsPeriod.WEEKLY) {
+            row.setWeekOfYear(start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        }
+        row.setStartTime(start);
+        row.setEndTime(bucketEnd(period, start));
+        return row;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.rootmanage.remotemonitoring.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 按位读取（高位在前），直接读取字节缓冲（可以是内存映射文件的切片），不复制数据
+ */
+final class BitReader {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private long position;
+
+    BitReader(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    boolean readBit() {
+        int b = buffer.get(offset + (int) (position >>> 3));
+        boolean bit = (b & (0x80 >>> (position & 7))) != 0;
+        position++;
+        return bit;
+    }
+
+    long readBits(int bits) {
+        long value = 0;
+        for (int i = 0; i < bits; i++) {
+            value = (value << 1) | (readBit() ? 1L : 0L);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.rootmanage.remotemonitoring.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * 按位写入的字节缓冲（高位在前）
+ */
+final class BitWriter {
+
+    private byte[] bytes;
+    private long bitCount;
+
+    BitWriter(int initialCapacity) {
+        this.bytes = new byte[Math.max(8, initialCapacity)];
+    }
+
+    void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            bytes[(int) (bitCount >>> 3)] |= (byte) (0x80 >>> (bitCount & 7));
+        }
+        bitCount++;
+    }
+
+    /**
+     * 写入 value 的低 bits 位
+     */
+    void writeBits(long value, int bits) {
+        ensureCapacity(bits);
+        for (int i = bits - 1; i >= 0; i--) {
+            if (((value >>> i) & 1L) != 0) {
+                bytes[(int) (bitCount >>> 3)] |= (byte) (0x80 >>> (bitCount & 7));
+            }
+            bitCount++;
+        }
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    int byteLength() {
+        return (int) ((bitCount + 7) >>> 3);
+    }
+
+    /**
+     * 已写入内容的副本
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, byteLength());
+    }
+
+    private void ensureCapacity(int bits) {
+        long required = (bitCount + bits + 7) >>> 3;
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.max(required, bytes.length * 2L));
+        }
+    }
+}
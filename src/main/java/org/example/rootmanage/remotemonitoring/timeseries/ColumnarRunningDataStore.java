@@ -0,0 +1,679 @@
+package org.example.rootmanage.remotemonitoring.timeseries;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.entity.DataSource;
+import org.example.rootmanage.remotemonitoring.entity.DeviceRunningData;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataStore;
+import org.example.rootmanage.remotemonitoring.timeseries.SegmentStore.ChunkRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 列式压缩的运行数据存储（remote-monitoring.running-data.store=columnar 时启用）
+ * 每个点位按时间分区在内存中维护一个正在追加的 Gorilla 编码数据块，分区切换、数据块达到大小上限或检查点时
+ * 封存到内存映射的段文件；早于当前数据块的迟到采样先进入迟到缓冲，排序后单独封存。
+ * 写入先追加预写日志再进入内存数据块，检查点封存全部内存数据块后删除日志，启动时重放未完成检查点的日志。
+ * 查询只解码与时间窗口重叠的数据块；相互重叠的数据块（迟到数据）合并排序后输出，其余数据块边解码边输出。
+ * 每个采样只保存采集时间（毫秒精度）、采集值、原始值、数据质量和数据来源，不保存ID、创建时间、录入人和备注。
+ * 写入在事务提交后生效。
+ */
+@Repository
+@ConditionalOnProperty(name = "remote-monitoring.running-data.store", havingValue = "columnar")
+public class ColumnarRunningDataStore implements RunningDataStore {
+
+    private static final DataQuality[] QUALITIES = DataQuality.values();
+    private static final DataSource[] SOURCES = DataSource.values();
+
+    /**
+     * 迟到缓冲的采样数上限
+     */
+    private static final int LATE_BUFFER_SIZE = 4096;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long partitionMillis;
+    private final int maxChunkBytes;
+
+    private SegmentStore segments;
+    private WriteAheadLog wal;
+
+    /**
+     * 点位ID -> 内存中尚未封存的数据
+     */
+    private final ConcurrentHashMap<UUID, PointSeries> series = new ConcurrentHashMap<>();
+
+    /**
+     * 写入持有读锁，检查点持有写锁，保证封存的数据块与日志代号一致
+     */
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    private volatile long generation;
+
+    public ColumnarRunningDataStore(
+            @Value("${remote-monitoring.running-data.columnar.directory:data/running-data}") String directory,
+            @Value("${remote-monitoring.running-data.columnar.segment-size:64MB}") DataSize segmentSize,
+            @Value("${remote-monitoring.running-data.columnar.partition:1h}") Duration partition) {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = (int) Math.min(segmentSize.toBytes(), Integer.MAX_VALUE);
+        this.partitionMillis = Math.max(1, partition.toMillis());
+        this.maxChunkBytes = Math.min(1 << 20, segmentBytes / 4);
+    }
+
+    /**
+     * 打开段文件，重放未完成检查点的日志并立即做一次检查点
+     */
+    @PostConstruct
+    public void open() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments = SegmentStore.open(directory, segmentBytes);
+        wal = new WriteAheadLog(directory);
+        List<Long> logs = wal.generations();
+        long last = Math.max(segments.maxGeneration(), logs.isEmpty() ? 0 : logs.get(logs.size() - 1));
+        generation = last + 1;
+        wal.rotate(generation);
+
+        long completed = segments.maxCompletedGeneration();
+        for (long gen : logs) {
+            if (gen > completed) {
+                wal.replay(gen, new WriteAheadLog.Replay() {
+                    @Override
+                    public void sample(UUID dataPointId, long time, double value, double rawValue, int flags) {
+                        PointSeries pointSeries = series.computeIfAbsent(dataPointId, PointSeries::new);
+                        synchronized (pointSeries) {
+                            pointSeries.append(time, value, rawValue, flags);
+                        }
+                    }
+
+                    @Override
+                    public void delete(UUID dataPointId, long beforeTime) {
+                        applyDelete(dataPointId, beforeTime);
+                    }
+                });
+            }
+        }
+        checkpoint();
+    }
+
+    /**
+     * 应用关闭时封存全部内存数据
+     */
+    @PreDestroy
+    public void close() {
+        checkpoint();
+        wal.close();
+        segments.close();
+    }
+
+    /**
+     * 定时检查点
+     */
+    @Scheduled(fixedDelayString = "${remote-monitoring.running-data.columnar.checkpoint-interval-ms:900000}")
+    public void scheduledCheckpoint() {
+        checkpoint();
+    }
+
+    /**
+     * 定时把预写日志刷盘
+     */
+    @Scheduled(fixedDelayString = "${remote-monitoring.running-data.columnar.wal-sync-interval-ms:1000}")
+    public void syncLog() {
+        wal.sync();
+    }
+
+    /**
+     * 封存全部内存数据块，完成后删除对应的预写日志
+     */
+    public void checkpoint() {
+        long sealed;
+        checkpointLock.writeLock().lock();
+        try {
+            sealed = generation;
+            for (PointSeries pointSeries : series.values()) {
+                synchronized (pointSeries) {
+                    pointSeries.sealAll();
+                }
+            }
+            series.clear();
+            generation = sealed + 1;
+            wal.rotate(generation);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        // 数据块先落盘，再写检查点标记，最后删除日志
+        segments.force();
+        segments.appendCheckpoint(sealed);
+        segments.force();
+        wal.deleteUpTo(sealed);
+    }
+
+    // ==================== 写入 ====================
+
+    @Override
+    public DeviceRunningData save(DeviceRunningData data) {
+        saveAll(List.of(data));
+        return data;
+    }
+
+    @Override
+    public int saveAll(List<DeviceRunningData> rows) {
+        List<DeviceRunningData> valid = new ArrayList<>(rows.size());
+        for (DeviceRunningData row : rows) {
+            if (row.getValue() != null && row.getCollectionTime() != null) {
+                valid.add(row);
+            }
+        }
+        if (!valid.isEmpty()) {
+            AfterCommit.run(() -> append(valid));
+        }
+        return rows.size();
+    }
+
+    private void append(List<DeviceRunningData> rows) {
+        ByteBuffer log = ByteBuffer.allocate(rows.size() * WriteAheadLog.SAMPLE_BYTES);
+        long[] times = new long[rows.size()];
+        double[] rawValues = new double[rows.size()];
+        int[] flags = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            DeviceRunningData row = rows.get(i);
+            times[i] = toMillis(row.getCollectionTime());
+            rawValues[i] = row.getRawValue() != null ? row.getRawValue() : Double.NaN;
+            flags[i] = flags(row.getQuality(), row.getSource());
+            WriteAheadLog.putSample(log, row.getDataPointId(), times[i], row.getValue(), rawValues[i], flags[i]);
+        }
+        log.flip();
+
+        checkpointLock.readLock().lock();
+        try {
+            wal.append(log);
+            for (int i = 0; i < rows.size(); i++) {
+                DeviceRunningData row = rows.get(i);
+                PointSeries pointSeries = series.computeIfAbsent(row.getDataPointId(), PointSeries::new);
+                synchronized (pointSeries) {
+                    pointSeries.append(times[i], row.getValue(), rawValues[i], flags[i]);
+                }
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    // ==================== 删除 ====================
+
+    @Override
+    public void deleteByDataPointId(UUID dataPointId) {
+        delete(dataPointId, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void deleteByCollectionTimeBefore(LocalDateTime beforeTime) {
+        delete(null, toMillis(beforeTime));
+    }
+
+    /**
+     * 逻辑删除，一次删完，返回删除前可见的行数
+     */
+    @Override
+    public int deleteByDataPointIdBefore(UUID dataPointId, LocalDateTime beforeTime, int limit) {
+        long before = toMillis(beforeTime);
+        long first = firstTime(dataPointId);
+        if (first >= before) {
+            return 0;
+        }
+        int[] rows = new int[1];
+        scan(dataPointId, first, before - 1, (time, value, rawValue, flags) -> rows[0]++);
+        delete(dataPointId, before);
+        return rows[0];
+    }
+
+    private void delete(UUID dataPointId, long beforeTime) {
+        checkpointLock.readLock().lock();
+        try {
+            wal.append(WriteAheadLog.delete(dataPointId, beforeTime));
+            applyDelete(dataPointId, beforeTime);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    private void applyDelete(UUID dataPointId, long beforeTime) {
+        segments.appendDelete(dataPointId, beforeTime);
+        Collection<PointSeries> targets = dataPointId == null
+                ? series.values()
+                : Optional.ofNullable(series.get(dataPointId)).map(List::of).orElse(List.of());
+        for (PointSeries pointSeries : targets) {
+            synchronized (pointSeries) {
+                pointSeries.removeBefore(beforeTime);
+            }
+        }
+    }
+
+    // ==================== 查询 ====================
+
+    @Override
+    public List<DeviceRunningData> findByDataPointIdAndTimeRange(UUID dataPointId, LocalDateTime startTime,
+                                                                LocalDateTime endTime) {
+        List<DeviceRunningData> result = new ArrayList<>();
+        scan(dataPointId, toMillis(startTime), toMillis(endTime),
+                (time, value, rawValue, flags) -> result.add(toEntity(dataPointId, time, value, rawValue, flags)));
+        return result;
+    }
+
+    @Override
+    public List<DeviceRunningData> findByDataPointIdsAndTimeRange(List<UUID> dataPointIds, LocalDateTime startTime,
+                                                                 LocalDateTime endTime) {
+        List<DeviceRunningData> result = new ArrayList<>();
+        for (UUID dataPointId : new LinkedHashSet<>(dataPointIds)) {
+            result.addAll(findByDataPointIdAndTimeRange(dataPointId, startTime, endTime));
+        }
+        result.sort(Comparator.comparing(DeviceRunningData::getCollectionTime));
+        return result;
+    }
+
+    @Override
+    public Optional<DeviceRunningData> findFirstByDataPointIdOrderByCollectionTimeDesc(UUID dataPointId) {
+        long max = segments.maxTime(dataPointId);
+        PointSeries pointSeries = series.get(dataPointId);
+        if (pointSeries != null) {
+            synchronized (pointSeries) {
+                max = Math.max(max, pointSeries.maxTime());
+            }
+        }
+        if (max == Long.MIN_VALUE) {
+            return Optional.empty();
+        }
+        DeviceRunningData[] latest = new DeviceRunningData[1];
+        scan(dataPointId, max, max,
+                (time, value, rawValue, flags) -> latest[0] = toEntity(dataPointId, time, value, rawValue, flags));
+        return Optional.ofNullable(latest[0]);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findOldestCollectionTime(UUID dataPointId) {
+        long first = firstTime(dataPointId);
+        return first == Long.MAX_VALUE ? Optional.empty() : Optional.of(toLocalDateTime(first));
+    }
+
+    /**
+     * 点位最早采样的时间，没有数据时返回 Long.MAX_VALUE
+     */
+    private long firstTime(UUID dataPointId) {
+        List<ChunkRef> refs;
+        long first = Long.MAX_VALUE;
+        PointSeries pointSeries = series.get(dataPointId);
+        if (pointSeries != null) {
+            synchronized (pointSeries) {
+                refs = segments.chunks(dataPointId, Long.MIN_VALUE, Long.MAX_VALUE);
+                Samples memory = pointSeries.snapshot();
+                if (memory.size > 0) {
+                    first = memory.times[0];
+                }
+            }
+        } else {
+            refs = segments.chunks(dataPointId, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        for (ChunkRef ref : refs) {
+            if (Math.max(ref.minTime(), ref.visibleFrom()) >= first) {
+                continue;
+            }
+            // 只解码到第一个未被删除的采样
+            GorillaChunk.Decoder decoder = segments.decoder(ref);
+            while (decoder.next()) {
+                if (decoder.time() >= ref.visibleFrom()) {
+                    first = Math.min(first, decoder.time());
+                    break;
+                }
+            }
+        }
+        return first;
+    }
+
+    @Override
+    public long forEachValue(UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime,
+                             ValueConsumer consumer) {
+        long[] rows = new long[1];
+        scan(dataPointId, toMillis(startTime), toMillis(endTime) - 1, (time, value, rawValue, flags) -> {
+            if (quality(flags) != DataQuality.BAD && !Double.isNaN(value)) {
+                consumer.accept(toLocalDateTime(time), value);
+                rows[0]++;
+            }
+        });
+        return rows[0];
+    }
+
+    @Override
+    public long forEachCurveValue(UUID dataPointId, LocalDateTime startTime, LocalDateTime endTime,
+                                  ValueConsumer consumer) {
+        long[] rows = new long[1];
+        scan(dataPointId, toMillis(startTime), toMillis(endTime), (time, value, rawValue, flags) -> {
+            if (!Double.isNaN(value)) {
+                consumer.accept(toLocalDateTime(time), value);
+                rows[0]++;
+            }
+        });
+        return rows[0];
+    }
+
+    /**
+     * 段文件数量（用于监控）
+     */
+    public int getSegmentCount() {
+        return segments.segmentCount();
+    }
+
+    @FunctionalInterface
+    private interface SampleVisitor {
+        void visit(long time, double value, double rawValue, int flags);
+    }
+
+    /**
+     * 按时间顺序遍历 [from, to] 内的采样
+     */
+    private void scan(UUID dataPointId, long from, long to, SampleVisitor visitor) {
+        if (from > to) {
+            return;
+        }
+        List<ChunkRef> refs;
+        Samples memory = null;
+        PointSeries pointSeries = series.get(dataPointId);
+        if (pointSeries != null) {
+            // 与封存互斥，保证数据块列表和内存快照一致
+            synchronized (pointSeries) {
+                refs = segments.chunks(dataPointId, from, to);
+                memory = pointSeries.snapshot();
+            }
+        } else {
+            refs = segments.chunks(dataPointId, from, to);
+        }
+
+        List<Source> sources = new ArrayList<>(refs.size() + 1);
+        for (ChunkRef ref : refs) {
+            sources.add(new Source(ref.minTime(), ref.maxTime(), ref, null));
+        }
+        if (memory != null && memory.size > 0 && memory.times[memory.size - 1] >= from && memory.times[0] <= to) {
+            sources.add(new Source(memory.times[0], memory.times[memory.size - 1], null, memory));
+        }
+        sources.sort(Comparator.comparingLong(Source::minTime));
+
+        int i = 0;
+        while (i < sources.size()) {
+            int j = i + 1;
+            long groupMax = sources.get(i).maxTime();
+            while (j < sources.size() && sources.get(j).minTime() <= groupMax) {
+                groupMax = Math.max(groupMax, sources.get(j).maxTime());
+                j++;
+            }
+            if (j == i + 1) {
+                emit(sources.get(i), from, to, visitor);
+            } else {
+                // 时间重叠的数据块合并排序后输出
+                Samples merged = new Samples(16);
+                for (int k = i; k < j; k++) {
+                    emit(sources.get(k), from, to, merged::add);
+                }
+                merged.sort();
+                for (int k = 0; k < merged.size; k++) {
+                    visitor.visit(merged.times[k], merged.values[k], merged.rawValues[k], merged.flags[k]);
+                }
+            }
+            i = j;
+        }
+    }
+
+    private record Source(long minTime, long maxTime, ChunkRef chunk, Samples samples) {
+    }
+
+    private void emit(Source source, long from, long to, SampleVisitor visitor) {
+        if (source.samples() != null) {
+            Samples samples = source.samples();
+            for (int k = 0; k < samples.size; k++) {
+                long time = samples.times[k];
+                if (time >= from && time <= to) {
+                    visitor.visit(time, samples.values[k], samples.rawValues[k], samples.flags[k]);
+                }
+            }
+            return;
+        }
+        ChunkRef ref = source.chunk();
+        long lower = Math.max(from, ref.visibleFrom());
+        GorillaChunk.Decoder decoder = segments.decoder(ref);
+        while (decoder.next()) {
+            long time = decoder.time();
+            if (time > to) {
+                break;
+            }
+            if (time >= lower) {
+                visitor.visit(time, decoder.value(), decoder.rawValue(), decoder.flags());
+            }
+        }
+    }
+
+    // ==================== 内存数据 ====================
+
+    /**
+     * 单个点位尚未封存的数据：当前分区的数据块和迟到缓冲。由调用方对实例加锁访问。
+     */
+    private final class PointSeries {
+        private final UUID dataPointId;
+        private GorillaChunk.Encoder open;
+        private long openPartition;
+        private final Samples late = new Samples(16);
+
+        private PointSeries(UUID dataPointId) {
+            this.dataPointId = dataPointId;
+        }
+
+        void append(long time, double value, double rawValue, int flags) {
+            long partition = Math.floorDiv(time, partitionMillis);
+            if (open != null && partition == openPartition && open.append(time, value, rawValue, flags)) {
+                if (open.byteSize() >= maxChunkBytes) {
+                    sealOpen();
+                }
+                return;
+            }
+            if (open == null || partition > openPartition) {
+                sealOpen();
+                open = new GorillaChunk.Encoder();
+                openPartition = partition;
+                open.append(time, value, rawValue, flags);
+                return;
+            }
+            // 早于当前数据块的迟到采样
+            late.add(time, value, rawValue, flags);
+            if (late.size >= LATE_BUFFER_SIZE) {
+                sealLate();
+            }
+        }
+
+        void sealAll() {
+            sealOpen();
+            sealLate();
+        }
+
+        private void sealOpen() {
+            if (open != null && open.count() > 0) {
+                segments.appendChunk(dataPointId, generation, open.firstTime(), open.lastTime(), open.count(),
+                        open.toBytes());
+            }
+            open = null;
+        }
+
+        private void sealLate() {
+            if (late.size == 0) {
+                return;
+            }
+            late.sort();
+            GorillaChunk.Encoder encoder = new GorillaChunk.Encoder();
+            for (int k = 0; k < late.size; k++) {
+                encoder.append(late.times[k], late.values[k], late.rawValues[k], late.flags[k]);
+                if (encoder.byteSize() >= maxChunkBytes) {
+                    segments.appendChunk(dataPointId, generation, encoder.firstTime(), encoder.lastTime(),
+                            encoder.count(), encoder.toBytes());
+                    encoder = new GorillaChunk.Encoder();
+                }
+            }
+            if (encoder.count() > 0) {
+                segments.appendChunk(dataPointId, generation, encoder.firstTime(), encoder.lastTime(),
+                        encoder.count(), encoder.toBytes());
+            }
+            late.clear();
+        }
+
+        long maxTime() {
+            long max = open != null && open.count() > 0 ? open.lastTime() : Long.MIN_VALUE;
+            for (int k = 0; k < late.size; k++) {
+                max = Math.max(max, late.times[k]);
+            }
+            return max;
+        }
+
+        /**
+         * 内存数据的有序副本
+         */
+        Samples snapshot() {
+            Samples samples = new Samples((open != null ? open.count() : 0) + late.size);
+            if (open != null && open.count() > 0) {
+                GorillaChunk.Decoder decoder = new GorillaChunk.Decoder(open.toBytes(), open.count());
+                while (decoder.next()) {
+                    samples.add(decoder.time(), decoder.value(), decoder.rawValue(), decoder.flags());
+                }
+            }
+            for (int k = 0; k < late.size; k++) {
+                samples.add(late.times[k], late.values[k], late.rawValues[k], late.flags[k]);
+            }
+            if (late.size > 0) {
+                samples.sort();
+            }
+            return samples;
+        }
+
+        void removeBefore(long beforeTime) {
+            Samples current = snapshot();
+            open = null;
+            late.clear();
+            for (int k = 0; k < current.size; k++) {
+                if (current.times[k] >= beforeTime) {
+                    append(current.times[k], current.values[k], current.rawValues[k], current.flags[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 采样数组
+     */
+    private static final class Samples {
+        private long[] times;
+        private double[] values;
+        private double[] rawValues;
+        private int[] flags;
+        private int size;
+
+        Samples(int capacity) {
+            capacity = Math.max(capacity, 4);
+            times = new long[capacity];
+            values = new double[capacity];
+            rawValues = new double[capacity];
+            flags = new int[capacity];
+        }
+
+        void add(long time, double value, double rawValue, int sampleFlags) {
+            if (size == times.length) {
+                int capacity = size * 2;
+                times = Arrays.copyOf(times, capacity);
+                values = Arrays.copyOf(values, capacity);
+                rawValues = Arrays.copyOf(rawValues, capacity);
+                flags = Arrays.copyOf(flags, capacity);
+            }
+            times[size] = time;
+            values[size] = value;
+            rawValues[size] = rawValue;
+            flags[size] = sampleFlags;
+            size++;
+        }
+
+        /**
+         * 按时间稳定排序
+         */
+        void sort() {
+            Integer[] order = new Integer[size];
+            for (int k = 0; k < size; k++) {
+                order[k] = k;
+            }
+            long[] keys = times;
+            Arrays.sort(order, Comparator.comparingLong(k -> keys[k]));
+            long[] t = new long[times.length];
+            double[] v = new double[times.length];
+            double[] r = new double[times.length];
+            int[] f = new int[times.length];
+            for (int k = 0; k < size; k++) {
+                t[k] = times[order[k]];
+                v[k] = values[order[k]];
+                r[k] = rawValues[order[k]];
+                f[k] = flags[order[k]];
+            }
+            times = t;
+            values = v;
+            rawValues = r;
+            flags = f;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    // ==================== 转换 ====================
+
+    private static int flags(DataQuality quality, DataSource source) {
+        int q = quality != null ? quality.ordinal() : DataQuality.GOOD.ordinal();
+        int s = source != null ? source.ordinal() : DataSource.AUTO.ordinal();
+        return q | (s << 2);
+    }
+
+    private static DataQuality quality(int flags) {
+        return QUALITIES[flags & 3];
+    }
+
+    private static DeviceRunningData toEntity(UUID dataPointId, long time, double value, double rawValue, int flags) {
+        DeviceRunningData data = new DeviceRunningData();
+        data.setDataPointId(dataPointId);
+        data.setCollectionTime(toLocalDateTime(time));
+        data.setValue(value);
+        data.setRawValue(Double.isNaN(rawValue) ? null : rawValue);
+        data.setQuality(quality(flags));
+        data.setSource(SOURCES[(flags >>> 2) & 3]);
+        return data;
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+}
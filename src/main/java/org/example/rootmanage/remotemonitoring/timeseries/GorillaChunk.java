@@ -0,0 +1,285 @@
+package org.example.rootmanage.remotemonitoring.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gorilla 风格的列式数据块编码
+ * 一个数据块保存单个点位一段时间内按时间升序的采样，分为四列独立编码：
+ * 时间戳（毫秒）使用二阶差分（delta-of-delta）变长编码，采集值和原始值使用与前值异或后只保存有效位的编码，
+ * 标志（数据质量、数据来源）与前值相同时只占 1 位。规律采集的点位每个采样通常只需 2 字节左右。
+ * 编码结果格式：[时间列字节数][采集值列字节数][原始值列字节数][标志列字节数]（各 4 字节）+ 四列内容。
+ */
+public final class GorillaChunk {
+
+    static final int HEADER_BYTES = 16;
+
+    private GorillaChunk() {
+    }
+
+    /**
+     * 数据块编码器，采样必须按时间非降序追加。实例不是线程安全的。
+     */
+    public static final class Encoder {
+
+        private final BitWriter times = new BitWriter(64);
+        private final BitWriter values = new BitWriter(64);
+        private final BitWriter rawValues = new BitWriter(64);
+        private final BitWriter flags = new BitWriter(8);
+        private final XorEncoder valueEncoder = new XorEncoder();
+        private final XorEncoder rawValueEncoder = new XorEncoder();
+
+        private int count;
+        private long firstTime;
+        private long lastTime;
+        private long lastDelta;
+        private int lastFlags;
+
+        /**
+         * 追加一个采样，时间早于上一个采样时不追加并返回 false
+         */
+        public boolean append(long time, double value, double rawValue, int sampleFlags) {
+            if (count == 0) {
+                firstTime = time;
+                times.writeBits(time, 64);
+                flags.writeBits(sampleFlags, 8);
+            } else {
+                if (time < lastTime) {
+                    return false;
+                }
+                long delta = time - lastTime;
+                writeDeltaOfDelta(delta - lastDelta);
+                lastDelta = delta;
+                if (sampleFlags == lastFlags) {
+                    flags.writeBit(false);
+                } else {
+                    flags.writeBit(true);
+                    flags.writeBits(sampleFlags, 8);
+                }
+            }
+            valueEncoder.write(values, value, count == 0);
+            rawValueEncoder.write(rawValues, rawValue, count == 0);
+            lastTime = time;
+            lastFlags = sampleFlags;
+            count++;
+            return true;
+        }
+
+        private void writeDeltaOfDelta(long dod) {
+            if (dod == 0) {
+                times.writeBit(false);
+            } else if (dod >= -63 && dod <= 64) {
+                times.writeBits(0b10, 2);
+                times.writeBits(dod + 63, 7);
+            } else if (dod >= -255 && dod <= 256) {
+                times.writeBits(0b110, 3);
+                times.writeBits(dod + 255, 9);
+            } else if (dod >= -2047 && dod <= 2048) {
+                times.writeBits(0b1110, 4);
+                times.writeBits(dod + 2047, 12);
+            } else {
+                times.writeBits(0b1111, 4);
+                times.writeBits(dod, 64);
+            }
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long firstTime() {
+            return firstTime;
+        }
+
+        public long lastTime() {
+            return lastTime;
+        }
+
+        /**
+         * 当前编码大小（字节）
+         */
+        public int byteSize() {
+            return HEADER_BYTES + times.byteLength() + values.byteLength() + rawValues.byteLength() + flags.byteLength();
+        }
+
+        /**
+         * 输出编码结果（不影响继续追加）
+         */
+        public byte[] toBytes() {
+            byte[] t = times.toByteArray();
+            byte[] v = values.toByteArray();
+            byte[] r = rawValues.toByteArray();
+            byte[] f = flags.toByteArray();
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + t.length + v.length + r.length + f.length);
+            buffer.putInt(t.length).putInt(v.length).putInt(r.length).putInt(f.length);
+            buffer.put(t).put(v).put(r).put(f);
+            return buffer.array();
+        }
+    }
+
+    /**
+     * 数据块解码器，按时间顺序逐个读取采样。实例不是线程安全的。
+     */
+    public static final class Decoder {
+
+        private final int count;
+        private final BitReader times;
+        private final BitReader values;
+        private final BitReader rawValues;
+        private final BitReader flags;
+        private final XorDecoder valueDecoder = new XorDecoder();
+        private final XorDecoder rawValueDecoder = new XorDecoder();
+
+        private int index;
+        private long time;
+        private long delta;
+        private double value;
+        private double rawValue;
+        private int sampleFlags;
+
+        /**
+         * @param buffer 数据块所在缓冲
+         * @param offset 数据块在缓冲中的起始位置
+         * @param count  数据块中的采样数
+         */
+        public Decoder(ByteBuffer buffer, int offset, int count) {
+            this.count = count;
+            int timeBytes = buffer.getInt(offset);
+            int valueBytes = buffer.getInt(offset + 4);
+            int rawValueBytes = buffer.getInt(offset + 8);
+            int position = offset + HEADER_BYTES;
+            this.times = new BitReader(buffer, position);
+            position += timeBytes;
+            this.values = new BitReader(buffer, position);
+            position += valueBytes;
+            this.rawValues = new BitReader(buffer, position);
+            position += rawValueBytes;
+            this.flags = new BitReader(buffer, position);
+        }
+
+        public Decoder(byte[] bytes, int count) {
+            this(ByteBuffer.wrap(bytes), 0, count);
+        }
+
+        /**
+         * 读取下一个采样，没有更多采样时返回 false
+         */
+        public boolean next() {
+            if (index >= count) {
+                return false;
+            }
+            if (index == 0) {
+                time = times.readBits(64);
+                sampleFlags = (int) flags.readBits(8);
+            } else {
+                delta += readDeltaOfDelta();
+                time += delta;
+                if (flags.readBit()) {
+                    sampleFlags = (int) flags.readBits(8);
+                }
+            }
+            value = valueDecoder.read(values, index == 0);
+            rawValue = rawValueDecoder.read(rawValues, index == 0);
+            index++;
+            return true;
+        }
+
+        private long readDeltaOfDelta() {
+            if (!times.readBit()) {
+                return 0;
+            }
+            if (!times.readBit()) {
+                return times.readBits(7) - 63;
+            }
+            if (!times.readBit()) {
+                return times.readBits(9) - 255;
+            }
+            if (!times.readBit()) {
+                return times.readBits(12) - 2047;
+            }
+            return times.readBits(64);
+        }
+
+        public long time() {
+            return time;
+        }
+
+        public double value() {
+            return value;
+        }
+
+        public double rawValue() {
+            return rawValue;
+        }
+
+        public int flags() {
+            return sampleFlags;
+        }
+    }
+
+    /**
+     * 浮点数异或编码：与前值相同写 1 位；否则只写异或结果的有效位，
+     * 有效位落在上一次的前导零/尾随零窗口内时复用窗口，不重复写窗口大小
+     */
+    private static final class XorEncoder {
+        private long previous;
+        private int leading = -1;
+        private int trailing;
+
+        void write(BitWriter out, double value, boolean first) {
+            long bits = Double.doubleToRawLongBits(value);
+            if (first) {
+                out.writeBits(bits, 64);
+                previous = bits;
+                return;
+            }
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+            int newLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int newTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                out.writeBit(false);
+                out.writeBits(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                leading = newLeading;
+                trailing = newTrailing;
+                int significant = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                // 有效位数为 64 时写 0
+                out.writeBits(significant & 63, 6);
+                out.writeBits(xor >>> trailing, significant);
+            }
+        }
+    }
+
+    private static final class XorDecoder {
+        private long previous;
+        private int leading;
+        private int trailing;
+
+        double read(BitReader in, boolean first) {
+            if (first) {
+                previous = in.readBits(64);
+                return Double.longBitsToDouble(previous);
+            }
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int significant = (int) in.readBits(6);
+                    if (significant == 0) {
+                        significant = 64;
+                    }
+                    trailing = 64 - leading - significant;
+                }
+                long xor = in.readBits(64 - leading - trailing) << trailing;
+                previous ^= xor;
+            }
+            return Double.longBitsToDouble(previous);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package org.example.rootmanage.remotemonitoring.timeseries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 内存映射的段文件
+ * 段文件（segment-序号.dat）按固定大小预分配并整体映射到内存，记录依次追加：数据块、删除标记、检查点标记。
+ * 每条记录先写内容、最后写魔数，进程中途退出时不完整的记录不会被读到。
+ * 内存中按点位维护数据块索引（按起始时间排序），查询时只解码与时间窗口重叠的数据块，直接读取映射内存。
+ * 数据块带有写入时的日志代号，只有对应代完成检查点的数据块才有效（未完成的由预写日志重放恢复）。
+ * 从最早的段开始，全部数据块都已删除的段文件被回收。
+ */
+final class SegmentStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x52444331;
+    private static final int RECORD_HEADER = 4 + 1 + 4;
+
+    private static final byte CHUNK = 1;
+    private static final byte DELETE = 2;
+    private static final byte CHECKPOINT = 3;
+    private static final byte DISCARD = 4;
+
+    /**
+     * 数据块记录中块内容之前的字段：点位ID、代号、起止时间、采样数
+     */
+    private static final int CHUNK_FIELDS = 16 + 8 + 8 + 8 + 4;
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".dat";
+
+    /**
+     * 数据块引用
+     *
+     * @param visibleFrom 早于该时间的采样已被删除
+     */
+    record ChunkRef(int segment, int offset, UUID dataPointId, long generation,
+                    long minTime, long maxTime, int count, long visibleFrom) {
+
+        boolean overlaps(long from, long to) {
+            return maxTime >= from && minTime <= to && maxTime >= visibleFrom;
+        }
+    }
+
+    /**
+     * 单个点位的数据块索引，按起始时间排序，整体替换
+     */
+    private static final class PointIndex {
+        private volatile List<ChunkRef> chunks = List.of();
+        private volatile long maxSpan;
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    private final TreeMap<Integer, MappedByteBuffer> segments = new TreeMap<>();
+    private volatile MappedByteBuffer[] segmentArray = new MappedByteBuffer[0];
+    private final Map<Integer, Integer> liveChunks = new HashMap<>();
+    private final ConcurrentHashMap<UUID, PointIndex> index = new ConcurrentHashMap<>();
+
+    private int activeSegment;
+    private int writePosition;
+    private long maxGeneration;
+    private long maxCompletedGeneration;
+
+    private SegmentStore(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * 打开目录中的段文件并重建索引
+     */
+    static SegmentStore open(Path directory, int segmentBytes) {
+        SegmentStore store = new SegmentStore(directory, segmentBytes);
+        store.load();
+        return store;
+    }
+
+    // ==================== 启动加载 ====================
+
+    private record Scanned(byte type, ChunkRef chunk, UUID dataPointId, long value) {
+    }
+
+    private void load() {
+        List<Integer> numbers;
+        try (Stream<Path> files = Files.list(directory)) {
+            numbers = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<Scanned> records = new ArrayList<>();
+        for (int number : numbers) {
+            MappedByteBuffer buffer = map(number, false);
+            segments.put(number, buffer);
+            activeSegment = number;
+            writePosition = scan(number, buffer, records);
+        }
+        if (segments.isEmpty()) {
+            segments.put(0, map(0, true));
+            activeSegment = 0;
+            writePosition = 0;
+        }
+        publishSegments();
+
+        // 完成检查点的代有效；既未完成也未丢弃的代（上次异常退出）标记丢弃，由预写日志重放
+        Set<Long> completed = new HashSet<>();
+        Set<Long> discarded = new HashSet<>();
+        Set<Long> seen = new TreeSet<>();
+        for (Scanned record : records) {
+            switch (record.type()) {
+                case CHUNK -> seen.add(record.chunk().generation());
+                case CHECKPOINT -> {
+                    completed.add(record.value());
+                    maxCompletedGeneration = Math.max(maxCompletedGeneration, record.value());
+                }
+                case DISCARD -> discarded.add(record.value());
+                default -> {
+                }
+            }
+            if (record.type() == CHECKPOINT || record.type() == DISCARD) {
+                maxGeneration = Math.max(maxGeneration, record.value());
+            }
+        }
+        for (long gen : seen) {
+            maxGeneration = Math.max(maxGeneration, gen);
+            if (!completed.contains(gen) && !discarded.contains(gen)) {
+                appendMarker(DISCARD, gen);
+            }
+        }
+
+        for (Scanned record : records) {
+            if (record.type() == CHUNK) {
+                ChunkRef chunk = record.chunk();
+                if (completed.contains(chunk.generation())) {
+                    addToIndex(chunk);
+                }
+            } else if (record.type() == DELETE) {
+                applyDelete(record.dataPointId(), record.value());
+            }
+        }
+        reclaim();
+    }
+
+    private int scan(int number, MappedByteBuffer buffer, List<Scanned> records) {
+        int position = 0;
+        while (position + RECORD_HEADER <= buffer.capacity() && buffer.getInt(position) == MAGIC) {
+            byte type = buffer.get(position + 4);
+            int length = buffer.getInt(position + 5);
+            int payload = position + RECORD_HEADER;
+            switch (type) {
+                case CHUNK -> {
+                    UUID pointId = new UUID(buffer.getLong(payload), buffer.getLong(payload + 8));
+                    records.add(new Scanned(CHUNK, new ChunkRef(number, payload + CHUNK_FIELDS, pointId,
+                            buffer.getLong(payload + 16), buffer.getLong(payload + 24), buffer.getLong(payload + 32),
+                            buffer.getInt(payload + 40), Long.MIN_VALUE), pointId, 0));
+                }
+                case DELETE -> {
+                    boolean all = buffer.get(payload) != 0;
+                    UUID pointId = all ? null : new UUID(buffer.getLong(payload + 1), buffer.getLong(payload + 9));
+                    records.add(new Scanned(DELETE, null, pointId, buffer.getLong(payload + 17)));
+                }
+                case CHECKPOINT, DISCARD -> records.add(new Scanned(type, null, null, buffer.getLong(payload)));
+                default -> {
+                    return position;
+                }
+            }
+            position = payload + length;
+        }
+        return position;
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 追加数据块
+     */
+    synchronized ChunkRef appendChunk(UUID dataPointId, long generation, long minTime, long maxTime,
+                                      int count, byte[] chunk) {
+        int payload = reserve(CHUNK_FIELDS + chunk.length) + RECORD_HEADER;
+        MappedByteBuffer buffer = segments.get(activeSegment);
+        buffer.putLong(payload, dataPointId.getMostSignificantBits());
+        buffer.putLong(payload + 8, dataPointId.getLeastSignificantBits());
+        buffer.putLong(payload + 16, generation);
+        buffer.putLong(payload + 24, minTime);
+        buffer.putLong(payload + 32, maxTime);
+        buffer.putInt(payload + 40, count);
+        buffer.put(payload + CHUNK_FIELDS, chunk);
+        commit(CHUNK, CHUNK_FIELDS + chunk.length);
+
+        ChunkRef ref = new ChunkRef(activeSegment, payload + CHUNK_FIELDS, dataPointId, generation,
+                minTime, maxTime, count, Long.MIN_VALUE);
+        addToIndex(ref);
+        maxGeneration = Math.max(maxGeneration, generation);
+        return ref;
+    }
+
+    /**
+     * 追加删除标记并从索引中移除对应数据
+     *
+     * @param dataPointId 为 null 时表示全部点位
+     */
+    synchronized void appendDelete(UUID dataPointId, long beforeTime) {
+        int payload = reserve(1 + 16 + 8) + RECORD_HEADER;
+        MappedByteBuffer buffer = segments.get(activeSegment);
+        buffer.put(payload, (byte) (dataPointId == null ? 1 : 0));
+        buffer.putLong(payload + 1, dataPointId != null ? dataPointId.getMostSignificantBits() : 0);
+        buffer.putLong(payload + 9, dataPointId != null ? dataPointId.getLeastSignificantBits() : 0);
+        buffer.putLong(payload + 17, beforeTime);
+        commit(DELETE, 1 + 16 + 8);
+        applyDelete(dataPointId, beforeTime);
+        reclaim();
+    }
+
+    /**
+     * 追加检查点标记：该代的数据块全部有效
+     */
+    synchronized void appendCheckpoint(long generation) {
+        appendMarker(CHECKPOINT, generation);
+        maxGeneration = Math.max(maxGeneration, generation);
+        maxCompletedGeneration = Math.max(maxCompletedGeneration, generation);
+    }
+
+    private void appendMarker(byte type, long generation) {
+        int payload = reserve(8) + RECORD_HEADER;
+        segments.get(activeSegment).putLong(payload, generation);
+        commit(type, 8);
+    }
+
+    /**
+     * 在活动段中预留记录空间，放不下时切换到新段，返回记录起始位置
+     */
+    private int reserve(int payloadLength) {
+        int required = RECORD_HEADER + payloadLength;
+        if (required + RECORD_HEADER > segmentBytes) {
+            throw new IllegalArgumentException("数据块超过段文件大小");
+        }
+        if (writePosition + required + RECORD_HEADER > segments.get(activeSegment).capacity()) {
+            activeSegment++;
+            segments.put(activeSegment, map(activeSegment, true));
+            liveChunks.putIfAbsent(activeSegment, 0);
+            writePosition = 0;
+            publishSegments();
+        }
+        return writePosition;
+    }
+
+    private void commit(byte type, int payloadLength) {
+        MappedByteBuffer buffer = segments.get(activeSegment);
+        buffer.put(writePosition + 4, type);
+        buffer.putInt(writePosition + 5, payloadLength);
+        // 魔数最后写入
+        buffer.putInt(writePosition, MAGIC);
+        writePosition += RECORD_HEADER + payloadLength;
+    }
+
+    /**
+     * 段文件刷盘
+     */
+    synchronized void force() {
+        for (MappedByteBuffer buffer : segments.values()) {
+            buffer.force();
+        }
+    }
+
+    // ==================== 索引 ====================
+
+    private void addToIndex(ChunkRef ref) {
+        PointIndex pointIndex = index.computeIfAbsent(ref.dataPointId(), id -> new PointIndex());
+        List<ChunkRef> chunks = new ArrayList<>(pointIndex.chunks.size() + 1);
+        chunks.addAll(pointIndex.chunks);
+        int position = chunks.size();
+        while (position > 0 && chunks.get(position - 1).minTime() > ref.minTime()) {
+            position--;
+        }
+        chunks.add(position, ref);
+        pointIndex.maxSpan = Math.max(pointIndex.maxSpan, ref.maxTime() - ref.minTime());
+        pointIndex.chunks = List.copyOf(chunks);
+        liveChunks.merge(ref.segment(), 1, Integer::sum);
+    }
+
+    private void applyDelete(UUID dataPointId, long beforeTime) {
+        Collection<PointIndex> targets = dataPointId == null
+                ? index.values()
+                : Optional.ofNullable(index.get(dataPointId)).map(List::of).orElse(List.of());
+        for (PointIndex pointIndex : targets) {
+            List<ChunkRef> kept = new ArrayList<>(pointIndex.chunks.size());
+            for (ChunkRef ref : pointIndex.chunks) {
+                if (ref.maxTime() < beforeTime) {
+                    liveChunks.merge(ref.segment(), -1, Integer::sum);
+                } else if (ref.minTime() < beforeTime && ref.visibleFrom() < beforeTime) {
+                    kept.add(new ChunkRef(ref.segment(), ref.offset(), ref.dataPointId(), ref.generation(),
+                            ref.minTime(), ref.maxTime(), ref.count(), beforeTime));
+                } else {
+                    kept.add(ref);
+                }
+            }
+            pointIndex.chunks = List.copyOf(kept);
+        }
+        if (dataPointId != null && index.containsKey(dataPointId) && index.get(dataPointId).chunks.isEmpty()) {
+            index.remove(dataPointId);
+        }
+    }
+
+    /**
+     * 从最早的段开始回收没有有效数据块的段文件
+     */
+    private void reclaim() {
+        while (segments.size() > 1) {
+            int first = segments.firstKey();
+            if (first == activeSegment || liveChunks.getOrDefault(first, 0) > 0) {
+                break;
+            }
+            segments.remove(first);
+            liveChunks.remove(first);
+            try {
+                Files.deleteIfExists(path(first));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        publishSegments();
+    }
+
+    /**
+     * 与时间窗口 [from, to] 重叠的数据块，按起始时间排序
+     */
+    List<ChunkRef> chunks(UUID dataPointId, long from, long to) {
+        PointIndex pointIndex = index.get(dataPointId);
+        if (pointIndex == null) {
+            return List.of();
+        }
+        List<ChunkRef> chunks = pointIndex.chunks;
+        long maxSpan = pointIndex.maxSpan;
+        // 起始时间不晚于 to 的数据块是一个前缀，向前检查到起始时间加最大跨度早于 from 为止
+        int end = upperBound(chunks, to);
+        List<ChunkRef> result = new ArrayList<>();
+        for (int i = end - 1; i >= 0; i--) {
+            ChunkRef ref = chunks.get(i);
+            if (ref.minTime() + maxSpan < from) {
+                break;
+            }
+            if (ref.overlaps(from, to)) {
+                result.add(ref);
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * 点位最新数据块的结束时间，没有数据时返回 Long.MIN_VALUE
+     */
+    long maxTime(UUID dataPointId) {
+        PointIndex pointIndex = index.get(dataPointId);
+        long max = Long.MIN_VALUE;
+        if (pointIndex != null) {
+            for (ChunkRef ref : pointIndex.chunks) {
+                max = Math.max(max, ref.maxTime());
+            }
+        }
+        return max;
+    }
+
+    long maxGeneration() {
+        return maxGeneration;
+    }
+
+    /**
+     * 已完成检查点的最大代号，不大于该代号的预写日志无需重放
+     */
+    long maxCompletedGeneration() {
+        return maxCompletedGeneration;
+    }
+
+    /**
+     * 数据块解码器（直接读取映射内存）
+     */
+    GorillaChunk.Decoder decoder(ChunkRef ref) {
+        MappedByteBuffer[] array = segmentArray;
+        MappedByteBuffer buffer = ref.segment() < array.length ? array[ref.segment()] : null;
+        if (buffer == null) {
+            synchronized (this) {
+                buffer = segments.get(ref.segment());
+            }
+        }
+        return new GorillaChunk.Decoder(buffer, ref.offset(), ref.count());
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+    }
+
+    private static int upperBound(List<ChunkRef> chunks, long to) {
+        int low = 0;
+        int high = chunks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks.get(mid).minTime() <= to) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void publishSegments() {
+        MappedByteBuffer[] array = new MappedByteBuffer[activeSegment + 1];
+        segments.forEach((number, buffer) -> array[number] = buffer);
+        segmentArray = array;
+    }
+
+    private MappedByteBuffer map(int number, boolean create) {
+        Path path = path(number);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = create ? segmentBytes : Math.max(channel.size(), RECORD_HEADER);
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path path(int number) {
+        return directory.resolve(PREFIX + String.format("%08d", number) + SUFFIX);
+    }
+}
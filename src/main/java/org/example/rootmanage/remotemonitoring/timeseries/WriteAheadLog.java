@@ -0,0 +1,188 @@
+package org.example.rootmanage.remotemonitoring.timeseries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 列式存储的预写日志
+ * 采样写入内存数据块之前先追加到当前代的日志文件（wal-代号.log），写入系统页缓存后进程崩溃不丢失，
+ * 定时刷盘。检查点把内存数据块全部封存到段文件后，删除该代及更早的日志。启动时重放未完成检查点的日志。
+ */
+final class WriteAheadLog implements AutoCloseable {
+
+    static final byte SAMPLE = 1;
+    static final byte DELETE = 2;
+
+    static final int SAMPLE_BYTES = 1 + 16 + 8 + 8 + 8 + 1;
+    static final int DELETE_BYTES = 1 + 1 + 16 + 8;
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    /**
+     * 日志记录接收方
+     */
+    interface Replay {
+        void sample(UUID dataPointId, long time, double value, double rawValue, int flags);
+
+        /**
+         * @param dataPointId 为 null 时表示全部点位
+         */
+        void delete(UUID dataPointId, long beforeTime);
+    }
+
+    private final Path directory;
+    private FileChannel channel;
+    private long generation;
+
+    WriteAheadLog(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 目录中已有日志的代号（升序）
+     */
+    List<Long> generations() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 重放一代日志，遇到不完整的末尾记录时停止
+     */
+    void replay(long gen, Replay replay) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(path(gen)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        while (buffer.hasRemaining()) {
+            byte type = buffer.get(buffer.position());
+            if (type == SAMPLE && buffer.remaining() >= SAMPLE_BYTES) {
+                buffer.get();
+                UUID pointId = new UUID(buffer.getLong(), buffer.getLong());
+                replay.sample(pointId, buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.get());
+            } else if (type == DELETE && buffer.remaining() >= DELETE_BYTES) {
+                buffer.get();
+                boolean all = buffer.get() != 0;
+                UUID pointId = new UUID(buffer.getLong(), buffer.getLong());
+                replay.delete(all ? null : pointId, buffer.getLong());
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 切换到新一代日志，之后的追加写入新文件
+     */
+    synchronized void rotate(long gen) {
+        closeChannel();
+        try {
+            channel = FileChannel.open(path(gen), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        generation = gen;
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * 追加已编码的记录
+     */
+    synchronized void append(ByteBuffer records) {
+        try {
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void putSample(ByteBuffer buffer, UUID dataPointId, long time, double value, double rawValue, int flags) {
+        buffer.put(SAMPLE)
+                .putLong(dataPointId.getMostSignificantBits()).putLong(dataPointId.getLeastSignificantBits())
+                .putLong(time).putDouble(value).putDouble(rawValue).put((byte) flags);
+    }
+
+    static ByteBuffer delete(UUID dataPointId, long beforeTime) {
+        ByteBuffer buffer = ByteBuffer.allocate(DELETE_BYTES);
+        buffer.put(DELETE).put((byte) (dataPointId == null ? 1 : 0))
+                .putLong(dataPointId != null ? dataPointId.getMostSignificantBits() : 0)
+                .putLong(dataPointId != null ? dataPointId.getLeastSignificantBits() : 0)
+                .putLong(beforeTime);
+        return buffer.flip();
+    }
+
+    /**
+     * 刷盘
+     */
+    synchronized void sync() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 删除指定代及更早的日志
+     */
+    void deleteUpTo(long gen) {
+        for (long existing : generations()) {
+            if (existing <= gen) {
+                try {
+                    Files.deleteIfExists(path(existing));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            channel = null;
+        }
+    }
+
+    private Path path(long gen) {
+        return directory.resolve(PREFIX + gen + SUFFIX);
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.rootmanage.role;
 
 import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.auth.TokenService;
+import org.example.rootmanage.permission.PermissionMatrixCache;
 import org.example.rootmanage.role.dto.RoleRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,6 +15,8 @@ import java.util.UUID;
 public class RoleService {
 
     private final RoleRepository roleRepository;
+    private final PermissionMatrixCache permissionMatrixCache;
+    private final TokenService tokenService;
 
     @Transactional(readOnly = true)
     public List<Role> findAll() {
@@ -39,12 +43,18 @@ public class RoleService {
         }
         role.setName(request.getName());
         role.setDescription(request.getDescription());
-        return roleRepository.save(role);
+        Role saved = roleRepository.save(role);
+        // 角色名决定是否为管理员，影响可访问的模块
+        permissionMatrixCache.invalidateAfterCommit(id);
+        tokenService.invalidatePrincipalsByRole(id);
+        return saved;
     }
 
     @Transactional
     public void delete(UUID id) {
         roleRepository.deleteById(id);
+        permissionMatrixCache.invalidateAfterCommit(id);
+        tokenService.invalidatePrincipalsByRole(id);
     }
 }
 
@@ -1,11 +1,16 @@
 package org.example.rootmanage.sales;
 
+import org.example.rootmanage.sales.dto.BiddingListItem;
 import org.example.rootmanage.sales.entity.Bidding;
+import org.example.rootmanage.search.SearchDocument;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -38,5 +43,44 @@ public interface BiddingRepository extends JpaRepository<Bidding, UUID> {
            "b.projectName LIKE %:keyword% OR " +
            "c.customerName LIKE %:keyword%)")
     List<Bidding> searchBiddings(@Param("keyword") String keyword);
-}
 
+    /**
+     * 参与关键词索引的投标记录字段（投影，与 searchBiddings 的匹配范围一致），新记录在前
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(b.id, b.biddingNo, b.projectName, c.customerName) " +
+           "FROM Bidding b JOIN b.customer c ORDER BY b.createTime DESC, b.id DESC")
+    List<SearchDocument> findSearchDocuments();
+
+    /**
+     * 按ID查询参与关键词索引的投标记录字段（投影），用于写入提交后增量更新索引
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(b.id, b.biddingNo, b.projectName, c.customerName) " +
+           "FROM Bidding b JOIN b.customer c WHERE b.id IN :ids")
+    List<SearchDocument> findSearchDocuments(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * 查询客户的全部投标记录参与关键词索引的字段（投影），用于客户名称修改后增量更新索引
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(b.id, b.biddingNo, b.projectName, c.customerName) " +
+           "FROM Bidding b JOIN b.customer c WHERE c.id = :customerId")
+    List<SearchDocument> findSearchDocumentsByCustomerId(@Param("customerId") UUID customerId);
+
+    /**
+     * 键集分页查询投标记录（投影，客户、负责人和选项名称一次联表取出），按创建时间、ID 倒序
+     *
+     * @param pattern   投标编号、项目名称、客户名称的 LIKE 模式，为 null 时不过滤
+     * @param afterTime 上一页最后一行的创建时间，为 null 时查询第一页
+     */
+    @Query("SELECT new org.example.rootmanage.sales.dto.BiddingListItem(b.id, b.biddingNo, b.biddingName, c.id, c.customerName, " +
+           "o.id, b.opportunityName, b.projectName, b.biddingDate, b.deadline, bt.id, bt.title, u.id, u.name, " +
+           "bs.id, bs.title, b.biddingAmount, b.estimatedProfit, ss.id, ss.title, b.createTime) " +
+           "FROM Bidding b LEFT JOIN b.customer c LEFT JOIN b.opportunity o LEFT JOIN b.biddingType bt " +
+           "LEFT JOIN b.responsiblePerson u LEFT JOIN b.biddingStatus bs LEFT JOIN b.summaryStatus ss " +
+           "WHERE (:pattern IS NULL OR b.biddingNo LIKE :pattern ESCAPE '!' OR b.projectName LIKE :pattern ESCAPE '!' " +
+           "OR c.customerName LIKE :pattern ESCAPE '!') " +
+           "AND (:afterTime IS NULL OR b.createTime < :afterTime OR (b.createTime = :afterTime AND b.id < :afterId)) " +
+           "ORDER BY b.createTime DESC, b.id DESC")
+    List<BiddingListItem> pageBiddings(@Param("pattern") String pattern,
+                                       @Param("afterTime") LocalDateTime afterTime,
+                                       @Param("afterId") UUID afterId, Pageable pageable);
+}
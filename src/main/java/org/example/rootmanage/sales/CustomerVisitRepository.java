@@ -1,6 +1,8 @@
 package org.example.rootmanage.sales;
 
+import org.example.rootmanage.sales.dto.CustomerVisitListItem;
 import org.example.rootmanage.sales.entity.CustomerVisit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -22,5 +24,26 @@ public interface CustomerVisitRepository extends JpaRepository<CustomerVisit, UU
     @Query("SELECT v FROM CustomerVisit v WHERE v.visitTime BETWEEN :startTime AND :endTime ORDER BY v.visitTime DESC")
     List<CustomerVisit> findByVisitTimeBetween(@Param("startTime") LocalDateTime startTime, 
                                                @Param("endTime") LocalDateTime endTime);
-}
 
+    /**
+     * 键集分页查询来访记录（投影，客户和接待人名称一次联表取出），按创建时间、ID 倒序
+     *
+     * @param customerId 客户，为 null 时不过滤
+     * @param startTime  来访时间下限，为 null 时不过滤
+     * @param endTime    来访时间上限，为 null 时不过滤
+     * @param afterTime  上一页最后一行的创建时间，为 null 时查询第一页
+     */
+    @Query("SELECT new org.example.rootmanage.sales.dto.CustomerVisitListItem(v.id, c.id, c.customerName, v.visitTime, " +
+           "u.id, u.name, v.visitPurpose, v.visitResult, v.createTime) " +
+           "FROM CustomerVisit v LEFT JOIN v.customer c LEFT JOIN v.receptionist u " +
+           "WHERE (:customerId IS NULL OR c.id = :customerId) " +
+           "AND (:startTime IS NULL OR v.visitTime >= :startTime) " +
+           "AND (:endTime IS NULL OR v.visitTime <= :endTime) " +
+           "AND (:afterTime IS NULL OR v.createTime < :afterTime OR (v.createTime = :afterTime AND v.id < :afterId)) " +
+           "ORDER BY v.createTime DESC, v.id DESC")
+    List<CustomerVisitListItem> pageVisits(@Param("customerId") UUID customerId,
+                                           @Param("startTime") LocalDateTime startTime,
+                                           @Param("endTime") LocalDateTime endTime,
+                                           @Param("afterTime") LocalDateTime afterTime,
+                                           @Param("afterId") UUID afterId, Pageable pageable);
+}
@@ -1,13 +1,16 @@
 package org.example.rootmanage.sales;
 
 import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.CursorPage;
 import org.example.rootmanage.sales.dto.*;
 import org.example.rootmanage.sales.entity.*;
+import org.example.rootmanage.sales.funnel.FunnelDimension;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -32,6 +35,19 @@ public class SalesController {
         return salesService.findAllCustomerVisits(customerId, startTime, endTime);
     }
 
+    /**
+     * 来访记录分页（按创建时间倒序，cursor 取上一页返回的 nextCursor）
+     */
+    @GetMapping("/customer-visits/page")
+    public CursorPage<CustomerVisitListItem> pageCustomerVisits(
+            @RequestParam(required = false) UUID customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return salesService.pageCustomerVisits(customerId, startTime, endTime, cursor, size);
+    }
+
     @PostMapping("/customer-visits")
     public CustomerVisit createCustomerVisit(@RequestBody @Validated CustomerVisitRequest request) {
         return salesService.createCustomerVisit(request);
@@ -55,6 +71,14 @@ public class SalesController {
         return salesService.findAllSalesOpportunities(keyword);
     }
 
+    @GetMapping("/opportunities/page")
+    public CursorPage<SalesOpportunityListItem> pageSalesOpportunities(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return salesService.pageSalesOpportunities(keyword, cursor, size);
+    }
+
     @PostMapping("/opportunities")
     public SalesOpportunity createSalesOpportunity(@RequestBody @Validated SalesOpportunityRequest request) {
         return salesService.createSalesOpportunity(request);
@@ -88,6 +112,11 @@ public class SalesController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/opportunities/bulk-assign")
+    public OpportunityBulkAssignResult bulkAssignSalesOpportunities(@RequestBody @Validated OpportunityBulkAssignRequest request) {
+        return salesService.bulkAssignSalesOpportunities(request);
+    }
+
     @PostMapping("/opportunities/close")
     public SalesOpportunity closeSalesOpportunity(@RequestBody @Validated OpportunityCloseRequest request) {
         return salesService.closeSalesOpportunity(request);
@@ -98,6 +127,21 @@ public class SalesController {
         return salesService.findUnassignedOpportunities();
     }
 
+    // ========== 销售漏斗 ==========
+
+    @GetMapping("/funnel")
+    public List<SalesFunnelRow> getSalesFunnel(
+            @RequestParam(defaultValue = "STAGE") FunnelDimension dimension,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return salesService.findSalesFunnel(dimension, from, to);
+    }
+
+    @GetMapping("/funnel/stage-transitions")
+    public List<SalesStageTransitionRow> getSalesStageTransitions() {
+        return salesService.findSalesStageTransitions();
+    }
+
     // ========== 销售机会跟踪 ==========
 
     @GetMapping("/opportunities/{opportunityId}/trackings")
@@ -128,6 +172,14 @@ public class SalesController {
         return salesService.findAllSalesInventories(keyword);
     }
 
+    @GetMapping("/inventories/page")
+    public CursorPage<SalesInventoryListItem> pageSalesInventories(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return salesService.pageSalesInventories(keyword, cursor, size);
+    }
+
     @PostMapping("/inventories")
     public SalesInventory createSalesInventory(@RequestBody @Validated SalesInventoryRequest request) {
         return salesService.createSalesInventory(request);
@@ -144,6 +196,11 @@ public class SalesController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/inventories/{id}/recompute-value")
+    public SalesInventory recomputeSalesInventoryValue(@PathVariable UUID id) {
+        return salesService.recomputeSalesInventoryValue(id);
+    }
+
     // ========== 销售报价管理 ==========
 
     @GetMapping("/quotations")
@@ -151,6 +208,14 @@ public class SalesController {
         return salesService.findAllSalesQuotations(keyword);
     }
 
+    @GetMapping("/quotations/page")
+    public CursorPage<SalesQuotationListItem> pageSalesQuotations(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return salesService.pageSalesQuotations(keyword, cursor, size);
+    }
+
     @PostMapping("/quotations")
     public SalesQuotation createSalesQuotation(@RequestBody @Validated SalesQuotationRequest request) {
         return salesService.createSalesQuotation(request);
@@ -167,6 +232,19 @@ public class SalesController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/quotations/{id}/reservations")
+    public ResponseEntity<Void> reserveQuotationInventory(@PathVariable UUID id,
+                                                          @RequestBody @Validated InventoryReservationRequest request) {
+        salesService.reserveQuotationInventory(id, request);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/quotations/{id}/reservations")
+    public ResponseEntity<Void> releaseQuotationInventory(@PathVariable UUID id) {
+        salesService.releaseQuotationInventory(id);
+        return ResponseEntity.ok().build();
+    }
+
     // ========== 销售降库管理 ==========
 
     @GetMapping("/inventory-reductions")
@@ -174,6 +252,14 @@ public class SalesController {
         return salesService.findAllSalesInventoryReductions(keyword);
     }
 
+    @GetMapping("/inventory-reductions/page")
+    public CursorPage<SalesInventoryReductionListItem> pageSalesInventoryReductions(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return salesService.pageSalesInventoryReductions(keyword, cursor, size);
+    }
+
     @PostMapping("/inventory-reductions")
     public SalesInventoryReduction createSalesInventoryReduction(@RequestBody @Validated SalesInventoryReductionRequest request) {
         return salesService.createSalesInventoryReduction(request);
@@ -197,6 +283,14 @@ public class SalesController {
         return salesService.findAllBiddings(keyword);
     }
 
+    @GetMapping("/biddings/page")
+    public CursorPage<BiddingListItem> pageBiddings(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return salesService.pageBiddings(keyword, cursor, size);
+    }
+
     @PostMapping("/biddings")
     public Bidding createBidding(@RequestBody @Validated BiddingRequest request) {
         return salesService.createBidding(request);
@@ -0,0 +1,39 @@
+package org.example.rootmanage.sales;
+
+import org.example.rootmanage.sales.entity.SalesInventoryMovement;
+import org.example.rootmanage.sales.inventory.InventoryDelta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface SalesInventoryMovementRepository extends JpaRepository<SalesInventoryMovement, UUID> {
+
+    /**
+     * 库存记录的第一条流水（其变动前结存即记账起点）
+     */
+    Optional<SalesInventoryMovement> findFirstByInventoryIdOrderByCreateTimeAscIdAsc(UUID inventoryId);
+
+    /**
+     * 库存记录全部流水的总价值变化合计
+     */
+    @Query("SELECT COALESCE(SUM(m.valueDelta), 0) FROM SalesInventoryMovement m WHERE m.inventory.id = :inventoryId")
+    BigDecimal sumValueDelta(@Param("inventoryId") UUID inventoryId);
+
+    /**
+     * 来源单据在各库存记录上的净变化量（投影，用于冲回降库、释放预留）
+     */
+    @Query("SELECT new org.example.rootmanage.sales.inventory.InventoryDelta(m.inventory.id, SUM(m.quantityDelta), " +
+           "SUM(m.availableDelta), SUM(m.reservedDelta), SUM(m.valueDelta)) " +
+           "FROM SalesInventoryMovement m WHERE m.referenceId = :referenceId GROUP BY m.inventory.id")
+    List<InventoryDelta> sumByReference(@Param("referenceId") UUID referenceId);
+
+    /**
+     * 库存记录是否已有流水
+     */
+    boolean existsByInventoryId(UUID inventoryId);
+}
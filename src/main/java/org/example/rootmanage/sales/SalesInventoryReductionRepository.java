@@ -1,11 +1,14 @@
 package org.example.rootmanage.sales;
 
+import org.example.rootmanage.sales.dto.SalesInventoryReductionListItem;
 import org.example.rootmanage.sales.entity.SalesInventoryReduction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -37,5 +40,20 @@ public interface SalesInventoryReductionRepository extends JpaRepository<SalesIn
            "r.reductionNo LIKE %:keyword% OR " +
            "p.productName LIKE %:keyword%)")
     List<SalesInventoryReduction> searchReductions(@Param("keyword") String keyword);
-}
 
+    /**
+     * 键集分页查询降库记录（投影，产品、仓库、类型和操作人名称一次联表取出），按创建时间、ID 倒序
+     *
+     * @param pattern   降库单号、产品名称的 LIKE 模式，为 null 时不过滤
+     * @param afterTime 上一页最后一行的创建时间，为 null 时查询第一页
+     */
+    @Query("SELECT new org.example.rootmanage.sales.dto.SalesInventoryReductionListItem(r.id, r.reductionNo, p.id, p.productName, " +
+           "r.quantity, w.id, w.title, r.reductionDate, t.id, t.title, u.id, u.name, r.unitPrice, r.totalAmount, r.reason, r.createTime) " +
+           "FROM SalesInventoryReduction r LEFT JOIN r.product p LEFT JOIN r.warehouse w LEFT JOIN r.reductionType t LEFT JOIN r.operator u " +
+           "WHERE (:pattern IS NULL OR r.reductionNo LIKE :pattern ESCAPE '!' OR p.productName LIKE :pattern ESCAPE '!') " +
+           "AND (:afterTime IS NULL OR r.createTime < :afterTime OR (r.createTime = :afterTime AND r.id < :afterId)) " +
+           "ORDER BY r.createTime DESC, r.id DESC")
+    List<SalesInventoryReductionListItem> pageReductions(@Param("pattern") String pattern,
+                                                         @Param("afterTime") LocalDateTime afterTime,
+                                                         @Param("afterId") UUID afterId, Pageable pageable);
+}
@@ -1,11 +1,20 @@
 package org.example.rootmanage.sales;
 
+import jakarta.persistence.LockModeType;
+import org.example.rootmanage.sales.dto.SalesInventoryListItem;
 import org.example.rootmanage.sales.entity.SalesInventory;
+import org.example.rootmanage.sales.inventory.InventoryBalance;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface SalesInventoryRepository extends JpaRepository<SalesInventory, UUID> {
@@ -28,5 +37,79 @@ public interface SalesInventoryRepository extends JpaRepository<SalesInventory,
            "p.productName LIKE %:keyword% OR " +
            "p.productCode LIKE %:keyword%)")
     List<SalesInventory> searchInventories(@Param("keyword") String keyword);
-}
 
+    /**
+     * 键集分页查询库存（投影，产品和仓库名称一次联表取出），按创建时间、ID 倒序
+     *
+     * @param pattern   产品名称、产品编码的 LIKE 模式，为 null 时不过滤
+     * @param afterTime 上一页最后一行的创建时间，为 null 时查询第一页
+     */
+    @Query("SELECT new org.example.rootmanage.sales.dto.SalesInventoryListItem(i.id, p.id, p.productName, p.productCode, " +
+           "w.id, w.title, i.quantity, i.availableQuantity, i.reservedQuantity, i.unitPrice, i.totalValue, i.location, " +
+           "i.drawingNo, i.material, i.isStagnant, i.createTime) " +
+           "FROM SalesInventory i LEFT JOIN i.product p LEFT JOIN i.warehouse w " +
+           "WHERE (:pattern IS NULL OR p.productName LIKE :pattern ESCAPE '!' OR p.productCode LIKE :pattern ESCAPE '!') " +
+           "AND (:afterTime IS NULL OR i.createTime < :afterTime OR (i.createTime = :afterTime AND i.id < :afterId)) " +
+           "ORDER BY i.createTime DESC, i.id DESC")
+    List<SalesInventoryListItem> pageInventories(@Param("pattern") String pattern,
+                                                 @Param("afterTime") LocalDateTime afterTime,
+                                                 @Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * 查询并锁定库存记录（SELECT ... FOR UPDATE），用于手工修改库存时与降库、预留互斥
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM SalesInventory i WHERE i.id = :id")
+    Optional<SalesInventory> findByIdForUpdate(@Param("id") UUID id);
+
+    /**
+     * 产品在仓库中的库存记录ID（降库时按ID排序后依次尝试）
+     *
+     * @param warehouseId 为 null 时不限仓库
+     */
+    @Query("SELECT i.id FROM SalesInventory i WHERE i.product.id = :productId " +
+           "AND (:warehouseId IS NULL OR i.warehouse.id = :warehouseId)")
+    List<UUID> findLedgerIds(@Param("productId") UUID productId, @Param("warehouseId") UUID warehouseId);
+
+    /**
+     * 库存记录当前结存（投影）
+     */
+    @Query("SELECT new org.example.rootmanage.sales.inventory.InventoryBalance(i.quantity, i.availableQuantity, " +
+           "i.reservedQuantity, i.unitPrice, i.totalValue) FROM SalesInventory i WHERE i.id = :id")
+    Optional<InventoryBalance> findBalance(@Param("id") UUID id);
+
+    /**
+     * 条件扣减：可用数量足够时扣减库存数量、可用数量，并按单价扣减总价值
+     *
+     * @return 更新行数，0 表示可用数量不足或记录不存在
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE SalesInventory i SET i.quantity = i.quantity - :quantity, " +
+           "i.availableQuantity = i.availableQuantity - :quantity, " +
+           "i.totalValue = COALESCE(i.totalValue, 0) - :quantity * COALESCE(i.unitPrice, 0), i.updateTime = :now " +
+           "WHERE i.id = :id AND i.availableQuantity >= :quantity")
+    int reduce(@Param("id") UUID id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    /**
+     * 条件预留：可用数量足够时把可用数量转为预留数量
+     *
+     * @return 更新行数，0 表示可用数量不足或记录不存在
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE SalesInventory i SET i.availableQuantity = i.availableQuantity - :quantity, " +
+           "i.reservedQuantity = COALESCE(i.reservedQuantity, 0) + :quantity, i.updateTime = :now " +
+           "WHERE i.id = :id AND i.availableQuantity >= :quantity")
+    int reserve(@Param("id") UUID id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    /**
+     * 按变化量更新结存（冲回降库、释放预留，变化量取自流水）
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE SalesInventory i SET i.quantity = i.quantity + :quantityDelta, " +
+           "i.availableQuantity = i.availableQuantity + :availableDelta, " +
+           "i.reservedQuantity = COALESCE(i.reservedQuantity, 0) + :reservedDelta, " +
+           "i.totalValue = COALESCE(i.totalValue, 0) + :valueDelta, i.updateTime = :now WHERE i.id = :id")
+    int applyDelta(@Param("id") UUID id, @Param("quantityDelta") int quantityDelta,
+                   @Param("availableDelta") int availableDelta, @Param("reservedDelta") int reservedDelta,
+                   @Param("valueDelta") BigDecimal valueDelta, @Param("now") LocalDateTime now);
+}
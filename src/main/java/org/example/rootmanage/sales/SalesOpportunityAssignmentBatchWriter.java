@@ -0,0 +1,56 @@
+package org.example.rootmanage.sales;
+
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.common.UuidBytes;
+import org.example.rootmanage.sales.dto.OpportunityAssignmentKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 销售机会分配记录批量写入
+ * 批量分配一次可能新增成千上万条分配记录，绕过 JPA 逐条 persist，使用 JDBC 批量 INSERT
+ * （配合连接参数 rewriteBatchedStatements=true 在 MySQL 端合并为多值 INSERT）
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesOpportunityAssignmentBatchWriter {
+
+    private static final String INSERT_ASSIGNMENT_SQL = "INSERT INTO sales_opportunity_assignment " +
+            "(id, create_time, update_time, opportunity_id, area_id, personnel_id, is_primary) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 每个 JDBC 批次的语句条数
+     */
+    @Value("${sales.assignment.jdbc-batch-size:1000}")
+    private int jdbcBatchSize = 1000;
+
+    /**
+     * 批量插入非主要片区的分配记录
+     *
+     * @return 写入的行数
+     */
+    public int insertAssignments(List<OpportunityAssignmentKey> assignments) {
+        if (assignments == null || assignments.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_ASSIGNMENT_SQL, assignments, jdbcBatchSize, (ps, assignment) -> {
+            ps.setBytes(1, UuidBytes.toBytes(UUID.randomUUID()));
+            ps.setObject(2, now);
+            ps.setObject(3, now);
+            ps.setBytes(4, UuidBytes.toBytes(assignment.getOpportunityId()));
+            ps.setBytes(5, UuidBytes.toBytes(assignment.getAreaId()));
+            ps.setBytes(6, UuidBytes.toBytes(assignment.getPersonnelId()));
+            ps.setBoolean(7, false);
+        });
+        return assignments.size();
+    }
+}
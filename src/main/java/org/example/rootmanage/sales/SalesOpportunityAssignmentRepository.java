@@ -1,9 +1,13 @@
 package org.example.rootmanage.sales;
 
+import org.example.rootmanage.sales.dto.OpportunityAssignmentKey;
 import org.example.rootmanage.sales.entity.SalesOpportunityAssignment;
+import org.example.rootmanage.sales.funnel.OpportunityAreaFact;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -35,5 +39,26 @@ public interface SalesOpportunityAssignmentRepository extends JpaRepository<Sale
      * 删除机会的所有分配记录
      */
     void deleteByOpportunityId(UUID opportunityId);
-}
 
+    /**
+     * 全部分配记录的机会和片区（投影），同一机会主要片区在前、先分配的在前
+     */
+    @Query("SELECT new org.example.rootmanage.sales.funnel.OpportunityAreaFact(a.opportunity.id, a.area.id) " +
+           "FROM SalesOpportunityAssignment a ORDER BY a.isPrimary DESC, a.createTime ASC")
+    List<OpportunityAreaFact> findAreaFacts();
+
+    /**
+     * 单个机会的分配片区（投影），主要片区在前、先分配的在前
+     */
+    @Query("SELECT new org.example.rootmanage.sales.funnel.OpportunityAreaFact(a.opportunity.id, a.area.id) " +
+           "FROM SalesOpportunityAssignment a WHERE a.opportunity.id = :opportunityId " +
+           "ORDER BY a.isPrimary DESC, a.createTime ASC")
+    List<OpportunityAreaFact> findAreaFacts(@Param("opportunityId") UUID opportunityId);
+
+    /**
+     * 机会已有分配记录的机会、片区、营销人员（投影，批量分配时查重）
+     */
+    @Query("SELECT new org.example.rootmanage.sales.dto.OpportunityAssignmentKey(a.opportunity.id, a.area.id, p.id) " +
+           "FROM SalesOpportunityAssignment a LEFT JOIN a.personnel p WHERE a.opportunity.id IN :opportunityIds")
+    List<OpportunityAssignmentKey> findAssignmentKeys(@Param("opportunityIds") Collection<UUID> opportunityIds);
+}
@@ -1,10 +1,16 @@
 package org.example.rootmanage.sales;
 
+import org.example.rootmanage.sales.dto.SalesOpportunityListItem;
 import org.example.rootmanage.sales.entity.SalesOpportunity;
+import org.example.rootmanage.sales.funnel.OpportunityFact;
+import org.example.rootmanage.search.SearchDocument;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -28,5 +34,66 @@ public interface SalesOpportunityRepository extends JpaRepository<SalesOpportuni
            "o.opportunityName LIKE %:keyword% OR " +
            "c.customerName LIKE %:keyword%)")
     List<SalesOpportunity> searchOpportunities(@Param("keyword") String keyword);
-}
 
+    /**
+     * 参与关键词索引的销售机会字段（投影，与 searchOpportunities 的匹配范围一致），新记录在前
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(o.id, o.opportunityName, c.customerName) " +
+           "FROM SalesOpportunity o JOIN o.customer c ORDER BY o.createTime DESC, o.id DESC")
+    List<SearchDocument> findSearchDocuments();
+
+    /**
+     * 按ID查询参与关键词索引的销售机会字段（投影），用于写入提交后增量更新索引
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(o.id, o.opportunityName, c.customerName) " +
+           "FROM SalesOpportunity o JOIN o.customer c WHERE o.id IN :ids")
+    List<SearchDocument> findSearchDocuments(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * 查询客户的全部销售机会参与关键词索引的字段（投影），用于客户名称修改后增量更新索引
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(o.id, o.opportunityName, c.customerName) " +
+           "FROM SalesOpportunity o JOIN o.customer c WHERE c.id = :customerId")
+    List<SearchDocument> findSearchDocumentsByCustomerId(@Param("customerId") UUID customerId);
+
+    /**
+     * 全部机会的漏斗汇总字段（投影）
+     */
+    @Query("SELECT new org.example.rootmanage.sales.funnel.OpportunityFact(o.id, o.opportunityDate, sp.id, st.id, " +
+           "o.estimatedAmount, s.title, s.value, o.closeReason) " +
+           "FROM SalesOpportunity o LEFT JOIN o.salesperson sp LEFT JOIN o.opportunityStage st LEFT JOIN o.status s")
+    List<OpportunityFact> findFunnelFacts();
+
+    /**
+     * 单个机会的漏斗汇总字段（投影），机会不存在时为空
+     */
+    @Query("SELECT new org.example.rootmanage.sales.funnel.OpportunityFact(o.id, o.opportunityDate, sp.id, st.id, " +
+           "o.estimatedAmount, s.title, s.value, o.closeReason) " +
+           "FROM SalesOpportunity o LEFT JOIN o.salesperson sp LEFT JOIN o.opportunityStage st LEFT JOIN o.status s " +
+           "WHERE o.id = :id")
+    List<OpportunityFact> findFunnelFacts(@Param("id") UUID id);
+
+    /**
+     * 键集分页查询销售机会（投影，关联名称一次联表取出），按创建时间、ID 倒序
+     *
+     * @param pattern   机会名称、客户名称的 LIKE 模式，为 null 时不过滤
+     * @param afterTime 上一页最后一行的创建时间，为 null 时查询第一页
+     */
+    @Query("SELECT new org.example.rootmanage.sales.dto.SalesOpportunityListItem(o.id, o.opportunityName, o.opportunitySubject, " +
+           "o.opportunityDate, o.estimatedAmount, o.expectedCloseDate, o.successProbability, o.received, o.submitted, " +
+           "c.id, c.customerName, p.id, p.productName, s.id, s.name, st.id, st.title, ls.id, ls.title, os.id, os.title, o.createTime) " +
+           "FROM SalesOpportunity o JOIN o.customer c LEFT JOIN o.product p LEFT JOIN o.salesperson s " +
+           "LEFT JOIN o.opportunityStage st LEFT JOIN o.leadSource ls LEFT JOIN o.status os " +
+           "WHERE (:pattern IS NULL OR o.opportunityName LIKE :pattern ESCAPE '!' OR c.customerName LIKE :pattern ESCAPE '!') " +
+           "AND (:afterTime IS NULL OR o.createTime < :afterTime OR (o.createTime = :afterTime AND o.id < :afterId)) " +
+           "ORDER BY o.createTime DESC, o.id DESC")
+    List<SalesOpportunityListItem> pageOpportunities(@Param("pattern") String pattern,
+                                                     @Param("afterTime") LocalDateTime afterTime,
+                                                     @Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * 给定ID中存在的销售机会ID（批量分配时一次校验）
+     */
+    @Query("SELECT o.id FROM SalesOpportunity o WHERE o.id IN :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,41 @@
+package org.example.rootmanage.sales;
+
+import org.example.rootmanage.sales.entity.SalesOpportunityStageChange;
+import org.example.rootmanage.sales.funnel.StageTransitionFact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface SalesOpportunityStageChangeRepository extends JpaRepository<SalesOpportunityStageChange, UUID> {
+
+    /**
+     * 机会最近一次阶段变更
+     */
+    Optional<SalesOpportunityStageChange> findTopByOpportunityIdOrderByChangedAtDesc(UUID opportunityId);
+
+    /**
+     * 删除机会的所有阶段变更记录
+     */
+    void deleteByOpportunityId(UUID opportunityId);
+
+    /**
+     * 全部阶段变更（投影，用于销售漏斗汇总）
+     */
+    @Query("SELECT new org.example.rootmanage.sales.funnel.StageTransitionFact(" +
+           "c.opportunity.id, f.id, t.id, c.durationSeconds) " +
+           "FROM SalesOpportunityStageChange c LEFT JOIN c.fromStage f LEFT JOIN c.toStage t")
+    List<StageTransitionFact> findTransitionFacts();
+
+    /**
+     * 单个机会的阶段变更（投影，用于销售漏斗增量更新）
+     */
+    @Query("SELECT new org.example.rootmanage.sales.funnel.StageTransitionFact(" +
+           "c.opportunity.id, f.id, t.id, c.durationSeconds) " +
+           "FROM SalesOpportunityStageChange c LEFT JOIN c.fromStage f LEFT JOIN c.toStage t " +
+           "WHERE c.opportunity.id = :opportunityId")
+    List<StageTransitionFact> findTransitionFacts(@Param("opportunityId") UUID opportunityId);
+}
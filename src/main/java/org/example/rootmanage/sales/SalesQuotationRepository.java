@@ -1,11 +1,16 @@
 package org.example.rootmanage.sales;
 
+import org.example.rootmanage.sales.dto.SalesQuotationListItem;
 import org.example.rootmanage.sales.entity.SalesQuotation;
+import org.example.rootmanage.search.SearchDocument;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -37,5 +42,41 @@ public interface SalesQuotationRepository extends JpaRepository<SalesQuotation,
            "q.quotationNo LIKE %:keyword% OR " +
            "c.customerName LIKE %:keyword%)")
     List<SalesQuotation> searchQuotations(@Param("keyword") String keyword);
-}
 
+    /**
+     * 参与关键词索引的报价单字段（投影，与 searchQuotations 的匹配范围一致），新记录在前
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(q.id, q.quotationNo, c.customerName) " +
+           "FROM SalesQuotation q JOIN q.customer c ORDER BY q.createTime DESC, q.id DESC")
+    List<SearchDocument> findSearchDocuments();
+
+    /**
+     * 按ID查询参与关键词索引的报价单字段（投影），用于写入提交后增量更新索引
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(q.id, q.quotationNo, c.customerName) " +
+           "FROM SalesQuotation q JOIN q.customer c WHERE q.id IN :ids")
+    List<SearchDocument> findSearchDocuments(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * 查询客户的全部报价单参与关键词索引的字段（投影），用于客户名称修改后增量更新索引
+     */
+    @Query("SELECT new org.example.rootmanage.search.SearchDocument(q.id, q.quotationNo, c.customerName) " +
+           "FROM SalesQuotation q JOIN q.customer c WHERE c.id = :customerId")
+    List<SearchDocument> findSearchDocumentsByCustomerId(@Param("customerId") UUID customerId);
+
+    /**
+     * 键集分页查询报价单（投影，客户、负责人和状态名称一次联表取出），按创建时间、ID 倒序
+     *
+     * @param pattern   报价单号、客户名称的 LIKE 模式，为 null 时不过滤
+     * @param afterTime 上一页最后一行的创建时间，为 null 时查询第一页
+     */
+    @Query("SELECT new org.example.rootmanage.sales.dto.SalesQuotationListItem(q.id, q.quotationNo, c.id, c.customerName, " +
+           "s.id, s.name, q.quotationDate, q.validUntil, q.totalAmount, q.projectName, st.id, st.title, q.createTime) " +
+           "FROM SalesQuotation q LEFT JOIN q.customer c LEFT JOIN q.salesperson s LEFT JOIN q.status st " +
+           "WHERE (:pattern IS NULL OR q.quotationNo LIKE :pattern ESCAPE '!' OR c.customerName LIKE :pattern ESCAPE '!') " +
+           "AND (:afterTime IS NULL OR q.createTime < :afterTime OR (q.createTime = :afterTime AND q.id < :afterId)) " +
+           "ORDER BY q.createTime DESC, q.id DESC")
+    List<SalesQuotationListItem> pageQuotations(@Param("pattern") String pattern,
+                                                @Param("afterTime") LocalDateTime afterTime,
+                                                @Param("afterId") UUID afterId, Pageable pageable);
+}
@@ -7,19 +7,38 @@ import org.example.rootmanage.basicinfo.entity.Customer;
 import org.example.rootmanage.basicinfo.entity.Product;
 import org.example.rootmanage.basicinfo.CustomerRepository;
 import org.example.rootmanage.basicinfo.ProductRepository;
+import org.example.rootmanage.common.CursorPage;
+import org.example.rootmanage.common.KeysetCursor;
+import org.example.rootmanage.option.OptionDictionary;
 import org.example.rootmanage.option.OptionItem;
-import org.example.rootmanage.option.OptionItemRepository;
 import org.example.rootmanage.sales.dto.*;
 import org.example.rootmanage.sales.entity.*;
+import org.example.rootmanage.sales.funnel.FunnelDimension;
+import org.example.rootmanage.sales.funnel.SalesFunnel;
+import org.example.rootmanage.sales.inventory.InventoryBalance;
+import org.example.rootmanage.sales.inventory.SalesInventoryLedger;
+import org.example.rootmanage.search.KeywordSearchIndex;
+import org.example.rootmanage.search.SearchDomain;
 import org.example.rootmanage.basicinfo.entity.SalesArea;
 import org.example.rootmanage.basicinfo.entity.MarketingPersonnel;
 import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,16 +48,28 @@ public class SalesService {
     private final SalesOpportunityRepository salesOpportunityRepository;
     private final SalesOpportunityTrackingRepository salesOpportunityTrackingRepository;
     private final SalesOpportunityAssignmentRepository salesOpportunityAssignmentRepository;
+    private final SalesOpportunityStageChangeRepository salesOpportunityStageChangeRepository;
     private final SalesInventoryRepository salesInventoryRepository;
     private final SalesQuotationRepository salesQuotationRepository;
     private final SalesInventoryReductionRepository salesInventoryReductionRepository;
+    private final SalesInventoryMovementRepository salesInventoryMovementRepository;
     private final BiddingRepository biddingRepository;
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
     private final org.example.rootmanage.basicinfo.SalesAreaRepository salesAreaRepository;
     private final org.example.rootmanage.basicinfo.MarketingPersonnelRepository marketingPersonnelRepository;
     private final UserAccountRepository userAccountRepository;
-    private final OptionItemRepository optionItemRepository;
+    private final OptionDictionary optionDictionary;
+    private final KeywordSearchIndex keywordSearchIndex;
+    private final SalesFunnel salesFunnel;
+    private final SalesInventoryLedger salesInventoryLedger;
+    private final SalesOpportunityAssignmentBatchWriter salesOpportunityAssignmentBatchWriter;
+
+    /**
+     * 单次批量分配允许的最大 机会 × 目标 数
+     */
+    @Value("${sales.assignment.max-bulk-items:100000}")
+    private int maxBulkAssignItems = 100000;
 
     // ========== 客户来访管理 ==========
 
@@ -64,6 +95,19 @@ public class SalesService {
         return visits;
     }
 
+    /**
+     * 分页查询来访记录（键集分页，投影一次联表查询）
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CustomerVisitListItem> pageCustomerVisits(UUID customerId, LocalDateTime startTime,
+                                                                LocalDateTime endTime, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = KeysetCursor.pageSize(size);
+        List<CustomerVisitListItem> rows = customerVisitRepository.pageVisits(customerId, startTime, endTime,
+                afterTime(after), afterId(after), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, CustomerVisitListItem::getCreateTime, CustomerVisitListItem::getId);
+    }
+
     @Transactional
     public CustomerVisit createCustomerVisit(CustomerVisitRequest request) {
         Customer customer = customerRepository.findById(request.getCustomerId())
@@ -130,7 +174,10 @@ public class SalesService {
     public List<SalesOpportunity> findAllSalesOpportunities(String keyword) {
         List<SalesOpportunity> opportunities;
         if (keyword != null && !keyword.trim().isEmpty()) {
-            opportunities = salesOpportunityRepository.searchOpportunities(keyword.trim());
+            String trimmed = keyword.trim();
+            opportunities = keywordSearchIndex.search(SearchDomain.SALES_OPPORTUNITY, trimmed,
+                            salesOpportunityRepository::findAllById)
+                    .orElseGet(() -> salesOpportunityRepository.searchOpportunities(trimmed));
         } else {
             opportunities = salesOpportunityRepository.findAll();
         }
@@ -155,6 +202,18 @@ public class SalesService {
         return opportunities;
     }
 
+    /**
+     * 分页查询销售机会（键集分页，投影一次联表查询）
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SalesOpportunityListItem> pageSalesOpportunities(String keyword, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = KeysetCursor.pageSize(size);
+        List<SalesOpportunityListItem> rows = salesOpportunityRepository.pageOpportunities(likePattern(keyword),
+                afterTime(after), afterId(after), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, SalesOpportunityListItem::getCreateTime, SalesOpportunityListItem::getId);
+    }
+
     @Transactional
     public SalesOpportunity createSalesOpportunity(SalesOpportunityRequest request) {
         Customer customer = customerRepository.findById(request.getCustomerId())
@@ -188,30 +247,34 @@ public class SalesService {
         }
 
         if (request.getOpportunityStageId() != null) {
-            OptionItem stage = optionItemRepository.findById(request.getOpportunityStageId())
+            OptionItem stage = optionDictionary.findById(request.getOpportunityStageId())
                     .orElseThrow(() -> new IllegalArgumentException("机会阶段选项不存在"));
             opportunity.setOpportunityStage(stage);
         }
 
         if (request.getLeadSourceId() != null) {
-            OptionItem leadSource = optionItemRepository.findById(request.getLeadSourceId())
+            OptionItem leadSource = optionDictionary.findById(request.getLeadSourceId())
                     .orElseThrow(() -> new IllegalArgumentException("线索来源选项不存在"));
             opportunity.setLeadSource(leadSource);
         }
 
         if (request.getStatusId() != null) {
-            OptionItem status = optionItemRepository.findById(request.getStatusId())
+            OptionItem status = optionDictionary.findById(request.getStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("状态选项不存在"));
             opportunity.setStatus(status);
         }
 
-        return salesOpportunityRepository.save(opportunity);
+        SalesOpportunity saved = salesOpportunityRepository.save(opportunity);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.SALES_OPPORTUNITY, saved.getId());
+        salesFunnel.refreshAfterCommit(saved.getId());
+        return saved;
     }
 
     @Transactional
     public SalesOpportunity updateSalesOpportunity(UUID id, SalesOpportunityRequest request) {
         SalesOpportunity opportunity = salesOpportunityRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("销售机会不存在"));
+        OptionItem previousStage = opportunity.getOpportunityStage();
 
         Customer customer = customerRepository.findById(request.getCustomerId())
                 .orElseThrow(() -> new IllegalArgumentException("客户不存在"));
@@ -253,15 +316,16 @@ public class SalesService {
         }
 
         if (request.getOpportunityStageId() != null) {
-            OptionItem stage = optionItemRepository.findById(request.getOpportunityStageId())
+            OptionItem stage = optionDictionary.findById(request.getOpportunityStageId())
                     .orElseThrow(() -> new IllegalArgumentException("机会阶段选项不存在"));
             opportunity.setOpportunityStage(stage);
         } else {
             opportunity.setOpportunityStage(null);
         }
+        recordStageChange(opportunity, previousStage);
 
         if (request.getLeadSourceId() != null) {
-            OptionItem leadSource = optionItemRepository.findById(request.getLeadSourceId())
+            OptionItem leadSource = optionDictionary.findById(request.getLeadSourceId())
                     .orElseThrow(() -> new IllegalArgumentException("线索来源选项不存在"));
             opportunity.setLeadSource(leadSource);
         } else {
@@ -269,7 +333,7 @@ public class SalesService {
         }
 
         if (request.getStatusId() != null) {
-            OptionItem status = optionItemRepository.findById(request.getStatusId())
+            OptionItem status = optionDictionary.findById(request.getStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("状态选项不存在"));
             opportunity.setStatus(status);
         } else {
@@ -277,6 +341,8 @@ public class SalesService {
         }
 
         SalesOpportunity saved = salesOpportunityRepository.save(opportunity);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.SALES_OPPORTUNITY, saved.getId());
+        salesFunnel.refreshAfterCommit(saved.getId());
         if (saved.getCustomer() != null) {
             Hibernate.initialize(saved.getCustomer());
         }
@@ -299,9 +365,12 @@ public class SalesService {
     public void deleteSalesOpportunity(UUID id) {
         // 删除关联的分配记录和跟踪记录
         salesOpportunityAssignmentRepository.deleteByOpportunityId(id);
+        salesOpportunityStageChangeRepository.deleteByOpportunityId(id);
         salesOpportunityTrackingRepository.findByOpportunityIdOrderByTrackingTimeDesc(id)
                 .forEach(tracking -> salesOpportunityTrackingRepository.delete(tracking));
         salesOpportunityRepository.deleteById(id);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.SALES_OPPORTUNITY, id);
+        salesFunnel.refreshAfterCommit(id);
     }
 
     // ========== 销售机会提交 ==========
@@ -323,24 +392,32 @@ public class SalesService {
         SalesOpportunity opportunity = salesOpportunityRepository.findById(request.getOpportunityId())
                 .orElseThrow(() -> new IllegalArgumentException("销售机会不存在"));
 
-        // 为每个目标片区创建分配记录
-        for (UUID areaId : request.getTargetAreaIds()) {
-            SalesArea area = salesAreaRepository.findById(areaId)
-                    .orElseThrow(() -> new IllegalArgumentException("片区不存在: " + areaId));
+        // 已分配的片区只查询一次，新建的分配记录同时加入，避免重复传递到同一片区
+        Set<UUID> assignedAreaIds = salesOpportunityAssignmentRepository.findByOpportunityId(opportunity.getId())
+                .stream()
+                .map(a -> a.getArea().getId())
+                .collect(Collectors.toCollection(HashSet::new));
 
-            // 检查是否已存在分配记录
-            boolean exists = salesOpportunityAssignmentRepository.findByOpportunityId(opportunity.getId())
-                    .stream()
-                    .anyMatch(a -> a.getArea().getId().equals(areaId));
+        // 目标片区用一次 IN 查询取出，分配记录一次保存
+        Map<UUID, SalesArea> areaById = salesAreaRepository.findAllById(request.getTargetAreaIds()).stream()
+                .collect(Collectors.toMap(SalesArea::getId, area -> area));
+        List<SalesOpportunityAssignment> assignments = new ArrayList<>();
+        for (UUID areaId : request.getTargetAreaIds()) {
+            SalesArea area = areaById.get(areaId);
+            if (area == null) {
+                throw new IllegalArgumentException("片区不存在: " + areaId);
+            }
 
-            if (!exists) {
+            if (assignedAreaIds.add(areaId)) {
                 SalesOpportunityAssignment assignment = new SalesOpportunityAssignment();
                 assignment.setOpportunity(opportunity);
                 assignment.setArea(area);
                 assignment.setIsPrimary(false);
-                salesOpportunityAssignmentRepository.save(assignment);
+                assignments.add(assignment);
             }
         }
+        salesOpportunityAssignmentRepository.saveAll(assignments);
+        salesFunnel.refreshAfterCommit(opportunity.getId());
     }
 
     // ========== 销售机会分配员工 ==========
@@ -354,10 +431,16 @@ public class SalesService {
         List<SalesOpportunityAssignment> existingAssignments = salesOpportunityAssignmentRepository
                 .findByOpportunityId(opportunity.getId());
 
-        // 为每个营销人员创建分配记录
+        // 营销人员用一次 IN 查询取出，分配记录一次保存
+        Map<UUID, MarketingPersonnel> personnelById = marketingPersonnelRepository
+                .findAllById(request.getPersonnelIds()).stream()
+                .collect(Collectors.toMap(MarketingPersonnel::getId, personnel -> personnel));
+        List<SalesOpportunityAssignment> assignments = new ArrayList<>();
         for (UUID personnelId : request.getPersonnelIds()) {
-            MarketingPersonnel personnel = marketingPersonnelRepository.findById(personnelId)
-                    .orElseThrow(() -> new IllegalArgumentException("营销人员不存在: " + personnelId));
+            MarketingPersonnel personnel = personnelById.get(personnelId);
+            if (personnel == null) {
+                throw new IllegalArgumentException("营销人员不存在: " + personnelId);
+            }
 
             if (personnel.getResponsibleArea() == null) {
                 throw new IllegalArgumentException("营销人员未分配负责区域: " + personnelId);
@@ -377,9 +460,111 @@ public class SalesService {
                 assignment.setArea(area);
                 assignment.setPersonnel(personnel);
                 assignment.setIsPrimary(false);
-                salesOpportunityAssignmentRepository.save(assignment);
+                assignments.add(assignment);
+            }
+        }
+        salesOpportunityAssignmentRepository.saveAll(assignments);
+        salesFunnel.refreshAfterCommit(opportunity.getId());
+    }
+
+    // ========== 销售机会批量分配 ==========
+
+    /**
+     * 批量把多个机会分配到多个片区和/或营销人员（如片区调整）
+     * 机会、片区、营销人员及已有分配记录各用一次 IN 查询取出，在内存中按哈希集合查重，新增记录用 JDBC 批量写入；
+     * 无效的机会、片区、营销人员不会中断整批，在结果中逐项标记
+     */
+    @Transactional
+    public OpportunityBulkAssignResult bulkAssignSalesOpportunities(OpportunityBulkAssignRequest request) {
+        List<UUID> opportunityIds = distinct(request.getOpportunityIds());
+        List<UUID> areaIds = distinct(request.getAreaIds());
+        List<UUID> personnelIds = distinct(request.getPersonnelIds());
+        if (areaIds.isEmpty() && personnelIds.isEmpty()) {
+            throw new IllegalArgumentException("目标片区和营销人员不能同时为空");
+        }
+        long items = (long) opportunityIds.size() * (areaIds.size() + personnelIds.size());
+        if (items > maxBulkAssignItems) {
+            throw new IllegalArgumentException("单次批量分配不能超过 " + maxBulkAssignItems + " 项");
+        }
+
+        Set<UUID> existingOpportunityIds = new HashSet<>(salesOpportunityRepository.findExistingIds(opportunityIds));
+        Set<UUID> existingAreaIds = areaIds.isEmpty() ? Set.of() : salesAreaRepository.findAllById(areaIds).stream()
+                .map(SalesArea::getId)
+                .collect(Collectors.toSet());
+        // 负责区域是懒加载关联，取其ID不会再查询片区
+        Map<UUID, MarketingPersonnel> personnelById = personnelIds.isEmpty() ? Map.of()
+                : marketingPersonnelRepository.findAllById(personnelIds).stream()
+                .collect(Collectors.toMap(MarketingPersonnel::getId, p -> p));
+
+        // 已有分配：按 机会+片区 查重（同传递），按 机会+片区+营销人员 查重（同分配员工）
+        Set<OpportunityAssignmentKey> assignedAreas = new HashSet<>();
+        Set<OpportunityAssignmentKey> assignedPersonnel = new HashSet<>();
+        Set<UUID> previouslyAssigned = new HashSet<>();
+        if (!existingOpportunityIds.isEmpty()) {
+            for (OpportunityAssignmentKey key : salesOpportunityAssignmentRepository.findAssignmentKeys(existingOpportunityIds)) {
+                assignedAreas.add(new OpportunityAssignmentKey(key.getOpportunityId(), key.getAreaId(), null));
+                if (key.getPersonnelId() != null) {
+                    assignedPersonnel.add(key);
+                }
+                previouslyAssigned.add(key.getOpportunityId());
+            }
+        }
+
+        OpportunityBulkAssignResult result = new OpportunityBulkAssignResult();
+        List<OpportunityAssignmentKey> inserts = new ArrayList<>();
+        for (UUID opportunityId : opportunityIds) {
+            boolean opportunityExists = existingOpportunityIds.contains(opportunityId);
+            for (UUID areaId : areaIds) {
+                String error = !opportunityExists ? "销售机会不存在"
+                        : !existingAreaIds.contains(areaId) ? "片区不存在" : null;
+                OpportunityAssignmentKey key = new OpportunityAssignmentKey(opportunityId, areaId, null);
+                boolean created = error == null && assignedAreas.add(key);
+                result.add(bulkAssignItem(key, error, created, inserts));
+            }
+            for (UUID personnelId : personnelIds) {
+                MarketingPersonnel personnel = personnelById.get(personnelId);
+                UUID areaId = personnel != null && personnel.getResponsibleArea() != null
+                        ? personnel.getResponsibleArea().getId() : null;
+                String error = !opportunityExists ? "销售机会不存在"
+                        : personnel == null ? "营销人员不存在"
+                        : areaId == null ? "营销人员未分配负责区域" : null;
+                OpportunityAssignmentKey key = new OpportunityAssignmentKey(opportunityId, areaId, personnelId);
+                boolean created = error == null && assignedPersonnel.add(key);
+                if (created) {
+                    assignedAreas.add(new OpportunityAssignmentKey(opportunityId, areaId, null));
+                }
+                result.add(bulkAssignItem(key, error, created, inserts));
             }
         }
+        salesOpportunityAssignmentBatchWriter.insertAssignments(inserts);
+
+        // 漏斗只取机会的第一条分配片区，新增的都是非主要片区，只有原先未分配的机会需要刷新
+        Set<UUID> refreshed = inserts.stream()
+                .map(OpportunityAssignmentKey::getOpportunityId)
+                .filter(id -> !previouslyAssigned.contains(id))
+                .collect(Collectors.toSet());
+        salesFunnel.refreshAfterCommit(refreshed);
+        return result;
+    }
+
+    private static OpportunityBulkAssignResult.Item bulkAssignItem(OpportunityAssignmentKey key, String error,
+                                                                   boolean created,
+                                                                   List<OpportunityAssignmentKey> inserts) {
+        OpportunityBulkAssignResult.Status status;
+        if (error != null) {
+            status = OpportunityBulkAssignResult.Status.FAILED;
+        } else if (created) {
+            status = OpportunityBulkAssignResult.Status.CREATED;
+            inserts.add(key);
+        } else {
+            status = OpportunityBulkAssignResult.Status.DUPLICATE;
+        }
+        return new OpportunityBulkAssignResult.Item(key.getOpportunityId(), key.getAreaId(), key.getPersonnelId(),
+                status, error);
+    }
+
+    private static List<UUID> distinct(List<UUID> ids) {
+        return ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().toList();
     }
 
     // ========== 销售机会关闭 ==========
@@ -394,10 +579,75 @@ public class SalesService {
         // 这里假设有一个"已关闭"状态的选项项，实际应该通过选项项ID设置
 
         SalesOpportunity saved = salesOpportunityRepository.save(opportunity);
+        salesFunnel.refreshAfterCommit(saved.getId());
         Hibernate.initialize(saved.getCustomer());
         return saved;
     }
 
+    // ========== 销售漏斗 ==========
+
+    /**
+     * 销售漏斗汇总（机会数、预计金额、赢单率），按片区、负责人、阶段或月份分组
+     */
+    @Transactional(readOnly = true)
+    public List<SalesFunnelRow> findSalesFunnel(FunnelDimension dimension, LocalDate from, LocalDate to) {
+        List<SalesFunnelRow> rows = salesFunnel.aggregate(dimension, from, to);
+        List<UUID> ids = rows.stream().map(SalesFunnelRow::getKey)
+                .filter(key -> key != null && dimension != FunnelDimension.MONTH)
+                .map(UUID::fromString).toList();
+        Map<String, String> names = switch (dimension) {
+            case AREA -> salesAreaRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(area -> area.getId().toString(), SalesArea::getAreaName));
+            case SALESPERSON -> userAccountRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(user -> user.getId().toString(), UserAccount::getName));
+            case STAGE -> ids.stream().map(optionDictionary::findById).flatMap(Optional::stream)
+                    .collect(Collectors.toMap(stage -> stage.getId().toString(), OptionItem::getTitle));
+            case MONTH -> Map.of();
+        };
+        rows.forEach(row -> row.setName(row.getKey() == null ? "未设置" : names.getOrDefault(row.getKey(), row.getKey())));
+        return rows;
+    }
+
+    /**
+     * 阶段变更次数及在各阶段的平均停留天数
+     */
+    @Transactional(readOnly = true)
+    public List<SalesStageTransitionRow> findSalesStageTransitions() {
+        List<SalesStageTransitionRow> rows = salesFunnel.stageTransitions();
+        rows.forEach(row -> {
+            row.setFromStageName(stageName(row.getFromStageId()));
+            row.setToStageName(stageName(row.getToStageId()));
+        });
+        return rows;
+    }
+
+    private String stageName(UUID stageId) {
+        return stageId == null ? "未设置" : optionDictionary.findById(stageId).map(OptionItem::getTitle).orElse(null);
+    }
+
+    /**
+     * 阶段发生变化时记录阶段变更及在原阶段的停留时长（原阶段的进入时间取上一次变更时间，没有变更记录时取机会创建时间）
+     */
+    private void recordStageChange(SalesOpportunity opportunity, OptionItem previousStage) {
+        OptionItem stage = opportunity.getOpportunityStage();
+        if (Objects.equals(previousStage != null ? previousStage.getId() : null, stage != null ? stage.getId() : null)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime enteredAt = salesOpportunityStageChangeRepository
+                .findTopByOpportunityIdOrderByChangedAtDesc(opportunity.getId())
+                .map(SalesOpportunityStageChange::getChangedAt)
+                .orElse(opportunity.getCreateTime() != null ? opportunity.getCreateTime() : now);
+        SalesOpportunityStageChange change = new SalesOpportunityStageChange();
+        change.setOpportunity(opportunity);
+        change.setFromStage(previousStage);
+        change.setToStage(stage);
+        change.setEnteredAt(enteredAt);
+        change.setChangedAt(now);
+        change.setDurationSeconds(Math.max(0, Duration.between(enteredAt, now).getSeconds()));
+        salesOpportunityStageChangeRepository.save(change);
+    }
+
     // ========== 销售机会跟踪 ==========
 
     @Transactional(readOnly = true)
@@ -432,7 +682,7 @@ public class SalesService {
         tracking.setRemark(request.getRemark());
 
         if (request.getStatusId() != null) {
-            OptionItem status = optionItemRepository.findById(request.getStatusId())
+            OptionItem status = optionDictionary.findById(request.getStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("跟踪状态选项不存在"));
             tracking.setStatus(status);
         }
@@ -462,7 +712,7 @@ public class SalesService {
         tracking.setRemark(request.getRemark());
 
         if (request.getStatusId() != null) {
-            OptionItem status = optionItemRepository.findById(request.getStatusId())
+            OptionItem status = optionDictionary.findById(request.getStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("跟踪状态选项不存在"));
             tracking.setStatus(status);
         } else {
@@ -527,6 +777,18 @@ public class SalesService {
         return inventories;
     }
 
+    /**
+     * 分页查询库存（键集分页，投影一次联表查询）
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SalesInventoryListItem> pageSalesInventories(String keyword, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = KeysetCursor.pageSize(size);
+        List<SalesInventoryListItem> rows = salesInventoryRepository.pageInventories(likePattern(keyword),
+                afterTime(after), afterId(after), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, SalesInventoryListItem::getCreateTime, SalesInventoryListItem::getId);
+    }
+
     @Transactional
     public SalesInventory createSalesInventory(SalesInventoryRequest request) {
         Product product = productRepository.findById(request.getProductId())
@@ -546,18 +808,23 @@ public class SalesService {
         inventory.setRemark(request.getRemark());
 
         if (request.getWarehouseId() != null) {
-            OptionItem warehouse = optionItemRepository.findById(request.getWarehouseId())
+            OptionItem warehouse = optionDictionary.findById(request.getWarehouseId())
                     .orElseThrow(() -> new IllegalArgumentException("仓库选项不存在"));
             inventory.setWarehouse(warehouse);
         }
 
-        return salesInventoryRepository.save(inventory);
+        SalesInventory saved = salesInventoryRepository.save(inventory);
+        salesInventoryLedger.recordCreated(saved);
+        return saved;
     }
 
     @Transactional
     public SalesInventory updateSalesInventory(UUID id, SalesInventoryRequest request) {
-        SalesInventory inventory = salesInventoryRepository.findById(id)
+        // 锁定库存记录，避免覆盖并发的降库、预留
+        SalesInventory inventory = salesInventoryRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new IllegalArgumentException("库存记录不存在"));
+        InventoryBalance before = new InventoryBalance(inventory.getQuantity(), inventory.getAvailableQuantity(),
+                inventory.getReservedQuantity(), inventory.getUnitPrice(), inventory.getTotalValue());
 
         Product product = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new IllegalArgumentException("产品不存在"));
@@ -577,7 +844,7 @@ public class SalesService {
         inventory.setRemark(request.getRemark());
 
         if (request.getWarehouseId() != null) {
-            OptionItem warehouse = optionItemRepository.findById(request.getWarehouseId())
+            OptionItem warehouse = optionDictionary.findById(request.getWarehouseId())
                     .orElseThrow(() -> new IllegalArgumentException("仓库选项不存在"));
             inventory.setWarehouse(warehouse);
         } else {
@@ -585,6 +852,7 @@ public class SalesService {
         }
 
         SalesInventory saved = salesInventoryRepository.save(inventory);
+        salesInventoryLedger.recordAdjusted(saved, before);
         if (saved.getProduct() != null) {
             Hibernate.initialize(saved.getProduct());
         }
@@ -596,16 +864,60 @@ public class SalesService {
 
     @Transactional
     public void deleteSalesInventory(UUID id) {
+        // 库存流水只追加不删除（总价值由流水重算），有流水的库存记录不能删除，只能调整数量
+        if (salesInventoryMovementRepository.existsByInventoryId(id)) {
+            throw new IllegalStateException("库存记录已有库存流水，不能删除");
+        }
         salesInventoryRepository.deleteById(id);
     }
 
+    /**
+     * 由库存流水重新累计库存总价值
+     */
+    @Transactional
+    public SalesInventory recomputeSalesInventoryValue(UUID id) {
+        SalesInventory inventory = salesInventoryLedger.recomputeTotalValue(id);
+        if (inventory.getProduct() != null) {
+            Hibernate.initialize(inventory.getProduct());
+        }
+        if (inventory.getWarehouse() != null) {
+            Hibernate.initialize(inventory.getWarehouse());
+        }
+        return inventory;
+    }
+
+    /**
+     * 为报价单批量预留库存（同一库存记录的多行明细合并），任一行可用数量不足时全部不预留
+     */
+    @Transactional
+    public void reserveQuotationInventory(UUID quotationId, InventoryReservationRequest request) {
+        if (!salesQuotationRepository.existsById(quotationId)) {
+            throw new IllegalArgumentException("报价单不存在");
+        }
+        Map<UUID, Integer> quantities = request.getLines().stream()
+                .collect(Collectors.toMap(InventoryReservationRequest.Line::getInventoryId,
+                        InventoryReservationRequest.Line::getQuantity, Integer::sum));
+        salesInventoryLedger.reserve(quotationId, quantities);
+    }
+
+    /**
+     * 释放报价单的全部库存预留
+     */
+    @Transactional
+    public void releaseQuotationInventory(UUID quotationId) {
+        salesInventoryLedger.release(quotationId);
+    }
+
     // ========== 销售报价管理 ==========
 
     @Transactional(readOnly = true)
     public List<SalesQuotation> findAllSalesQuotations(String keyword) {
         List<SalesQuotation> quotations;
         if (keyword != null && !keyword.trim().isEmpty()) {
-            quotations = salesQuotationRepository.searchQuotations(keyword.trim());
+            String trimmed = keyword.trim();
+            quotations = keywordSearchIndex.search(SearchDomain.SALES_QUOTATION, trimmed,
+                            salesQuotationRepository::findAllById)
+                    .orElseGet(() -> salesQuotationRepository.searchQuotations(trimmed));
         } else {
             quotations = salesQuotationRepository.findAll();
         }
@@ -624,6 +936,18 @@ public class SalesService {
         return quotations;
     }
 
+    /**
+     * 分页查询报价单（键集分页，投影一次联表查询）
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SalesQuotationListItem> pageSalesQuotations(String keyword, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = KeysetCursor.pageSize(size);
+        List<SalesQuotationListItem> rows = salesQuotationRepository.pageQuotations(likePattern(keyword),
+                afterTime(after), afterId(after), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, SalesQuotationListItem::getCreateTime, SalesQuotationListItem::getId);
+    }
+
     @Transactional
     public SalesQuotation createSalesQuotation(SalesQuotationRequest request) {
         // 检查报价单号是否已存在
@@ -652,12 +976,14 @@ public class SalesService {
         }
 
         if (request.getStatusId() != null) {
-            OptionItem status = optionItemRepository.findById(request.getStatusId())
+            OptionItem status = optionDictionary.findById(request.getStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("状态选项不存在"));
             quotation.setStatus(status);
         }
 
-        return salesQuotationRepository.save(quotation);
+        SalesQuotation saved = salesQuotationRepository.save(quotation);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.SALES_QUOTATION, saved.getId());
+        return saved;
     }
 
     @Transactional
@@ -694,7 +1020,7 @@ public class SalesService {
         }
 
         if (request.getStatusId() != null) {
-            OptionItem status = optionItemRepository.findById(request.getStatusId())
+            OptionItem status = optionDictionary.findById(request.getStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("状态选项不存在"));
             quotation.setStatus(status);
         } else {
@@ -702,6 +1028,7 @@ public class SalesService {
         }
 
         SalesQuotation saved = salesQuotationRepository.save(quotation);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.SALES_QUOTATION, saved.getId());
         if (saved.getCustomer() != null) {
             Hibernate.initialize(saved.getCustomer());
         }
@@ -716,7 +1043,9 @@ public class SalesService {
 
     @Transactional
     public void deleteSalesQuotation(UUID id) {
+        salesInventoryLedger.release(id);
         salesQuotationRepository.deleteById(id);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.SALES_QUOTATION, id);
     }
 
     // ========== 销售降库管理 ==========
@@ -747,6 +1076,18 @@ public class SalesService {
         return reductions;
     }
 
+    /**
+     * 分页查询降库记录（键集分页，投影一次联表查询）
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SalesInventoryReductionListItem> pageSalesInventoryReductions(String keyword, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = KeysetCursor.pageSize(size);
+        List<SalesInventoryReductionListItem> rows = salesInventoryReductionRepository.pageReductions(likePattern(keyword),
+                afterTime(after), afterId(after), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, SalesInventoryReductionListItem::getCreateTime, SalesInventoryReductionListItem::getId);
+    }
+
     @Transactional
     public SalesInventoryReduction createSalesInventoryReduction(SalesInventoryReductionRequest request) {
         // 检查降库单号是否已存在
@@ -768,13 +1109,13 @@ public class SalesService {
         reduction.setRemark(request.getRemark());
 
         if (request.getWarehouseId() != null) {
-            OptionItem warehouse = optionItemRepository.findById(request.getWarehouseId())
+            OptionItem warehouse = optionDictionary.findById(request.getWarehouseId())
                     .orElseThrow(() -> new IllegalArgumentException("仓库选项不存在"));
             reduction.setWarehouse(warehouse);
         }
 
         if (request.getReductionTypeId() != null) {
-            OptionItem reductionType = optionItemRepository.findById(request.getReductionTypeId())
+            OptionItem reductionType = optionDictionary.findById(request.getReductionTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("降库类型选项不存在"));
             reduction.setReductionType(reductionType);
         }
@@ -785,7 +1126,9 @@ public class SalesService {
             reduction.setOperator(operator);
         }
 
-        return salesInventoryReductionRepository.save(reduction);
+        SalesInventoryReduction saved = salesInventoryReductionRepository.save(reduction);
+        salesInventoryLedger.reduce(saved.getId(), product.getId(), request.getWarehouseId(), request.getQuantity());
+        return saved;
     }
 
     @Transactional
@@ -813,7 +1156,7 @@ public class SalesService {
         reduction.setRemark(request.getRemark());
 
         if (request.getWarehouseId() != null) {
-            OptionItem warehouse = optionItemRepository.findById(request.getWarehouseId())
+            OptionItem warehouse = optionDictionary.findById(request.getWarehouseId())
                     .orElseThrow(() -> new IllegalArgumentException("仓库选项不存在"));
             reduction.setWarehouse(warehouse);
         } else {
@@ -821,7 +1164,7 @@ public class SalesService {
         }
 
         if (request.getReductionTypeId() != null) {
-            OptionItem reductionType = optionItemRepository.findById(request.getReductionTypeId())
+            OptionItem reductionType = optionDictionary.findById(request.getReductionTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("降库类型选项不存在"));
             reduction.setReductionType(reductionType);
         } else {
@@ -837,6 +1180,8 @@ public class SalesService {
         }
 
         SalesInventoryReduction saved = salesInventoryReductionRepository.save(reduction);
+        // 先冲回原降库再按新内容扣减，扣减失败时整个修改回滚
+        salesInventoryLedger.reapplyReduction(id, product.getId(), request.getWarehouseId(), request.getQuantity());
         if (saved.getProduct() != null) {
             Hibernate.initialize(saved.getProduct());
         }
@@ -854,6 +1199,7 @@ public class SalesService {
 
     @Transactional
     public void deleteSalesInventoryReduction(UUID id) {
+        salesInventoryLedger.reverseReduction(id);
         salesInventoryReductionRepository.deleteById(id);
     }
 
@@ -863,7 +1209,9 @@ public class SalesService {
     public List<Bidding> findAllBiddings(String keyword) {
         List<Bidding> biddings;
         if (keyword != null && !keyword.trim().isEmpty()) {
-            biddings = biddingRepository.searchBiddings(keyword.trim());
+            String trimmed = keyword.trim();
+            biddings = keywordSearchIndex.search(SearchDomain.BIDDING, trimmed, biddingRepository::findAllById)
+                    .orElseGet(() -> biddingRepository.searchBiddings(trimmed));
         } else {
             biddings = biddingRepository.findAll();
         }
@@ -882,6 +1230,18 @@ public class SalesService {
         return biddings;
     }
 
+    /**
+     * 分页查询投标记录（键集分页，投影一次联表查询）
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BiddingListItem> pageBiddings(String keyword, String cursor, Integer size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = KeysetCursor.pageSize(size);
+        List<BiddingListItem> rows = biddingRepository.pageBiddings(likePattern(keyword),
+                afterTime(after), afterId(after), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, BiddingListItem::getCreateTime, BiddingListItem::getId);
+    }
+
     @Transactional
     public Bidding createBidding(BiddingRequest request) {
         // 检查投标编号是否已存在
@@ -919,7 +1279,7 @@ public class SalesService {
         }
 
         if (request.getBiddingTypeId() != null) {
-            OptionItem biddingType = optionItemRepository.findById(request.getBiddingTypeId())
+            OptionItem biddingType = optionDictionary.findById(request.getBiddingTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("投标类型选项不存在"));
             bidding.setBiddingType(biddingType);
         }
@@ -931,18 +1291,20 @@ public class SalesService {
         }
 
         if (request.getBiddingStatusId() != null) {
-            OptionItem biddingStatus = optionItemRepository.findById(request.getBiddingStatusId())
+            OptionItem biddingStatus = optionDictionary.findById(request.getBiddingStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("投标状态选项不存在"));
             bidding.setBiddingStatus(biddingStatus);
         }
 
         if (request.getSummaryStatusId() != null) {
-            OptionItem summaryStatus = optionItemRepository.findById(request.getSummaryStatusId())
+            OptionItem summaryStatus = optionDictionary.findById(request.getSummaryStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("投标总结状态选项不存在"));
             bidding.setSummaryStatus(summaryStatus);
         }
 
-        return biddingRepository.save(bidding);
+        Bidding saved = biddingRepository.save(bidding);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.BIDDING, saved.getId());
+        return saved;
     }
 
     @Transactional
@@ -988,7 +1350,7 @@ public class SalesService {
         }
 
         if (request.getBiddingTypeId() != null) {
-            OptionItem biddingType = optionItemRepository.findById(request.getBiddingTypeId())
+            OptionItem biddingType = optionDictionary.findById(request.getBiddingTypeId())
                     .orElseThrow(() -> new IllegalArgumentException("投标类型选项不存在"));
             bidding.setBiddingType(biddingType);
         } else {
@@ -1004,7 +1366,7 @@ public class SalesService {
         }
 
         if (request.getBiddingStatusId() != null) {
-            OptionItem biddingStatus = optionItemRepository.findById(request.getBiddingStatusId())
+            OptionItem biddingStatus = optionDictionary.findById(request.getBiddingStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("投标状态选项不存在"));
             bidding.setBiddingStatus(biddingStatus);
         } else {
@@ -1012,7 +1374,7 @@ public class SalesService {
         }
 
         if (request.getSummaryStatusId() != null) {
-            OptionItem summaryStatus = optionItemRepository.findById(request.getSummaryStatusId())
+            OptionItem summaryStatus = optionDictionary.findById(request.getSummaryStatusId())
                     .orElseThrow(() -> new IllegalArgumentException("投标总结状态选项不存在"));
             bidding.setSummaryStatus(summaryStatus);
         } else {
@@ -1020,6 +1382,7 @@ public class SalesService {
         }
 
         Bidding saved = biddingRepository.save(bidding);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.BIDDING, saved.getId());
         if (saved.getCustomer() != null) {
             Hibernate.initialize(saved.getCustomer());
         }
@@ -1035,6 +1398,25 @@ public class SalesService {
     @Transactional
     public void deleteBidding(UUID id) {
         biddingRepository.deleteById(id);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.BIDDING, id);
+    }
+
+    /**
+     * 关键字转为 LIKE 模式（包含匹配），% _ 按字面匹配；关键字为空时返回 null（不过滤）
+     */
+    static String likePattern(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return null;
+        }
+        String escaped = keyword.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    private static LocalDateTime afterTime(KeysetCursor cursor) {
+        return cursor != null ? cursor.getCreateTime() : null;
     }
-}
 
+    private static UUID afterId(KeysetCursor cursor) {
+        return cursor != null ? cursor.getId() : null;
+    }
+}
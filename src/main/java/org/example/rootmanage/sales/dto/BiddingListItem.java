@@ -0,0 +1,39 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 投标记录列表行（投影，不含技术方案、投标内容等大字段）
+ */
+@Getter
+@AllArgsConstructor
+public class BiddingListItem {
+
+    private final UUID id;
+    private final String biddingNo; // 投标编号
+    private final String biddingName; // 投标名称
+    private final UUID customerId;
+    private final String customerName; // 客户名称
+    private final UUID opportunityId;
+    private final String opportunityName; // 机会名称
+    private final String projectName; // 项目名称
+    private final LocalDate biddingDate; // 投标时间
+    private final LocalDate deadline; // 截止日期
+    private final UUID biddingTypeId;
+    private final String biddingType; // 投标类型
+    private final UUID responsiblePersonId;
+    private final String responsiblePersonName; // 负责人
+    private final UUID biddingStatusId;
+    private final String biddingStatus; // 投标状态
+    private final BigDecimal biddingAmount; // 投标金额
+    private final BigDecimal estimatedProfit; // 预计利润
+    private final UUID summaryStatusId;
+    private final String summaryStatus; // 投标总结状态
+    private final LocalDateTime createTime;
+}
@@ -0,0 +1,25 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 客户来访列表行（投影，客户和接待人名称随同一查询取出）
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerVisitListItem {
+
+    private final UUID id;
+    private final UUID customerId;
+    private final String customerName; // 客户名称
+    private final LocalDateTime visitTime; // 来访时间
+    private final UUID receptionistId;
+    private final String receptionistName; // 接待人
+    private final String visitPurpose; // 来访目的
+    private final String visitResult; // 来访结果
+    private final LocalDateTime createTime;
+}
@@ -0,0 +1,35 @@
+package org.example.rootmanage.sales.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class InventoryReservationRequest {
+
+    @NotEmpty(message = "预留明细不能为空")
+    @Valid
+    private List<Line> lines;
+
+    /**
+     * 报价明细对应的库存预留
+     */
+    @Getter
+    @Setter
+    public static class Line {
+
+        @NotNull(message = "库存记录ID不能为空")
+        private UUID inventoryId;
+
+        @NotNull(message = "预留数量不能为空")
+        @Positive(message = "预留数量必须大于0")
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 分配记录的机会、片区、营销人员（投影），用于批量分配时在内存中查重
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class OpportunityAssignmentKey {
+
+    private final UUID opportunityId;
+    private final UUID areaId;
+    private final UUID personnelId;
+}
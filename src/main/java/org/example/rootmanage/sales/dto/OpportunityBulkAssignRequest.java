@@ -0,0 +1,26 @@
+package org.example.rootmanage.sales.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class OpportunityBulkAssignRequest {
+
+    @NotEmpty(message = "销售机会ID列表不能为空")
+    private List<UUID> opportunityIds;
+
+    /**
+     * 目标片区（同传递销售机会），与营销人员至少填写一项
+     */
+    private List<UUID> areaIds;
+
+    /**
+     * 目标营销人员（同分配员工，按其负责区域分配），与片区至少填写一项
+     */
+    private List<UUID> personnelIds;
+}
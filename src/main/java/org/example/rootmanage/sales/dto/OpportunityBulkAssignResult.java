@@ -0,0 +1,57 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 批量分配结果：汇总数量及每个 机会 × 目标 的处理结果
+ */
+@Getter
+public class OpportunityBulkAssignResult {
+
+    private int created;
+    private int duplicated;
+    private int failed;
+    private final List<Item> items = new ArrayList<>();
+
+    public void add(Item item) {
+        switch (item.getStatus()) {
+            case CREATED -> created++;
+            case DUPLICATE -> duplicated++;
+            case FAILED -> failed++;
+        }
+        items.add(item);
+    }
+
+    public enum Status {
+        /**
+         * 已新增分配记录
+         */
+        CREATED,
+        /**
+         * 已存在相同分配，跳过
+         */
+        DUPLICATE,
+        /**
+         * 机会、片区或营销人员无效，跳过
+         */
+        FAILED
+    }
+
+    /**
+     * 单个 机会 × 片区/营销人员 的处理结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Item {
+        private final UUID opportunityId;
+        private final UUID areaId;
+        private final UUID personnelId;
+        private final Status status;
+        private final String message;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 销售漏斗汇总行
+ */
+@Data
+public class SalesFunnelRow {
+    private String key; // 维度值：片区ID、负责人ID、阶段ID 或 月份（yyyy-MM），未设置时为 null
+    private String name; // 维度名称
+    private long opportunityCount; // 机会数
+    private BigDecimal estimatedAmount = BigDecimal.ZERO; // 预计金额合计
+    private long wonCount; // 成交数
+    private BigDecimal wonAmount = BigDecimal.ZERO; // 成交机会的预计金额合计
+    private long lostCount; // 流失/关闭数
+    private BigDecimal winRate; // 赢单率 = 成交数 / (成交数 + 流失数)，尚无结果时为 null
+}
@@ -0,0 +1,33 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 销售库存列表行（投影，产品和仓库名称随同一查询取出）
+ */
+@Getter
+@AllArgsConstructor
+public class SalesInventoryListItem {
+
+    private final UUID id;
+    private final UUID productId;
+    private final String productName; // 产品名称
+    private final String productCode; // 产品编码
+    private final UUID warehouseId;
+    private final String warehouse; // 仓库
+    private final Integer quantity; // 库存数量
+    private final Integer availableQuantity; // 可用数量
+    private final Integer reservedQuantity; // 预留数量
+    private final BigDecimal unitPrice; // 单价
+    private final BigDecimal totalValue; // 总价值
+    private final String location; // 存放位置
+    private final String drawingNo; // 图号
+    private final String material; // 材料
+    private final Boolean isStagnant; // 是否呆滞
+    private final LocalDateTime createTime;
+}
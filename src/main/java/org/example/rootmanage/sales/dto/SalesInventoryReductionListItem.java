@@ -0,0 +1,34 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 降库记录列表行（投影，产品、仓库、类型和操作人名称随同一查询取出）
+ */
+@Getter
+@AllArgsConstructor
+public class SalesInventoryReductionListItem {
+
+    private final UUID id;
+    private final String reductionNo; // 降库单号
+    private final UUID productId;
+    private final String productName; // 产品名称
+    private final Integer quantity; // 降库数量
+    private final UUID warehouseId;
+    private final String warehouse; // 仓库
+    private final LocalDate reductionDate; // 降库日期
+    private final UUID reductionTypeId;
+    private final String reductionType; // 降库类型
+    private final UUID operatorId;
+    private final String operatorName; // 操作人
+    private final BigDecimal unitPrice; // 单价
+    private final BigDecimal totalAmount; // 总金额
+    private final String reason; // 降库原因
+    private final LocalDateTime createTime;
+}
@@ -0,0 +1,40 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 销售机会列表行（投影，客户、产品、负责人和选项名称随同一查询取出）
+ */
+@Getter
+@AllArgsConstructor
+public class SalesOpportunityListItem {
+
+    private final UUID id;
+    private final String opportunityName; // 机会名称
+    private final String opportunitySubject; // 销售机会主题
+    private final LocalDate opportunityDate; // 销售机会日期
+    private final BigDecimal estimatedAmount; // 预计金额
+    private final LocalDate expectedCloseDate; // 预计成交日期
+    private final BigDecimal successProbability; // 成功概率（0-100）
+    private final Boolean received; // 接收状态
+    private final Boolean submitted; // 提交状态
+    private final UUID customerId;
+    private final String customerName; // 客户名称
+    private final UUID productId;
+    private final String productName; // 产品名称
+    private final UUID salespersonId;
+    private final String salespersonName; // 销售负责人
+    private final UUID opportunityStageId;
+    private final String opportunityStage; // 机会阶段
+    private final UUID leadSourceId;
+    private final String leadSource; // 线索来源
+    private final UUID statusId;
+    private final String status; // 状态
+    private final LocalDateTime createTime;
+}
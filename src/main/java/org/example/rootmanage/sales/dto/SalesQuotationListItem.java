@@ -0,0 +1,31 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 报价单列表行（投影，不含报价明细和条款等大字段）
+ */
+@Getter
+@AllArgsConstructor
+public class SalesQuotationListItem {
+
+    private final UUID id;
+    private final String quotationNo; // 报价单号
+    private final UUID customerId;
+    private final String customerName; // 客户名称
+    private final UUID salespersonId;
+    private final String salespersonName; // 销售负责人
+    private final LocalDate quotationDate; // 报价日期
+    private final LocalDate validUntil; // 有效期至
+    private final BigDecimal totalAmount; // 总金额
+    private final String projectName; // 项目名称
+    private final UUID statusId;
+    private final String status; // 状态
+    private final LocalDateTime createTime;
+}
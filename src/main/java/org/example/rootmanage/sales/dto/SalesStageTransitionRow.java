@@ -0,0 +1,19 @@
+package org.example.rootmanage.sales.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * 阶段变更耗时汇总行
+ */
+@Data
+public class SalesStageTransitionRow {
+    private UUID fromStageId; // 变更前阶段，未设置阶段时为 null
+    private String fromStageName;
+    private UUID toStageId; // 变更后阶段
+    private String toStageName;
+    private long transitionCount; // 变更次数
+    private BigDecimal averageDays; // 在变更前阶段的平均停留天数
+}
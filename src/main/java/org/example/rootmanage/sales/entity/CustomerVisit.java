@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -21,7 +22,8 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "customer_visit")
+@Table(name = "customer_visit",
+        indexes = @Index(name = "idx_customer_visit_create_time", columnList = "createTime, id"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class CustomerVisit extends BaseEntity {
 
@@ -0,0 +1,27 @@
+package org.example.rootmanage.sales.entity;
+
+/**
+ * 库存流水类型
+ */
+public enum InventoryMovementType {
+    /**
+     * 手工新增或修改库存记录
+     */
+    ADJUSTMENT,
+    /**
+     * 降库（扣减库存数量和可用数量）
+     */
+    REDUCTION,
+    /**
+     * 降库冲回（降库记录修改或删除时）
+     */
+    REDUCTION_REVERSAL,
+    /**
+     * 报价预留（可用数量转为预留数量）
+     */
+    RESERVATION,
+    /**
+     * 释放报价预留
+     */
+    RELEASE
+}
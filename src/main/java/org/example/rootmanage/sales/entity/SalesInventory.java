@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -21,7 +22,8 @@ import java.math.BigDecimal;
 @Getter
 @Setter
 @Entity
-@Table(name = "sales_inventory")
+@Table(name = "sales_inventory",
+        indexes = @Index(name = "idx_sales_inventory_create_time", columnList = "createTime, id"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class SalesInventory extends BaseEntity {
 
@@ -0,0 +1,68 @@
+package org.example.rootmanage.sales.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.rootmanage.common.BaseEntity;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * 库存流水（只追加不修改）
+ * 每次库存变动记录各数量、总价值的变化量和变动后的结存，总价值可由流水重新累计得出
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "sales_inventory_movement",
+        indexes = {
+                @Index(name = "idx_sales_inventory_movement_inventory", columnList = "inventory_id, createTime"),
+                @Index(name = "idx_sales_inventory_movement_reference", columnList = "referenceId")
+        })
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class SalesInventoryMovement extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_id", nullable = false)
+    private SalesInventory inventory; // 库存记录
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private InventoryMovementType movementType; // 流水类型
+
+    private UUID referenceId; // 来源单据ID（降库记录ID、报价单ID）
+
+    @Column(nullable = false)
+    private Integer quantityDelta; // 库存数量变化
+
+    @Column(nullable = false)
+    private Integer availableDelta; // 可用数量变化
+
+    @Column(nullable = false)
+    private Integer reservedDelta; // 预留数量变化
+
+    @Column(nullable = false)
+    private BigDecimal valueDelta; // 总价值变化
+
+    @Column(nullable = false)
+    private Integer quantityAfter; // 变动后库存数量
+
+    @Column(nullable = false)
+    private Integer availableAfter; // 变动后可用数量
+
+    @Column(nullable = false)
+    private Integer reservedAfter; // 变动后预留数量
+
+    @Column(nullable = false)
+    private BigDecimal valueAfter; // 变动后总价值
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -23,7 +24,8 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @Entity
-@Table(name = "sales_inventory_reduction")
+@Table(name = "sales_inventory_reduction",
+        indexes = @Index(name = "idx_sales_inventory_reduction_create_time", columnList = "createTime, id"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class SalesInventoryReduction extends BaseEntity {
 
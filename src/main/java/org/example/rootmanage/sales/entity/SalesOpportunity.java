@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -24,7 +25,8 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @Entity
-@Table(name = "sales_opportunity")
+@Table(name = "sales_opportunity",
+        indexes = @Index(name = "idx_sales_opportunity_create_time", columnList = "createTime, id"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class SalesOpportunity extends BaseEntity {
 
@@ -0,0 +1,49 @@
+package org.example.rootmanage.sales.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.rootmanage.common.BaseEntity;
+import org.example.rootmanage.option.OptionItem;
+
+import java.time.LocalDateTime;
+
+/**
+ * 销售机会阶段变更记录（用于统计各阶段停留时长）
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "sales_opportunity_stage_change",
+        indexes = @Index(name = "idx_sales_opportunity_stage_change_opportunity", columnList = "opportunity_id, changedAt"))
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class SalesOpportunityStageChange extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "opportunity_id", nullable = false)
+    private SalesOpportunity opportunity; // 销售机会
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "from_stage_id")
+    private OptionItem fromStage; // 变更前阶段
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "to_stage_id")
+    private OptionItem toStage; // 变更后阶段
+
+    @Column(nullable = false)
+    private LocalDateTime enteredAt; // 进入变更前阶段的时间
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt; // 变更时间
+
+    @Column(nullable = false)
+    private Long durationSeconds; // 在变更前阶段停留的秒数
+}
@@ -0,0 +1,23 @@
+package org.example.rootmanage.sales.funnel;
+
+/**
+ * 销售漏斗汇总维度
+ */
+public enum FunnelDimension {
+    /**
+     * 按片区
+     */
+    AREA,
+    /**
+     * 按销售负责人
+     */
+    SALESPERSON,
+    /**
+     * 按机会阶段
+     */
+    STAGE,
+    /**
+     * 按机会日期所在月份
+     */
+    MONTH
+}
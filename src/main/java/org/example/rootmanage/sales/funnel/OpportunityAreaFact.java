@@ -0,0 +1,17 @@
+package org.example.rootmanage.sales.funnel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 机会的片区分配（投影），同一机会按主要片区优先、分配时间先后排列，取第一条作为机会所属片区
+ */
+@Getter
+@AllArgsConstructor
+public class OpportunityAreaFact {
+
+    private final UUID opportunityId;
+    private final UUID areaId;
+}
@@ -0,0 +1,25 @@
+package org.example.rootmanage.sales.funnel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * 参与销售漏斗汇总的机会字段（投影）
+ */
+@Getter
+@AllArgsConstructor
+public class OpportunityFact {
+
+    private final UUID opportunityId;
+    private final LocalDate opportunityDate;
+    private final UUID salespersonId;
+    private final UUID stageId;
+    private final BigDecimal estimatedAmount;
+    private final String statusTitle;
+    private final String statusValue;
+    private final String closeReason;
+}
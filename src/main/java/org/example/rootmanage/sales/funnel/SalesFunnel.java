@@ -0,0 +1,508 @@
+package org.example.rootmanage.sales.funnel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.sales.SalesOpportunityAssignmentRepository;
+import org.example.rootmanage.sales.SalesOpportunityRepository;
+import org.example.rootmanage.sales.SalesOpportunityStageChangeRepository;
+import org.example.rootmanage.sales.dto.SalesFunnelRow;
+import org.example.rootmanage.sales.dto.SalesStageTransitionRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 销售漏斗汇总（物化在内存中）
+ * 每个机会按（月份、片区、负责人、阶段）落入一个汇总格，格内累计机会数、预计金额、成交/流失数；阶段变更按（变更前、变更后阶段）
+ * 累计次数和停留时长。看板查询只合并汇总格，耗时与格数（月份×片区×人员×阶段）相关，与机会历史总量无关。
+ * 机会的新增、修改、关闭、分配、删除提交后按机会ID重新读取该机会的汇总字段，先减去旧贡献再加上新贡献；
+ * 每天定时全量重算一次并原子替换，修正其他实例写入或并发刷新造成的偏差，重算期间刷新过的机会在替换后重放。
+ */
+@Slf4j
+@Component
+public class SalesFunnel {
+
+    /**
+     * 汇总统计
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int opportunities;
+        private final int cells;
+        private final long reconciles;
+        /**
+         * 最近一次全量重算发现的与增量结果不一致的机会数
+         */
+        private final int lastDrift;
+    }
+
+    private static final BigDecimal SECONDS_PER_DAY = BigDecimal.valueOf(86_400);
+
+    /**
+     * 批量刷新超过该机会数时改为全量重算（几次投影查询），不再逐个机会查询
+     */
+    private static final int BULK_REFRESH_LIMIT = 200;
+
+    private final SalesOpportunityRepository opportunityRepository;
+    private final SalesOpportunityAssignmentRepository assignmentRepository;
+    private final SalesOpportunityStageChangeRepository stageChangeRepository;
+
+    /**
+     * 视为成交的机会状态（选项标题或值）
+     */
+    @Value("${sales.funnel.won-statuses:已成交}")
+    private List<String> wonStatuses = List.of("已成交");
+
+    /**
+     * 视为流失的机会状态（选项标题或值），填写了关闭原因的机会同样视为流失
+     */
+    @Value("${sales.funnel.lost-statuses:已流失,已关闭}")
+    private List<String> lostStatuses = List.of("已流失", "已关闭");
+
+    /**
+     * 保护汇总数据（只在内存中持有，不在持有期间访问数据库）
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 全量重算时持有，保证同一时刻只有一个重算在执行
+     */
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private Cube cube;
+
+    /**
+     * 重算期间刷新过的机会，替换后重放；不在重算时为 null
+     */
+    private Set<UUID> refreshedDuringReload;
+
+    private long reconciles;
+    private int lastDrift;
+
+    public SalesFunnel(SalesOpportunityRepository opportunityRepository,
+                       SalesOpportunityAssignmentRepository assignmentRepository,
+                       SalesOpportunityStageChangeRepository stageChangeRepository) {
+        this.opportunityRepository = opportunityRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.stageChangeRepository = stageChangeRepository;
+    }
+
+    /**
+     * 按维度汇总
+     *
+     * @param from 机会日期起（含，按月对齐），为 null 时不限
+     * @param to   机会日期止（含，按月对齐），为 null 时不限
+     */
+    public List<SalesFunnelRow> aggregate(FunnelDimension dimension, LocalDate from, LocalDate to) {
+        YearMonth fromMonth = from != null ? YearMonth.from(from) : null;
+        YearMonth toMonth = to != null ? YearMonth.from(to) : null;
+        Function<CellKey, Object> keyOf = switch (dimension) {
+            case AREA -> CellKey::areaId;
+            case SALESPERSON -> CellKey::salespersonId;
+            case STAGE -> CellKey::stageId;
+            case MONTH -> CellKey::month;
+        };
+        Map<Object, Measures> groups = new HashMap<>();
+        Measures unassigned = new Measures();
+        Cube current = ensureLoaded();
+        lock.lock();
+        try {
+            current.cells.forEach((key, measures) -> {
+                if ((fromMonth != null && key.month().isBefore(fromMonth))
+                        || (toMonth != null && key.month().isAfter(toMonth))) {
+                    return;
+                }
+                Object group = keyOf.apply(key);
+                (group != null ? groups.computeIfAbsent(group, k -> new Measures()) : unassigned).merge(measures);
+            });
+        } finally {
+            lock.unlock();
+        }
+        List<SalesFunnelRow> rows = new ArrayList<>(groups.size() + 1);
+        groups.forEach((group, measures) -> rows.add(measures.toRow(group.toString())));
+        rows.sort(Comparator.comparing(SalesFunnelRow::getKey));
+        if (unassigned.count > 0) {
+            rows.add(unassigned.toRow(null));
+        }
+        return rows;
+    }
+
+    /**
+     * 阶段变更次数及平均停留天数，按变更次数降序
+     */
+    public List<SalesStageTransitionRow> stageTransitions() {
+        List<SalesStageTransitionRow> rows = new ArrayList<>();
+        Cube current = ensureLoaded();
+        lock.lock();
+        try {
+            current.transitions.forEach((key, durations) -> {
+                SalesStageTransitionRow row = new SalesStageTransitionRow();
+                row.setFromStageId(key.fromStageId());
+                row.setToStageId(key.toStageId());
+                row.setTransitionCount(durations.count);
+                row.setAverageDays(BigDecimal.valueOf(durations.totalSeconds)
+                        .divide(SECONDS_PER_DAY.multiply(BigDecimal.valueOf(durations.count)), 2, RoundingMode.HALF_UP));
+                rows.add(row);
+            });
+        } finally {
+            lock.unlock();
+        }
+        rows.sort(Comparator.comparingLong(SalesStageTransitionRow::getTransitionCount).reversed());
+        return rows;
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(cube != null ? cube.opportunities.size() : 0, cube != null ? cube.cells.size() : 0,
+                    reconciles, lastDrift);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 机会变更后刷新其汇总贡献（提交后生效）
+     */
+    public void refreshAfterCommit(UUID opportunityId) {
+        AfterCommit.run(() -> refreshQuietly(opportunityId));
+    }
+
+    /**
+     * 批量变更后刷新多个机会的汇总贡献（提交后生效），机会较多且汇总已加载时改为全量重算；汇总未加载时不查库
+     */
+    public void refreshAfterCommit(Collection<UUID> opportunityIds) {
+        if (opportunityIds.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (!isTracking()) {
+                return;
+            }
+            if (opportunityIds.size() <= BULK_REFRESH_LIMIT) {
+                opportunityIds.forEach(this::refreshQuietly);
+            } else if (isLoaded()) {
+                reconcile();
+            }
+        });
+    }
+
+    private boolean isLoaded() {
+        lock.lock();
+        try {
+            return cube != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在提交后回调中刷新：业务事务已提交，刷新失败只记录日志，偏差由每天的全量重算修正
+     */
+    private void refreshQuietly(UUID opportunityId) {
+        try {
+            refresh(opportunityId);
+        } catch (RuntimeException e) {
+            log.warn("销售漏斗刷新机会 {} 失败", opportunityId, e);
+        }
+    }
+
+    /**
+     * 汇总已加载或正在加载（需要记录加载期间的刷新）
+     */
+    private boolean isTracking() {
+        lock.lock();
+        try {
+            return cube != null || refreshedDuringReload != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 重新读取一个机会并替换其汇总贡献，机会已删除时移除；汇总尚未加载时不查库（首次查询时全量加载）
+     */
+    void refresh(UUID opportunityId) {
+        if (!isTracking()) {
+            return;
+        }
+        List<OpportunityFact> facts = opportunityRepository.findFunnelFacts(opportunityId);
+        Contribution contribution = null;
+        if (!facts.isEmpty()) {
+            UUID areaId = assignmentRepository.findAreaFacts(opportunityId).stream().findFirst()
+                    .map(OpportunityAreaFact::getAreaId).orElse(null);
+            contribution = contribution(facts.get(0), areaId, stageChangeRepository.findTransitionFacts(opportunityId));
+        }
+        lock.lock();
+        try {
+            if (refreshedDuringReload != null) {
+                refreshedDuringReload.add(opportunityId);
+            }
+            if (cube != null) {
+                cube.put(opportunityId, contribution);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 每天全量重算一次，修正增量汇总的偏差
+     */
+    @Scheduled(cron = "${sales.funnel.reconcile-cron:0 20 3 * * *}")
+    public void reconcile() {
+        reloadLock.lock();
+        try {
+            reload();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Cube ensureLoaded() {
+        lock.lock();
+        try {
+            if (cube != null) {
+                return cube;
+            }
+        } finally {
+            lock.unlock();
+        }
+        reloadLock.lock();
+        try {
+            lock.lock();
+            try {
+                if (cube != null) {
+                    return cube;
+                }
+            } finally {
+                lock.unlock();
+            }
+            return reload();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Cube reload() {
+        lock.lock();
+        try {
+            refreshedDuringReload = new HashSet<>();
+        } finally {
+            lock.unlock();
+        }
+        Cube rebuilt;
+        try {
+            Map<UUID, UUID> areas = new HashMap<>();
+            for (OpportunityAreaFact fact : assignmentRepository.findAreaFacts()) {
+                areas.putIfAbsent(fact.getOpportunityId(), fact.getAreaId());
+            }
+            Map<UUID, List<StageTransitionFact>> transitions = new HashMap<>();
+            for (StageTransitionFact fact : stageChangeRepository.findTransitionFacts()) {
+                transitions.computeIfAbsent(fact.getOpportunityId(), key -> new ArrayList<>()).add(fact);
+            }
+            rebuilt = new Cube();
+            for (OpportunityFact fact : opportunityRepository.findFunnelFacts()) {
+                UUID id = fact.getOpportunityId();
+                rebuilt.put(id, contribution(fact, areas.get(id), transitions.getOrDefault(id, List.of())));
+            }
+        } catch (RuntimeException e) {
+            // 重算失败时不再记录刷新，已加载的汇总照常增量刷新，未加载的在下次查询时重试
+            lock.lock();
+            try {
+                refreshedDuringReload = null;
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+        Set<UUID> replay;
+        lock.lock();
+        try {
+            int drift = cube != null ? rebuilt.diff(cube, refreshedDuringReload) : 0;
+            cube = rebuilt;
+            replay = refreshedDuringReload;
+            refreshedDuringReload = null;
+            reconciles++;
+            lastDrift = drift;
+            if (drift > 0) {
+                log.warn("销售漏斗重算修正了 {} 个机会的汇总偏差", drift);
+            }
+        } finally {
+            lock.unlock();
+        }
+        // 重算读取的数据可能早于重算期间提交的变更，按ID重放（刷新是幂等的）
+        replay.forEach(this::refreshQuietly);
+        return rebuilt;
+    }
+
+    private Contribution contribution(OpportunityFact fact, UUID areaId, List<StageTransitionFact> transitions) {
+        CellKey key = new CellKey(YearMonth.from(fact.getOpportunityDate()), areaId, fact.getSalespersonId(),
+                fact.getStageId());
+        Outcome outcome;
+        if (matches(wonStatuses, fact)) {
+            outcome = Outcome.WON;
+        } else if (matches(lostStatuses, fact) || (fact.getCloseReason() != null && !fact.getCloseReason().isBlank())) {
+            outcome = Outcome.LOST;
+        } else {
+            outcome = Outcome.OPEN;
+        }
+        List<Transition> changes = new ArrayList<>(transitions.size());
+        for (StageTransitionFact transition : transitions) {
+            changes.add(new Transition(new TransitionKey(transition.getFromStageId(), transition.getToStageId()),
+                    transition.getDurationSeconds() != null ? transition.getDurationSeconds() : 0));
+        }
+        return new Contribution(key, fact.getEstimatedAmount() != null ? fact.getEstimatedAmount() : BigDecimal.ZERO,
+                outcome, changes);
+    }
+
+    private static boolean matches(List<String> statuses, OpportunityFact fact) {
+        return (fact.getStatusTitle() != null && statuses.contains(fact.getStatusTitle()))
+                || (fact.getStatusValue() != null && statuses.contains(fact.getStatusValue()));
+    }
+
+    private enum Outcome {
+        OPEN, WON, LOST
+    }
+
+    private record CellKey(YearMonth month, UUID areaId, UUID salespersonId, UUID stageId) {
+    }
+
+    private record TransitionKey(UUID fromStageId, UUID toStageId) {
+    }
+
+    private record Transition(TransitionKey key, long seconds) {
+    }
+
+    /**
+     * 一个机会对汇总的贡献
+     */
+    private record Contribution(CellKey key, BigDecimal amount, Outcome outcome, List<Transition> transitions) {
+    }
+
+    /**
+     * 汇总格内的累计值
+     */
+    private static final class Measures {
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long wonCount;
+        private BigDecimal wonAmount = BigDecimal.ZERO;
+        private long lostCount;
+
+        private void add(Contribution contribution, int sign) {
+            count += sign;
+            amount = amount.add(sign > 0 ? contribution.amount() : contribution.amount().negate());
+            if (contribution.outcome() == Outcome.WON) {
+                wonCount += sign;
+                wonAmount = wonAmount.add(sign > 0 ? contribution.amount() : contribution.amount().negate());
+            } else if (contribution.outcome() == Outcome.LOST) {
+                lostCount += sign;
+            }
+        }
+
+        private void merge(Measures other) {
+            count += other.count;
+            amount = amount.add(other.amount);
+            wonCount += other.wonCount;
+            wonAmount = wonAmount.add(other.wonAmount);
+            lostCount += other.lostCount;
+        }
+
+        private SalesFunnelRow toRow(String key) {
+            SalesFunnelRow row = new SalesFunnelRow();
+            row.setKey(key);
+            row.setOpportunityCount(count);
+            row.setEstimatedAmount(amount);
+            row.setWonCount(wonCount);
+            row.setWonAmount(wonAmount);
+            row.setLostCount(lostCount);
+            long decided = wonCount + lostCount;
+            row.setWinRate(decided > 0
+                    ? BigDecimal.valueOf(wonCount).divide(BigDecimal.valueOf(decided), 4, RoundingMode.HALF_UP)
+                    : null);
+            return row;
+        }
+    }
+
+    private static final class Durations {
+        private long count;
+        private long totalSeconds;
+    }
+
+    /**
+     * 汇总数据：每个机会的贡献，以及按汇总格、阶段变更累计的值（调用方持有 lock）
+     */
+    private static final class Cube {
+        private final Map<UUID, Contribution> opportunities = new HashMap<>();
+        private final Map<CellKey, Measures> cells = new HashMap<>();
+        private final Map<TransitionKey, Durations> transitions = new HashMap<>();
+
+        /**
+         * 替换机会的贡献，contribution 为 null 时移除
+         */
+        private void put(UUID opportunityId, Contribution contribution) {
+            Contribution previous = contribution != null
+                    ? opportunities.put(opportunityId, contribution)
+                    : opportunities.remove(opportunityId);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            if (contribution != null) {
+                apply(contribution, 1);
+            }
+        }
+
+        private void apply(Contribution contribution, int sign) {
+            Measures measures = cells.computeIfAbsent(contribution.key(), key -> new Measures());
+            measures.add(contribution, sign);
+            if (measures.count == 0) {
+                cells.remove(contribution.key());
+            }
+            for (Transition transition : contribution.transitions()) {
+                Durations durations = transitions.computeIfAbsent(transition.key(), key -> new Durations());
+                durations.count += sign;
+                durations.totalSeconds += sign * transition.seconds();
+                if (durations.count == 0) {
+                    transitions.remove(transition.key());
+                }
+            }
+        }
+
+        /**
+         * 与另一份汇总贡献不同的机会数，ignored 中的机会（重算期间刷新过，随后重放）不计入
+         */
+        private int diff(Cube other, Set<UUID> ignored) {
+            int drift = 0;
+            for (Map.Entry<UUID, Contribution> entry : opportunities.entrySet()) {
+                if (!ignored.contains(entry.getKey())
+                        && !equivalent(entry.getValue(), other.opportunities.get(entry.getKey()))) {
+                    drift++;
+                }
+            }
+            for (UUID id : other.opportunities.keySet()) {
+                if (!ignored.contains(id) && !opportunities.containsKey(id)) {
+                    drift++;
+                }
+            }
+            return drift;
+        }
+
+        private static boolean equivalent(Contribution a, Contribution b) {
+            return b != null && a.key().equals(b.key()) && a.amount().compareTo(b.amount()) == 0
+                    && a.outcome() == b.outcome() && a.transitions().size() == b.transitions().size()
+                    && new HashSet<>(a.transitions()).equals(new HashSet<>(b.transitions()));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.rootmanage.sales.funnel;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 一次阶段变更（投影）
+ */
+@Getter
+@AllArgsConstructor
+public class StageTransitionFact {
+
+    private final UUID opportunityId;
+    private final UUID fromStageId;
+    private final UUID toStageId;
+    private final Long durationSeconds;
+}
@@ -0,0 +1,27 @@
+package org.example.rootmanage.sales.inventory;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * 库存记录当前结存（投影），预留数量、单价、总价值为空时按 0 处理
+ */
+@Getter
+public class InventoryBalance {
+
+    private final int quantity;
+    private final int availableQuantity;
+    private final int reservedQuantity;
+    private final BigDecimal unitPrice;
+    private final BigDecimal totalValue;
+
+    public InventoryBalance(Integer quantity, Integer availableQuantity, Integer reservedQuantity,
+                            BigDecimal unitPrice, BigDecimal totalValue) {
+        this.quantity = quantity != null ? quantity : 0;
+        this.availableQuantity = availableQuantity != null ? availableQuantity : 0;
+        this.reservedQuantity = reservedQuantity != null ? reservedQuantity : 0;
+        this.unitPrice = unitPrice != null ? unitPrice : BigDecimal.ZERO;
+        this.totalValue = totalValue != null ? totalValue : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.rootmanage.sales.inventory;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * 某来源单据在一条库存记录上的净变化量（投影，按库存记录汇总流水）
+ */
+@Getter
+public class InventoryDelta {
+
+    private final UUID inventoryId;
+    private final int quantityDelta;
+    private final int availableDelta;
+    private final int reservedDelta;
+    private final BigDecimal valueDelta;
+
+    public InventoryDelta(UUID inventoryId, Long quantityDelta, Long availableDelta, Long reservedDelta,
+                          BigDecimal valueDelta) {
+        this.inventoryId = inventoryId;
+        this.quantityDelta = quantityDelta != null ? quantityDelta.intValue() : 0;
+        this.availableDelta = availableDelta != null ? availableDelta.intValue() : 0;
+        this.reservedDelta = reservedDelta != null ? reservedDelta.intValue() : 0;
+        this.valueDelta = valueDelta != null ? valueDelta : BigDecimal.ZERO;
+    }
+
+    public boolean isZero() {
+        return quantityDelta == 0 && availableDelta == 0 && reservedDelta == 0 && valueDelta.signum() == 0;
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.rootmanage.sales.inventory;
+
+import lombok.RequiredArgsConstructor;
+import org.example.rootmanage.sales.SalesInventoryMovementRepository;
+import org.example.rootmanage.sales.SalesInventoryRepository;
+import org.example.rootmanage.sales.entity.InventoryMovementType;
+import org.example.rootmanage.sales.entity.SalesInventory;
+import org.example.rootmanage.sales.entity.SalesInventoryMovement;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * 库存记账：降库、报价预留及其冲回
+ * 每次变动用一条带条件的 UPDATE 原子地修改结存（可用数量不足时更新 0 行，不会出现负库存），
+ * 行锁持有到事务提交，多实例并发时由数据库串行化；同一事务涉及多条库存记录时按ID顺序加锁，避免死锁。
+ * 每次变动追加一条库存流水，总价值随流水增量更新，也可由流水重新累计（{@link #recomputeTotalValue}）。
+ * 需在调用方事务内调用，任一步失败时整个事务回滚。
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesInventoryLedger {
+
+    private final SalesInventoryRepository salesInventoryRepository;
+    private final SalesInventoryMovementRepository salesInventoryMovementRepository;
+
+    /**
+     * 新增库存记录后记录期初流水
+     */
+    public void recordCreated(SalesInventory inventory) {
+        InventoryBalance after = balanceOf(inventory);
+        append(inventory, InventoryMovementType.ADJUSTMENT, null, after.getQuantity(), after.getAvailableQuantity(),
+                after.getReservedQuantity(), after.getTotalValue(), after);
+    }
+
+    /**
+     * 手工修改库存记录后记录调整流水（调用方已通过 findByIdForUpdate 锁定库存记录）
+     *
+     * @param before 修改前的结存
+     */
+    public void recordAdjusted(SalesInventory inventory, InventoryBalance before) {
+        InventoryBalance after = balanceOf(inventory);
+        int quantityDelta = after.getQuantity() - before.getQuantity();
+        int availableDelta = after.getAvailableQuantity() - before.getAvailableQuantity();
+        int reservedDelta = after.getReservedQuantity() - before.getReservedQuantity();
+        BigDecimal valueDelta = after.getTotalValue().subtract(before.getTotalValue());
+        if (quantityDelta == 0 && availableDelta == 0 && reservedDelta == 0 && valueDelta.signum() == 0) {
+            return;
+        }
+        append(inventory, InventoryMovementType.ADJUSTMENT, null, quantityDelta, availableDelta, reservedDelta,
+                valueDelta, after);
+    }
+
+    /**
+     * 降库：按ID顺序依次尝试产品在该仓库的库存记录，扣减第一条可用数量足够的记录
+     *
+     * @param reductionId 降库记录ID
+     * @param warehouseId 为 null 时不限仓库
+     */
+    public void reduce(UUID reductionId, UUID productId, UUID warehouseId, int quantity) {
+        requirePositive(quantity, "降库数量必须大于0");
+        reduce(reductionId, ledgerIds(productId, warehouseId), quantity);
+    }
+
+    /**
+     * 修改降库记录：冲回原降库后按新内容扣减
+     * 冲回涉及的库存记录与新的候选记录合并后先按ID顺序逐行加锁，再冲回、扣减，避免冲回先锁住较大ID的行
+     */
+    public void reapplyReduction(UUID reductionId, UUID productId, UUID warehouseId, int quantity) {
+        requirePositive(quantity, "降库数量必须大于0");
+        List<InventoryDelta> deltas = netDeltas(reductionId);
+        List<UUID> inventoryIds = ledgerIds(productId, warehouseId);
+        SortedSet<UUID> lockOrder = new TreeSet<>(inventoryIds);
+        deltas.forEach(delta -> lockOrder.add(delta.getInventoryId()));
+        for (UUID inventoryId : lockOrder) {
+            salesInventoryRepository.findByIdForUpdate(inventoryId);
+        }
+        reverse(reductionId, deltas, InventoryMovementType.REDUCTION_REVERSAL);
+        reduce(reductionId, inventoryIds, quantity);
+    }
+
+    /**
+     * 产品在该仓库的库存记录ID，按ID排序
+     * 未更新成功的行在可重复读下同样持有行锁直到提交，须与预留、冲回相同按ID顺序尝试，避免死锁
+     */
+    private List<UUID> ledgerIds(UUID productId, UUID warehouseId) {
+        return salesInventoryRepository.findLedgerIds(productId, warehouseId).stream()
+                .sorted()
+                .toList();
+    }
+
+    private void reduce(UUID reductionId, List<UUID> inventoryIds, int quantity) {
+        if (inventoryIds.isEmpty()) {
+            throw new IllegalStateException("产品在该仓库没有库存记录");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (UUID inventoryId : inventoryIds) {
+            if (salesInventoryRepository.reduce(inventoryId, quantity, now) == 1) {
+                // 更新成功后本事务持有行锁，读到的单价即扣减总价值时所用的单价
+                InventoryBalance after = balance(inventoryId);
+                BigDecimal valueDelta = after.getUnitPrice().multiply(BigDecimal.valueOf(quantity)).negate();
+                append(salesInventoryRepository.getReferenceById(inventoryId), InventoryMovementType.REDUCTION,
+                        reductionId, -quantity, -quantity, 0, valueDelta, after);
+                return;
+            }
+        }
+        throw new IllegalStateException("可用库存不足，降库数量：" + quantity);
+    }
+
+    /**
+     * 冲回降库记录对库存的全部影响（降库记录修改或删除时）
+     */
+    public void reverseReduction(UUID reductionId) {
+        reverse(reductionId, InventoryMovementType.REDUCTION_REVERSAL);
+    }
+
+    /**
+     * 为报价单批量预留库存，全部成功或（抛出异常使事务回滚）全部不生效
+     *
+     * @param quantities 库存记录ID -> 预留数量
+     */
+    public void reserve(UUID quotationId, Map<UUID, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        // TreeMap 按ID排序，所有调用方以相同顺序加行锁
+        for (Map.Entry<UUID, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            UUID inventoryId = line.getKey();
+            int quantity = line.getValue() != null ? line.getValue() : 0;
+            requirePositive(quantity, "预留数量必须大于0");
+            if (salesInventoryRepository.reserve(inventoryId, quantity, now) == 0) {
+                if (!salesInventoryRepository.existsById(inventoryId)) {
+                    throw new IllegalArgumentException("库存记录不存在");
+                }
+                throw new IllegalStateException("可用库存不足，库存记录：" + inventoryId + "，预留数量：" + quantity);
+            }
+            append(salesInventoryRepository.getReferenceById(inventoryId), InventoryMovementType.RESERVATION,
+                    quotationId, 0, -quantity, quantity, BigDecimal.ZERO, balance(inventoryId));
+        }
+    }
+
+    /**
+     * 释放报价单的全部库存预留
+     */
+    public void release(UUID quotationId) {
+        reverse(quotationId, InventoryMovementType.RELEASE);
+    }
+
+    /**
+     * 由流水重新累计总价值并写回库存记录：第一条流水变动前的总价值 + 全部流水的总价值变化
+     *
+     * @return 锁定并更新后的库存记录（没有流水时保持不变）
+     */
+    public SalesInventory recomputeTotalValue(UUID inventoryId) {
+        SalesInventory inventory = salesInventoryRepository.findByIdForUpdate(inventoryId)
+                .orElseThrow(() -> new IllegalArgumentException("库存记录不存在"));
+        Optional<SalesInventoryMovement> first = salesInventoryMovementRepository
+                .findFirstByInventoryIdOrderByCreateTimeAscIdAsc(inventoryId);
+        if (first.isPresent()) {
+            BigDecimal opening = first.get().getValueAfter().subtract(first.get().getValueDelta());
+            inventory.setTotalValue(opening.add(salesInventoryMovementRepository.sumValueDelta(inventoryId)));
+        }
+        return inventory;
+    }
+
+    /**
+     * 按流水汇总来源单据的净变化量并反向记账，净变化为 0（已冲回过）的记录跳过
+     */
+    private void reverse(UUID referenceId, InventoryMovementType type) {
+        reverse(referenceId, netDeltas(referenceId), type);
+    }
+
+    /**
+     * 来源单据在各库存记录上的非零净变化量，按库存记录ID排序
+     */
+    private List<InventoryDelta> netDeltas(UUID referenceId) {
+        return salesInventoryMovementRepository.sumByReference(referenceId).stream()
+                .filter(delta -> !delta.isZero())
+                .sorted(Comparator.comparing(InventoryDelta::getInventoryId))
+                .toList();
+    }
+
+    private void reverse(UUID referenceId, List<InventoryDelta> deltas, InventoryMovementType type) {
+        LocalDateTime now = LocalDateTime.now();
+        for (InventoryDelta delta : deltas) {
+            UUID inventoryId = delta.getInventoryId();
+            BigDecimal valueDelta = delta.getValueDelta().negate();
+            salesInventoryRepository.applyDelta(inventoryId, -delta.getQuantityDelta(), -delta.getAvailableDelta(),
+                    -delta.getReservedDelta(), valueDelta, now);
+            append(salesInventoryRepository.getReferenceById(inventoryId), type, referenceId,
+                    -delta.getQuantityDelta(), -delta.getAvailableDelta(), -delta.getReservedDelta(), valueDelta,
+                    balance(inventoryId));
+        }
+    }
+
+    private InventoryBalance balance(UUID inventoryId) {
+        return salesInventoryRepository.findBalance(inventoryId)
+                .orElseThrow(() -> new IllegalArgumentException("库存记录不存在"));
+    }
+
+    private static InventoryBalance balanceOf(SalesInventory inventory) {
+        return new InventoryBalance(inventory.getQuantity(), inventory.getAvailableQuantity(),
+                inventory.getReservedQuantity(), inventory.getUnitPrice(), inventory.getTotalValue());
+    }
+
+    private static void requirePositive(int quantity, String message) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private void append(SalesInventory inventory, InventoryMovementType type, UUID referenceId, int quantityDelta,
+                        int availableDelta, int reservedDelta, BigDecimal valueDelta, InventoryBalance after) {
+        SalesInventoryMovement movement = new SalesInventoryMovement();
+        movement.setInventory(inventory);
+        movement.setMovementType(type);
+        movement.setReferenceId(referenceId);
+        movement.setQuantityDelta(quantityDelta);
+        movement.setAvailableDelta(availableDelta);
+        movement.setReservedDelta(reservedDelta);
+        movement.setValueDelta(valueDelta);
+        movement.setQuantityAfter(after.getQuantity());
+        movement.setAvailableAfter(after.getAvailableQuantity());
+        movement.setReservedAfter(after.getReservedQuantity());
+        movement.setValueAfter(after.getTotalValue());
+        salesInventoryMovementRepository.save(movement);
+    }
+}
@@ -0,0 +1,350 @@
+package org.example.rootmanage.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.rootmanage.basicinfo.CustomerRepository;
+import org.example.rootmanage.basicinfo.MarketingPersonnelRepository;
+import org.example.rootmanage.common.AfterCommit;
+import org.example.rootmanage.common.BaseEntity;
+import org.example.rootmanage.sales.BiddingRepository;
+import org.example.rootmanage.sales.SalesOpportunityRepository;
+import org.example.rootmanage.sales.SalesQuotationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 关键词检索索引（客户、营销人员、销售机会、报价单、投标记录）
+ * 每类数据首次检索时用一次投影查询加载参与检索的字段，在内存中建立 n-gram 倒排索引（见 {@link NgramIndex}），
+ * 之后的关键词检索只在内存中求交集、排序，再按ID批量加载实体，不再对每次检索做 LIKE %keyword% 全表扫描。
+ * 数据写入提交后只按ID重新查询变更的文档，更新到当前索引上（查不到的视为已删除），未提交的数据不会被检索到；
+ * 全量加载只在首次检索和超过 ttl 时进行（其他实例的写入最晚在 ttl 后可见），同一类别同一时刻只有一个线程加载。
+ * 关闭索引（search.index.enabled=false）时 {@link #search} 返回空，调用方回退到原有的 LIKE 查询。
+ */
+@Slf4j
+@Component
+public class KeywordSearchIndex {
+
+    /**
+     * 增量更新累计超过基础索引的 1/8（至少 64 条）时在内存中合并重建，不查库
+     */
+    private static final int COMPACT_MIN = 64;
+
+    private final Map<SearchDomain, Supplier<List<SearchDocument>>> loaders = new EnumMap<>(SearchDomain.class);
+    private final Map<SearchDomain, Function<Collection<UUID>, List<SearchDocument>>> documentLoaders =
+            new EnumMap<>(SearchDomain.class);
+    private final Map<SearchDomain, Function<UUID, List<SearchDocument>>> customerLoaders =
+            new EnumMap<>(SearchDomain.class);
+    private final Map<SearchDomain, Entry> entries = new EnumMap<>(SearchDomain.class);
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${search.index.ttl:5m}")
+    private Duration ttl = Duration.ofMinutes(5);
+
+    public KeywordSearchIndex(CustomerRepository customerRepository,
+                              MarketingPersonnelRepository marketingPersonnelRepository,
+                              SalesOpportunityRepository salesOpportunityRepository,
+                              SalesQuotationRepository salesQuotationRepository,
+                              BiddingRepository biddingRepository) {
+        loaders.put(SearchDomain.CUSTOMER, customerRepository::findSearchDocuments);
+        loaders.put(SearchDomain.MARKETING_PERSONNEL, marketingPersonnelRepository::findSearchDocuments);
+        loaders.put(SearchDomain.SALES_OPPORTUNITY, salesOpportunityRepository::findSearchDocuments);
+        loaders.put(SearchDomain.SALES_QUOTATION, salesQuotationRepository::findSearchDocuments);
+        loaders.put(SearchDomain.BIDDING, biddingRepository::findSearchDocuments);
+        documentLoaders.put(SearchDomain.CUSTOMER, customerRepository::findSearchDocuments);
+        documentLoaders.put(SearchDomain.MARKETING_PERSONNEL, marketingPersonnelRepository::findSearchDocuments);
+        documentLoaders.put(SearchDomain.SALES_OPPORTUNITY, salesOpportunityRepository::findSearchDocuments);
+        documentLoaders.put(SearchDomain.SALES_QUOTATION, salesQuotationRepository::findSearchDocuments);
+        documentLoaders.put(SearchDomain.BIDDING, biddingRepository::findSearchDocuments);
+        // 客户名称同时参与销售机会、报价单、投标记录的检索
+        customerLoaders.put(SearchDomain.SALES_OPPORTUNITY, salesOpportunityRepository::findSearchDocumentsByCustomerId);
+        customerLoaders.put(SearchDomain.SALES_QUOTATION, salesQuotationRepository::findSearchDocumentsByCustomerId);
+        customerLoaders.put(SearchDomain.BIDDING, biddingRepository::findSearchDocumentsByCustomerId);
+        for (SearchDomain domain : SearchDomain.values()) {
+            entries.put(domain, new Entry());
+        }
+    }
+
+    /**
+     * 按关键词检索，结果按相关度从高到低排列
+     *
+     * @param domain  数据类别
+     * @param keyword 关键词（已去除首尾空白且非空）
+     * @param loader  按ID批量加载实体，如 repository::findAllById
+     * @return 命中的实体；索引关闭时返回空，由调用方回退到 LIKE 查询
+     */
+    public <T extends BaseEntity> Optional<List<T>> search(SearchDomain domain, String keyword,
+                                                         Function<List<UUID>, List<T>> loader) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        List<UUID> ids = index(domain).search(keyword);
+        if (ids.isEmpty()) {
+            return Optional.of(new ArrayList<>());
+        }
+        Map<UUID, Integer> rank = new HashMap<>(ids.size() * 4 / 3 + 1);
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        // 批量加载不保证顺序，按相关度重新排序；已被其他实例删除的ID自然被忽略
+        List<T> entities = new ArrayList<>(loader.apply(ids));
+        entities.sort(Comparator.comparing(entity -> rank.getOrDefault(entity.getId(), Integer.MAX_VALUE)));
+        return Optional.of(entities);
+    }
+
+    /**
+     * 数据新增、修改或删除后（提交后）按ID重新查询该文档并更新索引，查不到时从索引中移除
+     */
+    public void refreshAfterCommit(SearchDomain domain, UUID id) {
+        AfterCommit.run(() -> refresh(domain, List.of(id),
+                () -> documentLoaders.get(domain).apply(List.of(id))));
+    }
+
+    /**
+     * 客户名称修改后（提交后）更新该客户的销售机会、报价单、投标记录文档
+     */
+    public void refreshCustomerNameAfterCommit(UUID customerId) {
+        AfterCommit.run(() -> customerLoaders.forEach((domain, loader) ->
+                refresh(domain, List.of(), () -> loader.apply(customerId))));
+    }
+
+    /**
+     * 把重新查询到的文档更新到索引；该类别尚未加载时跳过（首次检索时全量加载）
+     *
+     * @param ids    可能已删除的文档ID，查询结果中没有的从索引中移除
+     * @param loader 查询变更后的文档
+     */
+    private void refresh(SearchDomain domain, Collection<UUID> ids, Supplier<List<SearchDocument>> loader) {
+        Entry entry = entries.get(domain);
+        if (!enabled || !entry.isActive()) {
+            return;
+        }
+        Map<UUID, SearchDocument> changes = new LinkedHashMap<>();
+        try {
+            for (UUID id : ids) {
+                changes.put(id, null);
+            }
+            for (SearchDocument document : loader.get()) {
+                changes.put(document.getId(), NgramIndex.normalize(document));
+            }
+        } catch (RuntimeException e) {
+            // 已提交的写入不受影响，索引标记为过期，下次检索时全量重建
+            log.warn("关键词索引增量更新失败，下次检索时重建：{}", domain, e);
+            entry.expire();
+            return;
+        }
+        entry.apply(changes);
+    }
+
+    /**
+     * 取可用的索引快照：未加载时等待加载完成；过期时由一个线程重建，其他线程继续使用过期的快照
+     */
+    private Snapshot index(SearchDomain domain) {
+        Entry entry = entries.get(domain);
+        Snapshot current = entry.snapshot;
+        if (current != null && isFresh(current)) {
+            return current;
+        }
+        if (current == null) {
+            entry.loadLock.lock();
+        } else if (!entry.loadLock.tryLock()) {
+            return current;
+        }
+        try {
+            current = entry.snapshot;
+            if (current != null && isFresh(current)) {
+                return current;
+            }
+            return entry.load(loaders.get(domain));
+        } finally {
+            entry.loadLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return !snapshot.expired && System.nanoTime() - snapshot.loadedAt < ttl.toNanos();
+    }
+
+    /**
+     * 一类数据的索引快照；全量加载期间提交的变更暂存，加载完成后补到新快照上，避免丢失
+     */
+    private static final class Entry {
+        /**
+         * 全量加载的互斥锁，查库期间持有
+         */
+        private final ReentrantLock loadLock = new ReentrantLock();
+        /**
+         * 保护快照替换与暂存的变更，不在持有期间查库
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Snapshot snapshot;
+        /**
+         * 全量加载期间提交的变更（值为 null 表示删除），未在加载时为 null
+         */
+        private Map<UUID, SearchDocument> pending;
+        private boolean expireAfterLoad;
+
+        private boolean isActive() {
+            lock.lock();
+            try {
+                return snapshot != null || pending != null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void apply(Map<UUID, SearchDocument> changes) {
+            lock.lock();
+            try {
+                if (pending != null) {
+                    pending.putAll(changes);
+                }
+                if (snapshot != null) {
+                    snapshot = snapshot.apply(changes);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void expire() {
+            lock.lock();
+            try {
+                if (pending != null) {
+                    expireAfterLoad = true;
+                }
+                if (snapshot != null) {
+                    snapshot = snapshot.expire();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 全量加载，调用方持有 loadLock
+         */
+        private Snapshot load(Supplier<List<SearchDocument>> loader) {
+            lock.lock();
+            try {
+                pending = new LinkedHashMap<>();
+                expireAfterLoad = false;
+            } finally {
+                lock.unlock();
+            }
+            NgramIndex index;
+            try {
+                index = new NgramIndex(loader.get());
+            } catch (RuntimeException e) {
+                lock.lock();
+                try {
+                    pending = null;
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+            lock.lock();
+            try {
+                Snapshot loaded = new Snapshot(index, System.nanoTime()).apply(pending);
+                snapshot = expireAfterLoad ? loaded.expire() : loaded;
+                pending = null;
+                return snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 不可变的索引快照：全量加载的基础索引，加上之后提交的变更
+     */
+    private static final class Snapshot {
+        private final NgramIndex base;
+        /**
+         * 加载后新增或修改的文档（字段已规范化），按变更先后排列
+         */
+        private final LinkedHashMap<UUID, SearchDocument> updated;
+        /**
+         * 基础索引中已被修改或删除的文档
+         */
+        private final Set<UUID> hidden;
+        private final long loadedAt;
+        private final boolean expired;
+
+        private Snapshot(NgramIndex base, long loadedAt) {
+            this(base, new LinkedHashMap<>(), Set.of(), loadedAt, false);
+        }
+
+        private Snapshot(NgramIndex base, LinkedHashMap<UUID, SearchDocument> updated, Set<UUID> hidden,
+                         long loadedAt, boolean expired) {
+            this.base = base;
+            this.updated = updated;
+            this.hidden = hidden;
+            this.loadedAt = loadedAt;
+            this.expired = expired;
+        }
+
+        /**
+         * 合并基础索引与变更文档的命中结果，相关度相同时最近变更的文档在前（与按创建时间倒序加载一致）
+         */
+        private List<UUID> search(String keyword) {
+            String query = NgramIndex.normalize(keyword);
+            if (query == null || query.isEmpty()) {
+                return List.of();
+            }
+            List<NgramIndex.Hit> hits = new ArrayList<>();
+            List<SearchDocument> documents = new ArrayList<>(updated.values());
+            for (int i = documents.size() - 1; i >= 0; i--) {
+                SearchDocument document = documents.get(i);
+                int score = NgramIndex.score(document.getFields(), query);
+                if (score > 0) {
+                    hits.add(new NgramIndex.Hit(document.getId(), score));
+                }
+            }
+            for (NgramIndex.Hit hit : base.search(query)) {
+                if (!hidden.contains(hit.id())) {
+                    hits.add(hit);
+                }
+            }
+            hits.sort(Comparator.comparingInt(NgramIndex.Hit::score).reversed());
+            return hits.stream().map(NgramIndex.Hit::id).toList();
+        }
+
+        private Snapshot apply(Map<UUID, SearchDocument> changes) {
+            if (changes.isEmpty()) {
+                return this;
+            }
+            LinkedHashMap<UUID, SearchDocument> nextUpdated = new LinkedHashMap<>(updated);
+            Set<UUID> nextHidden = new HashSet<>(hidden);
+            changes.forEach((id, document) -> {
+                nextUpdated.remove(id);
+                nextHidden.add(id);
+                if (document != null) {
+                    nextUpdated.put(id, document);
+                }
+            });
+            if (nextUpdated.size() + nextHidden.size() <= Math.max(COMPACT_MIN, base.size() / 8)) {
+                return new Snapshot(base, nextUpdated, nextHidden, loadedAt, expired);
+            }
+            List<SearchDocument> documents = new ArrayList<>(nextUpdated.values());
+            Collections.reverse(documents);
+            for (SearchDocument document : base.documents()) {
+                if (!nextHidden.contains(document.getId())) {
+                    documents.add(document);
+                }
+            }
+            return new Snapshot(new NgramIndex(documents), new LinkedHashMap<>(), Set.of(), loadedAt, expired);
+        }
+
+        private Snapshot expire() {
+            return new Snapshot(base, updated, hidden, loadedAt, true);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.example.rootmanage.search;
+
+import java.util.*;
+
+/**
+ * 不可变的 n-gram 倒排索引
+ * 每个字段转小写后按单字和相邻两字（bigram）切分，中文名称无需分词即可支持任意子串检索。
+ * 查询时取关键词各 bigram 的倒排表求交集得到候选（单字关键词取单字倒排表），再逐个确认字段确实包含关键词，
+ * 结果与 LIKE %keyword%（不区分大小写）一致。
+ * 相关度：字段与关键词相同记 3 分、以关键词开头记 2 分、包含记 1 分，乘以字段权重（越靠前的字段权重越高）后累加；
+ * 相关度相同时保持文档加入顺序。
+ */
+final class NgramIndex {
+
+    private final UUID[] ids;
+    private final String[][] fields;
+    private final Map<Integer, int[]> unigrams;
+    private final Map<Integer, int[]> bigrams;
+
+    NgramIndex(List<SearchDocument> documents) {
+        int size = documents.size();
+        this.ids = new UUID[size];
+        this.fields = new String[size][];
+        Map<Integer, Postings> uni = new HashMap<>();
+        Map<Integer, Postings> bi = new HashMap<>();
+        for (int doc = 0; doc < size; doc++) {
+            SearchDocument document = documents.get(doc);
+            ids[doc] = document.getId();
+            String[] normalized = new String[document.getFields().length];
+            for (int f = 0; f < normalized.length; f++) {
+                String text = normalize(document.getFields()[f]);
+                normalized[f] = text;
+                if (text == null) {
+                    continue;
+                }
+                for (int i = 0; i < text.length(); i++) {
+                    add(uni, text.charAt(i), doc);
+                    if (i + 1 < text.length()) {
+                        add(bi, bigram(text.charAt(i), text.charAt(i + 1)), doc);
+                    }
+                }
+            }
+            fields[doc] = normalized;
+        }
+        this.unigrams = freeze(uni);
+        this.bigrams = freeze(bi);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * 按相关度从高到低返回包含关键词的文档及其相关度
+     */
+    List<Hit> search(String keyword) {
+        String query = normalize(keyword);
+        if (query == null || query.isEmpty()) {
+            return List.of();
+        }
+        int[] candidates = candidates(query);
+        if (candidates.length == 0) {
+            return List.of();
+        }
+        int[] scores = new int[candidates.length];
+        int matched = 0;
+        for (int doc : candidates) {
+            int score = score(fields[doc], query);
+            if (score > 0) {
+                // 复用候选数组保存命中的文档，候选按文档顺序升序，写入位置不会超过读取位置
+                candidates[matched] = doc;
+                scores[matched] = score;
+                matched++;
+            }
+        }
+        Integer[] order = new Integer[matched];
+        for (int i = 0; i < matched; i++) {
+            order[i] = i;
+        }
+        // 稳定排序：相关度相同时保持文档顺序
+        Arrays.sort(order, (a, b) -> Integer.compare(scores[b], scores[a]));
+        List<Hit> result = new ArrayList<>(matched);
+        for (Integer i : order) {
+            result.add(new Hit(ids[candidates[i]], scores[i]));
+        }
+        return result;
+    }
+
+    /**
+     * 按加入顺序返回全部文档（字段已规范化），用于在内存中重建索引
+     */
+    List<SearchDocument> documents() {
+        List<SearchDocument> documents = new ArrayList<>(ids.length);
+        for (int doc = 0; doc < ids.length; doc++) {
+            documents.add(new SearchDocument(ids[doc], fields[doc]));
+        }
+        return documents;
+    }
+
+    private int[] candidates(String query) {
+        if (query.length() == 1) {
+            int[] postings = unigrams.get((int) query.charAt(0));
+            return postings != null ? postings.clone() : new int[0];
+        }
+        int[][] lists = new int[query.length() - 1][];
+        for (int i = 0; i + 1 < query.length(); i++) {
+            int[] postings = bigrams.get(bigram(query.charAt(i), query.charAt(i + 1)));
+            if (postings == null) {
+                return new int[0];
+            }
+            lists[i] = postings;
+        }
+        // 从最短的倒排表开始求交集
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+        int[] result = lists[0].clone();
+        int length = result.length;
+        for (int l = 1; l < lists.length && length > 0; l++) {
+            length = intersect(result, length, lists[l]);
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * 把 target 前 length 个元素与 other 的交集写回 target，返回交集长度（两者均升序）
+     */
+    private static int intersect(int[] target, int length, int[] other) {
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < length && j < other.length; i++) {
+            int value = target[i];
+            while (j < other.length && other[j] < value) {
+                j++;
+            }
+            if (j < other.length && other[j] == value) {
+                target[n++] = value;
+            }
+        }
+        return n;
+    }
+
+    static int score(String[] fields, String query) {
+        int score = 0;
+        for (int f = 0; f < fields.length; f++) {
+            String text = fields[f];
+            if (text == null) {
+                continue;
+            }
+            int weight = fields.length - f;
+            if (text.equals(query)) {
+                score += 3 * weight;
+            } else if (text.startsWith(query)) {
+                score += 2 * weight;
+            } else if (text.contains(query)) {
+                score += weight;
+            }
+        }
+        return score;
+    }
+
+    static String normalize(String text) {
+        return text != null ? text.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * 字段转小写后的文档，可直接用 {@link #score} 计算相关度
+     */
+    static SearchDocument normalize(SearchDocument document) {
+        String[] normalized = new String[document.getFields().length];
+        for (int f = 0; f < normalized.length; f++) {
+            normalized[f] = normalize(document.getFields()[f]);
+        }
+        return new SearchDocument(document.getId(), normalized);
+    }
+
+    private static int bigram(char first, char second) {
+        return (first << 16) | second;
+    }
+
+    private static void add(Map<Integer, Postings> index, int gram, int doc) {
+        index.computeIfAbsent(gram, key -> new Postings()).add(doc);
+    }
+
+    private static Map<Integer, int[]> freeze(Map<Integer, Postings> index) {
+        Map<Integer, int[]> frozen = new HashMap<>(index.size() * 4 / 3 + 1);
+        index.forEach((gram, postings) -> frozen.put(gram, Arrays.copyOf(postings.docs, postings.size)));
+        return frozen;
+    }
+
+    /**
+     * 命中的文档及其相关度
+     */
+    record Hit(UUID id, int score) {
+    }
+
+    /**
+     * 构建期间的倒排表，文档按顺序加入，同一文档的重复 gram 只记一次
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        private void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
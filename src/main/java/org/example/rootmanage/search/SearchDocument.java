@@ -0,0 +1,30 @@
+package org.example.rootmanage.search;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 参与关键词索引的一行（投影），字段按重要性从高到低排列，越靠前的字段命中时相关度越高
+ */
+@Getter
+public class SearchDocument {
+
+    private final UUID id;
+    private final String[] fields;
+
+    public SearchDocument(UUID id, String first, String second) {
+        this.id = id;
+        this.fields = new String[]{first, second};
+    }
+
+    public SearchDocument(UUID id, String first, String second, String third) {
+        this.id = id;
+        this.fields = new String[]{first, second, third};
+    }
+
+    SearchDocument(UUID id, String[] fields) {
+        this.id = id;
+        this.fields = fields;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.rootmanage.search;
+
+/**
+ * 关键词索引覆盖的数据类别
+ */
+public enum SearchDomain {
+    /**
+     * 客户：客户名称、联系人、联系电话
+     */
+    CUSTOMER,
+    /**
+     * 营销人员：姓名、联系方式
+     */
+    MARKETING_PERSONNEL,
+    /**
+     * 销售机会：机会名称、客户名称
+     */
+    SALES_OPPORTUNITY,
+    /**
+     * 报价单：报价单号、客户名称
+     */
+    SALES_QUOTATION,
+    /**
+     * 投标记录：投标编号、项目名称、客户名称
+     */
+    BIDDING
+}
@@ -6,7 +6,7 @@ import org.example.rootmanage.aftersales.entity.DeviceMaintenanceRecord;
 import org.example.rootmanage.auth.TokenService;
 import org.example.rootmanage.config.RestExceptionHandler;
 import org.example.rootmanage.config.WebConfig;
-import org.example.rootmanage.module.ModuleRepository;
+import org.example.rootmanage.module.ModuleRouteIndex;
 import org.example.rootmanage.permission.PermissionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -59,7 +59,7 @@ class DeviceMaintenanceRecordControllerTest {
     private PermissionService permissionService;
 
     @MockBean
-    private ModuleRepository moduleRepository;
+    private ModuleRouteIndex moduleRouteIndex;
 
     @Autowired
     private ObjectMapper objectMapper;
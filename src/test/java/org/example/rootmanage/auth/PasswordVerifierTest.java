@@ -0,0 +1,75 @@
+package org.example.rootmanage.auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 登录密码校验测试类
+ */
+@DisplayName("登录密码校验测试")
+class PasswordVerifierTest {
+
+    private PasswordVerifier verifier;
+    private ExecutorService callers;
+
+    @AfterEach
+    void tearDown() {
+        if (verifier != null) {
+            verifier.shutdown();
+        }
+        if (callers != null) {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("校验密码 - 在校验线程池中执行")
+    void testMatches() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        verifier = new PasswordVerifier(encoder, 1, 4, 5000);
+        String encoded = encoder.encode("secret");
+
+        assertTrue(verifier.matches("secret", encoded));
+        assertFalse(verifier.matches("wrong", encoded));
+    }
+
+    @Test
+    @DisplayName("校验队列已满 - 立即拒绝")
+    void testMatches_QueueFull() throws Exception {
+        // Given：校验线程被占用，队列容量为 1
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BCryptPasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        verifier = new PasswordVerifier(blocking, 1, 1, 5000);
+        callers = Executors.newFixedThreadPool(2);
+        callers.submit(() -> verifier.matches("a", "x"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> verifier.matches("b", "x"));
+        Thread.sleep(100);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> verifier.matches("c", "x"));
+        assertEquals("登录请求过多，请稍后重试", exception.getMessage());
+        release.countDown();
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.rootmanage.auth;
+
+import org.example.rootmanage.auth.SignedTokenCodec.Claims;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 签名token编解码测试类
+ */
+@DisplayName("签名token编解码测试")
+class SignedTokenCodecTest {
+
+    private final SignedTokenCodec codec = new SignedTokenCodec(
+            "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    @DisplayName("签发后校验 - 声明完整还原")
+    void testRoundTrip() {
+        UUID userId = UUID.randomUUID();
+        UUID roleId = UUID.randomUUID();
+        String token = codec.encode(new Claims(userId, roleId, 1000, 2000, 42));
+
+        Claims claims = codec.decode(token, 1500);
+
+        assertNotNull(claims);
+        assertEquals(userId, claims.getUserId());
+        assertEquals(roleId, claims.getRoleId());
+        assertEquals(1000, claims.getIssuedAt());
+        assertEquals(2000, claims.getExpiresAt());
+        assertEquals(42, claims.getTokenId());
+        assertNull(codec.decode(codec.encode(new Claims(userId, null, 1000, 2000, 1)), 1500).getRoleId());
+    }
+
+    @Test
+    @DisplayName("校验 - 已过期返回 null")
+    void testDecode_Expired() {
+        String token = codec.encode(new Claims(UUID.randomUUID(), null, 1000, 2000, 1));
+
+        assertNull(codec.decode(token, 2000));
+    }
+
+    @Test
+    @DisplayName("校验 - 篡改载荷、签名或使用其他密钥返回 null")
+    void testDecode_Tampered() {
+        String token = codec.encode(new Claims(UUID.randomUUID(), null, 1000, 2000, 1));
+        char[] chars = token.toCharArray();
+        chars[5] = chars[5] == 'A' ? 'B' : 'A';
+        SignedTokenCodec other = new SignedTokenCodec(
+                "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(codec.decode(new String(chars), 1500));
+        assertNull(codec.decode(token.substring(0, token.length() - 1) + (token.endsWith("A") ? "B" : "A"), 1500));
+        assertNull(codec.decode(token + "x", 1500));
+        assertNull(codec.decode("not-a-token", 1500));
+        assertNull(other.decode(token, 1500));
+    }
+}
@@ -0,0 +1,230 @@
+package org.example.rootmanage.auth;
+
+import org.example.rootmanage.account.AccountStatus;
+import org.example.rootmanage.account.UserAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Token服务测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Token服务测试")
+class TokenServiceTest {
+
+    @Mock
+    private UserAccountRepository userAccountRepository;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @InjectMocks
+    private TokenService tokenService;
+
+    private UUID userId;
+    private AuthenticatedPrincipal principal;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        principal = new AuthenticatedPrincipal(userId, "zhangsan", AccountStatus.APPROVED,
+                UUID.randomUUID(), "SALES", UUID.randomUUID());
+        tokenService.storeToken("token-1", userId);
+    }
+
+    @Test
+    @DisplayName("获取鉴权快照 - 命中缓存时不再查询")
+    void testGetPrincipal_Cached() {
+        // Given
+        when(userAccountRepository.findPrincipalById(userId)).thenReturn(Optional.of(principal));
+
+        // When
+        AuthenticatedPrincipal first = tokenService.getPrincipal("token-1");
+        AuthenticatedPrincipal second = tokenService.getPrincipal("token-1");
+
+        // Then
+        assertSame(principal, first);
+        assertSame(principal, second);
+        assertFalse(first.isAdmin());
+        verify(userAccountRepository, times(1)).findPrincipalById(userId);
+    }
+
+    @Test
+    @DisplayName("获取鉴权快照 - token无效返回 null")
+    void testGetPrincipal_InvalidToken() {
+        assertNull(tokenService.getPrincipal("unknown"));
+        verify(userAccountRepository, never()).findPrincipalById(any());
+    }
+
+    @Test
+    @DisplayName("清除用户快照 - 下次请求重新查询")
+    void testInvalidatePrincipal() {
+        // Given
+        AuthenticatedPrincipal disabled = new AuthenticatedPrincipal(userId, "zhangsan", AccountStatus.DISABLED,
+                principal.getRoleId(), "SALES", principal.getRegionId());
+        when(userAccountRepository.findPrincipalById(userId)).thenReturn(Optional.of(principal), Optional.of(disabled));
+        tokenService.getPrincipal("token-1");
+
+        // When
+        tokenService.invalidatePrincipal(userId);
+
+        // Then
+        assertFalse(tokenService.getPrincipal("token-1").isActive());
+        verify(userAccountRepository, times(2)).findPrincipalById(userId);
+    }
+
+    @Test
+    @DisplayName("清除角色快照 - 角色改名后不再保留管理员权限")
+    void testInvalidatePrincipalsByRole() {
+        // Given
+        UUID roleId = UUID.randomUUID();
+        AuthenticatedPrincipal admin = new AuthenticatedPrincipal(userId, "zhangsan", AccountStatus.APPROVED,
+                roleId, "ADMIN", principal.getRegionId());
+        AuthenticatedPrincipal renamed = new AuthenticatedPrincipal(userId, "zhangsan", AccountStatus.APPROVED,
+                roleId, "AUDITOR", principal.getRegionId());
+        when(userAccountRepository.findPrincipalById(userId)).thenReturn(Optional.of(admin), Optional.of(renamed));
+        assertTrue(tokenService.getPrincipal("token-1").isAdmin());
+
+        // When
+        tokenService.invalidatePrincipalsByRole(UUID.randomUUID());
+        boolean otherRoleKept = tokenService.getPrincipal("token-1").isAdmin();
+        tokenService.invalidatePrincipalsByRole(roleId);
+
+        // Then
+        assertTrue(otherRoleKept);
+        assertFalse(tokenService.getPrincipal("token-1").isAdmin());
+        verify(userAccountRepository, times(2)).findPrincipalById(userId);
+    }
+
+    @Test
+    @DisplayName("快照过期 - 重新查询")
+    void testGetPrincipal_Expired() {
+        // Given
+        ReflectionTestUtils.setField(tokenService, "principalCacheTtl", Duration.ZERO);
+        when(userAccountRepository.findPrincipalById(userId)).thenReturn(Optional.of(principal));
+
+        // When
+        tokenService.getPrincipal("token-1");
+        tokenService.getPrincipal("token-1");
+
+        // Then
+        verify(userAccountRepository, times(2)).findPrincipalById(userId);
+    }
+
+    @Test
+    @DisplayName("缓存已满 - 淘汰后不超过上限")
+    void testGetPrincipal_Bounded() {
+        // Given
+        ReflectionTestUtils.setField(tokenService, "principalCacheMaxSize", 10);
+        when(userAccountRepository.findPrincipalById(userId)).thenReturn(Optional.of(principal));
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            tokenService.storeToken("t" + i, userId);
+            tokenService.getPrincipal("t" + i);
+        }
+
+        // Then
+        @SuppressWarnings("unchecked")
+        Map<String, ?> cache = (Map<String, ?>) ReflectionTestUtils.getField(tokenService, "principalCache");
+        assertTrue(cache.size() <= 10);
+        assertNotNull(tokenService.getPrincipal("t49"));
+    }
+
+    @Test
+    @DisplayName("签名token - 签发、校验、刷新和注销")
+    void testSignedToken() {
+        // Given
+        ReflectionTestUtils.setField(tokenService, "tokenMode", "signed");
+        ReflectionTestUtils.setField(tokenService, "tokenSecret", "0123456789abcdef0123456789abcdef");
+        tokenService.init();
+        when(userAccountRepository.findPrincipalById(userId)).thenReturn(Optional.of(principal));
+
+        // When
+        String token = tokenService.issueToken(userId, principal.getRoleId());
+        String refreshed = tokenService.refreshToken(token);
+
+        // Then
+        assertNotNull(refreshed);
+        assertNotEquals(token, refreshed);
+        assertNull(tokenService.getUserIdByToken(token));
+        assertEquals(userId, tokenService.getUserIdByToken(refreshed));
+        assertSame(principal, tokenService.getPrincipal(refreshed));
+
+        tokenService.removeToken(refreshed);
+        assertFalse(tokenService.isValidToken(refreshed));
+        assertNull(tokenService.getPrincipal(refreshed));
+    }
+
+    @Test
+    @DisplayName("签名token - 注销写入共享记录，其他节点未命中缓存时拒绝该token")
+    void testSignedToken_RevocationSharedAcrossNodes() {
+        // Given：两个节点使用相同密钥和同一张注销记录表
+        ReflectionTestUtils.setField(tokenService, "tokenMode", "signed");
+        ReflectionTestUtils.setField(tokenService, "tokenSecret", "0123456789abcdef0123456789abcdef");
+        tokenService.init();
+        TokenService otherNode = new TokenService(userAccountRepository, revokedTokenRepository);
+        ReflectionTestUtils.setField(otherNode, "tokenMode", "signed");
+        ReflectionTestUtils.setField(otherNode, "tokenSecret", "0123456789abcdef0123456789abcdef");
+        otherNode.init();
+        String token = tokenService.issueToken(userId, principal.getRoleId());
+
+        // When
+        tokenService.removeToken(token);
+
+        // Then
+        ArgumentCaptor<RevokedToken> revoked = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository, times(1)).save(revoked.capture());
+        when(revokedTokenRepository.existsByTokenId(revoked.getValue().getTokenId())).thenReturn(true);
+        assertNull(otherNode.getPrincipal(token));
+        assertFalse(otherNode.isValidToken(token));
+        // 命中后记入该节点的吊销列表，不再重复查询
+        verify(revokedTokenRepository, times(2)).existsByTokenId(revoked.getValue().getTokenId());
+        verify(userAccountRepository, never()).findPrincipalById(any());
+
+        // 再次注销不重复写入
+        tokenService.removeToken(token);
+        verify(revokedTokenRepository, times(1)).save(any());
+    }
+
+    @Test
+    @DisplayName("签名token - 清除已过期的注销记录")
+    void testPruneRevokedTokens() {
+        // Given
+        ReflectionTestUtils.setField(tokenService, "tokenMode", "signed");
+        ReflectionTestUtils.setField(tokenService, "tokenSecret", "0123456789abcdef0123456789abcdef");
+        tokenService.init();
+
+        // When
+        tokenService.pruneRevokedTokens();
+
+        // Then
+        verify(revokedTokenRepository, times(1)).deleteExpired(anyLong());
+    }
+
+    @Test
+    @DisplayName("签名token - 密钥过短，启动失败")
+    void testSignedToken_ShortSecret() {
+        ReflectionTestUtils.setField(tokenService, "tokenMode", "signed");
+        ReflectionTestUtils.setField(tokenService, "tokenSecret", "short");
+
+        assertThrows(IllegalStateException.class, () -> tokenService.init());
+    }
+}
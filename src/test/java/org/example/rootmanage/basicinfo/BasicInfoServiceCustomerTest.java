@@ -2,8 +2,9 @@ package org.example.rootmanage.basicinfo;
 
 import org.example.rootmanage.basicinfo.dto.CustomerRequest;
 import org.example.rootmanage.basicinfo.entity.Customer;
+import org.example.rootmanage.option.OptionDictionary;
 import org.example.rootmanage.option.OptionItem;
-import org.example.rootmanage.option.OptionItemRepository;
+import org.example.rootmanage.search.KeywordSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -41,7 +42,10 @@ class BasicInfoServiceCustomerTest {
     private ProductRepository productRepository;
 
     @Mock
-    private OptionItemRepository optionItemRepository;
+    private OptionDictionary optionDictionary;
+
+    @Mock
+    private KeywordSearchIndex keywordSearchIndex;
 
     @Mock
     private org.example.rootmanage.account.UserAccountRepository userAccountRepository;
@@ -155,8 +159,8 @@ class BasicInfoServiceCustomerTest {
         customerRequest.setCustomerTypeId(customerTypeId);
         customerRequest.setIndustryId(industryId);
 
-        when(optionItemRepository.findById(customerTypeId)).thenReturn(Optional.of(customerType));
-        when(optionItemRepository.findById(industryId)).thenReturn(Optional.of(industry));
+        when(optionDictionary.findById(customerTypeId)).thenReturn(Optional.of(customerType));
+        when(optionDictionary.findById(industryId)).thenReturn(Optional.of(industry));
         when(customerRepository.save(any(Customer.class))).thenReturn(customer);
 
         // 执行测试
@@ -164,8 +168,8 @@ class BasicInfoServiceCustomerTest {
 
         // 验证结果
         assertNotNull(result);
-        verify(optionItemRepository, times(1)).findById(customerTypeId);
-        verify(optionItemRepository, times(1)).findById(industryId);
+        verify(optionDictionary, times(1)).findById(customerTypeId);
+        verify(optionDictionary, times(1)).findById(industryId);
         verify(customerRepository, times(1)).save(any(Customer.class));
     }
 
@@ -176,7 +180,7 @@ class BasicInfoServiceCustomerTest {
         UUID invalidTypeId = UUID.randomUUID();
         customerRequest.setCustomerTypeId(invalidTypeId);
 
-        when(optionItemRepository.findById(invalidTypeId)).thenReturn(Optional.empty());
+        when(optionDictionary.findById(invalidTypeId)).thenReturn(Optional.empty());
 
         // 执行测试并验证异常
         IllegalArgumentException exception = assertThrows(
@@ -185,7 +189,7 @@ class BasicInfoServiceCustomerTest {
         );
 
         assertEquals("客户类型选项不存在", exception.getMessage());
-        verify(optionItemRepository, times(1)).findById(invalidTypeId);
+        verify(optionDictionary, times(1)).findById(invalidTypeId);
         verify(customerRepository, never()).save(any(Customer.class));
     }
 
@@ -196,7 +200,7 @@ class BasicInfoServiceCustomerTest {
         UUID invalidIndustryId = UUID.randomUUID();
         customerRequest.setIndustryId(invalidIndustryId);
 
-        when(optionItemRepository.findById(invalidIndustryId)).thenReturn(Optional.empty());
+        when(optionDictionary.findById(invalidIndustryId)).thenReturn(Optional.empty());
 
         // 执行测试并验证异常
         IllegalArgumentException exception = assertThrows(
@@ -205,7 +209,7 @@ class BasicInfoServiceCustomerTest {
         );
 
         assertEquals("所属行业选项不存在", exception.getMessage());
-        verify(optionItemRepository, times(1)).findById(invalidIndustryId);
+        verify(optionDictionary, times(1)).findById(invalidIndustryId);
         verify(customerRepository, never()).save(any(Customer.class));
     }
 
@@ -261,8 +265,8 @@ class BasicInfoServiceCustomerTest {
         customerRequest.setIndustryId(newIndustryId);
 
         when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-        when(optionItemRepository.findById(newCustomerTypeId)).thenReturn(Optional.of(newCustomerType));
-        when(optionItemRepository.findById(newIndustryId)).thenReturn(Optional.of(newIndustry));
+        when(optionDictionary.findById(newCustomerTypeId)).thenReturn(Optional.of(newCustomerType));
+        when(optionDictionary.findById(newIndustryId)).thenReturn(Optional.of(newIndustry));
         when(customerRepository.save(any(Customer.class))).thenReturn(customer);
 
         // 执行测试
@@ -270,8 +274,8 @@ class BasicInfoServiceCustomerTest {
 
         // 验证结果
         assertNotNull(result);
-        verify(optionItemRepository, times(1)).findById(newCustomerTypeId);
-        verify(optionItemRepository, times(1)).findById(newIndustryId);
+        verify(optionDictionary, times(1)).findById(newCustomerTypeId);
+        verify(optionDictionary, times(1)).findById(newIndustryId);
         verify(customerRepository, times(1)).save(any(Customer.class));
     }
 
@@ -2,8 +2,9 @@ package org.example.rootmanage.basicinfo;
 
 import org.example.rootmanage.basicinfo.dto.SalesAreaRequest;
 import org.example.rootmanage.basicinfo.entity.SalesArea;
+import org.example.rootmanage.option.OptionDictionary;
 import org.example.rootmanage.option.OptionItem;
-import org.example.rootmanage.option.OptionItemRepository;
+import org.example.rootmanage.search.KeywordSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -47,7 +48,10 @@ class BasicInfoServiceSalesAreaTest {
     private MarketingPersonnelRepository marketingPersonnelRepository;
 
     @Mock
-    private OptionItemRepository optionItemRepository;
+    private OptionDictionary optionDictionary;
+
+    @Mock
+    private KeywordSearchIndex keywordSearchIndex;
 
     @Mock
     private org.example.rootmanage.account.UserAccountRepository userAccountRepository;
@@ -147,7 +151,7 @@ class BasicInfoServiceSalesAreaTest {
         salesAreaRequest.setSuperiorDepartmentId(departmentId);
 
         when(salesAreaRepository.findByAreaCode("001")).thenReturn(Optional.empty());
-        when(optionItemRepository.findById(departmentId)).thenReturn(Optional.of(superiorDepartment));
+        when(optionDictionary.findById(departmentId)).thenReturn(Optional.of(superiorDepartment));
         when(salesAreaRepository.save(any(SalesArea.class))).thenReturn(salesArea);
 
         // 执行测试
@@ -155,7 +159,7 @@ class BasicInfoServiceSalesAreaTest {
 
         // 验证结果
         assertNotNull(result);
-        verify(optionItemRepository, times(1)).findById(departmentId);
+        verify(optionDictionary, times(1)).findById(departmentId);
         verify(salesAreaRepository, times(1)).save(any(SalesArea.class));
     }
 
@@ -184,7 +188,7 @@ class BasicInfoServiceSalesAreaTest {
         salesAreaRequest.setSuperiorDepartmentId(invalidDepartmentId);
 
         when(salesAreaRepository.findByAreaCode("001")).thenReturn(Optional.empty());
-        when(optionItemRepository.findById(invalidDepartmentId)).thenReturn(Optional.empty());
+        when(optionDictionary.findById(invalidDepartmentId)).thenReturn(Optional.empty());
 
         // 执行测试并验证异常
         IllegalArgumentException exception = assertThrows(
@@ -193,7 +197,7 @@ class BasicInfoServiceSalesAreaTest {
         );
 
         assertEquals("上级部门选项不存在", exception.getMessage());
-        verify(optionItemRepository, times(1)).findById(invalidDepartmentId);
+        verify(optionDictionary, times(1)).findById(invalidDepartmentId);
         verify(salesAreaRepository, never()).save(any(SalesArea.class));
     }
 
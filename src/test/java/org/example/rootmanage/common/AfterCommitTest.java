@@ -0,0 +1,59 @@
+package org.example.rootmanage.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 事务提交后执行测试类
+ */
+@DisplayName("事务提交后执行测试")
+class AfterCommitTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("没有事务 - 立即执行")
+    void testRun_WithoutTransaction() {
+        // Given
+        List<String> executed = new ArrayList<>();
+
+        // When
+        AfterCommit.run(() -> executed.add("a"));
+
+        // Then
+        assertEquals(List.of("a"), executed);
+    }
+
+    @Test
+    @DisplayName("事务中 - 提交后执行，某个动作失败不影响提交方和其后的动作")
+    void testRun_FailureIsolated() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        List<String> executed = new ArrayList<>();
+        AfterCommit.run(() -> executed.add("a"));
+        AfterCommit.run(() -> {
+            throw new IllegalStateException("db down");
+        });
+        AfterCommit.run(() -> executed.add("c"));
+        assertTrue(executed.isEmpty());
+
+        // When
+        assertDoesNotThrow(TransactionSynchronizationUtils::triggerAfterCommit);
+
+        // Then
+        assertEquals(List.of("a", "c"), executed);
+    }
+}
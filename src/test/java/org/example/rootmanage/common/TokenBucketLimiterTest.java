@@ -0,0 +1,81 @@
+package org.example.rootmanage.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 令牌桶限流测试类
+ */
+@DisplayName("令牌桶限流测试")
+class TokenBucketLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private TokenBucketLimiter limiter(int capacity, int maxKeys) {
+        return new TokenBucketLimiter("test", capacity, Duration.ofSeconds(capacity), maxKeys, now::get);
+    }
+
+    @Test
+    @DisplayName("取令牌 - 突发容量用尽后拒绝，按补充间隔恢复")
+    void testTryAcquire_BurstAndRefill() {
+        // Given：容量 3，每秒补充 1 个
+        TokenBucketLimiter limiter = limiter(3, 100);
+
+        // When & Then
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("user"));
+        }
+        long wait = limiter.tryAcquire("user");
+        assertEquals(Duration.ofSeconds(1).toNanos(), wait);
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(0, limiter.tryAcquire("user"));
+        assertTrue(limiter.tryAcquire("user") > 0);
+
+        TokenBucketLimiter.Stats stats = limiter.stats();
+        assertEquals(4, stats.getAllowed());
+        assertEquals(2, stats.getRejected());
+    }
+
+    @Test
+    @DisplayName("取令牌 - 不同键互不影响")
+    void testTryAcquire_PerKey() {
+        TokenBucketLimiter limiter = limiter(1, 100);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+        assertEquals(0, limiter.tryAcquire("b"));
+    }
+
+    @Test
+    @DisplayName("键数上限 - 先清理已装满的桶，仍超出时淘汰")
+    void testTryAcquire_BoundedKeys() {
+        // Given：上限 4 个键
+        TokenBucketLimiter limiter = limiter(2, 4);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire("k" + i);
+        }
+
+        // When：桶全部装满后新增键，装满的桶被清理，不计淘汰
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        limiter.tryAcquire("new");
+
+        // Then
+        assertEquals(1, limiter.stats().getKeys());
+        assertEquals(0, limiter.stats().getEvicted());
+
+        // When：未装满的桶超出上限，淘汰到上限的 3/4
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire("m" + i);
+        }
+
+        // Then
+        assertTrue(limiter.stats().getKeys() <= 4);
+        assertTrue(limiter.stats().getEvicted() > 0);
+    }
+}
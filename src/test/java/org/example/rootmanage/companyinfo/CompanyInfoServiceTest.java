@@ -2,8 +2,8 @@ package org.example.rootmanage.companyinfo;
 
 import org.example.rootmanage.companyinfo.dto.CompanyInfoReleaseRequest;
 import org.example.rootmanage.companyinfo.entity.CompanyInfoRelease;
+import org.example.rootmanage.option.OptionDictionary;
 import org.example.rootmanage.option.OptionItem;
-import org.example.rootmanage.option.OptionItemRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -32,7 +32,7 @@ class CompanyInfoServiceTest {
     private CompanyInfoReleaseRepository companyInfoReleaseRepository;
 
     @Mock
-    private OptionItemRepository optionItemRepository;
+    private OptionDictionary optionDictionary;
 
     @InjectMocks
     private CompanyInfoService companyInfoService;
@@ -120,27 +120,27 @@ class CompanyInfoServiceTest {
     @Test
     @DisplayName("创建信息发布 - 成功")
     void testCreateRelease_Success() {
-        when(optionItemRepository.findById(typeId)).thenReturn(Optional.of(type));
+        when(optionDictionary.findById(typeId)).thenReturn(Optional.of(type));
         when(companyInfoReleaseRepository.save(any(CompanyInfoRelease.class))).thenReturn(release);
 
         CompanyInfoRelease result = companyInfoService.createRelease(request);
 
         assertNotNull(result);
         assertEquals(releaseId, result.getId());
-        verify(optionItemRepository, times(1)).findById(typeId);
+        verify(optionDictionary, times(1)).findById(typeId);
         verify(companyInfoReleaseRepository, times(1)).save(any(CompanyInfoRelease.class));
     }
 
     @Test
     @DisplayName("创建信息发布 - 类型不存在")
     void testCreateRelease_TypeNotFound() {
-        when(optionItemRepository.findById(typeId)).thenReturn(Optional.empty());
+        when(optionDictionary.findById(typeId)).thenReturn(Optional.empty());
 
         assertThrows(IllegalArgumentException.class, () -> {
             companyInfoService.createRelease(request);
         });
 
-        verify(optionItemRepository, times(1)).findById(typeId);
+        verify(optionDictionary, times(1)).findById(typeId);
         verify(companyInfoReleaseRepository, never()).save(any());
     }
 
@@ -148,14 +148,14 @@ class CompanyInfoServiceTest {
     @DisplayName("更新信息发布 - 成功")
     void testUpdateRelease_Success() {
         when(companyInfoReleaseRepository.findById(releaseId)).thenReturn(Optional.of(release));
-        when(optionItemRepository.findById(typeId)).thenReturn(Optional.of(type));
+        when(optionDictionary.findById(typeId)).thenReturn(Optional.of(type));
         when(companyInfoReleaseRepository.save(any(CompanyInfoRelease.class))).thenReturn(release);
 
         CompanyInfoRelease result = companyInfoService.updateRelease(releaseId, request);
 
         assertNotNull(result);
         verify(companyInfoReleaseRepository, times(1)).findById(releaseId);
-        verify(optionItemRepository, times(1)).findById(typeId);
+        verify(optionDictionary, times(1)).findById(typeId);
         verify(companyInfoReleaseRepository, times(1)).save(any(CompanyInfoRelease.class));
     }
 
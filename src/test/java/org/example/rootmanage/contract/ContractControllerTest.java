@@ -8,7 +8,7 @@ import org.example.rootmanage.contract.dto.ContractExecutionProgressRequest;
 import org.example.rootmanage.contract.dto.ContractExecutionProgressResponse;
 import org.example.rootmanage.contract.entity.Contract;
 import org.example.rootmanage.contract.entity.ContractExecutionProgress;
-import org.example.rootmanage.module.ModuleRepository;
+import org.example.rootmanage.module.ModuleRouteIndex;
 import org.example.rootmanage.permission.PermissionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -61,7 +61,7 @@ class ContractControllerTest {
     private PermissionService permissionService;
 
     @MockBean
-    private ModuleRepository moduleRepository;
+    private ModuleRouteIndex moduleRouteIndex;
 
     @Autowired
     private ObjectMapper objectMapper;
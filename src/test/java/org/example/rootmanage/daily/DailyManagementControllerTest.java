@@ -8,7 +8,7 @@ import org.example.rootmanage.daily.dto.DestinationManagementRequest;
 import org.example.rootmanage.daily.dto.WeeklyReportRequest;
 import org.example.rootmanage.daily.entity.DestinationManagement;
 import org.example.rootmanage.daily.entity.WeeklyReport;
-import org.example.rootmanage.module.ModuleRepository;
+import org.example.rootmanage.module.ModuleRouteIndex;
 import org.example.rootmanage.permission.PermissionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -61,7 +61,7 @@ class DailyManagementControllerTest {
     private PermissionService permissionService;
 
     @MockBean
-    private ModuleRepository moduleRepository;
+    private ModuleRouteIndex moduleRouteIndex;
 
     @Autowired
     private ObjectMapper objectMapper;
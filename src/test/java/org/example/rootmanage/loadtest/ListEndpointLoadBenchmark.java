@@ -0,0 +1,138 @@
+package org.example.rootmanage.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 列表接口压测：对比平台线程池与虚拟线程两种执行模式的吞吐量和 p99
+ * 不属于单元测试（类名不以 Test 结尾，不随 mvn test 运行），需先启动待测实例，例如同一数据库上的两个实例：
+ *   java -jar app.jar --server.port=8080
+ *   java -jar app.jar --server.port=8081 --spring.profiles.active=virtual   （Java 21）
+ * 然后手动执行：
+ * mvn -q test-compile exec:java -Dexec.mainClass=org.example.rootmanage.loadtest.ListEndpointLoadBenchmark
+ *   -Dexec.classpathScope=test -Dexec.args="platform=http://localhost:8080,virtual=http://localhost:8081 TOKEN [并发 秒数 接口列表]"
+ * TOKEN 为管理员登录后的 token；接口列表以逗号分隔，默认为监控和销售的列表接口。
+ * 每个实例、每个接口先预热，再以固定并发的闭环方式持续请求，统计成功请求的吞吐量和延迟分位数。
+ */
+public class ListEndpointLoadBenchmark {
+
+    private static final String DEFAULT_ENDPOINTS = String.join(",",
+            "/api/remote-monitoring/monitoring/realtime",
+            "/api/remote-monitoring/data-points",
+            "/api/sales/opportunities",
+            "/api/sales/inventories");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("用法: 名称=地址[,名称=地址...] TOKEN [并发 秒数 接口列表]");
+            return;
+        }
+        Map<String, String> targets = new LinkedHashMap<>();
+        for (String target : args[0].split(",")) {
+            String[] parts = target.split("=", 2);
+            targets.put(parts[0], parts.length == 2 ? parts[1] : parts[0]);
+        }
+        String token = args[1];
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        String[] endpoints = (args.length > 4 ? args[4] : DEFAULT_ENDPOINTS).split(",");
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        System.out.printf("并发 %d，每个接口 %d 秒（预热 %d 秒）%n", concurrency, seconds, Math.max(1, seconds / 5));
+        System.out.printf("%-10s %-45s %10s %8s %10s %10s %10s%n", "实例", "接口", "请求/秒", "失败", "p50(ms)", "p99(ms)", "max(ms)");
+        try {
+            for (String endpoint : endpoints) {
+                for (Map.Entry<String, String> target : targets.entrySet()) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(target.getValue() + endpoint))
+                            .header("Authorization", "Bearer " + token)
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    run(client, workers, request, concurrency, Math.max(1, seconds / 5));
+                    Result result = run(client, workers, request, concurrency, seconds);
+                    System.out.printf("%-10s %-45s %10.0f %8d %10.1f %10.1f %10.1f%n", target.getKey(), endpoint,
+                            result.count / (double) seconds, result.failures,
+                            result.percentile(0.50), result.percentile(0.99), result.percentile(1.0));
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 以固定并发持续请求指定时长
+     */
+    private static Result run(HttpClient client, ExecutorService workers, HttpRequest request,
+                              int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Result>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> {
+                Result result = new Result();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            result.add(System.nanoTime() - start);
+                        } else {
+                            result.failures++;
+                        }
+                    } catch (Exception e) {
+                        result.failures++;
+                    }
+                }
+                return result;
+            }));
+        }
+        Result total = new Result();
+        for (Future<Result> future : futures) {
+            total.merge(future.get());
+        }
+        return total;
+    }
+
+    /**
+     * 成功请求的耗时（纳秒）及失败次数
+     */
+    private static final class Result {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long failures;
+
+        private void add(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        private void merge(Result other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.latencies[i]);
+            }
+            failures += other.failures;
+        }
+
+        private double percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int index = Math.min(count - 1, (int) Math.ceil(p * count) - 1);
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
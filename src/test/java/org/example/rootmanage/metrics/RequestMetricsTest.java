@@ -0,0 +1,114 @@
+package org.example.rootmanage.metrics;
+
+import org.example.rootmanage.metrics.dto.PhaseStats;
+import org.example.rootmanage.metrics.dto.RouteMetricsResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求指标测试类
+ */
+@DisplayName("请求指标测试")
+class RequestMetricsTest {
+
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    @Test
+    @DisplayName("延迟直方图 - 分位数误差在分桶精度内")
+    void testHistogram_Percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500, histogram.percentile(0.5), 500 * 0.125);
+        assertEquals(990, histogram.percentile(0.99), 990 * 0.125);
+        assertEquals(1000, histogram.percentile(1.0));
+        assertEquals(0, new LatencyHistogram().percentile(0.5));
+    }
+
+    @Test
+    @DisplayName("延迟直方图 - 桶上界覆盖桶内的值且相对误差不超过 12.5%")
+    void testHistogram_Buckets() {
+        for (long value : new long[]{0, 7, 8, 15, 16, 100, 999, 1_000_000, 1L << 35}) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.index(value));
+            assertTrue(upper >= value);
+            assertTrue(upper <= value + value / 8 + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("拦截器 - 按路由模板和方法登记各阶段耗时")
+    void testInterceptor_RecordsPhases() {
+        // Given
+        RequestMetricsInterceptor interceptor = new RequestMetricsInterceptor(requestMetrics);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/contracts/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/contracts/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        interceptor.preHandle(request, response, new Object());
+        RequestTiming timing = RequestTiming.of(request);
+        timing.lap(RequestPhase.TOKEN);
+        timing.lap(RequestPhase.HANDLER);
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        // Then
+        List<RouteMetricsResponse> routes = requestMetrics.snapshot();
+        assertEquals(1, routes.size());
+        RouteMetricsResponse route = routes.get(0);
+        assertEquals("GET", route.getMethod());
+        assertEquals("/api/contracts/{id}", route.getRoute());
+        assertEquals(1, route.getCount());
+        PhaseStats total = route.getPhases().get("TOTAL");
+        assertNotNull(total);
+        assertTrue(route.getPhases().containsKey("SERIALIZATION"));
+        assertFalse(route.getPhases().containsKey("MODULE"));
+        assertNull(request.getAttribute(RequestTiming.class.getName()));
+    }
+
+    @Test
+    @DisplayName("路由数超过上限 - 计入 OTHER")
+    void testRecord_MaxRoutes() {
+        // Given
+        ReflectionTestUtils.setField(requestMetrics, "maxRoutes", 2);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            RequestTiming timing = new RequestTiming(System.nanoTime());
+            timing.finish();
+            requestMetrics.record("GET", "/api/r" + i, i == 4 ? 500 : 200, timing);
+        }
+
+        // Then
+        List<RouteMetricsResponse> routes = requestMetrics.snapshot();
+        assertEquals(3, routes.size());
+        RouteMetricsResponse other = routes.get(0);
+        assertEquals(RequestMetrics.OTHER_ROUTE, other.getRoute());
+        assertEquals(3, other.getCount());
+        assertEquals(1, other.getErrors());
+    }
+
+    @Test
+    @DisplayName("未启用计时的请求 - 空实现不报错")
+    void testTiming_None() {
+        RequestTiming timing = RequestTiming.of(new MockHttpServletRequest());
+
+        assertDoesNotThrow(() -> {
+            timing.lap(RequestPhase.TOKEN);
+            timing.outcome("ALLOWED");
+        });
+        assertFalse(timing.isRecorded(RequestPhase.TOKEN));
+    }
+}
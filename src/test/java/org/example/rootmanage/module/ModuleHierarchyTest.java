@@ -0,0 +1,107 @@
+package org.example.rootmanage.module;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.rootmanage.module.dto.ModuleTreeNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 模块层级缓存测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("模块层级缓存测试")
+class ModuleHierarchyTest {
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    private ModuleHierarchy moduleHierarchy;
+
+    private ModuleEntity mall;
+    private ModuleEntity products;
+    private ModuleEntity adSettings;
+    private ModuleEntity accounts;
+
+    @BeforeEach
+    void setUp() {
+        moduleHierarchy = new ModuleHierarchy(moduleRepository, new ObjectMapper());
+        mall = module("商城", 1, null);
+        accounts = module("账号管理", 2, null);
+        adSettings = module("广告设置", 3, mall);
+        products = module("商品管理", 4, mall);
+    }
+
+    private static ModuleEntity module(String zhName, int orderNo, ModuleEntity parent) {
+        ModuleEntity module = new ModuleEntity();
+        module.setId(UUID.randomUUID());
+        module.setZhName(zhName);
+        module.setOrderNo(orderNo);
+        module.setParent(parent);
+        return module;
+    }
+
+    @Test
+    @DisplayName("构建模块树 - 按排序号挂载子节点，父模块缺失的节点被丢弃")
+    void testSnapshot_Tree() {
+        // Given
+        ModuleEntity orphan = module("孤立模块", 5, module("已删除", 0, null));
+        when(moduleRepository.findAllByOrderByOrderNoAsc()).thenReturn(List.of(mall, accounts, adSettings, products, orphan));
+
+        // When
+        List<ModuleTreeNode> tree = moduleHierarchy.snapshot().getTree();
+
+        // Then
+        assertEquals(List.of("商城", "账号管理"), tree.stream().map(ModuleTreeNode::getZhName).toList());
+        assertEquals(List.of("广告设置", "商品管理"),
+                tree.get(0).getChildren().stream().map(ModuleTreeNode::getZhName).toList());
+        assertTrue(tree.get(1).getChildren().isEmpty());
+    }
+
+    @Test
+    @DisplayName("缓存 - 未变更时复用快照，变更后版本号递增并重建")
+    void testSnapshot_CachedAndInvalidated() {
+        // Given
+        when(moduleRepository.findAllByOrderByOrderNoAsc())
+                .thenReturn(List.of(mall, adSettings), List.of(mall, adSettings, products));
+        ModuleHierarchy.Snapshot first = moduleHierarchy.snapshot();
+
+        // When
+        ModuleHierarchy.Snapshot cached = moduleHierarchy.snapshot();
+        moduleHierarchy.invalidateAfterCommit();
+        ModuleHierarchy.Snapshot rebuilt = moduleHierarchy.snapshot();
+
+        // Then
+        assertSame(first, cached);
+        assertEquals(first.getVersion() + 1, rebuilt.getVersion());
+        assertNotEquals(first.getEtag(), rebuilt.getEtag());
+        assertEquals(2, rebuilt.getTree().get(0).getChildren().size());
+        verify(moduleRepository, times(2)).findAllByOrderByOrderNoAsc();
+    }
+
+    @Test
+    @DisplayName("ETag - 内容相同时与版本号无关")
+    void testSnapshot_EtagByContent() {
+        // Given
+        when(moduleRepository.findAllByOrderByOrderNoAsc()).thenReturn(List.of(mall, adSettings));
+        ModuleHierarchy.Snapshot first = moduleHierarchy.snapshot();
+
+        // When
+        moduleHierarchy.invalidateAfterCommit();
+        ModuleHierarchy.Snapshot second = moduleHierarchy.snapshot();
+
+        // Then
+        assertNotEquals(first.getVersion(), second.getVersion());
+        assertEquals(first.getEtag(), second.getEtag());
+        assertTrue(first.getEtag().startsWith("\""));
+    }
+}
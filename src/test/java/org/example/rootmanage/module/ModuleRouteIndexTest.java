@@ -0,0 +1,93 @@
+package org.example.rootmanage.module;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 模块路由索引测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("模块路由索引测试")
+class ModuleRouteIndexTest {
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    @InjectMocks
+    private ModuleRouteIndex moduleRouteIndex;
+
+    private ModuleEntity mall;
+    private ModuleEntity adSettings;
+    private ModuleEntity accounts;
+
+    @BeforeEach
+    void setUp() {
+        mall = module("/mall");
+        adSettings = module("/mall/ad-settings");
+        accounts = module("/accounts");
+        when(moduleRepository.findAllByOrderByOrderNoAsc()).thenReturn(List.of(mall, adSettings, accounts));
+        moduleRouteIndex.rebuild();
+    }
+
+    private static ModuleEntity module(String path) {
+        ModuleEntity module = new ModuleEntity();
+        module.setId(UUID.randomUUID());
+        module.setPath(path);
+        module.setZhName(path);
+        return module;
+    }
+
+    @Test
+    @DisplayName("路由查找 - 精确匹配和最长前缀匹配")
+    void testResolve_LongestPrefix() {
+        assertEquals(adSettings.getId(), moduleRouteIndex.resolve("/api/mall/ad-settings").getId());
+        assertEquals(adSettings.getId(), moduleRouteIndex.resolve("/api/mall/ad-settings/enabled").getId());
+        assertEquals(mall.getId(), moduleRouteIndex.resolve("/api/mall/products").getId());
+        assertEquals(mall.getId(), moduleRouteIndex.resolve("/api/mall?page=1").getId());
+        assertNull(moduleRouteIndex.resolve("/api/unknown/mall"));
+        assertNull(moduleRouteIndex.resolve("/api/mallx"));
+    }
+
+    @Test
+    @DisplayName("路由查找 - ID段不参与字面匹配")
+    void testResolve_IdSegments() {
+        assertEquals(adSettings.getId(),
+                moduleRouteIndex.resolve("/api/mall/ad-settings/" + UUID.randomUUID()).getId());
+        assertEquals(adSettings.getId(), moduleRouteIndex.resolve("/api/mall/ad-settings/123").getId());
+        assertEquals(mall.getId(), moduleRouteIndex.resolve("/api/mall/0123456789abcdef0123456789ABCDEF/ad-settings").getId());
+        assertTrue(ModuleRouteIndex.isId("1-2-3-00000000-0000-0000-0000-000000000000", 6, 42));
+        assertFalse(ModuleRouteIndex.isId("ad-settings", 0, 11));
+    }
+
+    @Test
+    @DisplayName("路由查找 - 注册接口归属账号管理")
+    void testResolve_Register() {
+        assertEquals(accounts.getId(), moduleRouteIndex.resolve("/api/register/review").getId());
+    }
+
+    @Test
+    @DisplayName("重建索引 - 模块变更后生效")
+    void testRebuild() {
+        // Given
+        ModuleEntity products = module("mall/products/");
+        when(moduleRepository.findAllByOrderByOrderNoAsc()).thenReturn(List.of(mall, products));
+
+        // When
+        moduleRouteIndex.rebuildAfterCommit();
+
+        // Then
+        assertEquals(products.getId(), moduleRouteIndex.resolve("/api/mall/products/1").getId());
+        assertNull(moduleRouteIndex.resolve("/api/accounts"));
+    }
+}
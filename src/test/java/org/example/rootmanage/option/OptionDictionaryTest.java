@@ -0,0 +1,125 @@
+package org.example.rootmanage.option;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 选项字典缓存测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("选项字典缓存测试")
+class OptionDictionaryTest {
+
+    @Mock
+    private OptionItemRepository optionItemRepository;
+
+    @InjectMocks
+    private OptionDictionary optionDictionary;
+
+    private OptionItem warehouseA;
+    private OptionItem warehouseB;
+    private OptionItem stage;
+
+    @BeforeEach
+    void setUp() {
+        warehouseA = item("warehouse", "一号仓", 2);
+        warehouseB = item("warehouse", "二号仓", 1);
+        stage = item("stage", "初步接洽", 1);
+    }
+
+    private static OptionItem item(String group, String title, int orderNo) {
+        OptionItem item = new OptionItem();
+        item.setId(UUID.randomUUID());
+        item.setGroupCode(group);
+        item.setTitle(title);
+        item.setValue(title);
+        item.setOrderNo(orderNo);
+        return item;
+    }
+
+    @Test
+    @DisplayName("分组查询 - 整表加载一次，按排序号返回")
+    void testFindByGroup() {
+        // Given
+        when(optionItemRepository.findAll()).thenReturn(List.of(warehouseA, stage, warehouseB));
+
+        // When
+        List<OptionItem> warehouses = optionDictionary.findByGroup("warehouse");
+        List<OptionItem> stages = optionDictionary.findByGroup("stage");
+        List<OptionItem> unknown = optionDictionary.findByGroup("unknown");
+
+        // Then
+        assertEquals(List.of(warehouseB, warehouseA), warehouses);
+        assertEquals(List.of(stage), stages);
+        assertTrue(unknown.isEmpty());
+        verify(optionItemRepository, times(1)).findAll();
+        OptionDictionary.Stats stats = optionDictionary.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(3, stats.getSize());
+    }
+
+    @Test
+    @DisplayName("按ID查找 - 命中缓存时返回副本，不查询数据库")
+    void testFindById_Hit() {
+        // Given
+        when(optionItemRepository.findAll()).thenReturn(List.of(warehouseA, stage));
+        optionDictionary.findAll();
+
+        // When
+        OptionItem found = optionDictionary.findById(stage.getId()).orElseThrow();
+
+        // Then
+        assertNotSame(stage, found);
+        assertEquals(stage.getId(), found.getId());
+        assertEquals("初步接洽", found.getTitle());
+        verify(optionItemRepository, never()).findById(any());
+        assertEquals(1, optionDictionary.stats().getHits());
+    }
+
+    @Test
+    @DisplayName("按ID查找 - 缓存中不存在时回源数据库并在下次访问时重新加载")
+    void testFindById_Miss() {
+        // Given
+        OptionItem added = item("stage", "赢单", 2);
+        when(optionItemRepository.findAll()).thenReturn(List.of(stage), List.of(stage, added));
+        when(optionItemRepository.findById(added.getId())).thenReturn(Optional.of(added));
+
+        // When
+        Optional<OptionItem> first = optionDictionary.findById(added.getId());
+        List<OptionItem> stages = optionDictionary.findByGroup("stage");
+
+        // Then
+        assertTrue(first.isPresent());
+        assertEquals(2, stages.size());
+        verify(optionItemRepository, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("写入失效 - 下次访问重新加载")
+    void testInvalidate() {
+        // Given
+        when(optionItemRepository.findAll()).thenReturn(List.of(stage), List.of(stage, warehouseA));
+        optionDictionary.findAll();
+
+        // When
+        optionDictionary.invalidateAfterCommit();
+        List<OptionItem> all = optionDictionary.findAll();
+
+        // Then
+        assertEquals(2, all.size());
+        assertEquals(2, optionDictionary.stats().getLoads());
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.rootmanage.permission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.rootmanage.module.dto.ModuleTreeNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 角色可访问模块树缓存测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("角色可访问模块树缓存测试")
+class AccessibleModuleTreeCacheTest {
+
+    @Mock
+    private PermissionService permissionService;
+
+    private LocalPermissionInvalidationChannel channel;
+    private AccessibleModuleTreeCache cache;
+    private UUID roleId;
+
+    @BeforeEach
+    void setUp() {
+        channel = new LocalPermissionInvalidationChannel();
+        cache = new AccessibleModuleTreeCache(permissionService, channel, new ObjectMapper());
+        cache.subscribe();
+        roleId = UUID.randomUUID();
+    }
+
+    private static ModuleTreeNode node(String zhName) {
+        ModuleTreeNode node = new ModuleTreeNode();
+        node.setZhName(zhName);
+        return node;
+    }
+
+    @Test
+    @DisplayName("获取模块树 - 首次构建并序列化，之后命中缓存")
+    void testGetTreeJson_Cached() {
+        // Given
+        when(permissionService.getAccessibleModuleTree(roleId)).thenReturn(List.of(node("商城")));
+
+        // When
+        String first = cache.getTreeJson(roleId);
+        String second = cache.getTreeJson(roleId);
+
+        // Then
+        assertTrue(first.startsWith("[{"));
+        assertTrue(first.contains("商城"));
+        assertSame(first, second);
+        verify(permissionService, times(1)).getAccessibleModuleTree(roleId);
+    }
+
+    @Test
+    @DisplayName("失效通知 - 清除角色缓存后重新构建")
+    void testInvalidate() {
+        // Given
+        UUID otherRoleId = UUID.randomUUID();
+        when(permissionService.getAccessibleModuleTree(roleId)).thenReturn(List.of(node("商城")), List.of(node("合同")));
+        when(permissionService.getAccessibleModuleTree(otherRoleId)).thenReturn(List.of());
+        cache.getTreeJson(roleId);
+        cache.getTreeJson(otherRoleId);
+
+        // When
+        channel.publish(roleId);
+
+        // Then
+        assertTrue(cache.getTreeJson(roleId).contains("合同"));
+        assertEquals("[]", cache.getTreeJson(otherRoleId));
+        verify(permissionService, times(1)).getAccessibleModuleTree(otherRoleId);
+    }
+
+    @Test
+    @DisplayName("无角色 - 返回空数组")
+    void testGetTreeJson_NoRole() {
+        assertEquals("[]", cache.getTreeJson(null));
+        verifyNoInteractions(permissionService);
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.rootmanage.permission;
+
+import org.example.rootmanage.module.ModuleEntity;
+import org.example.rootmanage.module.ModuleRepository;
+import org.example.rootmanage.role.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 角色-模块权限矩阵缓存测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("角色-模块权限矩阵缓存测试")
+class PermissionMatrixCacheTest {
+
+    @Mock
+    private RoleModulePermissionRepository permissionRepository;
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    private PermissionMatrixCache cache;
+    private Role role;
+    private List<ModuleEntity> modules;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PermissionMatrixCache(permissionRepository, moduleRepository, new LocalPermissionInvalidationChannel());
+        cache.subscribe();
+        role = new Role();
+        role.setId(UUID.randomUUID());
+        // 超过 64 个模块，覆盖多个 long 字
+        modules = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            modules.add(module());
+        }
+        when(moduleRepository.findAll()).thenReturn(modules);
+    }
+
+    private static ModuleEntity module() {
+        ModuleEntity module = new ModuleEntity();
+        module.setId(UUID.randomUUID());
+        return module;
+    }
+
+    private RoleModulePermission permission(ModuleEntity module, boolean read, boolean add, boolean update) {
+        RoleModulePermission permission = new RoleModulePermission();
+        permission.setRole(role);
+        permission.setModule(module);
+        permission.setCanRead(read);
+        permission.setCanAdd(add);
+        permission.setCanUpdate(update);
+        return permission;
+    }
+
+    @Test
+    @DisplayName("权限检查 - 按读、新增、修改位判断")
+    void testAllows() {
+        // Given
+        ModuleEntity first = modules.get(0);
+        ModuleEntity last = modules.get(99);
+        when(permissionRepository.findAll()).thenReturn(List.of(
+                permission(first, true, false, false),
+                permission(last, true, true, true)));
+
+        // When
+        cache.warmUp();
+
+        // Then
+        assertTrue(cache.allows(role.getId(), first.getId(), PermissionMatrix.READ));
+        assertFalse(cache.allows(role.getId(), first.getId(), PermissionMatrix.ADD));
+        assertFalse(cache.allows(role.getId(), first.getId(), PermissionMatrix.UPDATE));
+        assertTrue(cache.allows(role.getId(), last.getId(), PermissionMatrix.UPDATE));
+        assertFalse(cache.allows(role.getId(), modules.get(50).getId(), PermissionMatrix.READ));
+        assertFalse(cache.allows(UUID.randomUUID(), first.getId(), PermissionMatrix.READ));
+        assertFalse(cache.allows(role.getId(), UUID.randomUUID(), PermissionMatrix.READ));
+    }
+
+    @Test
+    @DisplayName("失效通知 - 只重新加载该角色的权限")
+    void testInvalidate_ReloadsRole() {
+        // Given
+        ModuleEntity module = modules.get(70);
+        when(permissionRepository.findAll()).thenReturn(List.of());
+        cache.warmUp();
+        when(permissionRepository.findByRoleId(role.getId())).thenReturn(List.of(permission(module, false, true, false)));
+
+        // When
+        cache.invalidateAfterCommit(role.getId());
+
+        // Then
+        assertTrue(cache.allows(role.getId(), module.getId(), PermissionMatrix.ADD));
+        assertFalse(cache.allows(role.getId(), module.getId(), PermissionMatrix.READ));
+        verify(moduleRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("失效通知 - 角色权限引用了新模块时全量重建")
+    void testInvalidate_NewModule() {
+        // Given
+        when(permissionRepository.findAll()).thenReturn(List.of());
+        cache.warmUp();
+        ModuleEntity added = module();
+        modules.add(added);
+        RoleModulePermission permission = permission(added, true, false, false);
+        when(permissionRepository.findByRoleId(role.getId())).thenReturn(List.of(permission));
+        when(permissionRepository.findAll()).thenReturn(List.of(permission));
+
+        // When
+        cache.invalidateAfterCommit(role.getId());
+
+        // Then
+        assertTrue(cache.allows(role.getId(), added.getId(), PermissionMatrix.READ));
+        verify(moduleRepository, times(2)).findAll();
+    }
+}
@@ -5,7 +5,7 @@ import org.example.rootmanage.auth.TokenService;
 import org.example.rootmanage.basicinfo.entity.Product;
 import org.example.rootmanage.config.RestExceptionHandler;
 import org.example.rootmanage.config.WebConfig;
-import org.example.rootmanage.module.ModuleRepository;
+import org.example.rootmanage.module.ModuleRouteIndex;
 import org.example.rootmanage.permission.PermissionService;
 import org.example.rootmanage.pricebook.dto.PriceBookRequest;
 import org.example.rootmanage.pricebook.entity.PriceBook;
@@ -61,7 +61,7 @@ class PriceBookControllerTest {
     private PermissionService permissionService;
 
     @MockBean
-    private ModuleRepository moduleRepository;
+    private ModuleRouteIndex moduleRouteIndex;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -5,7 +5,7 @@ import org.example.rootmanage.auth.TokenService;
 import org.example.rootmanage.config.RestExceptionHandler;
 import org.example.rootmanage.config.WebConfig;
 import org.example.rootmanage.contract.entity.Contract;
-import org.example.rootmanage.module.ModuleRepository;
+import org.example.rootmanage.module.ModuleRouteIndex;
 import org.example.rootmanage.permission.PermissionService;
 import org.example.rootmanage.receivable.dto.AccountsReceivableResponse;
 import org.example.rootmanage.receivable.dto.AccountsReceivableUpdateRequest;
@@ -60,7 +60,7 @@ class AccountsReceivableControllerTest {
     private PermissionService permissionService;
 
     @MockBean
-    private ModuleRepository moduleRepository;
+    private ModuleRouteIndex moduleRouteIndex;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -0,0 +1,272 @@
+package org.example.rootmanage.remotemonitoring;
+
+import org.example.rootmanage.remotemonitoring.entity.*;
+import org.example.rootmanage.remotemonitoring.repository.AlarmConfigRepository;
+import org.example.rootmanage.remotemonitoring.repository.AlarmRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 报警规则引擎测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("报警规则引擎测试")
+class AlarmRuleEngineTest {
+
+    @Mock
+    private AlarmConfigRepository alarmConfigRepository;
+
+    @Mock
+    private AlarmRecordRepository alarmRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AlarmRuleEngine engine;
+
+    private UUID configId;
+    private UUID pointId;
+    private AlarmConfig alarmConfig;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        engine = new AlarmRuleEngine(alarmConfigRepository, alarmRecordRepository, transactionManager);
+        configId = UUID.randomUUID();
+        pointId = UUID.randomUUID();
+        baseTime = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+        alarmConfig = new AlarmConfig();
+        alarmConfig.setId(configId);
+        alarmConfig.setAlarmCode("ALARM001");
+        alarmConfig.setAlarmName("超压报警");
+        alarmConfig.setDataPointId(pointId);
+        alarmConfig.setAlarmType(AlarmType.HIGH);
+        alarmConfig.setAlarmLevel(AlarmLevel.WARNING);
+        alarmConfig.setUpperLimit(100.0);
+        alarmConfig.setEnabled(true);
+    }
+
+    private void loadRules() {
+        when(alarmConfigRepository.findByEnabled(true)).thenReturn(List.of(alarmConfig));
+        engine.reload();
+    }
+
+    private void stubRecordSave() {
+        when(alarmRecordRepository.save(any(AlarmRecord.class))).thenAnswer(invocation -> {
+            AlarmRecord record = invocation.getArgument(0);
+            record.setId(UUID.randomUUID());
+            return record;
+        });
+    }
+
+    @Test
+    @DisplayName("超上限 - 只在首次超限时写一条报警记录")
+    void testEvaluate_WritesOnlyOnTransition() {
+        // Given
+        loadRules();
+        stubRecordSave();
+
+        // When
+        int first = engine.evaluate(pointId, 150.0, baseTime);
+        int second = engine.evaluate(pointId, 160.0, baseTime.plusSeconds(1));
+        int third = engine.evaluate(pointId, 155.0, baseTime.plusSeconds(2));
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals(0, third);
+        verify(alarmRecordRepository, times(1)).save(argThat(record ->
+                record.getAlarmValue() == 150.0 && record.getThresholdValue() == 100.0
+                        && record.getStatus() == AlarmStatus.ACTIVE
+                        && "数值 150.00 超过上限 100.00".equals(record.getAlarmMessage())));
+        verifyNoMoreInteractions(alarmRecordRepository);
+    }
+
+    @Test
+    @DisplayName("未超限 - 不访问数据库")
+    void testEvaluate_WithinLimit() {
+        // Given
+        loadRules();
+
+        // When
+        int transitions = engine.evaluate(pointId, 50.0, baseTime);
+
+        // Then
+        assertEquals(0, transitions);
+        verifyNoInteractions(alarmRecordRepository);
+    }
+
+    @Test
+    @DisplayName("死区回差 - 回到阈值以内超过死区才恢复")
+    void testEvaluate_DeadbandHysteresis() {
+        // Given
+        alarmConfig.setDeadband(5.0);
+        loadRules();
+        stubRecordSave();
+
+        // When
+        engine.evaluate(pointId, 110.0, baseTime);
+        int insideDeadband = engine.evaluate(pointId, 97.0, baseTime.plusSeconds(1));
+        int cleared = engine.evaluate(pointId, 94.0, baseTime.plusSeconds(2));
+
+        // Then
+        assertEquals(0, insideDeadband);
+        assertEquals(1, cleared);
+        verify(alarmRecordRepository, times(1)).save(any(AlarmRecord.class));
+        verify(alarmRecordRepository, times(1)).recoverById(any(UUID.class), eq(baseTime.plusSeconds(2)));
+    }
+
+    @Test
+    @DisplayName("延时报警 - 持续超限达到延时时间才报警")
+    void testEvaluate_DelayOnBreach() {
+        // Given
+        alarmConfig.setDelaySeconds(10);
+        loadRules();
+        stubRecordSave();
+
+        // When
+        int start = engine.evaluate(pointId, 150.0, baseTime);
+        int stillPending = engine.evaluate(pointId, 150.0, baseTime.plusSeconds(5));
+        int fired = engine.evaluate(pointId, 150.0, baseTime.plusSeconds(10));
+
+        // Then
+        assertEquals(0, start);
+        assertEquals(0, stillPending);
+        assertEquals(1, fired);
+        verify(alarmRecordRepository, times(1)).save(any(AlarmRecord.class));
+    }
+
+    @Test
+    @DisplayName("延时报警 - 延时内回到正常则不报警")
+    void testEvaluate_DelayResetWhenNormal() {
+        // Given
+        alarmConfig.setDelaySeconds(10);
+        loadRules();
+
+        // When
+        engine.evaluate(pointId, 150.0, baseTime);
+        engine.evaluate(pointId, 50.0, baseTime.plusSeconds(5));
+        int transitions = engine.evaluate(pointId, 150.0, baseTime.plusSeconds(12));
+
+        // Then
+        assertEquals(0, transitions);
+        verifyNoInteractions(alarmRecordRepository);
+    }
+
+    @Test
+    @DisplayName("刷新配置 - 禁用后不再求值")
+    void testRefresh_DisabledRuleRemoved() {
+        // Given
+        loadRules();
+        assertTrue(engine.hasRules(pointId));
+
+        // When
+        alarmConfig.setEnabled(false);
+        engine.refresh(alarmConfig);
+
+        // Then
+        assertFalse(engine.hasRules(pointId));
+        assertEquals(0, engine.evaluate(pointId, 150.0, baseTime));
+    }
+
+    @Test
+    @DisplayName("启动预热 - 已有活动报警时不重复报警")
+    void testWarmUp_RestoresOpenAlarms() {
+        // Given
+        AlarmRecord open = new AlarmRecord();
+        open.setId(UUID.randomUUID());
+        open.setAlarmConfigId(configId);
+        open.setStatus(AlarmStatus.ACTIVE);
+        when(alarmConfigRepository.findByEnabled(true)).thenReturn(List.of(alarmConfig));
+        when(alarmRecordRepository.findByStatusOrderByAlarmTimeDesc(AlarmStatus.ACKNOWLEDGED)).thenReturn(List.of());
+        when(alarmRecordRepository.findByStatusOrderByAlarmTimeDesc(AlarmStatus.ACTIVE)).thenReturn(List.of(open));
+        engine.warmUp();
+
+        // When
+        int transitions = engine.evaluate(pointId, 150.0, baseTime);
+
+        // Then
+        assertEquals(0, transitions);
+        verify(alarmRecordRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("写入报警记录时不持有状态锁 - 写入期间恢复的采样在写入完成后恢复该记录")
+    void testEvaluate_ClearedWhileSaving() {
+        // Given
+        loadRules();
+        UUID recordId = UUID.randomUUID();
+        int[] nested = new int[1];
+        when(alarmRecordRepository.save(any(AlarmRecord.class))).thenAnswer(invocation -> {
+            // 写入期间另一个采样已回到阈值以内
+            nested[0] = engine.evaluate(pointId, 50.0, baseTime.plusSeconds(1));
+            AlarmRecord record = invocation.getArgument(0);
+            record.setId(recordId);
+            return record;
+        });
+
+        // When
+        int transitions = engine.evaluate(pointId, 150.0, baseTime);
+
+        // Then
+        assertEquals(1, transitions);
+        assertEquals(0, nested[0]);
+        verify(alarmRecordRepository, times(1)).recoverById(recordId, baseTime.plusSeconds(1));
+        // 状态已回到正常，再次超限重新报警
+        assertEquals(1, engine.evaluate(pointId, 150.0, baseTime.plusSeconds(2)));
+    }
+
+    @Test
+    @DisplayName("写入报警记录失败 - 提交方不受影响，同批其余采样继续求值并重新报警")
+    void testOfferAll_SaveFailureAfterCommit() {
+        // Given
+        loadRules();
+        when(alarmRecordRepository.save(any(AlarmRecord.class)))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenAnswer(invocation -> {
+                    AlarmRecord record = invocation.getArgument(0);
+                    record.setId(UUID.randomUUID());
+                    return record;
+                });
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.offerAll(List.of(sample(150.0, baseTime), sample(160.0, baseTime.plusSeconds(1))));
+            verify(alarmRecordRepository, never()).save(any(AlarmRecord.class));
+
+            // When
+            assertDoesNotThrow(TransactionSynchronizationUtils::triggerAfterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        verify(alarmRecordRepository, times(2)).save(any(AlarmRecord.class));
+        verify(alarmRecordRepository, times(1)).save(argThat(record -> record.getAlarmValue() == 160.0));
+        // 第二次写入成功后处于报警状态，继续超限不再写入
+        assertEquals(0, engine.evaluate(pointId, 170.0, baseTime.plusSeconds(2)));
+    }
+
+    private DeviceRunningData sample(double value, LocalDateTime time) {
+        DeviceRunningData sample = new DeviceRunningData();
+        sample.setDataPointId(pointId);
+        sample.setValue(value);
+        sample.setCollectionTime(time);
+        return sample;
+    }
+}
@@ -36,6 +36,9 @@ class AlarmServiceTest {
     @Mock
     private AlarmRecordRepository alarmRecordRepository;
 
+    @Mock
+    private AlarmRuleEngine alarmRuleEngine;
+
     @InjectMocks
     private AlarmService alarmService;
 
@@ -220,45 +223,52 @@ class AlarmServiceTest {
     }
 
     @Test
-    @DisplayName("检查并触发报警 - 超上限")
-    void testCheckAndTriggerAlarm_ExceedsUpperLimit() {
+    @DisplayName("检查并触发报警 - 交由规则引擎求值，不查询数据库")
+    void testCheckAndTriggerAlarm_DelegatesToEngine() {
         // Given
         Double value = 150.0;
-        when(alarmConfigRepository.findByDataPointId(pointId))
-                .thenReturn(Arrays.asList(alarmConfig));
-        when(alarmRecordRepository.findByDataPointIdAndStatusOrderByAlarmTimeDesc(
-                pointId, AlarmStatus.ACTIVE)).thenReturn(List.of());
-        when(alarmConfigRepository.findById(configId)).thenReturn(Optional.of(alarmConfig));
-        when(alarmRecordRepository.save(any(AlarmRecord.class))).thenAnswer(invocation -> {
-            AlarmRecord record = invocation.getArgument(0);
-            record.setId(UUID.randomUUID());
-            return record;
-        });
 
         // When
         alarmService.checkAndTriggerAlarm(pointId, value);
 
         // Then
-        verify(alarmConfigRepository, times(1)).findByDataPointId(pointId);
-        verify(alarmRecordRepository, times(1)).findByDataPointIdAndStatusOrderByAlarmTimeDesc(
-                pointId, AlarmStatus.ACTIVE);
-        verify(alarmRecordRepository, times(1)).save(any(AlarmRecord.class));
+        verify(alarmRuleEngine, times(1)).evaluate(eq(pointId), eq(150.0), any(LocalDateTime.class));
+        verifyNoInteractions(alarmConfigRepository, alarmRecordRepository);
     }
 
     @Test
-    @DisplayName("检查并触发报警 - 未超限，不触发")
-    void testCheckAndTriggerAlarm_WithinLimit() {
+    @DisplayName("修改报警配置 - 刷新规则")
+    void testUpdateConfig_RefreshesRule() {
         // Given
-        Double value = 50.0;
-        when(alarmConfigRepository.findByDataPointId(pointId))
-                .thenReturn(Arrays.asList(alarmConfig));
+        AlarmConfigRequest request = new AlarmConfigRequest();
+        request.setAlarmCode("ALARM001");
+        request.setAlarmName("超压报警");
+        request.setDataPointId(pointId);
+        request.setUpperLimit(120.0);
+
+        when(alarmConfigRepository.findById(configId)).thenReturn(Optional.of(alarmConfig));
+        when(alarmConfigRepository.save(any(AlarmConfig.class))).thenReturn(alarmConfig);
 
         // When
-        alarmService.checkAndTriggerAlarm(pointId, value);
+        alarmService.updateConfig(configId, request);
 
         // Then
-        verify(alarmConfigRepository, times(1)).findByDataPointId(pointId);
-        verify(alarmRecordRepository, never()).save(any());
+        assertEquals(120.0, alarmConfig.getUpperLimit());
+        verify(alarmRuleEngine, times(1)).refresh(alarmConfig);
+    }
+
+    @Test
+    @DisplayName("删除报警配置 - 移除规则")
+    void testDeleteConfig_RemovesRule() {
+        // Given
+        when(alarmConfigRepository.findById(configId)).thenReturn(Optional.of(alarmConfig));
+
+        // When
+        alarmService.deleteConfig(configId);
+
+        // Then
+        verify(alarmConfigRepository, times(1)).delete(alarmConfig);
+        verify(alarmRuleEngine, times(1)).remove(configId);
     }
 
     @Test
@@ -0,0 +1,139 @@
+package org.example.rootmanage.remotemonitoring;
+
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataBatchWriter;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataBatchWriter.CurrentValueUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 点位当前值写后缓冲测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("点位当前值写后缓冲测试")
+class CurrentValueWriteBehindTest {
+
+    @Mock
+    private RunningDataBatchWriter runningDataBatchWriter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CurrentValueWriteBehind writeBehind;
+
+    private UUID pointId1;
+    private UUID pointId2;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        writeBehind = new CurrentValueWriteBehind(runningDataBatchWriter, transactionManager);
+        pointId1 = UUID.randomUUID();
+        pointId2 = UUID.randomUUID();
+        baseTime = LocalDateTime.of(2024, 1, 1, 8, 0);
+    }
+
+    @Test
+    @DisplayName("写回 - 每个点位只保留最新值，一次批量更新")
+    void testFlush_CoalescesPerPoint() {
+        // Given
+        writeBehind.offer(new CurrentValueUpdate(pointId1, 1.0, baseTime, DataQuality.GOOD));
+        writeBehind.offer(new CurrentValueUpdate(pointId1, 3.0, baseTime.plusSeconds(2), DataQuality.GOOD));
+        writeBehind.offer(new CurrentValueUpdate(pointId1, 2.0, baseTime.plusSeconds(1), DataQuality.GOOD));
+        writeBehind.offer(new CurrentValueUpdate(pointId2, 5.0, baseTime, DataQuality.GOOD));
+        assertEquals(2, writeBehind.getPendingCount());
+
+        // When
+        int flushed = writeBehind.flush();
+
+        // Then
+        assertEquals(2, flushed);
+        assertEquals(0, writeBehind.getPendingCount());
+        verify(runningDataBatchWriter, times(1)).updateCurrentValues(argThat(updates ->
+                updates.size() == 2 && updates.stream().anyMatch(u ->
+                        u.getDataPointId().equals(pointId1) && u.getValue() == 3.0)));
+    }
+
+    @Test
+    @DisplayName("写回 - 没有待写值时不访问数据库")
+    void testFlush_NothingPending() {
+        // When
+        int flushed = writeBehind.flush();
+
+        // Then
+        assertEquals(0, flushed);
+        verifyNoInteractions(runningDataBatchWriter, transactionManager);
+    }
+
+    @Test
+    @DisplayName("提交 - 脏点位达到阈值时立即写回")
+    void testOffer_FlushesAtThreshold() {
+        // Given
+        ReflectionTestUtils.setField(writeBehind, "flushThreshold", 2);
+
+        // When
+        writeBehind.offerAll(Arrays.asList(
+                new CurrentValueUpdate(pointId1, 1.0, baseTime, DataQuality.GOOD),
+                new CurrentValueUpdate(pointId2, 2.0, baseTime, DataQuality.GOOD)));
+
+        // Then
+        assertEquals(0, writeBehind.getPendingCount());
+        verify(runningDataBatchWriter, times(1)).updateCurrentValues(any());
+    }
+
+    @Test
+    @DisplayName("写回失败 - 待写值保留到下次写回")
+    void testFlush_FailureKeepsPending() {
+        // Given
+        writeBehind.offer(new CurrentValueUpdate(pointId1, 1.0, baseTime, DataQuality.GOOD));
+        doThrow(new IllegalStateException("db down")).when(runningDataBatchWriter).updateCurrentValues(any());
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> writeBehind.flush());
+        assertEquals(1, writeBehind.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("阈值写回失败 - 不抛给采集写入，待写值保留到定时写回")
+    void testOffer_ThresholdFlushFailureSwallowed() {
+        // Given
+        ReflectionTestUtils.setField(writeBehind, "flushThreshold", 1);
+        doThrow(new IllegalStateException("db down")).when(runningDataBatchWriter).updateCurrentValues(any());
+
+        // When
+        assertDoesNotThrow(() -> writeBehind.offer(
+                new CurrentValueUpdate(pointId1, 1.0, baseTime, DataQuality.GOOD)));
+
+        // Then
+        assertEquals(1, writeBehind.getPendingCount());
+        verify(runningDataBatchWriter, times(1)).updateCurrentValues(any());
+    }
+
+    @Test
+    @DisplayName("应用关闭 - 写回全部待写值")
+    void testShutdown_FlushesPending() {
+        // Given
+        writeBehind.offer(new CurrentValueUpdate(pointId1, 1.0, baseTime, DataQuality.GOOD));
+
+        // When
+        writeBehind.shutdown();
+
+        // Then
+        assertEquals(0, writeBehind.getPendingCount());
+        verify(runningDataBatchWriter, times(1)).updateCurrentValues(any());
+    }
+}
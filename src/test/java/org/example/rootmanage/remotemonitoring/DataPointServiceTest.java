@@ -4,7 +4,7 @@ import org.example.rootmanage.remotemonitoring.dto.DataPointRequest;
 import org.example.rootmanage.remotemonitoring.dto.ManualDataInputRequest;
 import org.example.rootmanage.remotemonitoring.entity.*;
 import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
-import org.example.rootmanage.remotemonitoring.repository.DeviceRunningDataRepository;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -32,7 +32,22 @@ class DataPointServiceTest {
     private DataPointRepository dataPointRepository;
 
     @Mock
-    private DeviceRunningDataRepository deviceRunningDataRepository;
+    private RunningDataStore runningDataStore;
+
+    @Mock
+    private RealTimeValueStore realTimeValueStore;
+
+    @Mock
+    private CurrentValueWriteBehind currentValueWriteBehind;
+
+    @Mock
+    private AlarmRuleEngine alarmRuleEngine;
+
+    @Mock
+    private VirtualMeterFormulaEngine formulaEngine;
+
+    @Mock
+    private DataStatisticsRollup statisticsRollup;
 
     @InjectMocks
     private DataPointService dataPointService;
@@ -120,8 +135,7 @@ class DataPointServiceTest {
         request.setCollectionTime(LocalDateTime.now());
 
         when(dataPointRepository.findById(pointId)).thenReturn(Optional.of(dataPoint));
-        when(dataPointRepository.save(any(DataPoint.class))).thenReturn(dataPoint);
-        when(deviceRunningDataRepository.save(any(DeviceRunningData.class))).thenAnswer(invocation -> {
+        when(runningDataStore.save(any(DeviceRunningData.class))).thenAnswer(invocation -> {
             DeviceRunningData data = invocation.getArgument(0);
             data.setId(UUID.randomUUID());
             return data;
@@ -137,11 +151,12 @@ class DataPointServiceTest {
         assertEquals(100.5, result.getRawValue());
         assertEquals(DataQuality.GOOD, result.getQuality());
         assertEquals(DataSource.MANUAL, result.getSource());
-        assertEquals(100.5, dataPoint.getCurrentValue());
-        assertNotNull(dataPoint.getLastCollectionTime());
         verify(dataPointRepository, times(1)).findById(pointId);
-        verify(dataPointRepository, times(1)).save(any(DataPoint.class));
-        verify(deviceRunningDataRepository, times(1)).save(any(DeviceRunningData.class));
+        verify(dataPointRepository, never()).save(any());
+        verify(currentValueWriteBehind, times(1)).offer(argThat(update ->
+                update.getDataPointId().equals(pointId) && update.getValue() == 100.5
+                        && update.getCollectionTime().equals(request.getCollectionTime())));
+        verify(runningDataStore, times(1)).save(any(DeviceRunningData.class));
     }
 
     @Test
@@ -159,7 +174,7 @@ class DataPointServiceTest {
             dataPointService.inputManualData(request);
         });
         verify(dataPointRepository, times(1)).findById(pointId);
-        verify(deviceRunningDataRepository, never()).save(any());
+        verify(runningDataStore, never()).save(any());
     }
 
     @Test
@@ -169,17 +184,17 @@ class DataPointServiceTest {
         Double value = 150.0;
         LocalDateTime collectionTime = LocalDateTime.now();
 
-        when(dataPointRepository.findById(pointId)).thenReturn(Optional.of(dataPoint));
-        when(dataPointRepository.save(any(DataPoint.class))).thenReturn(dataPoint);
+        when(dataPointRepository.existsById(pointId)).thenReturn(true);
 
         // When
         dataPointService.updateCurrentValue(pointId, value, collectionTime);
 
         // Then
-        assertEquals(value, dataPoint.getCurrentValue());
-        assertEquals(collectionTime, dataPoint.getLastCollectionTime());
-        verify(dataPointRepository, times(1)).findById(pointId);
-        verify(dataPointRepository, times(1)).save(any(DataPoint.class));
+        verify(dataPointRepository, never()).save(any());
+        verify(currentValueWriteBehind, times(1)).offer(argThat(update ->
+                update.getDataPointId().equals(pointId) && update.getValue().equals(value)
+                        && update.getCollectionTime().equals(collectionTime)));
+        verify(realTimeValueStore, times(1)).updateValue(pointId, value, DataQuality.GOOD, collectionTime);
     }
 
     @Test
@@ -0,0 +1,255 @@
+package org.example.rootmanage.remotemonitoring;
+
+import org.example.rootmanage.remotemonitoring.dto.StatisticsBackfillRequest;
+import org.example.rootmanage.remotemonitoring.dto.StatisticsBackfillResult;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
+import org.example.rootmanage.remotemonitoring.entity.StatisticsPeriod;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.DataStatisticsBatchWriter;
+import org.example.rootmanage.remotemonitoring.repository.DataStatisticsRepository;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataStore;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataStore.ValueConsumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 统计数据增量汇总测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("统计数据增量汇总测试")
+class DataStatisticsRollupTest {
+
+    @Mock
+    private DataStatisticsRepository statisticsRepository;
+
+    @Mock
+    private DataStatisticsBatchWriter statisticsBatchWriter;
+
+    @Mock
+    private DataPointRepository dataPointRepository;
+
+    @Mock
+    private RunningDataStore runningDataStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DataStatisticsRollup rollup;
+
+    private UUID pointId;
+    private List<DataStatistics> saved;
+
+    @BeforeEach
+    void setUp() {
+        rollup = new DataStatisticsRollup(statisticsRepository, statisticsBatchWriter, dataPointRepository,
+                runningDataStore, transactionManager);
+        pointId = UUID.randomUUID();
+        saved = new ArrayList<>();
+    }
+
+    private void captureSaved() {
+        when(statisticsRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<DataStatistics> rows = invocation.getArgument(0);
+            saved.addAll(rows);
+            return rows;
+        });
+    }
+
+    private void captureMerged() {
+        when(statisticsBatchWriter.mergeStatistics(anyList())).thenAnswer(invocation -> {
+            List<DataStatistics> rows = invocation.getArgument(0);
+            saved.addAll(rows);
+            return rows.size();
+        });
+    }
+
+    private DataStatistics savedRow(StatisticsPeriod period) {
+        return saved.stream().filter(row -> row.getStatisticsPeriod() == period).findFirst().orElseThrow();
+    }
+
+    private static DataStatistics dailyRow(UUID pointId, LocalDate date, int count, double sum, double max, double min) {
+        DataStatistics row = new DataStatistics();
+        row.setDataPointId(pointId);
+        row.setStatisticsPeriod(StatisticsPeriod.DAILY);
+        row.setStatisticsDate(date);
+        row.setStartTime(date.atStartOfDay());
+        row.setEndTime(date.plusDays(1).atStartOfDay());
+        row.setDataCount(count);
+        row.setSumValue(sum);
+        row.setAvgValue(sum / count);
+        row.setMaxValue(max);
+        row.setMaxValueTime(date.atTime(1, 0));
+        row.setMinValue(min);
+        row.setMinValueTime(date.atTime(2, 0));
+        return row;
+    }
+
+    @Test
+    @DisplayName("小时结束 - 写入小时统计并逐级合并到日、周、月统计")
+    void testCloseHours_CascadesPeriods() {
+        // Given：2024-01-03 为周三
+        captureMerged();
+        rollup.offer(pointId, 10.0, DataQuality.GOOD, LocalDateTime.of(2024, 1, 3, 8, 10));
+        rollup.offer(pointId, 20.0, DataQuality.GOOD, LocalDateTime.of(2024, 1, 3, 8, 40));
+        rollup.offer(pointId, 5.0, DataQuality.GOOD, LocalDateTime.of(2024, 1, 3, 9, 5));
+
+        // When
+        int closed = rollup.closeHours(LocalDateTime.of(2024, 1, 3, 9, 30));
+
+        // Then：只写入已结束的 8 点，9 点仍在内存中
+        assertEquals(1, closed);
+        assertEquals(1, rollup.getOpenBucketCount());
+        assertEquals(4, saved.size());
+
+        DataStatistics hourly = savedRow(StatisticsPeriod.HOURLY);
+        assertEquals(LocalDate.of(2024, 1, 3), hourly.getStatisticsDate());
+        assertEquals(8, hourly.getHourOfDay());
+        assertEquals(LocalDateTime.of(2024, 1, 3, 9, 0), hourly.getEndTime());
+        assertEquals(2, hourly.getDataCount());
+        assertEquals(15.0, hourly.getAvgValue());
+        assertEquals(20.0, hourly.getMaxValue());
+        assertEquals(LocalDateTime.of(2024, 1, 3, 8, 40), hourly.getMaxValueTime());
+        assertEquals(10.0, hourly.getMinValue());
+
+        DataStatistics weekly = savedRow(StatisticsPeriod.WEEKLY);
+        assertEquals(LocalDate.of(2024, 1, 1), weekly.getStatisticsDate());
+        assertEquals(1, weekly.getWeekOfYear());
+        assertNull(weekly.getHourOfDay());
+        assertEquals(LocalDate.of(2024, 1, 1), savedRow(StatisticsPeriod.MONTHLY).getStatisticsDate());
+        assertEquals(LocalDateTime.of(2024, 2, 1, 0, 0), savedRow(StatisticsPeriod.MONTHLY).getEndTime());
+    }
+
+    @Test
+    @DisplayName("小时结束 - 只提交增量由数据库端合并，不读取已有统计行，也不回查原始数据")
+    void testCloseHours_WritesDeltasOnly() {
+        // Given
+        captureMerged();
+        LocalDate date = LocalDate.of(2024, 1, 3);
+        rollup.offer(pointId, 2.0, DataQuality.GOOD, date.atTime(8, 10));
+        rollup.offer(pointId, 8.0, DataQuality.UNCERTAIN, date.atTime(8, 20));
+        rollup.offer(pointId, 4.0, DataQuality.GOOD, date.atTime(9, 0));
+
+        // When
+        rollup.closeHours(date.atTime(10, 0));
+
+        // Then：两个小时各一行，日统计合并为一行增量
+        verify(statisticsBatchWriter, times(4)).mergeStatistics(anyList());
+        assertEquals(2, saved.stream().filter(row -> row.getStatisticsPeriod() == StatisticsPeriod.HOURLY).count());
+        DataStatistics daily = savedRow(StatisticsPeriod.DAILY);
+        assertEquals(date.atStartOfDay(), daily.getStartTime());
+        assertEquals(3, daily.getDataCount());
+        assertEquals(14.0, daily.getSumValue());
+        assertEquals(8.0, daily.getMaxValue());
+        assertEquals(date.atTime(8, 20), daily.getMaxValueTime());
+        assertEquals(2.0, daily.getMinValue());
+        assertEquals(date.atTime(8, 10), daily.getMinValueTime());
+        verifyNoInteractions(statisticsRepository, runningDataStore);
+    }
+
+    @Test
+    @DisplayName("采集值 - 坏数据不参与统计")
+    void testOffer_IgnoresBadQuality() {
+        // When
+        rollup.offer(pointId, 1.0, DataQuality.BAD, LocalDateTime.of(2024, 1, 3, 8, 0));
+        rollup.offer(pointId, null, DataQuality.GOOD, LocalDateTime.of(2024, 1, 3, 8, 0));
+
+        // Then
+        assertEquals(0, rollup.getOpenBucketCount());
+        assertEquals(0, rollup.closeHours(LocalDateTime.of(2024, 1, 4, 0, 0)));
+        verifyNoInteractions(statisticsRepository, statisticsBatchWriter);
+    }
+
+    @Test
+    @DisplayName("写入失败 - 聚合增量放回内存，下次重试")
+    void testCloseHours_FailureRequeues() {
+        // Given
+        when(statisticsBatchWriter.mergeStatistics(anyList())).thenThrow(new IllegalStateException("db down"));
+        rollup.offer(pointId, 1.0, DataQuality.GOOD, LocalDateTime.of(2024, 1, 3, 8, 0));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> rollup.closeHours(LocalDateTime.of(2024, 1, 3, 10, 0)));
+        assertEquals(1, rollup.getOpenBucketCount());
+    }
+
+    @Test
+    @DisplayName("补算 - 流式读取原始数据，重建小时、日统计，周、月统计合并范围外的日统计")
+    void testBackfill_RebuildsPeriods() {
+        // Given：补算 2024-01-06（周六）至 2024-01-07（周日）
+        captureSaved();
+        LocalDate startDate = LocalDate.of(2024, 1, 6);
+        LocalDate endDate = LocalDate.of(2024, 1, 7);
+        when(runningDataStore.forEachValue(eq(pointId), eq(startDate.atStartOfDay()),
+                eq(LocalDateTime.of(2024, 1, 8, 0, 0)), any())).thenAnswer(invocation -> {
+            ValueConsumer consumer = invocation.getArgument(3);
+            consumer.accept(LocalDateTime.of(2024, 1, 6, 10, 0), 1.0);
+            consumer.accept(LocalDateTime.of(2024, 1, 6, 10, 30), 3.0);
+            consumer.accept(LocalDateTime.of(2024, 1, 7, 23, 59), 5.0);
+            return 3L;
+        });
+        // 范围外已有的 1 月 5 日统计参与周、月合并，范围内的旧统计被忽略
+        when(statisticsRepository.findByDataPointIdAndPeriodAndDateRange(
+                eq(pointId), eq(StatisticsPeriod.DAILY), any(), any())).thenReturn(List.of(
+                dailyRow(pointId, LocalDate.of(2024, 1, 5), 1, 7.0, 7.0, 7.0),
+                dailyRow(pointId, startDate, 100, 100.0, 1.0, 1.0)));
+
+        StatisticsBackfillRequest request = new StatisticsBackfillRequest();
+        request.setStartDate(startDate);
+        request.setEndDate(endDate);
+        request.setDataPointIds(List.of(pointId));
+
+        // When
+        StatisticsBackfillResult result = rollup.backfill(request);
+
+        // Then
+        assertEquals(1, result.getPoints());
+        assertEquals(3, result.getRawRows());
+        assertEquals(2, result.getHourlyRows());
+        assertEquals(2, result.getDailyRows());
+        assertEquals(1, result.getWeeklyRows());
+        assertEquals(1, result.getMonthlyRows());
+        assertTrue(result.getFailedPointIds().isEmpty());
+
+        verify(statisticsRepository).deleteByDataPointIdAndPeriodAndDateRange(pointId, StatisticsPeriod.HOURLY, startDate, endDate);
+        verify(statisticsRepository).deleteByDataPointIdAndPeriodAndDateRange(pointId, StatisticsPeriod.DAILY, startDate, endDate);
+        verify(statisticsRepository).deleteByDataPointIdAndPeriodAndDateRange(
+                pointId, StatisticsPeriod.WEEKLY, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 1));
+
+        DataStatistics weekly = savedRow(StatisticsPeriod.WEEKLY);
+        assertEquals(4, weekly.getDataCount());
+        assertEquals(16.0, weekly.getSumValue());
+        assertEquals(7.0, weekly.getMaxValue());
+        assertEquals(1.0, weekly.getMinValue());
+        assertEquals(4, savedRow(StatisticsPeriod.MONTHLY).getDataCount());
+    }
+
+    @Test
+    @DisplayName("补算 - 结束日期不早于今天，抛出异常")
+    void testBackfill_RejectsToday() {
+        // Given
+        StatisticsBackfillRequest request = new StatisticsBackfillRequest();
+        request.setStartDate(LocalDate.now().minusDays(1));
+        request.setEndDate(LocalDate.now());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> rollup.backfill(request));
+        assertEquals("只能补算今天之前的统计数据", exception.getMessage());
+        verifyNoInteractions(runningDataStore);
+    }
+}
@@ -2,8 +2,12 @@ package org.example.rootmanage.remotemonitoring;
 
 import org.example.rootmanage.remotemonitoring.dto.CurveAnalysisRequest;
 import org.example.rootmanage.remotemonitoring.dto.CurveDataResponse;
+import org.example.rootmanage.remotemonitoring.dto.RealTimeValue;
+import org.example.rootmanage.remotemonitoring.dto.RunningDataBatchRequest;
+import org.example.rootmanage.remotemonitoring.dto.RunningDataBatchResult;
 import org.example.rootmanage.remotemonitoring.entity.*;
 import org.example.rootmanage.remotemonitoring.repository.*;
+import org.example.rootmanage.remotemonitoring.live.LiveValueHub;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,6 +18,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +26,8 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -34,7 +41,7 @@ class DeviceMonitoringServiceTest {
     private DataPointRepository dataPointRepository;
 
     @Mock
-    private DeviceRunningDataRepository runningDataRepository;
+    private RunningDataStore runningDataStore;
 
     @Mock
     private DataStatisticsRepository statisticsRepository;
@@ -45,6 +52,24 @@ class DeviceMonitoringServiceTest {
     @Mock
     private AnalysisModelPointRepository analysisModelPointRepository;
 
+    @Mock
+    private RealTimeValueStore realTimeValueStore;
+
+    @Mock
+    private CurrentValueWriteBehind currentValueWriteBehind;
+
+    @Mock
+    private AlarmRuleEngine alarmRuleEngine;
+
+    @Mock
+    private VirtualMeterFormulaEngine formulaEngine;
+
+    @Mock
+    private DataStatisticsRollup statisticsRollup;
+
+    @Mock
+    private LiveValueHub liveValueHub;
+
     @InjectMocks
     private DeviceMonitoringService monitoringService;
 
@@ -90,57 +115,63 @@ class DeviceMonitoringServiceTest {
     @DisplayName("获取所有点位的实时数据 - 成功")
     void testGetRealTimeData_Success() {
         // Given
-        when(dataPointRepository.findByEnabled(true))
-                .thenReturn(Arrays.asList(dataPoint1, dataPoint2));
+        when(realTimeValueStore.findEnabled())
+                .thenReturn(Arrays.asList(RealTimeValue.of(dataPoint1), RealTimeValue.of(dataPoint2)));
 
         // When
-        List<DataPoint> result = monitoringService.getRealTimeData();
+        List<RealTimeValue> result = monitoringService.getRealTimeData();
 
         // Then
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(dataPointRepository, times(1)).findByEnabled(true);
+        verify(realTimeValueStore, times(1)).findEnabled();
+        verifyNoInteractions(dataPointRepository);
     }
 
     @Test
     @DisplayName("根据点位ID获取实时数据 - 成功")
     void testGetRealTimeDataByPointId_Success() {
         // Given
-        when(dataPointRepository.findById(pointId1)).thenReturn(Optional.of(dataPoint1));
+        when(realTimeValueStore.get(pointId1)).thenReturn(RealTimeValue.of(dataPoint1));
 
         // When
-        DataPoint result = monitoringService.getRealTimeDataByPointId(pointId1);
+        RealTimeValue result = monitoringService.getRealTimeDataByPointId(pointId1);
 
         // Then
         assertNotNull(result);
-        assertEquals(pointId1, result.getId());
+        assertEquals(pointId1, result.getDataPointId());
         assertEquals("P001", result.getPointCode());
-        verify(dataPointRepository, times(1)).findById(pointId1);
+        assertEquals(10.5, result.getCurrentValue());
+        verifyNoInteractions(dataPointRepository);
+    }
+
+    @Test
+    @DisplayName("根据点位ID获取实时数据 - 点位不存在")
+    void testGetRealTimeDataByPointId_NotFound() {
+        // Given
+        when(realTimeValueStore.get(pointId1)).thenReturn(null);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> monitoringService.getRealTimeDataByPointId(pointId1));
+        assertEquals("点位不存在", exception.getMessage());
     }
 
     @Test
     @DisplayName("根据分析模型获取实时数据 - 成功")
     void testGetRealTimeDataByAnalysisModel_Success() {
         // Given
-        AnalysisModelPoint modelPoint1 = new AnalysisModelPoint();
-        modelPoint1.setDataPointId(pointId1);
-        AnalysisModelPoint modelPoint2 = new AnalysisModelPoint();
-        modelPoint2.setDataPointId(pointId2);
-
-        when(analysisModelPointRepository.findByAnalysisModelIdOrderBySortOrder(modelId))
-                .thenReturn(Arrays.asList(modelPoint1, modelPoint2));
-        when(dataPointRepository.findByIdIn(Arrays.asList(pointId1, pointId2)))
-                .thenReturn(Arrays.asList(dataPoint1, dataPoint2));
+        when(realTimeValueStore.findByAnalysisModel(modelId))
+                .thenReturn(Arrays.asList(RealTimeValue.of(dataPoint1), RealTimeValue.of(dataPoint2)));
 
         // When
-        List<DataPoint> result = monitoringService.getRealTimeDataByAnalysisModel(modelId);
+        List<RealTimeValue> result = monitoringService.getRealTimeDataByAnalysisModel(modelId);
 
         // Then
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(analysisModelPointRepository, times(1))
-                .findByAnalysisModelIdOrderBySortOrder(modelId);
-        verify(dataPointRepository, times(1)).findByIdIn(any());
+        verify(realTimeValueStore, times(1)).findByAnalysisModel(modelId);
+        verifyNoInteractions(dataPointRepository, analysisModelPointRepository);
     }
 
     @Test
@@ -151,8 +182,7 @@ class DeviceMonitoringServiceTest {
         LocalDateTime collectionTime = LocalDateTime.now();
 
         when(dataPointRepository.findById(pointId1)).thenReturn(Optional.of(dataPoint1));
-        when(dataPointRepository.save(any(DataPoint.class))).thenReturn(dataPoint1);
-        when(runningDataRepository.save(any(DeviceRunningData.class))).thenAnswer(invocation -> {
+        when(runningDataStore.save(any(DeviceRunningData.class))).thenAnswer(invocation -> {
             DeviceRunningData data = invocation.getArgument(0);
             data.setId(UUID.randomUUID());
             return data;
@@ -168,18 +198,19 @@ class DeviceMonitoringServiceTest {
         assertEquals(value, result.getValue());
         assertEquals(DataQuality.GOOD, result.getQuality());
         assertEquals(DataSource.AUTO, result.getSource());
-        assertEquals(value, dataPoint1.getCurrentValue());
-        assertEquals(collectionTime, dataPoint1.getLastCollectionTime());
         verify(dataPointRepository, times(1)).findById(pointId1);
-        verify(dataPointRepository, times(1)).save(any(DataPoint.class));
-        verify(runningDataRepository, times(1)).save(any(DeviceRunningData.class));
+        verify(dataPointRepository, never()).save(any());
+        verify(currentValueWriteBehind, times(1)).offer(argThat(update ->
+                update.getDataPointId().equals(pointId1) && update.getValue().equals(value)
+                        && update.getCollectionTime().equals(collectionTime)));
+        verify(runningDataStore, times(1)).save(any(DeviceRunningData.class));
     }
 
     @Test
     @DisplayName("获取点位最新数据 - 成功")
     void testGetLatestData_Success() {
         // Given
-        when(runningDataRepository.findFirstByDataPointIdOrderByCollectionTimeDesc(pointId1))
+        when(runningDataStore.findFirstByDataPointIdOrderByCollectionTimeDesc(pointId1))
                 .thenReturn(Optional.of(runningData));
 
         // When
@@ -189,7 +220,7 @@ class DeviceMonitoringServiceTest {
         assertNotNull(result);
         assertEquals(pointId1, result.getDataPointId());
         assertEquals(10.5, result.getValue());
-        verify(runningDataRepository, times(1))
+        verify(runningDataStore, times(1))
                 .findFirstByDataPointIdOrderByCollectionTimeDesc(pointId1);
     }
 
@@ -197,7 +228,7 @@ class DeviceMonitoringServiceTest {
     @DisplayName("获取点位最新数据 - 无数据，返回null")
     void testGetLatestData_NoData() {
         // Given
-        when(runningDataRepository.findFirstByDataPointIdOrderByCollectionTimeDesc(pointId1))
+        when(runningDataStore.findFirstByDataPointIdOrderByCollectionTimeDesc(pointId1))
                 .thenReturn(Optional.empty());
 
         // When
@@ -205,7 +236,7 @@ class DeviceMonitoringServiceTest {
 
         // Then
         assertNull(result);
-        verify(runningDataRepository, times(1))
+        verify(runningDataStore, times(1))
                 .findFirstByDataPointIdOrderByCollectionTimeDesc(pointId1);
     }
 
@@ -216,7 +247,7 @@ class DeviceMonitoringServiceTest {
         LocalDateTime startTime = LocalDateTime.now().minusDays(1);
         LocalDateTime endTime = LocalDateTime.now();
 
-        when(runningDataRepository.findByDataPointIdAndTimeRange(pointId1, startTime, endTime))
+        when(runningDataStore.findByDataPointIdAndTimeRange(pointId1, startTime, endTime))
                 .thenReturn(Arrays.asList(runningData));
 
         // When
@@ -225,7 +256,7 @@ class DeviceMonitoringServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(runningDataRepository, times(1))
+        verify(runningDataStore, times(1))
                 .findByDataPointIdAndTimeRange(pointId1, startTime, endTime);
     }
 
@@ -251,7 +282,7 @@ class DeviceMonitoringServiceTest {
 
         when(dataPointRepository.findByIdIn(Arrays.asList(pointId1, pointId2)))
                 .thenReturn(Arrays.asList(dataPoint1, dataPoint2));
-        when(runningDataRepository.findByDataPointIdsAndTimeRange(
+        when(runningDataStore.findByDataPointIdsAndTimeRange(
                 any(), any(), any())).thenReturn(Arrays.asList(data1, data2));
 
         // When
@@ -261,7 +292,144 @@ class DeviceMonitoringServiceTest {
         assertNotNull(result);
         assertEquals(2, result.size());
         verify(dataPointRepository, times(1)).findByIdIn(any());
-        verify(runningDataRepository, times(1)).findByDataPointIdsAndTimeRange(any(), any(), any());
+        verify(runningDataStore, times(1)).findByDataPointIdsAndTimeRange(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("获取曲线分析数据 - 指定最大点数时流式读取并降采样")
+    void testGetCurveAnalysisData_Downsampled() {
+        // Given
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime endTime = startTime.plusDays(1);
+        CurveAnalysisRequest request = new CurveAnalysisRequest();
+        request.setDataPointIds(List.of(pointId1));
+        request.setStartTime(startTime);
+        request.setEndTime(endTime);
+        request.setMaxPoints(10);
+
+        when(dataPointRepository.findByIdIn(List.of(pointId1))).thenReturn(List.of(dataPoint1));
+        when(runningDataStore.forEachCurveValue(eq(pointId1), eq(startTime), eq(endTime), any()))
+                .thenAnswer(invocation -> {
+                    RunningDataStore.ValueConsumer consumer = invocation.getArgument(3);
+                    for (int i = 0; i < 1440; i++) {
+                        consumer.accept(startTime.plusMinutes(i), Math.sin(i / 100.0));
+                    }
+                    return 1440L;
+                });
+
+        // When
+        List<CurveDataResponse> result = monitoringService.getCurveAnalysisData(request);
+
+        // Then：两遍读取，不加载原始数据列表
+        assertEquals(1, result.size());
+        List<CurveDataResponse.DataPointValue> points = result.get(0).getDataPoints();
+        assertEquals(10, points.size());
+        assertEquals(startTime, points.get(0).getTime());
+        assertEquals(startTime.plusMinutes(1439), points.get(9).getTime());
+        verify(runningDataStore, times(2)).forEachCurveValue(eq(pointId1), eq(startTime), eq(endTime), any());
+        verify(runningDataStore, never()).findByDataPointIdsAndTimeRange(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("获取曲线分析数据 - 最大点数超出范围，抛出异常")
+    void testGetCurveAnalysisData_InvalidMaxPoints() {
+        // Given
+        CurveAnalysisRequest request = new CurveAnalysisRequest();
+        request.setDataPointIds(List.of(pointId1));
+        request.setStartTime(LocalDateTime.now().minusHours(1));
+        request.setEndTime(LocalDateTime.now());
+        request.setMaxPoints(1);
+        when(dataPointRepository.findByIdIn(List.of(pointId1))).thenReturn(List.of(dataPoint1));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> monitoringService.getCurveAnalysisData(request));
+        verifyNoInteractions(runningDataStore);
+    }
+
+    @Test
+    @DisplayName("批量保存采集数据 - 每个点位只更新一次当前值")
+    void testSaveRunningDataBatch_Success() {
+        // Given
+        dataPoint1.setMultiplier(2.0);
+        LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 8, 0);
+        List<RunningDataBatchRequest.Reading> readings = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            RunningDataBatchRequest.Reading reading = new RunningDataBatchRequest.Reading();
+            reading.setDataPointId(i % 2 == 0 ? pointId1 : pointId2);
+            reading.setValue((double) i);
+            reading.setCollectionTime(baseTime.plusSeconds(i));
+            readings.add(reading);
+        }
+        RunningDataBatchRequest request = new RunningDataBatchRequest();
+        request.setReadings(readings);
+
+        when(dataPointRepository.findByIdIn(anyList())).thenReturn(Arrays.asList(dataPoint1, dataPoint2));
+
+        // When
+        RunningDataBatchResult result = monitoringService.saveRunningDataBatch(request);
+
+        // Then
+        assertEquals(10, result.getReceived());
+        assertEquals(10, result.getSaved());
+        assertEquals(0, result.getRejected());
+        assertEquals(2, result.getUpdatedPoints());
+        verify(dataPointRepository, times(1)).findByIdIn(anyList());
+        verify(dataPointRepository, never()).save(any());
+        verify(runningDataStore, never()).save(any());
+        verify(runningDataStore, times(1)).saveAll(argThat(rows -> rows.size() == 10));
+        verify(currentValueWriteBehind, times(1)).offerAll(argThat(updates ->
+                updates.size() == 2 && updates.stream().anyMatch(u ->
+                        u.getDataPointId().equals(pointId1) && u.getValue() == 16.0
+                                && u.getCollectionTime().equals(baseTime.plusSeconds(8)))));
+        assertEquals(10, monitoringService.getIngestionStatistics().getTotalRows());
+    }
+
+    @Test
+    @DisplayName("批量保存采集数据 - 未知点位被拒绝")
+    void testSaveRunningDataBatch_UnknownPoint() {
+        // Given
+        UUID unknownId = UUID.randomUUID();
+        RunningDataBatchRequest.Reading known = new RunningDataBatchRequest.Reading();
+        known.setDataPointId(pointId1);
+        known.setValue(1.0);
+        RunningDataBatchRequest.Reading unknown = new RunningDataBatchRequest.Reading();
+        unknown.setDataPointId(unknownId);
+        unknown.setValue(2.0);
+        RunningDataBatchRequest request = new RunningDataBatchRequest();
+        request.setReadings(Arrays.asList(known, unknown));
+
+        when(dataPointRepository.findByIdIn(anyList())).thenReturn(List.of(dataPoint1));
+
+        // When
+        RunningDataBatchResult result = monitoringService.saveRunningDataBatch(request);
+
+        // Then
+        assertEquals(1, result.getSaved());
+        assertEquals(1, result.getRejected());
+        assertEquals(List.of(unknownId), result.getUnknownPointIds());
+    }
+
+    @Test
+    @DisplayName("订阅实时数据 - 按分析模型订阅模型下的点位")
+    void testSubscribeRealTimeData_AnalysisModel() {
+        // Given
+        UUID modelId = UUID.randomUUID();
+        RealTimeValue value = RealTimeValue.of(dataPoint1);
+        when(realTimeValueStore.findByAnalysisModel(modelId)).thenReturn(List.of(value));
+
+        // When
+        monitoringService.subscribeRealTimeData(null, modelId);
+
+        // Then
+        verify(liveValueHub, times(1)).subscribe(eq(List.of(pointId1)), any());
+    }
+
+    @Test
+    @DisplayName("订阅实时数据 - 未指定点位和分析模型，抛出异常")
+    void testSubscribeRealTimeData_NoTarget() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> monitoringService.subscribeRealTimeData(List.of(), null));
+        verifyNoInteractions(liveValueHub);
     }
 }
 
@@ -0,0 +1,174 @@
+package org.example.rootmanage.remotemonitoring;
+
+import org.example.rootmanage.remotemonitoring.dto.RealTimeValue;
+import org.example.rootmanage.remotemonitoring.entity.AnalysisModelPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.repository.AnalysisModelPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.live.LiveValueHub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 点位实时值缓存测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("点位实时值缓存测试")
+class RealTimeValueStoreTest {
+
+    @Mock
+    private DataPointRepository dataPointRepository;
+
+    @Mock
+    private AnalysisModelPointRepository analysisModelPointRepository;
+
+    @Mock
+    private LiveValueHub liveValueHub;
+
+    @InjectMocks
+    private RealTimeValueStore realTimeValueStore;
+
+    private UUID pointId1;
+    private UUID pointId2;
+    private DataPoint dataPoint1;
+    private DataPoint dataPoint2;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        pointId1 = UUID.randomUUID();
+        pointId2 = UUID.randomUUID();
+        baseTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        dataPoint1 = new DataPoint();
+        dataPoint1.setId(pointId1);
+        dataPoint1.setPointCode("P002");
+        dataPoint1.setPointName("压力点位");
+        dataPoint1.setCurrentValue(10.5);
+        dataPoint1.setLastCollectionTime(baseTime);
+        dataPoint1.setEnabled(true);
+
+        dataPoint2 = new DataPoint();
+        dataPoint2.setId(pointId2);
+        dataPoint2.setPointCode("P001");
+        dataPoint2.setPointName("温度点位");
+        dataPoint2.setEnabled(false);
+    }
+
+    @Test
+    @DisplayName("预热后只返回启用点位 - 按编码排序")
+    void testWarmUp_FindEnabled() {
+        // Given
+        DataPoint dataPoint3 = new DataPoint();
+        dataPoint3.setId(UUID.randomUUID());
+        dataPoint3.setPointCode("P000");
+        dataPoint3.setEnabled(true);
+        when(dataPointRepository.findAll()).thenReturn(Arrays.asList(dataPoint1, dataPoint2, dataPoint3));
+        when(analysisModelPointRepository.findAll()).thenReturn(Collections.emptyList());
+
+        // When
+        realTimeValueStore.warmUp();
+        List<RealTimeValue> result = realTimeValueStore.findEnabled();
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("P000", result.get(0).getPointCode());
+        assertEquals("P002", result.get(1).getPointCode());
+        assertEquals(10.5, result.get(1).getCurrentValue());
+    }
+
+    @Test
+    @DisplayName("更新实时值 - 早于当前采集时间的值被忽略")
+    void testUpdateValue_IgnoresOutOfOrder() {
+        // Given
+        realTimeValueStore.register(dataPoint1);
+
+        // When
+        realTimeValueStore.updateValue(pointId1, 20.0, DataQuality.GOOD, baseTime.plusSeconds(10));
+        realTimeValueStore.updateValue(pointId1, 15.0, DataQuality.GOOD, baseTime.plusSeconds(5));
+
+        // Then
+        RealTimeValue value = realTimeValueStore.get(pointId1);
+        assertEquals(20.0, value.getCurrentValue());
+        assertEquals(baseTime.plusSeconds(10), value.getLastCollectionTime());
+        // 只推送被接受的新值
+        verify(liveValueHub, times(1)).publish(pointId1, 20.0, DataQuality.GOOD, baseTime.plusSeconds(10));
+        verify(liveValueHub, never()).publish(pointId1, 15.0, DataQuality.GOOD, baseTime.plusSeconds(5));
+    }
+
+    @Test
+    @DisplayName("刷新点位配置 - 保留缓存中的实时值")
+    void testRegister_KeepsCurrentValue() {
+        // Given
+        realTimeValueStore.register(dataPoint1);
+        realTimeValueStore.updateValue(pointId1, 30.0, DataQuality.UNCERTAIN, baseTime.plusMinutes(1));
+
+        // When
+        dataPoint1.setPointName("压力点位-修改");
+        dataPoint1.setEnabled(false);
+        realTimeValueStore.register(dataPoint1);
+
+        // Then
+        RealTimeValue value = realTimeValueStore.get(pointId1);
+        assertEquals("压力点位-修改", value.getPointName());
+        assertFalse(value.isEnabled());
+        assertEquals(30.0, value.getCurrentValue());
+        assertEquals(DataQuality.UNCERTAIN, value.getQuality());
+    }
+
+    @Test
+    @DisplayName("移除点位 - 不再返回")
+    void testRemove() {
+        // Given
+        realTimeValueStore.register(dataPoint1);
+
+        // When
+        realTimeValueStore.remove(pointId1);
+
+        // Then
+        assertNull(realTimeValueStore.get(pointId1));
+    }
+
+    @Test
+    @DisplayName("按分析模型获取实时值 - 关联只加载一次，失效后重新加载")
+    void testFindByAnalysisModel_CachesAssociation() {
+        // Given
+        UUID modelId = UUID.randomUUID();
+        AnalysisModelPoint modelPoint1 = new AnalysisModelPoint();
+        modelPoint1.setDataPointId(pointId2);
+        AnalysisModelPoint modelPoint2 = new AnalysisModelPoint();
+        modelPoint2.setDataPointId(pointId1);
+        when(analysisModelPointRepository.findByAnalysisModelIdOrderBySortOrder(modelId))
+                .thenReturn(Arrays.asList(modelPoint1, modelPoint2));
+        realTimeValueStore.register(dataPoint1);
+        realTimeValueStore.register(dataPoint2);
+
+        // When
+        List<RealTimeValue> first = realTimeValueStore.findByAnalysisModel(modelId);
+        List<RealTimeValue> second = realTimeValueStore.findByAnalysisModel(modelId);
+        realTimeValueStore.invalidateAnalysisModel(modelId);
+        realTimeValueStore.findByAnalysisModel(modelId);
+
+        // Then
+        assertEquals(2, first.size());
+        assertEquals(pointId2, first.get(0).getDataPointId());
+        assertEquals(pointId1, first.get(1).getDataPointId());
+        assertEquals(2, second.size());
+        verify(analysisModelPointRepository, times(2)).findByAnalysisModelIdOrderBySortOrder(modelId);
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.rootmanage.remotemonitoring;
+
+import org.example.rootmanage.remotemonitoring.dto.RetentionPolicyRequest;
+import org.example.rootmanage.remotemonitoring.entity.PointType;
+import org.example.rootmanage.remotemonitoring.entity.RetentionPolicy;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.RetentionPolicyRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 运行数据保留策略服务测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("运行数据保留策略服务测试")
+class RetentionPolicyServiceTest {
+
+    @Mock
+    private RetentionPolicyRepository retentionPolicyRepository;
+
+    @Mock
+    private DataPointRepository dataPointRepository;
+
+    @InjectMocks
+    private RetentionPolicyService retentionPolicyService;
+
+    private RetentionPolicyRequest request(PointType pointType, UUID dataPointId, int rawDays, Integer hourlyDays) {
+        RetentionPolicyRequest request = new RetentionPolicyRequest();
+        request.setPointType(pointType);
+        request.setDataPointId(dataPointId);
+        request.setRawRetentionDays(rawDays);
+        request.setHourlyRetentionDays(hourlyDays);
+        return request;
+    }
+
+    @Test
+    @DisplayName("创建策略 - 点位类型策略保存成功")
+    void testCreate_Success() {
+        // Given
+        when(retentionPolicyRepository.findByPointType(PointType.REAL)).thenReturn(Optional.empty());
+        when(retentionPolicyRepository.save(any(RetentionPolicy.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RetentionPolicy result = retentionPolicyService.create(request(PointType.REAL, null, 30, 365));
+
+        // Then
+        assertEquals(PointType.REAL, result.getPointType());
+        assertEquals(30, result.getRawRetentionDays());
+        assertEquals(365, result.getHourlyRetentionDays());
+        assertTrue(result.getEnabled());
+    }
+
+    @Test
+    @DisplayName("创建策略 - 同时指定点位类型和点位，抛出异常")
+    void testCreate_BothTargets() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> retentionPolicyService.create(request(PointType.REAL, UUID.randomUUID(), 30, null)));
+        verify(retentionPolicyRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("创建策略 - 小时统计保留期短于原始数据，抛出异常")
+    void testCreate_HourlyShorterThanRaw() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> retentionPolicyService.create(request(PointType.REAL, null, 30, 7)));
+    }
+
+    @Test
+    @DisplayName("创建策略 - 点位已有策略，抛出异常")
+    void testCreate_DuplicatePoint() {
+        // Given
+        UUID pointId = UUID.randomUUID();
+        RetentionPolicy existing = new RetentionPolicy();
+        existing.setId(UUID.randomUUID());
+        when(dataPointRepository.existsById(pointId)).thenReturn(true);
+        when(retentionPolicyRepository.findByDataPointId(pointId)).thenReturn(Optional.of(existing));
+
+        // When & Then
+        assertThrows(IllegalStateException.class,
+                () -> retentionPolicyService.create(request(null, pointId, 30, null)));
+    }
+}
@@ -0,0 +1,211 @@
+package org.example.rootmanage.remotemonitoring;
+
+import org.example.rootmanage.remotemonitoring.dto.RetentionProgress;
+import org.example.rootmanage.remotemonitoring.entity.DataPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
+import org.example.rootmanage.remotemonitoring.entity.PointType;
+import org.example.rootmanage.remotemonitoring.entity.RetentionPolicy;
+import org.example.rootmanage.remotemonitoring.entity.StatisticsPeriod;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.DataStatisticsRepository;
+import org.example.rootmanage.remotemonitoring.repository.RetentionPolicyRepository;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataStore;
+import org.example.rootmanage.remotemonitoring.repository.RunningDataStore.ValueConsumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 运行数据保留任务测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("运行数据保留任务测试")
+class RunningDataRetentionTest {
+
+    @Mock
+    private RetentionPolicyRepository retentionPolicyRepository;
+
+    @Mock
+    private DataPointRepository dataPointRepository;
+
+    @Mock
+    private DataStatisticsRepository statisticsRepository;
+
+    @Mock
+    private RunningDataStore runningDataStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RunningDataRetention retention;
+
+    private UUID pointId;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        retention = new RunningDataRetention(retentionPolicyRepository, dataPointRepository, statisticsRepository,
+                runningDataStore, transactionManager);
+        ReflectionTestUtils.setField(retention, "chunkSize", 100);
+        ReflectionTestUtils.setField(retention, "chunkPauseMillis", 0L);
+        pointId = UUID.randomUUID();
+        today = LocalDate.now();
+    }
+
+    private RetentionPolicy pointPolicy(UUID dataPointId, int rawDays, Integer hourlyDays, boolean enabled) {
+        RetentionPolicy policy = new RetentionPolicy();
+        policy.setDataPointId(dataPointId);
+        policy.setRawRetentionDays(rawDays);
+        policy.setHourlyRetentionDays(hourlyDays);
+        policy.setEnabled(enabled);
+        return policy;
+    }
+
+    private DataPoint point(UUID id) {
+        DataPoint point = new DataPoint();
+        point.setId(id);
+        return point;
+    }
+
+    private DataStatistics statistics(StatisticsPeriod period, LocalDate date, Integer hour) {
+        DataStatistics row = new DataStatistics();
+        row.setDataPointId(pointId);
+        row.setStatisticsPeriod(period);
+        row.setStatisticsDate(date);
+        row.setHourOfDay(hour);
+        return row;
+    }
+
+    @Test
+    @DisplayName("解析策略 - 点位策略优先于点位类型策略，禁用的点位策略排除该点位")
+    void testResolveTargets() {
+        // Given
+        UUID overridden = UUID.randomUUID();
+        UUID excluded = UUID.randomUUID();
+        RetentionPolicy typePolicy = new RetentionPolicy();
+        typePolicy.setPointType(PointType.REAL);
+        typePolicy.setRawRetentionDays(30);
+        typePolicy.setEnabled(true);
+        when(retentionPolicyRepository.findAll()).thenReturn(List.of(typePolicy,
+                pointPolicy(overridden, 7, 90, true), pointPolicy(excluded, 1, null, false)));
+        when(dataPointRepository.findByPointType(PointType.REAL))
+                .thenReturn(List.of(point(pointId), point(overridden), point(excluded)));
+
+        // When
+        List<RunningDataRetention.Target> targets = retention.resolveTargets(today);
+
+        // Then
+        assertEquals(List.of(new RunningDataRetention.Target(pointId, today.minusDays(30), null),
+                new RunningDataRetention.Target(overridden, today.minusDays(7), today.minusDays(90))), targets);
+    }
+
+    @Test
+    @DisplayName("清理原始数据 - 小时统计齐全时按块删除到保留期之前")
+    void testPurge_RawWithStatistics() {
+        // Given
+        LocalDate day = today.minusDays(40);
+        when(retentionPolicyRepository.findAll()).thenReturn(List.of(pointPolicy(pointId, 30, null, true)));
+        when(runningDataStore.findOldestCollectionTime(pointId))
+                .thenReturn(Optional.of(day.atTime(8, 15)), Optional.empty());
+        when(runningDataStore.forEachValue(eq(pointId), eq(day.atStartOfDay()), eq(day.plusDays(1).atStartOfDay()), any()))
+                .thenAnswer(invocation -> {
+                    ValueConsumer consumer = invocation.getArgument(3);
+                    consumer.accept(day.atTime(8, 15), 1.0);
+                    return 1L;
+                });
+        when(statisticsRepository.findByDataPointIdAndPeriodAndDateRange(pointId, StatisticsPeriod.HOURLY, day, day))
+                .thenReturn(List.of(statistics(StatisticsPeriod.HOURLY, day, 8)));
+        when(runningDataStore.deleteByDataPointIdBefore(pointId, day.plusDays(1).atStartOfDay(), 100))
+                .thenReturn(100, 30);
+
+        // When
+        retention.purge();
+
+        // Then
+        RetentionProgress progress = retention.getProgress();
+        assertEquals(1, progress.getTotalPoints());
+        assertEquals(1, progress.getProcessedPoints());
+        assertEquals(130, progress.getRawRowsDeleted());
+        assertEquals(2, progress.getDeleteChunks());
+        assertTrue(progress.getSkippedPoints().isEmpty());
+        assertNotNull(progress.getFinishedAt());
+    }
+
+    @Test
+    @DisplayName("清理原始数据 - 缺少小时统计时不删除并记录原因")
+    void testPurge_RawMissingStatistics() {
+        // Given
+        LocalDate day = today.minusDays(40);
+        when(retentionPolicyRepository.findAll()).thenReturn(List.of(pointPolicy(pointId, 30, null, true)));
+        when(runningDataStore.findOldestCollectionTime(pointId)).thenReturn(Optional.of(day.atTime(8, 15)));
+        when(runningDataStore.forEachValue(eq(pointId), any(), any(), any())).thenAnswer(invocation -> {
+            ValueConsumer consumer = invocation.getArgument(3);
+            consumer.accept(day.atTime(8, 15), 1.0);
+            consumer.accept(day.atTime(9, 15), 1.0);
+            return 2L;
+        });
+        when(statisticsRepository.findByDataPointIdAndPeriodAndDateRange(pointId, StatisticsPeriod.HOURLY, day, day))
+                .thenReturn(List.of(statistics(StatisticsPeriod.HOURLY, day, 8)));
+
+        // When
+        retention.purge();
+
+        // Then
+        verify(runningDataStore, never()).deleteByDataPointIdBefore(any(), any(), anyInt());
+        assertEquals("缺少 " + day + " 的小时统计，原始数据未清理", retention.getProgress().getSkippedPoints().get(pointId));
+    }
+
+    @Test
+    @DisplayName("清理小时统计 - 只删除已有日统计的日期")
+    void testPurge_HourlyStopsAtMissingDaily() {
+        // Given
+        LocalDate first = today.minusDays(100);
+        LocalDate second = first.plusDays(1);
+        when(retentionPolicyRepository.findAll()).thenReturn(List.of(pointPolicy(pointId, 30, 90, true)));
+        when(runningDataStore.findOldestCollectionTime(pointId)).thenReturn(Optional.empty());
+        when(statisticsRepository.findFirstByDataPointIdAndStatisticsPeriodOrderByStatisticsDateAsc(
+                pointId, StatisticsPeriod.HOURLY)).thenReturn(Optional.of(statistics(StatisticsPeriod.HOURLY, first, 0)));
+        when(statisticsRepository.findByDataPointIdAndPeriodAndDateRange(eq(pointId), any(), eq(first), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1) == StatisticsPeriod.DAILY
+                        ? List.of(statistics(StatisticsPeriod.DAILY, first, null))
+                        : List.of(statistics(StatisticsPeriod.HOURLY, first, 0),
+                        statistics(StatisticsPeriod.HOURLY, second, 0)));
+        when(statisticsRepository.deleteByDataPointIdAndPeriodAndDateRange(pointId, StatisticsPeriod.HOURLY,
+                first, first)).thenReturn(24);
+
+        // When
+        retention.purge();
+
+        // Then
+        RetentionProgress progress = retention.getProgress();
+        assertEquals(24, progress.getHourlyRowsDeleted());
+        assertEquals("缺少 " + second + " 的日统计，小时统计未清理", progress.getSkippedPoints().get(pointId));
+    }
+
+    @Test
+    @DisplayName("启动清理 - 已有任务在执行时抛出异常")
+    void testStart_AlreadyRunning() {
+        // Given
+        ReflectionTestUtils.setField(retention, "running", new AtomicBoolean(true));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> retention.start());
+    }
+}
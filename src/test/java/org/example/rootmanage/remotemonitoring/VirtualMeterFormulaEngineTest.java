@@ -0,0 +1,182 @@
+package org.example.rootmanage.remotemonitoring;
+
+import org.example.rootmanage.remotemonitoring.dto.FormulaParameterRequest;
+import org.example.rootmanage.remotemonitoring.dto.VirtualMeterFormulaRequest;
+import org.example.rootmanage.remotemonitoring.entity.DataPoint;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.entity.FormulaParameter;
+import org.example.rootmanage.remotemonitoring.entity.VirtualMeterFormula;
+import org.example.rootmanage.remotemonitoring.repository.DataPointRepository;
+import org.example.rootmanage.remotemonitoring.repository.FormulaParameterRepository;
+import org.example.rootmanage.remotemonitoring.repository.VirtualMeterFormulaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 虚拟表计公式引擎测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("虚拟表计公式引擎测试")
+class VirtualMeterFormulaEngineTest {
+
+    @Mock
+    private VirtualMeterFormulaRepository formulaRepository;
+
+    @Mock
+    private FormulaParameterRepository parameterRepository;
+
+    @Mock
+    private DataPointRepository dataPointRepository;
+
+    @Mock
+    private RealTimeValueStore realTimeValueStore;
+
+    @Mock
+    private CurrentValueWriteBehind currentValueWriteBehind;
+
+    @Mock
+    private AlarmRuleEngine alarmRuleEngine;
+
+    @InjectMocks
+    private VirtualMeterFormulaEngine formulaEngine;
+
+    private UUID inputPointId;
+    private UUID outputPointId;
+    private VirtualMeterFormula formula;
+
+    @BeforeEach
+    void setUp() {
+        inputPointId = UUID.randomUUID();
+        outputPointId = UUID.randomUUID();
+
+        formula = new VirtualMeterFormula();
+        formula.setId(UUID.randomUUID());
+        formula.setFormulaCode("F001");
+        formula.setOutputPointId(outputPointId);
+        formula.setExpression("A * 2");
+        formula.setPrecision(1);
+        formula.setEnabled(true);
+
+        FormulaParameter parameter = new FormulaParameter();
+        parameter.setFormulaId(formula.getId());
+        parameter.setParameterName("A");
+        parameter.setDataPointId(inputPointId);
+        parameter.setCoefficient(1.5);
+
+        when(formulaRepository.findByEnabled(true)).thenReturn(List.of(formula));
+        when(parameterRepository.findAll()).thenReturn(List.of(parameter));
+        formulaEngine.reload();
+    }
+
+    private VirtualMeterFormulaRequest request(String code, UUID output, String expression, UUID parameterPoint) {
+        VirtualMeterFormulaRequest request = new VirtualMeterFormulaRequest();
+        request.setFormulaCode(code);
+        request.setOutputPointId(output);
+        request.setExpression(expression);
+        FormulaParameterRequest parameter = new FormulaParameterRequest();
+        parameter.setParameterName("X");
+        parameter.setDataPointId(parameterPoint);
+        request.setParameters(List.of(parameter));
+        return request;
+    }
+
+    @Test
+    @DisplayName("输入点位变化 - 重算并写入输出点位")
+    void testOffer_RecomputesOutput() {
+        // Given
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+        // When
+        formulaEngine.offer(inputPointId, 10.33, DataQuality.GOOD, time);
+
+        // Then
+        assertEquals(31.0, formulaEngine.valueOf(outputPointId));
+        verify(currentValueWriteBehind, times(1)).offerAll(argThat(updates -> updates.size() == 1
+                && updates.iterator().next().getDataPointId().equals(outputPointId)
+                && updates.iterator().next().getValue() == 31.0));
+        verify(realTimeValueStore, times(1)).updateValues(any());
+        verify(alarmRuleEngine, times(1)).offer(outputPointId, 31.0, DataQuality.GOOD, time);
+    }
+
+    @Test
+    @DisplayName("非输入点位变化 - 不重算")
+    void testOffer_NotInput() {
+        // When
+        formulaEngine.offer(UUID.randomUUID(), 1.0, DataQuality.GOOD, LocalDateTime.now());
+
+        // Then
+        verifyNoInteractions(currentValueWriteBehind);
+    }
+
+    @Test
+    @DisplayName("保存校验 - 形成循环依赖，抛出异常")
+    void testValidate_Cycle() {
+        // Given：新公式以 F001 的输出为输入，输出到 F001 的输入
+        VirtualMeterFormulaRequest request = request("F002", inputPointId, "X + 1", outputPointId);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> formulaEngine.validate(null, request, true));
+        assertTrue(exception.getMessage().startsWith("公式存在循环依赖"));
+    }
+
+    @Test
+    @DisplayName("保存校验 - 输出点位已被其他公式使用，抛出异常")
+    void testValidate_DuplicateOutput() {
+        // Given
+        VirtualMeterFormulaRequest request = request("F002", outputPointId, "X + 1", UUID.randomUUID());
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> formulaEngine.validate(null, request, true));
+    }
+
+    @Test
+    @DisplayName("保存校验 - 变量按点位编码绑定")
+    void testValidate_PointCodeBinding() {
+        // Given
+        DataPoint point = new DataPoint();
+        point.setId(UUID.randomUUID());
+        point.setPointCode("P001");
+        when(dataPointRepository.findByPointCodeIn(any())).thenReturn(List.of(point));
+        VirtualMeterFormulaRequest request = request("F002", UUID.randomUUID(), "X + P001", UUID.randomUUID());
+
+        // When & Then
+        assertDoesNotThrow(() -> formulaEngine.validate(null, request, true));
+    }
+
+    @Test
+    @DisplayName("保存校验 - 变量未定义，抛出异常")
+    void testValidate_UndefinedVariable() {
+        // Given
+        when(dataPointRepository.findByPointCodeIn(any())).thenReturn(List.of());
+        VirtualMeterFormulaRequest request = request("F002", UUID.randomUUID(), "X + Y", UUID.randomUUID());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> formulaEngine.validate(null, request, true));
+        assertEquals("公式变量未定义: Y", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("保存校验 - 表达式语法错误，抛出异常")
+    void testValidate_SyntaxError() {
+        // Given
+        VirtualMeterFormulaRequest request = request("F002", UUID.randomUUID(), "X + ", UUID.randomUUID());
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> formulaEngine.validate(null, request, true));
+    }
+}
@@ -33,6 +33,9 @@ class VirtualMeterFormulaServiceTest {
     @Mock
     private FormulaParameterRepository parameterRepository;
 
+    @Mock
+    private VirtualMeterFormulaEngine formulaEngine;
+
     @InjectMocks
     private VirtualMeterFormulaService formulaService;
 
@@ -79,6 +82,28 @@ class VirtualMeterFormulaServiceTest {
         assertEquals("P001 * 2 + P002", result.getExpression());
         verify(formulaRepository, times(1)).findByFormulaCode("F002");
         verify(formulaRepository, times(1)).save(any(VirtualMeterFormula.class));
+        verify(formulaEngine, times(1)).validate(null, request, true);
+        verify(formulaEngine, times(1)).reloadAfterCommit();
+    }
+
+    @Test
+    @DisplayName("创建公式 - 循环依赖，抛出异常")
+    void testCreate_CyclicDependency() {
+        // Given
+        VirtualMeterFormulaRequest request = new VirtualMeterFormulaRequest();
+        request.setFormulaCode("F002");
+        request.setFormulaName("新公式");
+        request.setOutputPointId(UUID.randomUUID());
+        request.setExpression("P001 + P002");
+
+        when(formulaRepository.findByFormulaCode("F002")).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("公式存在循环依赖: F002"))
+                .when(formulaEngine).validate(null, request, true);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> formulaService.create(request));
+        verify(formulaRepository, never()).save(any());
+        verify(formulaEngine, never()).reloadAfterCommit();
     }
 
     @Test
@@ -127,6 +152,7 @@ class VirtualMeterFormulaServiceTest {
         verify(formulaRepository, never()).findByFormulaCode(anyString());
         verify(parameterRepository, times(1)).deleteByFormulaId(formulaId);
         verify(formulaRepository, times(1)).save(any(VirtualMeterFormula.class));
+        verify(formulaEngine, times(1)).validate(formulaId, request, false);
     }
 
     @Test
@@ -0,0 +1,93 @@
+package org.example.rootmanage.remotemonitoring.curve;
+
+import org.example.rootmanage.remotemonitoring.dto.CurveDataResponse.DataPointValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 曲线降采样测试类
+ */
+@DisplayName("曲线降采样测试")
+class CurveDownsamplerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static List<DataPointValue> lttb(double[] values, int maxPoints) {
+        LocalDateTime end = START.plusMinutes(values.length - 1);
+        LttbDownsampler sampler = new LttbDownsampler(START, end, maxPoints);
+        for (int i = 0; i < values.length; i++) {
+            sampler.measure(START.plusMinutes(i), values[i]);
+        }
+        if (sampler.needsSelectionPass()) {
+            for (int i = 0; i < values.length; i++) {
+                sampler.select(START.plusMinutes(i), values[i]);
+            }
+        }
+        return sampler.result();
+    }
+
+    @Test
+    @DisplayName("LTTB - 数据量不超过最大点数时原样返回，只读一遍")
+    void testLttb_SmallInput() {
+        LttbDownsampler sampler = new LttbDownsampler(START, START.plusMinutes(2), 5);
+        sampler.measure(START, 1.0);
+        sampler.measure(START.plusMinutes(1), 2.0);
+        sampler.measure(START.plusMinutes(2), 3.0);
+
+        assertFalse(sampler.needsSelectionPass());
+        assertEquals(3, sampler.result().size());
+    }
+
+    @Test
+    @DisplayName("LTTB - 保留首尾点和尖峰，按时间升序")
+    void testLttb_KeepsSpike() {
+        double[] values = new double[1000];
+        values[500] = 100.0;
+        values[750] = -50.0;
+
+        List<DataPointValue> result = lttb(values, 20);
+
+        assertEquals(20, result.size());
+        assertEquals(START, result.get(0).getTime());
+        assertEquals(START.plusMinutes(999), result.get(19).getTime());
+        assertTrue(result.stream().anyMatch(point -> point.getValue() == 100.0));
+        assertTrue(result.stream().anyMatch(point -> point.getValue() == -50.0));
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i).getTime().isAfter(result.get(i - 1).getTime()));
+        }
+    }
+
+    @Test
+    @DisplayName("LTTB - 最大点数为 2 时只保留首尾点")
+    void testLttb_FirstAndLastOnly() {
+        List<DataPointValue> result = lttb(new double[]{1, 5, 3, 2}, 2);
+
+        assertEquals(List.of(1.0, 2.0), result.stream().map(DataPointValue::getValue).toList());
+    }
+
+    @Test
+    @DisplayName("最大最小值 - 每个桶按发生顺序输出最小值和最大值")
+    void testMinMax_Buckets() {
+        // 一小时窗口分为 2 个桶
+        MinMaxDownsampler sampler = new MinMaxDownsampler(START, START.plusHours(1), 4);
+        sampler.accept(START.plusMinutes(5), 3.0);
+        sampler.accept(START.plusMinutes(10), 9.0);
+        sampler.accept(START.plusMinutes(20), 1.0);
+        sampler.accept(START.plusMinutes(40), 4.0);
+
+        List<DataPointValue> result = sampler.result();
+
+        assertEquals(3, result.size());
+        assertEquals(9.0, result.get(0).getValue());
+        assertEquals(START.plusMinutes(10), result.get(0).getTime());
+        assertEquals(1.0, result.get(1).getValue());
+        assertEquals(13.0 / 3, result.get(1).getAvgValue(), 1e-9);
+        assertEquals(9.0, result.get(1).getMaxValue());
+        assertEquals(4.0, result.get(2).getValue());
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.rootmanage.remotemonitoring.formula;
+
+import org.example.rootmanage.remotemonitoring.formula.FormulaGraph.Binding;
+import org.example.rootmanage.remotemonitoring.formula.FormulaGraph.Definition;
+
+import java.util.*;
+
+/**
+ * 虚拟表计公式重算吞吐量基准
+ * 不属于单元测试（类名不以 Test 结尾，不随 mvn test 运行），手动执行：
+ * mvn -q test-compile exec:java -Dexec.mainClass=org.example.rootmanage.remotemonitoring.formula.FormulaGraphBenchmark
+ *   -Dexec.classpathScope=test [-Dexec.args="链数 链长 轮数"]
+ * 构造若干条链式公式（每个公式引用上一级输出和一个独立的物理点位），分别测量
+ * 链头变化（整条链重算）和链中物理点位变化（只重算下游部分）的吞吐量。
+ */
+public class FormulaGraphBenchmark {
+
+    public static void main(String[] args) {
+        int chains = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 2500;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        UUID[][] outputs = new UUID[chains][length + 1];
+        UUID[][] inputs = new UUID[chains][length + 1];
+        List<Definition> definitions = new ArrayList<>(chains * length);
+        for (int c = 0; c < chains; c++) {
+            for (int i = 0; i <= length; i++) {
+                outputs[c][i] = UUID.randomUUID();
+                inputs[c][i] = UUID.randomUUID();
+            }
+            for (int i = 1; i <= length; i++) {
+                Map<String, Binding> bindings = new HashMap<>();
+                bindings.put("prev", new Binding(outputs[c][i - 1], 1.0));
+                bindings.put("meter", new Binding(inputs[c][i], 0.5));
+                definitions.add(new Definition(UUID.randomUUID(), "F" + c + "_" + i, outputs[c][i],
+                        "prev * 0.999 + meter - (prev / 1000)", bindings, 3));
+            }
+        }
+        Collections.shuffle(definitions, new Random(42));
+
+        long buildStart = System.nanoTime();
+        FormulaGraph graph = FormulaGraph.build(definitions);
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+        for (int c = 0; c < chains; c++) {
+            for (int i = 0; i <= length; i++) {
+                graph.seed(inputs[c][i], i);
+            }
+        }
+        System.out.printf("公式数 %d（%d 条链 × %d），构建耗时 %d ms%n", graph.formulaCount(), chains, length, buildMillis);
+
+        double[] sink = new double[1];
+        FormulaGraph.OutputSink consumer = (pointId, value) -> sink[0] += value;
+
+        // 预热
+        for (int r = 0; r < rounds / 4; r++) {
+            graph.propagate(outputs[r % chains][0], r, consumer);
+        }
+
+        long evaluated = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            evaluated += graph.propagate(outputs[r % chains][0], r, consumer);
+        }
+        report("链头变化（整条链重算）", rounds, evaluated, System.nanoTime() - start);
+
+        Random random = new Random(7);
+        evaluated = 0;
+        start = System.nanoTime();
+        for (int r = 0; r < rounds * 10; r++) {
+            int c = random.nextInt(chains);
+            int i = 1 + random.nextInt(length);
+            evaluated += graph.propagate(inputs[c][i], r, consumer);
+        }
+        report("随机物理点位变化（下游部分重算）", rounds * 10, evaluated, System.nanoTime() - start);
+        System.out.println("校验值: " + sink[0]);
+    }
+
+    private static void report(String name, int updates, long evaluated, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("%s: %d 次输入更新，重算 %d 个公式，耗时 %.1f ms，%.0f 次更新/秒，%.0f 个公式/秒%n",
+                name, updates, evaluated, nanos / 1_000_000.0, updates / seconds, evaluated / seconds);
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.rootmanage.remotemonitoring.formula;
+
+import org.example.rootmanage.remotemonitoring.formula.FormulaGraph.Binding;
+import org.example.rootmanage.remotemonitoring.formula.FormulaGraph.Definition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 虚拟表计公式依赖图测试类
+ */
+@DisplayName("虚拟表计公式依赖图测试")
+class FormulaGraphTest {
+
+    private static Definition definition(String code, UUID output, String expression, Object... bindings) {
+        Map<String, Binding> map = new HashMap<>();
+        for (int i = 0; i < bindings.length; i += 2) {
+            map.put((String) bindings[i], new Binding((UUID) bindings[i + 1], 1.0));
+        }
+        return new Definition(UUID.randomUUID(), code, output, expression, map, 2);
+    }
+
+    @Test
+    @DisplayName("表达式编译 - 运算优先级、括号、一元负号")
+    void testCompile_Precedence() {
+        double[] values = {3.0, 4.0};
+        CompiledExpression expression = FormulaExpressionParser.compile("-(a + b) * 2 - b / 4 + 10",
+                name -> FormulaExpressionParser.variable(name.equals("a") ? 0 : 1, 1.0));
+
+        assertEquals(-14.0 - 1.0 + 10.0, expression.evaluate(values));
+    }
+
+    @Test
+    @DisplayName("表达式编译 - 语法错误抛出异常")
+    void testCompile_SyntaxError() {
+        assertThrows(IllegalArgumentException.class, () -> FormulaExpressionParser.variableNames("P001 + * P002"));
+        assertThrows(IllegalArgumentException.class, () -> FormulaExpressionParser.variableNames("(P001 + P002"));
+        assertThrows(IllegalArgumentException.class, () -> FormulaExpressionParser.variableNames("P001 # 2"));
+    }
+
+    @Test
+    @DisplayName("解析变量名 - 按出现顺序去重")
+    void testVariableNames() {
+        assertEquals(List.of("P001", "P002"),
+                new ArrayList<>(FormulaExpressionParser.variableNames("P001 * 2 + P002 - P001")));
+    }
+
+    @Test
+    @DisplayName("循环依赖检查 - 返回循环中的公式")
+    void testFindCycle() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        Definition f1 = definition("F1", b, "x + 1", "x", a);
+        Definition f2 = definition("F2", c, "x * 2", "x", b);
+        Definition f3 = definition("F3", a, "x - 1", "x", c);
+
+        assertTrue(FormulaGraph.findCycle(List.of(f1, f2)).isEmpty());
+        assertEquals(Set.of("F1", "F2", "F3"), new HashSet<>(FormulaGraph.findCycle(List.of(f1, f2, f3))));
+    }
+
+    @Test
+    @DisplayName("增量重算 - 按拓扑序重算受影响的公式并按精度取整")
+    void testPropagate_TopologicalOrder() {
+        UUID p1 = UUID.randomUUID();
+        UUID p2 = UUID.randomUUID();
+        UUID v1 = UUID.randomUUID();
+        UUID v2 = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        UUID otherOut = UUID.randomUUID();
+        // 故意倒序给出，验证拓扑排序
+        Definition second = definition("F2", v2, "v1 / 3", "v1", v1);
+        Definition first = definition("F1", v1, "p1 + p2", "p1", p1, "p2", p2);
+        Definition unrelated = definition("F3", otherOut, "o * 10", "o", other);
+        FormulaGraph graph = FormulaGraph.build(List.of(second, first, unrelated));
+        graph.seed(p2, 2.0);
+
+        List<UUID> order = new ArrayList<>();
+        Map<UUID, Double> outputs = new HashMap<>();
+        int recomputed = graph.propagate(p1, 8.0, (pointId, value) -> {
+            order.add(pointId);
+            outputs.put(pointId, value);
+        });
+
+        assertEquals(2, recomputed);
+        assertEquals(List.of(v1, v2), order);
+        assertEquals(10.0, outputs.get(v1));
+        assertEquals(3.33, outputs.get(v2));
+        assertTrue(graph.isInput(p1));
+        assertFalse(graph.isInput(v2));
+    }
+
+    @Test
+    @DisplayName("增量重算 - 输入未知时不输出")
+    void testPropagate_UnknownInput() {
+        UUID p1 = UUID.randomUUID();
+        UUID p2 = UUID.randomUUID();
+        UUID out = UUID.randomUUID();
+        FormulaGraph graph = FormulaGraph.build(List.of(definition("F1", out, "a + b", "a", p1, "b", p2)));
+
+        List<UUID> outputs = new ArrayList<>();
+        graph.propagate(p1, 1.0, (pointId, value) -> outputs.add(pointId));
+
+        assertTrue(outputs.isEmpty());
+        assertTrue(Double.isNaN(graph.valueOf(out)));
+    }
+
+    @Test
+    @DisplayName("构建依赖图 - 循环中的公式被跳过")
+    void testBuild_SkipsCycle() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        Definition f1 = definition("F1", b, "x + 1", "x", a);
+        Definition f2 = definition("F2", a, "x + 1", "x", b);
+
+        FormulaGraph graph = FormulaGraph.build(List.of(f1, f2));
+
+        assertEquals(0, graph.formulaCount());
+        assertEquals(2, graph.getSkippedFormulaIds().size());
+    }
+
+    @Test
+    @DisplayName("长链公式 - 数千级链式依赖一次重算完成")
+    void testPropagate_LongChain() {
+        int length = 5000;
+        UUID[] points = new UUID[length + 1];
+        for (int i = 0; i <= length; i++) {
+            points[i] = UUID.randomUUID();
+        }
+        List<Definition> definitions = new ArrayList<>();
+        for (int i = length; i >= 1; i--) {
+            definitions.add(definition("F" + i, points[i], "x + 1", "x", points[i - 1]));
+        }
+        FormulaGraph graph = FormulaGraph.build(definitions);
+
+        int recomputed = graph.propagate(points[0], 0.0, (pointId, value) -> {
+        });
+
+        assertEquals(length, recomputed);
+        assertEquals(length, graph.valueOf(points[length]));
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.rootmanage.remotemonitoring.live;
+
+import org.example.rootmanage.remotemonitoring.dto.LiveValueDelta;
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 实时值推送中心测试类
+ */
+@DisplayName("实时值推送中心测试")
+class LiveValueHubTest {
+
+    private LiveValueHub hub;
+    private UUID pointId1;
+    private UUID pointId2;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        hub = new LiveValueHub(2, 3, 60_000, 15_000, 1);
+        pointId1 = UUID.randomUUID();
+        pointId2 = UUID.randomUUID();
+        baseTime = LocalDateTime.of(2024, 1, 1, 8, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    @DisplayName("发布 - 只投递给订阅了该点位的连接，未发送的旧值被合并")
+    void testPublish_Coalesces() {
+        // Given
+        hub.subscribe(List.of(pointId1), List::of);
+
+        // When
+        hub.publish(pointId1, 1.0, DataQuality.GOOD, baseTime);
+        hub.publish(pointId1, 2.0, DataQuality.GOOD, baseTime.plusSeconds(1));
+        hub.publish(pointId2, 3.0, DataQuality.GOOD, baseTime);
+
+        // Then
+        assertEquals(1, hub.getSubscriptionCount());
+        assertEquals(2, hub.getPublishedDeltas());
+        assertEquals(1, hub.getCoalescedDeltas());
+    }
+
+    @Test
+    @DisplayName("订阅 - 超过最大连接数，抛出异常")
+    void testSubscribe_Limit() {
+        // Given
+        hub.subscribe(List.of(pointId1), List::of);
+        hub.subscribe(List.of(pointId2), List::of);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> hub.subscribe(List.of(pointId1), List::of));
+    }
+
+    @Test
+    @DisplayName("订阅 - 并发订阅不会超过最大连接数")
+    void testSubscribe_ConcurrentLimit() throws Exception {
+        // Given
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    hub.subscribe(List.of(pointId1), List::of);
+                    accepted.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(2, accepted.get());
+        assertEquals(threads - 2, rejected.get());
+        assertEquals(2, hub.getSubscriptionCount());
+    }
+
+    @Test
+    @DisplayName("订阅 - 点位数超过单个订阅上限，抛出异常且不占用连接数")
+    void testSubscribe_TooManyPoints() {
+        // Given：重复点位只计一次
+        List<UUID> points = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> hub.subscribe(points, List::of));
+        assertEquals("单个订阅的点位数不能超过 3", exception.getMessage());
+        hub.subscribe(List.of(pointId1, pointId1, pointId2), List::of);
+        hub.subscribe(List.of(pointId2), List::of);
+        assertEquals(2, hub.getSubscriptionCount());
+    }
+
+    @Test
+    @DisplayName("订阅 - 读取快照失败时移除连接并归还连接数")
+    void testSubscribe_SnapshotFailureReleasesSlot() {
+        // When
+        assertThrows(IllegalStateException.class, () -> hub.subscribe(List.of(pointId1), () -> {
+            throw new IllegalStateException("cache down");
+        }));
+
+        // Then
+        assertEquals(0, hub.getSubscriptionCount());
+        hub.subscribe(List.of(pointId1), List::of);
+        hub.subscribe(List.of(pointId2), List::of);
+        assertEquals(2, hub.getSubscriptionCount());
+        hub.publish(pointId1, 1.0, DataQuality.GOOD, baseTime);
+        assertEquals(1, hub.getPublishedDeltas());
+    }
+
+    @Test
+    @DisplayName("连接队列 - 每个点位只保留最新值，取出后清空")
+    void testSubscription_TakePending() {
+        // Given
+        LiveSubscription subscription = new LiveSubscription(new SseEmitter(), Set.of(pointId1, pointId2));
+
+        // When
+        assertFalse(subscription.offer(new LiveValueDelta(pointId1, 1.0, DataQuality.GOOD, baseTime)));
+        assertTrue(subscription.offer(new LiveValueDelta(pointId1, 2.0, DataQuality.GOOD, baseTime.plusSeconds(1))));
+        subscription.offer(new LiveValueDelta(pointId2, 3.0, DataQuality.BAD, baseTime));
+        List<LiveValueDelta> batch = subscription.takePending();
+
+        // Then
+        batch.sort(Comparator.comparing(LiveValueDelta::getValue));
+        assertEquals(List.of(2.0, 3.0), batch.stream().map(LiveValueDelta::getValue).toList());
+        assertFalse(subscription.hasPending());
+    }
+
+    @Test
+    @DisplayName("连接队列 - 同一时刻只允许一个发送")
+    void testSubscription_SingleSender() {
+        // Given
+        LiveSubscription subscription = new LiveSubscription(new SseEmitter(), Set.of(pointId1));
+
+        // When & Then
+        assertTrue(subscription.tryBeginSend());
+        assertFalse(subscription.tryBeginSend());
+        subscription.endSend();
+        assertTrue(subscription.tryBeginSend());
+        subscription.close();
+        subscription.endSend();
+        assertFalse(subscription.tryBeginSend());
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.rootmanage.remotemonitoring.repository;
+
+import org.example.rootmanage.common.UuidBytes;
+import org.example.rootmanage.remotemonitoring.entity.DataStatistics;
+import org.example.rootmanage.remotemonitoring.entity.StatisticsPeriod;
+import org.example.rootmanage.remotemonitoring.statistics.StatisticsAggregate;
+import org.example.rootmanage.remotemonitoring.statistics.StatisticsBuckets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 统计数据批量合并写入测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("统计数据批量合并写入测试")
+class DataStatisticsBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private DataStatisticsBatchWriter batchWriter;
+
+    private static DataStatistics delta(UUID pointId, StatisticsPeriod period, LocalDateTime time, double value) {
+        DataStatistics row = StatisticsBuckets.newRow(pointId, period, time);
+        new StatisticsAggregate().add(value, time).applyTo(row);
+        return row;
+    }
+
+    @Test
+    @DisplayName("合并写入 - 按唯一键排序，冲突时在数据库端累加增量")
+    @SuppressWarnings("unchecked")
+    void testMergeStatistics_UpsertsSortedByKey() throws Exception {
+        // Given
+        UUID pointId = UUID.randomUUID();
+        LocalDate date = LocalDate.of(2024, 1, 3);
+        DataStatistics daily = delta(pointId, StatisticsPeriod.DAILY, date.atTime(8, 10), 5.0);
+        DataStatistics laterHour = delta(pointId, StatisticsPeriod.HOURLY, date.atTime(9, 10), 3.0);
+        DataStatistics earlierHour = delta(pointId, StatisticsPeriod.HOURLY, date.atTime(8, 10), 2.0);
+
+        // When
+        int written = batchWriter.mergeStatistics(List.of(daily, laterHour, earlierHour));
+
+        // Then
+        assertEquals(3, written);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<DataStatistics>> rows = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<DataStatistics>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(sql.capture(), rows.capture(), eq(1000), setter.capture());
+        assertTrue(sql.getValue().startsWith("INSERT INTO remote_data_statistics "));
+        assertTrue(sql.getValue().contains("ON DUPLICATE KEY UPDATE"));
+        assertTrue(sql.getValue().contains("data_count = IF(data_count > 0, data_count, 0) + VALUES(data_count)"));
+        // 点数最后更新，平均值使用合并后的累计值和点数
+        assertTrue(sql.getValue().indexOf("data_count = ") > sql.getValue().indexOf("max_value = "));
+        assertTrue(sql.getValue().endsWith("avg_value = sum_value / data_count, update_time = VALUES(update_time)"));
+        assertEquals(List.of(earlierHour, laterHour, daily), rows.getValue());
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, earlierHour);
+        verify(ps).setBytes(4, UuidBytes.toBytes(pointId));
+        verify(ps).setString(5, "HOURLY");
+        verify(ps).setObject(6, date);
+        verify(ps).setObject(7, 8);
+        verify(ps).setObject(9, date.atTime(8, 0));
+        verify(ps).setObject(12, 2.0);
+        verify(ps).setObject(13, date.atTime(8, 10));
+        verify(ps).setObject(16, 2.0);
+        verify(ps).setObject(17, 1);
+    }
+
+    @Test
+    @DisplayName("合并写入 - 空列表不访问数据库")
+    void testMergeStatistics_Empty() {
+        // When
+        int written = batchWriter.mergeStatistics(List.of());
+
+        // Then
+        assertEquals(0, written);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.rootmanage.remotemonitoring.timeseries;
+
+import org.example.rootmanage.remotemonitoring.entity.DataQuality;
+import org.example.rootmanage.remotemonitoring.entity.DataSource;
+import org.example.rootmanage.remotemonitoring.entity.DeviceRunningData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列式运行数据存储测试类
+ */
+@DisplayName("列式运行数据存储测试")
+class ColumnarRunningDataStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private ColumnarRunningDataStore store;
+    private UUID pointId;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        store = open();
+        pointId = UUID.randomUUID();
+        baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private ColumnarRunningDataStore open() {
+        ColumnarRunningDataStore opened = new ColumnarRunningDataStore(directory.toString(),
+                DataSize.ofKilobytes(64), Duration.ofMinutes(10));
+        opened.open();
+        return opened;
+    }
+
+    private ColumnarRunningDataStore reopen() {
+        store.close();
+        store = open();
+        return store;
+    }
+
+    private DeviceRunningData row(UUID dataPointId, LocalDateTime time, double value) {
+        DeviceRunningData data = new DeviceRunningData();
+        data.setDataPointId(dataPointId);
+        data.setCollectionTime(time);
+        data.setValue(value);
+        data.setRawValue(value * 10);
+        data.setQuality(DataQuality.GOOD);
+        data.setSource(DataSource.AUTO);
+        return data;
+    }
+
+    /**
+     * 每秒一个采样，共 count 个
+     */
+    private List<DeviceRunningData> series(UUID dataPointId, int count) {
+        List<DeviceRunningData> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(row(dataPointId, baseTime.plusSeconds(i), i));
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("写入查询 - 跨分区和检查点的数据按时间顺序返回")
+    void testSaveAndQuery() {
+        // Given：2 小时数据，跨 12 个分区，中间做一次检查点
+        store.saveAll(series(pointId, 3600));
+        store.checkpoint();
+        List<DeviceRunningData> second = new ArrayList<>();
+        for (int i = 3600; i < 7200; i++) {
+            second.add(row(pointId, baseTime.plusSeconds(i), i));
+        }
+        store.saveAll(second);
+        store.saveAll(List.of(row(UUID.randomUUID(), baseTime.plusSeconds(100), -1)));
+
+        // When
+        List<DeviceRunningData> result = store.findByDataPointIdAndTimeRange(pointId,
+                baseTime.plusSeconds(3000), baseTime.plusSeconds(4000));
+
+        // Then
+        assertEquals(1001, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            DeviceRunningData data = result.get(i);
+            assertEquals(baseTime.plusSeconds(3000 + i), data.getCollectionTime());
+            assertEquals(3000.0 + i, data.getValue());
+            assertEquals((3000.0 + i) * 10, data.getRawValue());
+            assertEquals(pointId, data.getDataPointId());
+        }
+        assertEquals(7199.0, store.findFirstByDataPointIdOrderByCollectionTimeDesc(pointId).orElseThrow().getValue());
+    }
+
+    @Test
+    @DisplayName("迟到数据 - 合并到正确的时间位置，统计遍历排除坏数据")
+    void testLateData() {
+        // Given
+        store.saveAll(series(pointId, 1200));
+        DeviceRunningData late = row(pointId, baseTime.plusSeconds(10).plusNanos(500_000_000), 99.5);
+        DeviceRunningData bad = row(pointId, baseTime.plusSeconds(20).plusNanos(500_000_000), 0);
+        bad.setQuality(DataQuality.BAD);
+        store.saveAll(List.of(late, bad));
+
+        // When
+        List<DeviceRunningData> result = store.findByDataPointIdAndTimeRange(pointId, baseTime, baseTime.plusSeconds(30));
+        List<Double> values = new ArrayList<>();
+        long rows = store.forEachValue(pointId, baseTime, baseTime.plusSeconds(30), (time, value) -> values.add(value));
+
+        // Then
+        assertEquals(33, result.size());
+        assertEquals(99.5, result.get(11).getValue());
+        assertEquals(DataQuality.BAD, result.get(22).getQuality());
+        assertEquals(31, rows);
+        assertEquals(99.5, values.get(11));
+
+        // 封存后结果不变
+        store.checkpoint();
+        assertEquals(result.stream().map(DeviceRunningData::getValue).toList(),
+                store.findByDataPointIdAndTimeRange(pointId, baseTime, baseTime.plusSeconds(30)).stream()
+                        .map(DeviceRunningData::getValue).toList());
+    }
+
+    @Test
+    @DisplayName("重启 - 正常关闭和异常退出后数据都不丢失、不重复")
+    void testRestart() {
+        // Given
+        store.saveAll(series(pointId, 1800));
+        reopen();
+        List<DeviceRunningData> more = new ArrayList<>();
+        for (int i = 1800; i < 3000; i++) {
+            more.add(row(pointId, baseTime.plusSeconds(i), i));
+        }
+        store.saveAll(more);
+
+        // When：不关闭直接重新打开，模拟异常退出（已封存但未完成检查点的数据块由预写日志重放）
+        store = open();
+
+        // Then
+        List<DeviceRunningData> result = store.findByDataPointIdAndTimeRange(pointId, baseTime,
+                baseTime.plusHours(1));
+        assertEquals(3000, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(i, result.get(i).getValue());
+        }
+    }
+
+    @Test
+    @DisplayName("删除 - 按点位和按时间删除在重启后仍然生效")
+    void testDelete() {
+        // Given
+        UUID otherId = UUID.randomUUID();
+        store.saveAll(series(pointId, 1200));
+        store.saveAll(series(otherId, 1200));
+        store.checkpoint();
+
+        // When
+        store.deleteByCollectionTimeBefore(baseTime.plusSeconds(1000));
+        store.deleteByDataPointId(otherId);
+        reopen();
+
+        // Then
+        List<DeviceRunningData> result = store.findByDataPointIdAndTimeRange(pointId, baseTime,
+                baseTime.plusHours(1));
+        assertEquals(200, result.size());
+        assertEquals(1000.0, result.get(0).getValue());
+        assertTrue(store.findByDataPointIdAndTimeRange(otherId, baseTime, baseTime.plusHours(1)).isEmpty());
+        assertTrue(store.findFirstByDataPointIdOrderByCollectionTimeDesc(otherId).isEmpty());
+    }
+
+    @Test
+    @DisplayName("按点位删除 - 返回删除行数，最早采集时间随之后移")
+    void testDeleteByDataPointIdBefore() {
+        // Given
+        store.saveAll(series(pointId, 1200));
+        store.checkpoint();
+        store.saveAll(List.of(row(pointId, baseTime.plusSeconds(5).plusNanos(1_000_000), -1)));
+
+        // When
+        int deleted = store.deleteByDataPointIdBefore(pointId, baseTime.plusSeconds(600), 100);
+
+        // Then
+        assertEquals(601, deleted);
+        assertEquals(baseTime.plusSeconds(600), store.findOldestCollectionTime(pointId).orElseThrow());
+        assertEquals(0, store.deleteByDataPointIdBefore(pointId, baseTime.plusSeconds(600), 100));
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.rootmanage.remotemonitoring.timeseries;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gorilla 数据块编码测试类
+ */
+@DisplayName("Gorilla 数据块编码测试")
+class GorillaChunkTest {
+
+    @Test
+    @DisplayName("编码解码 - 不规则间隔和任意数值原样还原")
+    void testRoundTrip() {
+        Random random = new Random(1);
+        int count = 5000;
+        long[] times = new long[count];
+        double[] values = new double[count];
+        double[] rawValues = new double[count];
+        int[] flags = new int[count];
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            // 间隔包含 0、小抖动和大跳变
+            time += switch (i % 7) {
+                case 0 -> 0;
+                case 1 -> 1000 + random.nextInt(5);
+                case 2 -> 86_400_000L * random.nextInt(30);
+                default -> 1000;
+            };
+            times[i] = time;
+            values[i] = i % 11 == 0 ? Double.NaN : random.nextGaussian() * 1000;
+            rawValues[i] = i % 3 == 0 ? values[i] : Double.NaN;
+            flags[i] = i % 13 == 0 ? 1 : 4;
+        }
+
+        GorillaChunk.Encoder encoder = new GorillaChunk.Encoder();
+        for (int i = 0; i < count; i++) {
+            assertTrue(encoder.append(times[i], values[i], rawValues[i], flags[i]));
+        }
+        assertEquals(count, encoder.count());
+        assertEquals(times[0], encoder.firstTime());
+        assertEquals(times[count - 1], encoder.lastTime());
+
+        GorillaChunk.Decoder decoder = new GorillaChunk.Decoder(encoder.toBytes(), encoder.count());
+        for (int i = 0; i < count; i++) {
+            assertTrue(decoder.next());
+            assertEquals(times[i], decoder.time());
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decoder.value()));
+            assertEquals(Double.doubleToRawLongBits(rawValues[i]), Double.doubleToRawLongBits(decoder.rawValue()));
+            assertEquals(flags[i], decoder.flags());
+        }
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    @DisplayName("追加 - 早于最后一个采样的时间被拒绝")
+    void testAppend_OutOfOrder() {
+        GorillaChunk.Encoder encoder = new GorillaChunk.Encoder();
+        assertTrue(encoder.append(2000, 1.0, Double.NaN, 0));
+
+        assertFalse(encoder.append(1000, 2.0, Double.NaN, 0));
+        assertEquals(1, encoder.count());
+    }
+
+    @Test
+    @DisplayName("压缩率 - 等间隔缓变数据每个采样远小于 8 字节")
+    void testCompression() {
+        GorillaChunk.Encoder encoder = new GorillaChunk.Encoder();
+        long time = 1_700_000_000_000L;
+        double value = 220.0;
+        for (int i = 0; i < 3600; i++) {
+            value = i % 10 == 0 ? value + 0.5 : value;
+            encoder.append(time + i * 1000L, value, value * 10, 4);
+        }
+
+        // 原始表示为 8 + 8 + 8 + 1 = 25 字节/采样
+        assertTrue(encoder.byteSize() < 3600 * 2, "实际大小 " + encoder.byteSize());
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.rootmanage.sales;
+
+import org.example.rootmanage.common.UuidBytes;
+import org.example.rootmanage.sales.dto.OpportunityAssignmentKey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 销售机会分配记录批量写入测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("销售机会分配记录批量写入测试")
+class SalesOpportunityAssignmentBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private SalesOpportunityAssignmentBatchWriter batchWriter;
+
+    @Test
+    @DisplayName("批量插入 - SQL 与参数绑定：UUID 转 binary(16)，未指定营销人员时绑定 null")
+    @SuppressWarnings("unchecked")
+    void testInsertAssignments_Binding() throws Exception {
+        // Given
+        UUID opportunityId = UUID.randomUUID();
+        UUID areaId = UUID.randomUUID();
+        UUID personnelId = UUID.randomUUID();
+        OpportunityAssignmentKey areaOnly = new OpportunityAssignmentKey(opportunityId, areaId, null);
+        OpportunityAssignmentKey withPersonnel = new OpportunityAssignmentKey(opportunityId, areaId, personnelId);
+        List<OpportunityAssignmentKey> assignments = List.of(areaOnly, withPersonnel);
+
+        // When
+        int written = batchWriter.insertAssignments(assignments);
+
+        // Then
+        assertEquals(2, written);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<OpportunityAssignmentKey>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(sql.capture(), eq(assignments), eq(1000), setter.capture());
+        assertEquals("INSERT INTO sales_opportunity_assignment " +
+                "(id, create_time, update_time, opportunity_id, area_id, personnel_id, is_primary) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", sql.getValue());
+
+        PreparedStatement first = mock(PreparedStatement.class);
+        setter.getValue().setValues(first, areaOnly);
+        ArgumentCaptor<byte[]> id = ArgumentCaptor.forClass(byte[].class);
+        verify(first).setBytes(eq(1), id.capture());
+        assertEquals(16, id.getValue().length);
+        ArgumentCaptor<Object> createTime = ArgumentCaptor.forClass(Object.class);
+        verify(first).setObject(eq(2), createTime.capture());
+        assertInstanceOf(LocalDateTime.class, createTime.getValue());
+        verify(first).setObject(3, createTime.getValue());
+        verify(first).setBytes(4, UuidBytes.toBytes(opportunityId));
+        verify(first).setBytes(5, UuidBytes.toBytes(areaId));
+        verify(first).setBytes(6, null);
+        verify(first).setBoolean(7, false);
+
+        PreparedStatement second = mock(PreparedStatement.class);
+        setter.getValue().setValues(second, withPersonnel);
+        verify(second).setBytes(6, UuidBytes.toBytes(personnelId));
+        // 每条记录生成新的主键
+        ArgumentCaptor<byte[]> secondId = ArgumentCaptor.forClass(byte[].class);
+        verify(second).setBytes(eq(1), secondId.capture());
+        assertNotEquals(UuidBytes.fromBytes(id.getValue()), UuidBytes.fromBytes(secondId.getValue()));
+    }
+
+    @Test
+    @DisplayName("批量插入 - 空列表不访问数据库")
+    void testInsertAssignments_Empty() {
+        // When
+        int written = batchWriter.insertAssignments(List.of());
+
+        // Then
+        assertEquals(0, written);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+}
@@ -3,10 +3,13 @@ package org.example.rootmanage.sales;
 import org.example.rootmanage.account.UserAccountRepository;
 import org.example.rootmanage.basicinfo.CustomerRepository;
 import org.example.rootmanage.basicinfo.entity.Customer;
-import org.example.rootmanage.option.OptionItemRepository;
+import org.example.rootmanage.option.OptionDictionary;
 import org.example.rootmanage.sales.dto.BiddingRequest;
 import org.example.rootmanage.sales.entity.Bidding;
 import org.example.rootmanage.sales.entity.SalesOpportunity;
+import org.example.rootmanage.sales.funnel.SalesFunnel;
+import org.example.rootmanage.sales.inventory.SalesInventoryLedger;
+import org.example.rootmanage.search.KeywordSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -43,7 +46,25 @@ class SalesServiceBiddingTest {
     private UserAccountRepository userAccountRepository;
 
     @Mock
-    private OptionItemRepository optionItemRepository;
+    private OptionDictionary optionDictionary;
+
+    @Mock
+    private KeywordSearchIndex keywordSearchIndex;
+
+    @Mock
+    private SalesFunnel salesFunnel;
+
+    @Mock
+    private SalesInventoryLedger salesInventoryLedger;
+
+    @Mock
+    private SalesInventoryMovementRepository salesInventoryMovementRepository;
+
+    @Mock
+    private SalesOpportunityAssignmentBatchWriter salesOpportunityAssignmentBatchWriter;
+
+    @Mock
+    private SalesOpportunityStageChangeRepository salesOpportunityStageChangeRepository;
 
     @Mock
     private SalesOpportunityRepository salesOpportunityRepository;
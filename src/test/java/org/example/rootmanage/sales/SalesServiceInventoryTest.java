@@ -2,18 +2,24 @@ package org.example.rootmanage.sales;
 
 import org.example.rootmanage.basicinfo.ProductRepository;
 import org.example.rootmanage.basicinfo.entity.Product;
-import org.example.rootmanage.option.OptionItemRepository;
+import org.example.rootmanage.option.OptionDictionary;
+import org.example.rootmanage.sales.dto.InventoryReservationRequest;
 import org.example.rootmanage.sales.dto.SalesInventoryRequest;
 import org.example.rootmanage.sales.entity.SalesInventory;
+import org.example.rootmanage.sales.funnel.SalesFunnel;
+import org.example.rootmanage.sales.inventory.SalesInventoryLedger;
+import org.example.rootmanage.search.KeywordSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -35,7 +41,31 @@ class SalesServiceInventoryTest {
     private ProductRepository productRepository;
 
     @Mock
-    private OptionItemRepository optionItemRepository;
+    private OptionDictionary optionDictionary;
+
+    @Mock
+    private KeywordSearchIndex keywordSearchIndex;
+
+    @Mock
+    private SalesFunnel salesFunnel;
+
+    @Mock
+    private SalesInventoryLedger salesInventoryLedger;
+
+    @Mock
+    private SalesInventoryMovementRepository salesInventoryMovementRepository;
+
+    @Mock
+    private SalesOpportunityAssignmentBatchWriter salesOpportunityAssignmentBatchWriter;
+
+    @Mock
+    private SalesQuotationRepository salesQuotationRepository;
+
+    @Mock
+    private SalesInventoryReductionRepository salesInventoryReductionRepository;
+
+    @Mock
+    private SalesOpportunityStageChangeRepository salesOpportunityStageChangeRepository;
 
     @InjectMocks
     private SalesService salesService;
@@ -130,7 +160,7 @@ class SalesServiceInventoryTest {
     @Test
     @DisplayName("更新库存记录 - 成功")
     void testUpdateSalesInventory_Success() {
-        when(salesInventoryRepository.findById(inventoryId)).thenReturn(Optional.of(inventory));
+        when(salesInventoryRepository.findByIdForUpdate(inventoryId)).thenReturn(Optional.of(inventory));
         when(productRepository.findById(productId)).thenReturn(Optional.of(product));
         when(salesInventoryRepository.save(any(SalesInventory.class))).thenReturn(inventory);
 
@@ -139,7 +169,7 @@ class SalesServiceInventoryTest {
         SalesInventory updated = salesService.updateSalesInventory(inventoryId, request);
 
         assertNotNull(updated);
-        verify(salesInventoryRepository, times(1)).findById(inventoryId);
+        verify(salesInventoryRepository, times(1)).findByIdForUpdate(inventoryId);
         verify(salesInventoryRepository, times(1)).save(any(SalesInventory.class));
     }
 
@@ -152,5 +182,55 @@ class SalesServiceInventoryTest {
 
         verify(salesInventoryRepository, times(1)).deleteById(inventoryId);
     }
-}
 
+    @Test
+    @DisplayName("删除库存记录 - 已有库存流水时拒绝，流水保留")
+    void testDeleteSalesInventory_HasMovements() {
+        when(salesInventoryMovementRepository.existsByInventoryId(inventoryId)).thenReturn(true);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> salesService.deleteSalesInventory(inventoryId));
+
+        assertEquals("库存记录已有库存流水，不能删除", exception.getMessage());
+        verify(salesInventoryRepository, never()).deleteById(any());
+    }
+
+    @Test
+    @DisplayName("报价预留库存 - 同一库存记录的明细合并后记账")
+    void testReserveQuotationInventory_MergesLines() {
+        // Given
+        UUID quotationId = UUID.randomUUID();
+        UUID otherInventoryId = UUID.randomUUID();
+        when(salesQuotationRepository.existsById(quotationId)).thenReturn(true);
+        InventoryReservationRequest reservation = new InventoryReservationRequest();
+        reservation.setLines(List.of(line(inventoryId, 3), line(otherInventoryId, 1), line(inventoryId, 2)));
+
+        // When
+        salesService.reserveQuotationInventory(quotationId, reservation);
+
+        // Then
+        verify(salesInventoryLedger, times(1)).reserve(quotationId, Map.of(inventoryId, 5, otherInventoryId, 1));
+    }
+
+    @Test
+    @DisplayName("删除降库记录 - 先冲回库存")
+    void testDeleteSalesInventoryReduction_ReversesLedger() {
+        // Given
+        UUID reductionId = UUID.randomUUID();
+
+        // When
+        salesService.deleteSalesInventoryReduction(reductionId);
+
+        // Then
+        InOrder order = inOrder(salesInventoryLedger, salesInventoryReductionRepository);
+        order.verify(salesInventoryLedger).reverseReduction(reductionId);
+        order.verify(salesInventoryReductionRepository).deleteById(reductionId);
+    }
+
+    private static InventoryReservationRequest.Line line(UUID inventoryId, int quantity) {
+        InventoryReservationRequest.Line line = new InventoryReservationRequest.Line();
+        line.setInventoryId(inventoryId);
+        line.setQuantity(quantity);
+        return line;
+    }
+}
@@ -9,15 +9,23 @@ import org.example.rootmanage.basicinfo.SalesAreaRepository;
 import org.example.rootmanage.basicinfo.entity.Customer;
 import org.example.rootmanage.basicinfo.entity.MarketingPersonnel;
 import org.example.rootmanage.basicinfo.entity.SalesArea;
-import org.example.rootmanage.option.OptionItemRepository;
+import org.example.rootmanage.common.CursorPage;
+import org.example.rootmanage.common.KeysetCursor;
+import org.example.rootmanage.option.OptionDictionary;
+import org.example.rootmanage.option.OptionItem;
 import org.example.rootmanage.sales.dto.*;
 import org.example.rootmanage.sales.entity.SalesOpportunity;
 import org.example.rootmanage.sales.entity.SalesOpportunityAssignment;
+import org.example.rootmanage.sales.entity.SalesOpportunityStageChange;
 import org.example.rootmanage.sales.entity.SalesOpportunityTracking;
+import org.example.rootmanage.sales.funnel.SalesFunnel;
+import org.example.rootmanage.sales.inventory.SalesInventoryLedger;
+import org.example.rootmanage.search.KeywordSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -28,10 +36,13 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -60,7 +71,25 @@ class SalesServiceOpportunityTest {
     private UserAccountRepository userAccountRepository;
 
     @Mock
-    private OptionItemRepository optionItemRepository;
+    private OptionDictionary optionDictionary;
+
+    @Mock
+    private KeywordSearchIndex keywordSearchIndex;
+
+    @Mock
+    private SalesFunnel salesFunnel;
+
+    @Mock
+    private SalesInventoryLedger salesInventoryLedger;
+
+    @Mock
+    private SalesInventoryMovementRepository salesInventoryMovementRepository;
+
+    @Mock
+    private SalesOpportunityAssignmentBatchWriter salesOpportunityAssignmentBatchWriter;
+
+    @Mock
+    private SalesOpportunityStageChangeRepository salesOpportunityStageChangeRepository;
 
     @Mock
     private SalesAreaRepository salesAreaRepository;
@@ -104,6 +133,13 @@ class SalesServiceOpportunityTest {
         request.setBudget(new BigDecimal("100000"));
     }
 
+    @SuppressWarnings("unchecked")
+    private List<SalesOpportunityAssignment> savedAssignments() {
+        ArgumentCaptor<List<SalesOpportunityAssignment>> captor = ArgumentCaptor.forClass(List.class);
+        verify(salesOpportunityAssignmentRepository, times(1)).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
     @Test
     @DisplayName("创建销售机会 - 成功")
     void testCreateSalesOpportunity_Success() {
@@ -146,6 +182,41 @@ class SalesServiceOpportunityTest {
         verify(salesOpportunityRepository, times(1)).save(any(SalesOpportunity.class));
     }
 
+    @Test
+    @DisplayName("更新销售机会 - 阶段变化时记录停留时长并刷新漏斗汇总")
+    void testUpdateSalesOpportunity_StageChange() {
+        // Given
+        OptionItem lead = new OptionItem();
+        lead.setId(UUID.randomUUID());
+        OptionItem proposal = new OptionItem();
+        proposal.setId(UUID.randomUUID());
+        opportunity.setOpportunityStage(lead);
+        SalesOpportunityStageChange last = new SalesOpportunityStageChange();
+        last.setChangedAt(LocalDateTime.now().minusDays(2));
+        when(salesOpportunityRepository.findById(opportunityId)).thenReturn(Optional.of(opportunity));
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        when(optionDictionary.findById(proposal.getId())).thenReturn(Optional.of(proposal));
+        when(salesOpportunityStageChangeRepository.findTopByOpportunityIdOrderByChangedAtDesc(opportunityId))
+                .thenReturn(Optional.of(last));
+        when(salesOpportunityRepository.save(any(SalesOpportunity.class))).thenReturn(opportunity);
+        request.setOpportunityStageId(proposal.getId());
+
+        // When
+        salesService.updateSalesOpportunity(opportunityId, request);
+        // 阶段未变化，不再记录
+        salesService.updateSalesOpportunity(opportunityId, request);
+
+        // Then
+        ArgumentCaptor<SalesOpportunityStageChange> captor = ArgumentCaptor.forClass(SalesOpportunityStageChange.class);
+        verify(salesOpportunityStageChangeRepository, times(1)).save(captor.capture());
+        SalesOpportunityStageChange change = captor.getValue();
+        assertSame(lead, change.getFromStage());
+        assertSame(proposal, change.getToStage());
+        assertEquals(last.getChangedAt(), change.getEnteredAt());
+        assertTrue(change.getDurationSeconds() >= 2 * 86_400L);
+        verify(salesFunnel, times(2)).refreshAfterCommit(opportunityId);
+    }
+
     @Test
     @DisplayName("提交销售机会 - 成功")
     void testSubmitSalesOpportunity_Success() {
@@ -172,8 +243,7 @@ class SalesServiceOpportunityTest {
         area2.setId(areaId2);
 
         when(salesOpportunityRepository.findById(opportunityId)).thenReturn(Optional.of(opportunity));
-        when(salesAreaRepository.findById(areaId1)).thenReturn(Optional.of(area1));
-        when(salesAreaRepository.findById(areaId2)).thenReturn(Optional.of(area2));
+        when(salesAreaRepository.findAllById(Arrays.asList(areaId1, areaId2))).thenReturn(List.of(area1, area2));
         when(salesOpportunityAssignmentRepository.findByOpportunityId(opportunityId))
                 .thenReturn(Arrays.asList());
 
@@ -184,9 +254,29 @@ class SalesServiceOpportunityTest {
         assertDoesNotThrow(() -> salesService.transferSalesOpportunity(transferRequest));
 
         verify(salesOpportunityRepository, times(1)).findById(opportunityId);
-        verify(salesAreaRepository, times(1)).findById(areaId1);
-        verify(salesAreaRepository, times(1)).findById(areaId2);
-        verify(salesOpportunityAssignmentRepository, times(2)).save(any(SalesOpportunityAssignment.class));
+        verify(salesAreaRepository, times(1)).findAllById(any());
+        verify(salesAreaRepository, never()).findById(any());
+        List<SalesOpportunityAssignment> saved = savedAssignments();
+        assertEquals(List.of(area1, area2), saved.stream().map(SalesOpportunityAssignment::getArea).toList());
+        verify(salesOpportunityAssignmentRepository, never()).save(any(SalesOpportunityAssignment.class));
+    }
+
+    @Test
+    @DisplayName("传递销售机会 - 片区不存在")
+    void testTransferSalesOpportunity_AreaNotFound() {
+        UUID areaId = UUID.randomUUID();
+        when(salesOpportunityRepository.findById(opportunityId)).thenReturn(Optional.of(opportunity));
+        when(salesAreaRepository.findAllById(List.of(areaId))).thenReturn(List.of());
+        when(salesOpportunityAssignmentRepository.findByOpportunityId(opportunityId)).thenReturn(List.of());
+
+        OpportunityTransferRequest transferRequest = new OpportunityTransferRequest();
+        transferRequest.setOpportunityId(opportunityId);
+        transferRequest.setTargetAreaIds(List.of(areaId));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> salesService.transferSalesOpportunity(transferRequest));
+        assertEquals("片区不存在: " + areaId, exception.getMessage());
+        verify(salesOpportunityAssignmentRepository, never()).saveAll(any());
     }
 
     @Test
@@ -201,7 +291,7 @@ class SalesServiceOpportunityTest {
         personnel.setResponsibleArea(area);
 
         when(salesOpportunityRepository.findById(opportunityId)).thenReturn(Optional.of(opportunity));
-        when(marketingPersonnelRepository.findById(personnelId)).thenReturn(Optional.of(personnel));
+        when(marketingPersonnelRepository.findAllById(Arrays.asList(personnelId))).thenReturn(List.of(personnel));
         when(salesOpportunityAssignmentRepository.findByOpportunityId(opportunityId))
                 .thenReturn(Arrays.asList());
 
@@ -212,8 +302,82 @@ class SalesServiceOpportunityTest {
         assertDoesNotThrow(() -> salesService.assignSalesOpportunity(assignRequest));
 
         verify(salesOpportunityRepository, times(1)).findById(opportunityId);
-        verify(marketingPersonnelRepository, times(1)).findById(personnelId);
-        verify(salesOpportunityAssignmentRepository, times(1)).save(any(SalesOpportunityAssignment.class));
+        verify(marketingPersonnelRepository, times(1)).findAllById(any());
+        verify(marketingPersonnelRepository, never()).findById(any());
+        List<SalesOpportunityAssignment> saved = savedAssignments();
+        assertEquals(1, saved.size());
+        assertEquals(personnel, saved.get(0).getPersonnel());
+        assertEquals(area, saved.get(0).getArea());
+        verify(salesOpportunityAssignmentRepository, never()).save(any(SalesOpportunityAssignment.class));
+    }
+
+    @Test
+    @DisplayName("批量分配 - IN 查询一次取出，内存查重，批量写入并逐项报告")
+    void testBulkAssignSalesOpportunities_Report() {
+        // Given
+        UUID assignedId = UUID.randomUUID();
+        UUID unassignedId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        UUID areaId = UUID.randomUUID();
+        UUID missingAreaId = UUID.randomUUID();
+        UUID personnelAreaId = UUID.randomUUID();
+        SalesArea area = new SalesArea();
+        area.setId(areaId);
+        SalesArea personnelArea = new SalesArea();
+        personnelArea.setId(personnelAreaId);
+        MarketingPersonnel personnel = new MarketingPersonnel();
+        personnel.setId(UUID.randomUUID());
+        personnel.setResponsibleArea(personnelArea);
+        MarketingPersonnel noArea = new MarketingPersonnel();
+        noArea.setId(UUID.randomUUID());
+
+        when(salesOpportunityRepository.findExistingIds(any())).thenReturn(List.of(assignedId, unassignedId));
+        when(salesAreaRepository.findAllById(any())).thenReturn(List.of(area));
+        when(marketingPersonnelRepository.findAllById(any())).thenReturn(List.of(personnel, noArea));
+        when(salesOpportunityAssignmentRepository.findAssignmentKeys(any()))
+                .thenReturn(List.of(new OpportunityAssignmentKey(assignedId, areaId, UUID.randomUUID())));
+
+        OpportunityBulkAssignRequest bulkRequest = new OpportunityBulkAssignRequest();
+        bulkRequest.setOpportunityIds(List.of(assignedId, unassignedId, missingId, unassignedId));
+        bulkRequest.setAreaIds(List.of(areaId, missingAreaId));
+        bulkRequest.setPersonnelIds(List.of(personnel.getId(), noArea.getId()));
+
+        // When
+        OpportunityBulkAssignResult result = salesService.bulkAssignSalesOpportunities(bulkRequest);
+
+        // Then
+        // 重复的机会ID只处理一次：3 个机会 × (2 个片区 + 2 个营销人员)
+        assertEquals(12, result.getItems().size());
+        assertEquals(3, result.getCreated());
+        assertEquals(1, result.getDuplicated());
+        assertEquals(8, result.getFailed());
+        assertEquals(OpportunityBulkAssignResult.Status.DUPLICATE, result.getItems().get(0).getStatus());
+        assertEquals("片区不存在", result.getItems().get(1).getMessage());
+        assertEquals(personnelAreaId, result.getItems().get(2).getAreaId());
+        assertEquals("营销人员未分配负责区域", result.getItems().get(3).getMessage());
+        assertEquals("销售机会不存在", result.getItems().get(8).getMessage());
+        verify(salesOpportunityAssignmentBatchWriter, times(1)).insertAssignments(List.of(
+                new OpportunityAssignmentKey(assignedId, personnelAreaId, personnel.getId()),
+                new OpportunityAssignmentKey(unassignedId, areaId, null),
+                new OpportunityAssignmentKey(unassignedId, personnelAreaId, personnel.getId())));
+        verify(salesFunnel, times(1)).refreshAfterCommit(Set.of(unassignedId));
+        verify(salesAreaRepository, never()).findById(any());
+        verify(marketingPersonnelRepository, never()).findById(any());
+        verify(salesOpportunityAssignmentRepository, never()).save(any(SalesOpportunityAssignment.class));
+    }
+
+    @Test
+    @DisplayName("批量分配 - 片区和营销人员都为空")
+    void testBulkAssignSalesOpportunities_NoTargets() {
+        // Given
+        OpportunityBulkAssignRequest bulkRequest = new OpportunityBulkAssignRequest();
+        bulkRequest.setOpportunityIds(List.of(opportunityId));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> salesService.bulkAssignSalesOpportunities(bulkRequest));
+        assertEquals("目标片区和营销人员不能同时为空", exception.getMessage());
+        verifyNoInteractions(salesOpportunityAssignmentBatchWriter);
     }
 
     @Test
@@ -302,5 +466,63 @@ class SalesServiceOpportunityTest {
         verify(salesOpportunityTrackingRepository, times(1)).delete(any(SalesOpportunityTracking.class));
         verify(salesOpportunityRepository, times(1)).deleteById(opportunityId);
     }
+
+    private static SalesOpportunityListItem listItem(String name, LocalDateTime createTime) {
+        return new SalesOpportunityListItem(UUID.randomUUID(), name, null, null, null, null, null, false, false,
+                UUID.randomUUID(), "客户", null, null, null, null, null, null, null, null, null, null, createTime);
+    }
+
+    @Test
+    @DisplayName("分页查询销售机会 - 多查一行判断下一页，游标取本页最后一行")
+    void testPageSalesOpportunities_NextCursor() {
+        // Given
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 10, 0);
+        List<SalesOpportunityListItem> rows = List.of(listItem("A", time), listItem("B", time.minusMinutes(1)),
+                listItem("C", time.minusMinutes(2)));
+        when(salesOpportunityRepository.pageOpportunities(eq("%100!%!_x%"), isNull(), isNull(), any()))
+                .thenReturn(rows);
+
+        // When
+        CursorPage<SalesOpportunityListItem> page = salesService.pageSalesOpportunities(" 100%_x ", null, 2);
+
+        // Then
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        KeysetCursor cursor = KeysetCursor.decode(page.getNextCursor());
+        assertEquals(rows.get(1).getCreateTime(), cursor.getCreateTime());
+        assertEquals(rows.get(1).getId(), cursor.getId());
+        verify(salesOpportunityRepository).pageOpportunities(eq("%100!%!_x%"), isNull(), isNull(),
+                argThat(pageable -> pageable.getPageSize() == 3));
+    }
+
+    @Test
+    @DisplayName("分页查询销售机会 - 按游标查询下一页，最后一页没有游标")
+    void testPageSalesOpportunities_LastPage() {
+        // Given
+        KeysetCursor after = new KeysetCursor(LocalDateTime.of(2024, 5, 1, 9, 58, 0, 123_000), UUID.randomUUID());
+        when(salesOpportunityRepository.pageOpportunities(isNull(), eq(after.getCreateTime()), eq(after.getId()), any()))
+                .thenReturn(List.of(listItem("D", after.getCreateTime().minusMinutes(1))));
+
+        // When
+        CursorPage<SalesOpportunityListItem> page = salesService.pageSalesOpportunities(null, after.encode(), null);
+
+        // Then
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        verify(salesOpportunityRepository).pageOpportunities(isNull(), any(), any(),
+                argThat(pageable -> pageable.getPageSize() == KeysetCursor.DEFAULT_SIZE + 1));
+    }
+
+    @Test
+    @DisplayName("分页查询销售机会 - 游标无效或每页条数超出上限")
+    void testPageSalesOpportunities_InvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> salesService.pageSalesOpportunities(null, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> salesService.pageSalesOpportunities(null, null, 0));
+
+        when(salesOpportunityRepository.pageOpportunities(any(), any(), any(), any())).thenReturn(List.of());
+        salesService.pageSalesOpportunities(null, null, 10_000);
+        verify(salesOpportunityRepository).pageOpportunities(any(), any(), any(),
+                argThat(pageable -> pageable.getPageSize() == KeysetCursor.MAX_SIZE + 1));
+    }
 }
 
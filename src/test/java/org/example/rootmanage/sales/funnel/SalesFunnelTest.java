@@ -0,0 +1,253 @@
+package org.example.rootmanage.sales.funnel;
+
+import org.example.rootmanage.sales.SalesOpportunityAssignmentRepository;
+import org.example.rootmanage.sales.SalesOpportunityRepository;
+import org.example.rootmanage.sales.SalesOpportunityStageChangeRepository;
+import org.example.rootmanage.sales.dto.SalesFunnelRow;
+import org.example.rootmanage.sales.dto.SalesStageTransitionRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 销售漏斗汇总测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("销售漏斗汇总测试")
+class SalesFunnelTest {
+
+    @Mock
+    private SalesOpportunityRepository opportunityRepository;
+
+    @Mock
+    private SalesOpportunityAssignmentRepository assignmentRepository;
+
+    @Mock
+    private SalesOpportunityStageChangeRepository stageChangeRepository;
+
+    @InjectMocks
+    private SalesFunnel salesFunnel;
+
+    private final UUID east = UUID.randomUUID();
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private final UUID lead = UUID.randomUUID();
+    private final UUID proposal = UUID.randomUUID();
+
+    private UUID wonId;
+    private UUID lostId;
+    private UUID openId;
+
+    @BeforeEach
+    void setUp() {
+        wonId = UUID.randomUUID();
+        lostId = UUID.randomUUID();
+        openId = UUID.randomUUID();
+    }
+
+    private static OpportunityFact fact(UUID id, String date, UUID salesperson, UUID stage, String amount,
+                                        String status, String closeReason) {
+        return new OpportunityFact(id, LocalDate.parse(date), salesperson, stage, new BigDecimal(amount), status, null,
+                closeReason);
+    }
+
+    private static SalesFunnelRow row(List<SalesFunnelRow> rows, Object key) {
+        return rows.stream().filter(r -> String.valueOf(key).equals(String.valueOf(r.getKey()))).findFirst().orElseThrow();
+    }
+
+    private void givenHistory() {
+        when(opportunityRepository.findFunnelFacts()).thenReturn(List.of(
+                fact(wonId, "2024-05-03", alice, proposal, "100", "已成交", null),
+                fact(lostId, "2024-05-20", alice, lead, "40", "进行中", "客户预算取消"),
+                fact(openId, "2024-06-01", bob, lead, "60", "进行中", null)));
+        when(assignmentRepository.findAreaFacts()).thenReturn(List.of(
+                new OpportunityAreaFact(wonId, east),
+                new OpportunityAreaFact(lostId, east),
+                new OpportunityAreaFact(wonId, UUID.randomUUID())));
+        when(stageChangeRepository.findTransitionFacts()).thenReturn(List.of(
+                new StageTransitionFact(wonId, lead, proposal, 86_400L * 3),
+                new StageTransitionFact(openId, null, lead, 86_400L)));
+    }
+
+    @Test
+    @DisplayName("按维度汇总 - 机会数、金额、赢单率")
+    void testAggregate() {
+        // Given
+        givenHistory();
+
+        // When
+        List<SalesFunnelRow> byPerson = salesFunnel.aggregate(FunnelDimension.SALESPERSON, null, null);
+        List<SalesFunnelRow> byArea = salesFunnel.aggregate(FunnelDimension.AREA, null, null);
+        List<SalesFunnelRow> byMonth = salesFunnel.aggregate(FunnelDimension.MONTH,
+                LocalDate.parse("2024-05-10"), LocalDate.parse("2024-05-10"));
+        List<SalesFunnelRow> june = salesFunnel.aggregate(FunnelDimension.STAGE,
+                LocalDate.parse("2024-06-15"), null);
+
+        // Then
+        SalesFunnelRow aliceRow = row(byPerson, alice);
+        assertEquals(2, aliceRow.getOpportunityCount());
+        assertEquals(0, new BigDecimal("140").compareTo(aliceRow.getEstimatedAmount()));
+        assertEquals(1, aliceRow.getWonCount());
+        assertEquals(1, aliceRow.getLostCount());
+        assertEquals(0, new BigDecimal("0.5").compareTo(aliceRow.getWinRate()));
+        assertNull(row(byPerson, bob).getWinRate());
+        // 第一条分配的片区作为机会所属片区，未分配片区的机会单独一行
+        assertEquals(2, row(byArea, east).getOpportunityCount());
+        assertNull(byArea.get(byArea.size() - 1).getKey());
+        assertEquals(1, byArea.get(byArea.size() - 1).getOpportunityCount());
+        // 日期范围按月对齐
+        assertEquals(1, byMonth.size());
+        assertEquals("2024-05", byMonth.get(0).getKey());
+        assertEquals(2, byMonth.get(0).getOpportunityCount());
+        assertEquals(1, june.size());
+        assertEquals(lead.toString(), june.get(0).getKey());
+        verify(opportunityRepository, times(1)).findFunnelFacts();
+    }
+
+    @Test
+    @DisplayName("增量刷新 - 替换机会的旧贡献，删除后移除")
+    void testRefresh() {
+        // Given
+        givenHistory();
+        salesFunnel.aggregate(FunnelDimension.STAGE, null, null);
+        when(opportunityRepository.findFunnelFacts(openId))
+                .thenReturn(List.of(fact(openId, "2024-06-01", bob, proposal, "80", "已成交", null)));
+        when(stageChangeRepository.findTransitionFacts(openId)).thenReturn(List.of(
+                new StageTransitionFact(openId, null, lead, 86_400L),
+                new StageTransitionFact(openId, lead, proposal, 86_400L)));
+        when(opportunityRepository.findFunnelFacts(lostId)).thenReturn(List.of());
+
+        // When
+        salesFunnel.refreshAfterCommit(openId);
+        salesFunnel.refreshAfterCommit(lostId);
+        List<SalesFunnelRow> byStage = salesFunnel.aggregate(FunnelDimension.STAGE, null, null);
+        List<SalesStageTransitionRow> transitions = salesFunnel.stageTransitions();
+
+        // Then
+        assertEquals(1, byStage.size());
+        SalesFunnelRow proposalRow = row(byStage, proposal);
+        assertEquals(2, proposalRow.getOpportunityCount());
+        assertEquals(0, new BigDecimal("180").compareTo(proposalRow.getEstimatedAmount()));
+        assertEquals(0, BigDecimal.ONE.compareTo(proposalRow.getWinRate()));
+        SalesStageTransitionRow leadToProposal = transitions.get(0);
+        assertEquals(lead, leadToProposal.getFromStageId());
+        assertEquals(2, leadToProposal.getTransitionCount());
+        assertEquals(0, new BigDecimal("2").compareTo(leadToProposal.getAverageDays()));
+        assertEquals(2, salesFunnel.stats().getOpportunities());
+    }
+
+    @Test
+    @DisplayName("增量刷新 - 未加载时不查库，刷新失败不抛出")
+    void testRefresh_NotLoadedOrFailed() {
+        // Given
+        salesFunnel.refreshAfterCommit(openId);
+        verifyNoInteractions(opportunityRepository);
+        givenHistory();
+        salesFunnel.aggregate(FunnelDimension.STAGE, null, null);
+        when(opportunityRepository.findFunnelFacts(openId)).thenThrow(new IllegalStateException("连接已关闭"));
+
+        // When
+        assertDoesNotThrow(() -> salesFunnel.refreshAfterCommit(openId));
+
+        // Then
+        verify(opportunityRepository, times(1)).findFunnelFacts(openId);
+        assertEquals(3, salesFunnel.stats().getOpportunities());
+    }
+
+    @Test
+    @DisplayName("全量重算失败 - 不再记录加载期间的刷新，下次查询重新加载")
+    void testReload_FailureResetsTracking() {
+        // Given
+        when(assignmentRepository.findAreaFacts()).thenThrow(new IllegalStateException("连接已关闭"));
+
+        // When
+        assertThrows(IllegalStateException.class, () -> salesFunnel.aggregate(FunnelDimension.STAGE, null, null));
+        salesFunnel.refreshAfterCommit(openId);
+
+        // Then
+        // 未加载也未在加载中，刷新不查库
+        verify(opportunityRepository, never()).findFunnelFacts(any(UUID.class));
+        assertEquals(0, salesFunnel.stats().getOpportunities());
+        reset(assignmentRepository);
+        givenHistory();
+        assertEquals(2, salesFunnel.aggregate(FunnelDimension.STAGE, null, null).size());
+    }
+
+    @Test
+    @DisplayName("全量重算 - 修正偏差并统计偏差数")
+    void testReconcile() {
+        // Given
+        givenHistory();
+        salesFunnel.aggregate(FunnelDimension.STAGE, null, null);
+        // 其他实例修改了机会金额，本实例未收到刷新
+        when(opportunityRepository.findFunnelFacts()).thenReturn(List.of(
+                fact(wonId, "2024-05-03", alice, proposal, "120", "已成交", null),
+                fact(lostId, "2024-05-20", alice, lead, "40", "进行中", "客户预算取消"),
+                fact(openId, "2024-06-01", bob, lead, "60", "进行中", null)));
+
+        // When
+        salesFunnel.reconcile();
+
+        // Then
+        assertEquals(1, salesFunnel.stats().getLastDrift());
+        assertEquals(2, salesFunnel.stats().getReconciles());
+        assertEquals(0, new BigDecimal("160").compareTo(
+                row(salesFunnel.aggregate(FunnelDimension.SALESPERSON, null, null), alice).getEstimatedAmount()));
+    }
+
+    @Test
+    @DisplayName("批量刷新 - 机会较多时改为全量重算，未加载时不加载")
+    void testBulkRefresh() {
+        // Given
+        List<UUID> many = new ArrayList<>();
+        for (int i = 0; i < 201; i++) {
+            many.add(UUID.randomUUID());
+        }
+        salesFunnel.refreshAfterCommit(many);
+        verifyNoInteractions(opportunityRepository);
+        givenHistory();
+        salesFunnel.aggregate(FunnelDimension.STAGE, null, null);
+
+        // When
+        salesFunnel.refreshAfterCommit(many);
+
+        // Then
+        verify(opportunityRepository, times(2)).findFunnelFacts();
+        verify(opportunityRepository, never()).findFunnelFacts(any(UUID.class));
+        assertEquals(2, salesFunnel.stats().getReconciles());
+    }
+
+    @Test
+    @DisplayName("批量刷新 - 机会较少时逐个刷新，未加载时不查库")
+    void testBulkRefresh_FewOpportunities() {
+        // Given
+        salesFunnel.refreshAfterCommit(List.of(openId, lostId));
+        verifyNoInteractions(opportunityRepository, assignmentRepository, stageChangeRepository);
+        givenHistory();
+        salesFunnel.aggregate(FunnelDimension.STAGE, null, null);
+        when(opportunityRepository.findFunnelFacts(any(UUID.class))).thenReturn(List.of());
+
+        // When
+        salesFunnel.refreshAfterCommit(List.of(openId, lostId));
+
+        // Then
+        verify(opportunityRepository).findFunnelFacts(openId);
+        verify(opportunityRepository).findFunnelFacts(lostId);
+        verify(opportunityRepository, times(1)).findFunnelFacts();
+        assertEquals(1, salesFunnel.stats().getOpportunities());
+    }
+}
@@ -0,0 +1,218 @@
+package org.example.rootmanage.sales.inventory;
+
+import org.example.rootmanage.sales.SalesInventoryMovementRepository;
+import org.example.rootmanage.sales.SalesInventoryRepository;
+import org.example.rootmanage.sales.entity.InventoryMovementType;
+import org.example.rootmanage.sales.entity.SalesInventory;
+import org.example.rootmanage.sales.entity.SalesInventoryMovement;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存记账测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("库存记账测试")
+class SalesInventoryLedgerTest {
+
+    @Mock
+    private SalesInventoryRepository salesInventoryRepository;
+
+    @Mock
+    private SalesInventoryMovementRepository salesInventoryMovementRepository;
+
+    @InjectMocks
+    private SalesInventoryLedger salesInventoryLedger;
+
+    private static SalesInventory inventory(UUID id) {
+        SalesInventory inventory = new SalesInventory();
+        inventory.setId(id);
+        return inventory;
+    }
+
+    private List<SalesInventoryMovement> savedMovements(int count) {
+        ArgumentCaptor<SalesInventoryMovement> captor = ArgumentCaptor.forClass(SalesInventoryMovement.class);
+        verify(salesInventoryMovementRepository, times(count)).save(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    @DisplayName("降库 - 按ID顺序尝试，第一条库存不足时扣减下一条，按单价扣减总价值并记流水")
+    void testReduce_FallsBackToNextInventory() {
+        // Given
+        UUID reductionId = UUID.randomUUID();
+        UUID productId = UUID.randomUUID();
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        when(salesInventoryRepository.findLedgerIds(productId, null)).thenReturn(List.of(second, first));
+        when(salesInventoryRepository.reduce(eq(first), eq(5), any())).thenReturn(0);
+        when(salesInventoryRepository.reduce(eq(second), eq(5), any())).thenReturn(1);
+        when(salesInventoryRepository.findBalance(second)).thenReturn(Optional.of(
+                new InventoryBalance(15, 10, null, new BigDecimal("2.50"), new BigDecimal("37.50"))));
+        when(salesInventoryRepository.getReferenceById(second)).thenReturn(inventory(second));
+
+        // When
+        salesInventoryLedger.reduce(reductionId, productId, null, 5);
+
+        // Then
+        InOrder order = inOrder(salesInventoryRepository);
+        order.verify(salesInventoryRepository).reduce(eq(first), eq(5), any());
+        order.verify(salesInventoryRepository).reduce(eq(second), eq(5), any());
+        SalesInventoryMovement movement = savedMovements(1).get(0);
+        assertEquals(second, movement.getInventory().getId());
+        assertEquals(InventoryMovementType.REDUCTION, movement.getMovementType());
+        assertEquals(reductionId, movement.getReferenceId());
+        assertEquals(-5, movement.getQuantityDelta());
+        assertEquals(-5, movement.getAvailableDelta());
+        assertEquals(0, movement.getReservedDelta());
+        assertEquals(0, new BigDecimal("-12.50").compareTo(movement.getValueDelta()));
+        assertEquals(10, movement.getAvailableAfter());
+        assertEquals(0, movement.getReservedAfter());
+    }
+
+    @Test
+    @DisplayName("降库 - 所有库存记录可用数量不足")
+    void testReduce_Insufficient() {
+        // Given
+        UUID productId = UUID.randomUUID();
+        when(salesInventoryRepository.findLedgerIds(productId, null)).thenReturn(List.of(UUID.randomUUID()));
+        when(salesInventoryRepository.reduce(any(), anyInt(), any())).thenReturn(0);
+
+        // When
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> salesInventoryLedger.reduce(UUID.randomUUID(), productId, null, 5));
+
+        // Then
+        assertEquals("可用库存不足，降库数量：5", exception.getMessage());
+        verify(salesInventoryMovementRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("修改降库 - 冲回与扣减涉及的库存记录先按ID顺序加锁，再冲回、扣减")
+    void testReapplyReduction_LocksInIdOrder() {
+        // Given
+        UUID reductionId = UUID.randomUUID();
+        UUID productId = UUID.randomUUID();
+        UUID low = new UUID(0, 1);
+        UUID previous = new UUID(0, 2);
+        UUID high = new UUID(0, 3);
+        when(salesInventoryMovementRepository.sumByReference(reductionId)).thenReturn(List.of(
+                new InventoryDelta(previous, -5L, -5L, 0L, new BigDecimal("-12.50"))));
+        when(salesInventoryRepository.findLedgerIds(productId, null)).thenReturn(List.of(high, low));
+        when(salesInventoryRepository.reduce(eq(low), eq(3), any())).thenReturn(1);
+        when(salesInventoryRepository.getReferenceById(any())).thenAnswer(invocation -> inventory(invocation.getArgument(0)));
+        when(salesInventoryRepository.findBalance(any())).thenReturn(Optional.of(
+                new InventoryBalance(10, 10, 0, new BigDecimal("2.50"), new BigDecimal("25.00"))));
+
+        // When
+        salesInventoryLedger.reapplyReduction(reductionId, productId, null, 3);
+
+        // Then
+        InOrder order = inOrder(salesInventoryRepository);
+        order.verify(salesInventoryRepository).findByIdForUpdate(low);
+        order.verify(salesInventoryRepository).findByIdForUpdate(previous);
+        order.verify(salesInventoryRepository).findByIdForUpdate(high);
+        order.verify(salesInventoryRepository).applyDelta(eq(previous), eq(5), eq(5), eq(0), any(), any());
+        order.verify(salesInventoryRepository).reduce(eq(low), eq(3), any());
+        verify(salesInventoryRepository, never()).reduce(eq(high), anyInt(), any());
+        List<SalesInventoryMovement> movements = savedMovements(2);
+        assertEquals(InventoryMovementType.REDUCTION_REVERSAL, movements.get(0).getMovementType());
+        assertEquals(InventoryMovementType.REDUCTION, movements.get(1).getMovementType());
+    }
+
+    @Test
+    @DisplayName("批量预留 - 按库存记录ID顺序加锁，某行不足时抛出异常")
+    void testReserve_OrderedAndAllOrNothing() {
+        // Given
+        UUID quotationId = UUID.randomUUID();
+        UUID low = new UUID(0, 1);
+        UUID high = new UUID(0, 2);
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(high, 4);
+        quantities.put(low, 2);
+        when(salesInventoryRepository.reserve(eq(low), eq(2), any())).thenReturn(1);
+        when(salesInventoryRepository.reserve(eq(high), eq(4), any())).thenReturn(0);
+        when(salesInventoryRepository.existsById(high)).thenReturn(true);
+        when(salesInventoryRepository.getReferenceById(low)).thenReturn(inventory(low));
+        when(salesInventoryRepository.findBalance(low)).thenReturn(Optional.of(
+                new InventoryBalance(10, 6, 4, null, null)));
+
+        // When
+        assertThrows(IllegalStateException.class, () -> salesInventoryLedger.reserve(quotationId, quantities));
+
+        // Then
+        InOrder order = inOrder(salesInventoryRepository);
+        order.verify(salesInventoryRepository).reserve(eq(low), eq(2), any());
+        order.verify(salesInventoryRepository).reserve(eq(high), eq(4), any());
+        SalesInventoryMovement movement = savedMovements(1).get(0);
+        assertEquals(InventoryMovementType.RESERVATION, movement.getMovementType());
+        assertEquals(-2, movement.getAvailableDelta());
+        assertEquals(2, movement.getReservedDelta());
+    }
+
+    @Test
+    @DisplayName("释放预留 - 按流水净变化量反向记账，已释放的跳过")
+    void testRelease_ReversesNetDelta() {
+        // Given
+        UUID quotationId = UUID.randomUUID();
+        UUID reserved = UUID.randomUUID();
+        UUID alreadyReleased = UUID.randomUUID();
+        when(salesInventoryMovementRepository.sumByReference(quotationId)).thenReturn(List.of(
+                new InventoryDelta(reserved, 0L, -3L, 3L, BigDecimal.ZERO),
+                new InventoryDelta(alreadyReleased, 0L, 0L, 0L, BigDecimal.ZERO)));
+        when(salesInventoryRepository.getReferenceById(reserved)).thenReturn(inventory(reserved));
+        when(salesInventoryRepository.findBalance(reserved)).thenReturn(Optional.of(
+                new InventoryBalance(10, 10, 0, null, null)));
+
+        // When
+        salesInventoryLedger.release(quotationId);
+
+        // Then
+        verify(salesInventoryRepository, times(1)).applyDelta(eq(reserved), eq(0), eq(3), eq(-3), any(), any());
+        verify(salesInventoryRepository, never()).applyDelta(eq(alreadyReleased), anyInt(), anyInt(), anyInt(), any(), any());
+        SalesInventoryMovement movement = savedMovements(1).get(0);
+        assertEquals(InventoryMovementType.RELEASE, movement.getMovementType());
+        assertEquals(quotationId, movement.getReferenceId());
+    }
+
+    @Test
+    @DisplayName("重算总价值 - 期初结存加流水变化合计")
+    void testRecomputeTotalValue() {
+        // Given
+        UUID inventoryId = UUID.randomUUID();
+        SalesInventory inventory = inventory(inventoryId);
+        inventory.setTotalValue(new BigDecimal("999"));
+        SalesInventoryMovement first = new SalesInventoryMovement();
+        first.setValueDelta(new BigDecimal("-20"));
+        first.setValueAfter(new BigDecimal("80"));
+        when(salesInventoryRepository.findByIdForUpdate(inventoryId)).thenReturn(Optional.of(inventory));
+        when(salesInventoryMovementRepository.findFirstByInventoryIdOrderByCreateTimeAscIdAsc(inventoryId))
+                .thenReturn(Optional.of(first));
+        when(salesInventoryMovementRepository.sumValueDelta(inventoryId)).thenReturn(new BigDecimal("-35"));
+
+        // When
+        SalesInventory result = salesInventoryLedger.recomputeTotalValue(inventoryId);
+
+        // Then
+        assertEquals(0, new BigDecimal("65").compareTo(result.getTotalValue()));
+    }
+}
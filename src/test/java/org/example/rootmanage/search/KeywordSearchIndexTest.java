@@ -0,0 +1,256 @@
+package org.example.rootmanage.search;
+
+import org.example.rootmanage.basicinfo.CustomerRepository;
+import org.example.rootmanage.basicinfo.MarketingPersonnelRepository;
+import org.example.rootmanage.basicinfo.entity.Customer;
+import org.example.rootmanage.sales.BiddingRepository;
+import org.example.rootmanage.sales.SalesOpportunityRepository;
+import org.example.rootmanage.sales.SalesQuotationRepository;
+import org.example.rootmanage.sales.entity.Bidding;
+import org.example.rootmanage.sales.entity.SalesOpportunity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 关键词检索索引测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("关键词检索索引测试")
+class KeywordSearchIndexTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private MarketingPersonnelRepository marketingPersonnelRepository;
+
+    @Mock
+    private SalesOpportunityRepository salesOpportunityRepository;
+
+    @Mock
+    private SalesQuotationRepository salesQuotationRepository;
+
+    @Mock
+    private BiddingRepository biddingRepository;
+
+    @InjectMocks
+    private KeywordSearchIndex keywordSearchIndex;
+
+    private static Customer customer(UUID id, String name) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setCustomerName(name);
+        return customer;
+    }
+
+    private static List<SalesOpportunity> opportunities(List<UUID> ids) {
+        return ids.stream().map(id -> {
+            SalesOpportunity opportunity = new SalesOpportunity();
+            opportunity.setId(id);
+            return opportunity;
+        }).toList();
+    }
+
+    private static List<Bidding> biddings(List<UUID> ids) {
+        return ids.stream().map(id -> {
+            Bidding bidding = new Bidding();
+            bidding.setId(id);
+            return bidding;
+        }).toList();
+    }
+
+    /**
+     * 模拟 findAllById：按 ID 倒序返回（与检索结果顺序无关），忽略不存在的ID
+     */
+    private static List<Customer> loadAll(Map<UUID, Customer> table, List<UUID> ids) {
+        List<Customer> result = new ArrayList<>();
+        ids.stream().sorted(Comparator.reverseOrder()).forEach(id -> {
+            if (table.containsKey(id)) {
+                result.add(table.get(id));
+            }
+        });
+        return result;
+    }
+
+    @Test
+    @DisplayName("关键词检索 - 与 LIKE 包含匹配一致，按相关度排序")
+    void testSearch_MatchesAndRanks() {
+        // Given
+        UUID exact = UUID.randomUUID();
+        UUID prefix = UUID.randomUUID();
+        UUID contactOnly = UUID.randomUUID();
+        UUID contains = UUID.randomUUID();
+        UUID scattered = UUID.randomUUID();
+        when(customerRepository.findSearchDocuments()).thenReturn(List.of(
+                new SearchDocument(contains, "江苏华能泵业有限公司", "王经理", "13800000000"),
+                new SearchDocument(scattered, "华东能源集团", "张华能", null),
+                new SearchDocument(contactOnly, "南京机电", "对接人华能", "021-6000"),
+                new SearchDocument(prefix, "华能国际电力", null, null),
+                new SearchDocument(exact, "华能", "李工", null)));
+        Map<UUID, Customer> table = new HashMap<>();
+        for (UUID id : List.of(exact, prefix, contactOnly, contains, scattered)) {
+            table.put(id, customer(id, id.toString()));
+        }
+
+        // When
+        List<Customer> result = keywordSearchIndex.search(SearchDomain.CUSTOMER, "华能",
+                ids -> loadAll(table, ids)).orElseThrow();
+        List<Customer> phone = keywordSearchIndex.search(SearchDomain.CUSTOMER, "6000",
+                ids -> loadAll(table, ids)).orElseThrow();
+        List<Customer> none = keywordSearchIndex.search(SearchDomain.CUSTOMER, "华能泵业集团",
+                ids -> loadAll(table, ids)).orElseThrow();
+
+        // Then
+        // 名称相同 > 名称前缀 > 名称包含 > 仅联系人包含（同分时保持加入顺序）；"华东能源集团" 中华、能不相邻，靠联系人命中
+        assertEquals(List.of(exact, prefix, contains, scattered, contactOnly),
+                result.stream().map(Customer::getId).toList());
+        assertEquals(List.of(contactOnly), phone.stream().map(Customer::getId).toList());
+        assertTrue(none.isEmpty());
+        verify(customerRepository, times(1)).findSearchDocuments();
+    }
+
+    @Test
+    @DisplayName("关键词检索 - 单字、大小写不敏感")
+    void testSearch_SingleCharAndCase() {
+        // Given
+        UUID pump = UUID.randomUUID();
+        UUID fan = UUID.randomUUID();
+        when(biddingRepository.findSearchDocuments()).thenReturn(List.of(
+                new SearchDocument(pump, "BID-2024-001", "罗茨泵改造项目", "华能"),
+                new SearchDocument(fan, "bid-2024-002", "风机采购", "大唐")));
+
+        // When
+        List<UUID> single = keywordSearchIndex.search(SearchDomain.BIDDING, "泵", KeywordSearchIndexTest::biddings)
+                .orElseThrow().stream().map(Bidding::getId).toList();
+        List<UUID> mixedCase = keywordSearchIndex.search(SearchDomain.BIDDING, "Bid-2024", KeywordSearchIndexTest::biddings)
+                .orElseThrow().stream().map(Bidding::getId).toList();
+
+        // Then
+        assertEquals(List.of(pump), single);
+        assertEquals(List.of(pump, fan), mixedCase);
+    }
+
+    @Test
+    @DisplayName("增量更新 - 提交后按ID更新、删除文档，不全量重建；关闭索引时回退到 LIKE 查询")
+    void testRefreshAndDisable() {
+        // Given
+        UUID renamed = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        UUID created = UUID.randomUUID();
+        when(customerRepository.findSearchDocuments()).thenReturn(List.of(
+                new SearchDocument(renamed, "旧名称", null, null),
+                new SearchDocument(deleted, "名称待删除", null, null)));
+        when(customerRepository.findSearchDocuments(List.of(renamed)))
+                .thenReturn(List.of(new SearchDocument(renamed, "新名称", null, null)));
+        when(customerRepository.findSearchDocuments(List.of(deleted))).thenReturn(List.of());
+        when(customerRepository.findSearchDocuments(List.of(created)))
+                .thenReturn(List.of(new SearchDocument(created, "新名称有限公司", null, null)));
+        Map<UUID, Customer> table = new HashMap<>();
+        for (UUID id : List.of(renamed, deleted, created)) {
+            table.put(id, customer(id, id.toString()));
+        }
+
+        // When
+        List<Customer> before = keywordSearchIndex.search(SearchDomain.CUSTOMER, "新名称",
+                ids -> loadAll(table, ids)).orElseThrow();
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.CUSTOMER, renamed);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.CUSTOMER, deleted);
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.CUSTOMER, created);
+        List<Customer> after = keywordSearchIndex.search(SearchDomain.CUSTOMER, "名称",
+                ids -> loadAll(table, ids)).orElseThrow();
+        List<Customer> old = keywordSearchIndex.search(SearchDomain.CUSTOMER, "旧名称",
+                ids -> loadAll(table, ids)).orElseThrow();
+        ReflectionTestUtils.setField(keywordSearchIndex, "enabled", false);
+        Optional<List<Customer>> disabled = keywordSearchIndex.search(SearchDomain.CUSTOMER, "新名称",
+                ids -> loadAll(table, ids));
+
+        // Then
+        assertTrue(before.isEmpty());
+        // 同为包含命中，最近变更的在前
+        assertEquals(List.of(created, renamed), after.stream().map(Customer::getId).toList());
+        assertTrue(old.isEmpty());
+        assertTrue(disabled.isEmpty());
+        verify(customerRepository, times(1)).findSearchDocuments();
+    }
+
+    @Test
+    @DisplayName("增量更新 - 未加载的类别不查库；客户改名时更新其销售机会文档")
+    void testRefreshCustomerName() {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        UUID opportunityId = UUID.randomUUID();
+        when(salesOpportunityRepository.findSearchDocuments()).thenReturn(List.of(
+                new SearchDocument(opportunityId, "泵站改造", "旧客户")));
+        when(salesOpportunityRepository.findSearchDocumentsByCustomerId(customerId)).thenReturn(List.of(
+                new SearchDocument(opportunityId, "泵站改造", "新客户")));
+
+        // When
+        keywordSearchIndex.refreshAfterCommit(SearchDomain.CUSTOMER, customerId);
+        List<UUID> before = keywordSearchIndex.search(SearchDomain.SALES_OPPORTUNITY, "新客户",
+                KeywordSearchIndexTest::opportunities).orElseThrow().stream().map(SalesOpportunity::getId).toList();
+        keywordSearchIndex.refreshCustomerNameAfterCommit(customerId);
+        List<UUID> after = keywordSearchIndex.search(SearchDomain.SALES_OPPORTUNITY, "新客户",
+                KeywordSearchIndexTest::opportunities).orElseThrow().stream().map(SalesOpportunity::getId).toList();
+
+        // Then
+        assertTrue(before.isEmpty());
+        assertEquals(List.of(opportunityId), after);
+        verify(customerRepository, never()).findSearchDocuments(any());
+        verify(salesQuotationRepository, never()).findSearchDocumentsByCustomerId(any());
+        verify(salesOpportunityRepository, times(1)).findSearchDocuments();
+    }
+
+    @Test
+    @DisplayName("全量加载 - 并发的首次检索只查库一次，加载期间提交的变更不会丢失")
+    void testLoad_SingleFlight() throws Exception {
+        // Given
+        UUID existing = UUID.randomUUID();
+        UUID created = UUID.randomUUID();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(biddingRepository.findSearchDocuments()).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of(new SearchDocument(existing, "BID-001", "泵站改造", "华能"));
+        });
+        when(biddingRepository.findSearchDocuments(List.of(created))).thenReturn(List.of(
+                new SearchDocument(created, "BID-002", "泵站扩建", "华能")));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            Future<List<Bidding>> first = executor.submit(() -> keywordSearchIndex.search(SearchDomain.BIDDING, "泵站",
+                    KeywordSearchIndexTest::biddings).orElseThrow());
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<List<Bidding>> second = executor.submit(() -> keywordSearchIndex.search(SearchDomain.BIDDING, "泵站",
+                    KeywordSearchIndexTest::biddings).orElseThrow());
+            keywordSearchIndex.refreshAfterCommit(SearchDomain.BIDDING, created);
+            release.countDown();
+
+            // Then
+            assertEquals(List.of(created, existing),
+                    first.get(5, TimeUnit.SECONDS).stream().map(Bidding::getId).toList());
+            assertEquals(List.of(created, existing),
+                    second.get(5, TimeUnit.SECONDS).stream().map(Bidding::getId).toList());
+            verify(biddingRepository, times(1)).findSearchDocuments();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}